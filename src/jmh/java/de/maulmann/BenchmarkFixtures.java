@@ -0,0 +1,97 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardData;
+import de.maulmann.CardPageGenerator.CardIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Realistic benchmark inputs derived from content/json/cards.json: the card list and index as the generator
+ * builds them, one representative card with its neighbour lists, and a rendered card page for the
+ * minifier and compressor benchmarks. Run from the project root so the content paths resolve.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFixtures {
+    static final String CARDS_JSON = "content/json/cards.json";
+    static final String OVERVIEW_PAGE = "Juwan-Howard-Collection.html";
+
+    List<CardData> cards;
+    CardIndex cardIndex;
+    RelatedCardsEngine relatedEngine;
+
+    CardData card;
+    CardData prevCard;
+    CardData nextCard;
+    List<Map<String, String>> sameBrandCards;
+    List<Map<String, String>> sameCompanyCards;
+    List<Map<String, String>> relatedCards;
+
+    Path outputDir;
+    Path pagePath;
+    String pageHtml;
+    byte[] pageBytes;
+    File cssFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        cards = new ArrayList<>();
+        for (CardJson json : CardDataLoader.loadCardsFromJson(CARDS_JSON)) {
+            cards.add(new CardData(json, null));
+        }
+        if (cards.isEmpty()) {
+            throw new IllegalStateException("No cards found in " + CARDS_JSON + "; run the benchmarks from the project root.");
+        }
+        cardIndex = new CardIndex(cards);
+        relatedEngine = new RelatedCardsEngine(cards);
+
+        // A card from the middle of the list has both neighbours and a typical number of related cards
+        int index = cards.size() / 2;
+        card = cards.get(index);
+        prevCard = index > 0 ? cards.get(index - 1) : null;
+        nextCard = index < cards.size() - 1 ? cards.get(index + 1) : null;
+        sameBrandCards = CardPageGenerator.findSameBrandCards(card, cardIndex, 6);
+        Set<String> brandCardIds = sameBrandCards.stream().map(m -> m.get("stableId")).filter(Objects::nonNull).collect(Collectors.toSet());
+        sameCompanyCards = CardPageGenerator.findSameCompanyCards(card, cardIndex, brandCardIds, 6);
+        relatedCards = CardPageGenerator.findRelatedCards(card, relatedEngine, 6);
+
+        outputDir = Files.createTempDirectory("card-bench");
+        pagePath = outputDir.resolve(card.seasonFolder).resolve(card.filename);
+        renderPage().write();
+        pageHtml = Files.readString(pagePath, StandardCharsets.UTF_8);
+        pageBytes = pageHtml.getBytes(StandardCharsets.UTF_8);
+
+        cssFile = Paths.get("src/main/resources/css/main.css").toFile();
+    }
+
+    PageRenderEngine.PageWrite renderPage() throws Exception {
+        return CardPageGenerator.renderSubPage(card, pagePath, prevCard, nextCard, OVERVIEW_PAGE,
+                sameBrandCards, sameCompanyCards, relatedCards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-card generation hot paths: page rendering, JSON-LD, trivia lookup and the related-card index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardGenerationBenchmark {
+
+    @Benchmark
+    public void renderCardPage(BenchmarkFixtures f) throws Exception {
+        f.renderPage().write();
+    }
+
+    @Benchmark
+    public String generateJsonLd(BenchmarkFixtures f) {
+        String h1Title = CardPageGenerator.generateH1(f.card);
+        String metaDesc = CardPageGenerator.generateMetaDescription(f.card);
+        return CardSchemaGenerator.generateJsonLd(f.card, metaDesc, h1Title, BenchmarkFixtures.OVERVIEW_PAGE,
+                f.card.filenameBase, CardSchemaGenerator.computeFaqItems(f.card));
+    }
+
+    @Benchmark
+    public String getTrivia(BenchmarkFixtures f) {
+        return TriviaManager.getInstance().getTrivia("hobbyTrivia", f.card.attributes());
+    }
+
+    @Benchmark
+    public CardIndex buildCardIndex(BenchmarkFixtures f) {
+        return new CardIndex(f.cards);
+    }
+
+    @Benchmark
+    public RelatedCardsEngine buildRelatedCardsEngine(BenchmarkFixtures f) {
+        return new RelatedCardsEngine(f.cards);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> findRelatedCards(BenchmarkFixtures f) {
+        return CardPageGenerator.findRelatedCards(f.card, f.relatedEngine, 6);
+    }
+}
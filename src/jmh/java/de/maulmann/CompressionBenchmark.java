@@ -0,0 +1,57 @@
+package de.maulmann;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post-processing hot paths applied to every generated file: minification and pre-compression.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class BrotliQuality {
+        @Param({"4", "9", "11"})
+        int quality;
+    }
+
+    @Benchmark
+    public String minifyHtml(BenchmarkFixtures f) {
+        return HTMLMinifier.minifyHTML(f.pageHtml);
+    }
+
+    @Benchmark
+    public byte[] minifyHtmlBytes(BenchmarkFixtures f) {
+        return HTMLMinifier.minifyHTMLToBytes(f.pageBytes);
+    }
+
+    @Benchmark
+    public byte[] minifyCss(BenchmarkFixtures f) throws IOException {
+        return CSSMinifier.minifyCSSToBytes(f.cssFile);
+    }
+
+    @Benchmark
+    public byte[] brotli(BenchmarkFixtures f, BrotliQuality level) throws IOException {
+        return BrotliCompressor.compressBytes(f.pageBytes, level.quality);
+    }
+
+    @Benchmark
+    public byte[] gzip(BenchmarkFixtures f) throws IOException {
+        return GZIPCompressor.compressBytes(f.pageBytes, GZIPCompressor.BEST_COMPRESSION);
+    }
+}
@@ -0,0 +1,173 @@
+package de.maulmann;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Scaling benchmark: generates synthetic collections of increasing size and runs
+ * {@link SiteBuilderPipeline#buildLocalArtifacts} on each, once cold (empty output) and once warm (incremental),
+ * reporting wall time, allocation and peak RSS per phase. Every build runs in a fresh JVM, so peak RSS and
+ * out-of-memory failures belong to that build alone; a failing size is reported instead of aborting the run.
+ * <p>
+ * Usage, from the project root: {@code ScalingHarness [sizes] [--no-images] [--xmx=4g]},
+ * e.g. {@code ScalingHarness 10000,100000,1000000}. Workspaces are kept under target/scale/ and reused,
+ * the report is written to target/scale/scale-report.json.
+ */
+public final class ScalingHarness {
+    static final Path SCALE_DIR = Paths.get("target", "scale");
+    private static final String DEFAULT_SIZES = "10000,100000,1000000";
+    private static final String CHILD_FLAG = "--child";
+    private static final String[] SHARED_INPUTS = {"src", "content/other", "llms.txt"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * One build of one collection size; {@code exitCode != 0} means the build failed (phases are then empty).
+     */
+    public record BuildRun(int cards, String mode, int exitCode, long wallMillis, List<PhaseProfiler.PhaseStats> phases) {}
+
+    private ScalingHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals(CHILD_FLAG)) {
+            runChild(Paths.get(args[1]));
+            return;
+        }
+
+        String sizes = DEFAULT_SIZES;
+        boolean withImages = true;
+        String xmx = null;
+        for (String arg : args) {
+            if (arg.equals("--no-images")) {
+                withImages = false;
+            } else if (arg.startsWith("--xmx=")) {
+                xmx = arg.substring(6);
+            } else if (!arg.isBlank()) {
+                sizes = arg;
+            }
+        }
+
+        SyntheticCollectionGenerator generator = new SyntheticCollectionGenerator(
+                CardDataLoader.loadCardsFromJson(BenchmarkFixtures.CARDS_JSON), SyntheticCollectionGenerator.DEFAULT_SEED);
+        List<BuildRun> runs = new ArrayList<>();
+        for (String size : sizes.split(",")) {
+            int count = Integer.parseInt(size.trim());
+            Path workspace = prepareWorkspace(generator, count, withImages);
+            deleteRecursively(workspace.resolve("output"));
+            for (String mode : List.of("cold", "warm")) {
+                BuildRun run = runBuild(workspace, count, mode, xmx);
+                runs.add(run);
+                printRun(run);
+                if (run.exitCode() != 0) break;
+            }
+        }
+
+        Path report = SCALE_DIR.resolve("scale-report.json");
+        MAPPER.writeValue(report.toFile(), runs);
+        System.out.println("Report written to " + report.toAbsolutePath());
+    }
+
+    private static Path prepareWorkspace(SyntheticCollectionGenerator generator, int count, boolean withImages) throws IOException {
+        Path workspace = SCALE_DIR.resolve(String.valueOf(count)).toAbsolutePath();
+        Path marker = workspace.resolve(withImages ? ".generated-images" : ".generated");
+        if (!Files.exists(marker)) {
+            System.out.printf("Generating %,d synthetic cards in %s ...%n", count, workspace);
+            deleteRecursively(workspace);
+            generator.writeWorkspace(workspace, count, withImages);
+            Files.createFile(marker);
+        }
+        for (String input : SHARED_INPUTS) {
+            Path link = workspace.resolve(input);
+            if (!Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+                Files.createDirectories(link.getParent());
+                Files.createSymbolicLink(link, Paths.get(input).toAbsolutePath());
+            }
+        }
+        return workspace;
+    }
+
+    private static BuildRun runBuild(Path workspace, int count, String mode, String xmx) throws IOException, InterruptedException {
+        Path phasesFile = workspace.resolve("phases-" + mode + ".json");
+        Files.deleteIfExists(phasesFile);
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (xmx != null) {
+            command.add("-Xmx" + xmx);
+        }
+        command.add("--enable-native-access=ALL-UNNAMED");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScalingHarness.class.getName());
+        command.add(CHILD_FLAG);
+        command.add(phasesFile.toString());
+
+        System.out.printf("Building %,d cards (%s) ...%n", count, mode);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workspace.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workspace.resolve("build-" + mode + ".log").toFile())
+                .start();
+        int exitCode = process.waitFor();
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<PhaseProfiler.PhaseStats> phases = List.of();
+        if (exitCode == 0 && Files.exists(phasesFile)) {
+            phases = List.of(MAPPER.readValue(phasesFile.toFile(), PhaseProfiler.PhaseStats[].class));
+        }
+        return new BuildRun(count, mode, exitCode, wallMillis, phases);
+    }
+
+    /**
+     * Runs inside the workspace: one local build, phases written as JSON.
+     */
+    private static void runChild(Path phasesFile) throws IOException {
+        FileTracker tracker = new FileTracker("output/sync-hashes.bin");
+        TimestampTracker timeTracker = new TimestampTracker("output/generation-timestamps.bin");
+        PhaseProfiler.reset();
+        PhaseProfiler.measure("total", () -> SiteBuilderPipeline.buildLocalArtifacts(timeTracker, tracker));
+        tracker.save();
+        MAPPER.writeValue(phasesFile.toFile(), PhaseProfiler.getPhases());
+        // Services started by the build keep non-daemon threads alive
+        System.exit(0);
+    }
+
+    private static void printRun(BuildRun run) {
+        if (run.exitCode() != 0) {
+            System.out.printf("  %,d cards (%s) FAILED with exit code %d after %,d ms, see build-%s.log%n",
+                    run.cards(), run.mode(), run.exitCode(), run.wallMillis(), run.mode());
+            return;
+        }
+        System.out.printf("  %-22s %10s %12s %12s%n", "phase", "ms", "alloc MB", "peak RSS MB");
+        for (PhaseProfiler.PhaseStats phase : run.phases()) {
+            System.out.printf("  %-22s %,10d %,12d %,12d%n", phase.phase(), phase.wallMillis(),
+                    megabytes(phase.allocatedBytes()), megabytes(phase.peakRssBytes()));
+        }
+    }
+
+    private static long megabytes(long bytes) {
+        return bytes < 0 ? -1 : bytes >> 20;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) return;
+        // Files.walk does not follow the symlinked inputs, so only the links themselves are removed
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.maulmann;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.maulmann.CardPageGenerator.CardData;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic collections for scaling tests. Season, team, company, brand, theme, variant and flags
+ * are sampled from the real cards, so their distributions match the live collection; numbering, print runs and
+ * grading follow the observed rates. The same seed and size always produce the same cards.
+ * <p>
+ * Usage: {@code SyntheticCollectionGenerator <count> <workspace> [--no-images]}
+ */
+public final class SyntheticCollectionGenerator {
+    static final long DEFAULT_SEED = 0x5EED_CA4DL;
+    private static final String[] OTHER_BUCKETS = {"baseball.json", "flawless.json", "wantlist.json", "panini.json"};
+    private static final String[] GRADING_COMPANIES = {"PSA", "PSA", "PSA", "BGS", "SGC"};
+    private static final String[] GRADES = {"8", "9", "9", "10", "10"};
+
+    private final List<CardJson> realCards;
+    private final long seed;
+    private final double numberedRate;
+    private final int[] printRuns;
+    private final byte[][] placeholderImages;
+
+    public SyntheticCollectionGenerator(List<CardJson> realCards, long seed) throws IOException {
+        if (realCards.isEmpty()) {
+            throw new IllegalArgumentException("Real cards are needed as the sampling distribution.");
+        }
+        this.realCards = realCards;
+        this.seed = seed;
+        this.printRuns = realCards.stream().filter(c -> c.printRun != null && c.printRun > 0).mapToInt(c -> c.printRun).toArray();
+        this.numberedRate = (double) printRuns.length / realCards.size();
+        this.placeholderImages = new byte[][]{
+                placeholderJpeg(new Color(0x1D428A)), placeholderJpeg(new Color(0xC8102E)), placeholderJpeg(new Color(0x2F2F2F))
+        };
+    }
+
+    /**
+     * Creates a card per index. Card numbers are unique so the duplicate filter keeps every synthetic card.
+     */
+    CardJson card(SplittableRandom random, int index) {
+        CardJson template = realCards.get(random.nextInt(realCards.size()));
+        CardJson c = new CardJson();
+        c.id = "synthetic-" + index;
+        c.player = template.player;
+        c.collection = template.collection;
+        c.season = template.season;
+        c.team = template.team;
+        c.company = template.company;
+        c.brand = template.brand;
+        c.theme = template.theme;
+        c.variant = template.variant;
+        c.cardNumber = String.valueOf(index + 1);
+        c.isAutograph = template.isAutograph;
+        c.isPatch = template.isPatch;
+        c.isRookie = template.isRookie;
+        if (printRuns.length > 0 && random.nextDouble() < numberedRate) {
+            c.printRun = printRuns[random.nextInt(printRuns.length)];
+            c.serialNumber = String.valueOf(1 + random.nextInt(c.printRun));
+        }
+        if (random.nextInt(100) == 0) {
+            c.gradingCompany = GRADING_COMPANIES[random.nextInt(GRADING_COMPANIES.length)];
+            c.grade = GRADES[random.nextInt(GRADES.length)];
+        }
+        return c;
+    }
+
+    /**
+     * Writes content/json with {@code count} synthetic cards (other buckets empty) and, optionally, a front and back
+     * placeholder image per card under images/, named the way the generator resolves them.
+     */
+    public void writeWorkspace(Path workspace, int count, boolean withImages) throws IOException {
+        Path jsonDir = workspace.resolve("content/json");
+        Files.createDirectories(jsonDir);
+        for (String bucket : OTHER_BUCKETS) {
+            Files.writeString(jsonDir.resolve(bucket), "[]");
+        }
+
+        ObjectMapper mapper = new ObjectMapper();
+        SplittableRandom random = new SplittableRandom(seed);
+        Set<Path> createdDirs = new HashSet<>();
+        try (OutputStream out = Files.newOutputStream(jsonDir.resolve("cards.json"));
+             JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                CardJson c = card(random, i);
+                mapper.writeValue(json, c);
+                if (withImages) {
+                    writeImages(workspace, new CardData(c, null), i, createdDirs);
+                }
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private void writeImages(Path workspace, CardData card, int index, Set<Path> createdDirs) throws IOException {
+        Path dir = workspace.resolve("images").resolve(card.seasonFolder);
+        if (createdDirs.add(dir)) {
+            Files.createDirectories(dir);
+        }
+        String imageBase = card.filenameBase.substring(0, card.filenameBase.lastIndexOf('-'));
+        byte[] image = placeholderImages[index % placeholderImages.length];
+        Files.write(dir.resolve(imageBase + "-front.jpg"), image);
+        Files.write(dir.resolve(imageBase + "-back.jpg"), image);
+    }
+
+    private static byte[] placeholderJpeg(Color color) throws IOException {
+        // Card proportions, small enough that millions of them stay cheap on disk
+        BufferedImage image = new BufferedImage(250, 350, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        g.setColor(Color.WHITE);
+        g.fillRect(20, 20, image.getWidth() - 40, image.getHeight() - 120);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticCollectionGenerator <count> <workspace> [--no-images]");
+            System.exit(1);
+        }
+        List<CardJson> realCards = CardDataLoader.loadCardsFromJson(BenchmarkFixtures.CARDS_JSON);
+        boolean withImages = !List.of(args).contains("--no-images");
+        new SyntheticCollectionGenerator(realCards, DEFAULT_SEED).writeWorkspace(Path.of(args[1]), Integer.parseInt(args[0]), withImages);
+    }
+}
@@ -0,0 +1,221 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed on-disk cache of compressed artifacts.
+ * <p>
+ * An entry is keyed by the digest of the (minified) input plus the compressor settings, e.g. {@code br9}, so the
+ * same bytes are compressed once no matter which file they belong to: reverted pages, unchanged CSS/JS after a hash
+ * store reset and moved files all hit. Entries live in {@code <digest prefix>/<digest>.<settings>} files; a hit
+ * refreshes the file's mtime, and {@link #trim} evicts least recently used entries once the cache is over its size
+ * limit. The directory can be saved and restored by CI like any other build cache.
+ */
+public final class ArtifactCache {
+    private static final Logger log = LoggerFactory.getLogger(ArtifactCache.class);
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final ContentHasher HASHER = ContentHasher.getDefault();
+
+    /**
+     * Produces the artifact on a miss.
+     */
+    @FunctionalInterface
+    public interface Encoder {
+        byte[] encode(byte[] input) throws IOException;
+    }
+
+    private record Entry(long size, long lastAccess) {}
+
+    private final Path dir;
+    private final long maxBytes;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public ArtifactCache(Path dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        scan();
+    }
+
+    /**
+     * Size limit from {@code -DARTIFACT_CACHE_MAX_MB}, or {@value #DEFAULT_MAX_BYTES} bytes.
+     */
+    public static long maxBytesFromProperty() {
+        String value = System.getProperty("ARTIFACT_CACHE_MAX_MB");
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim()) * 1024 * 1024;
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid ARTIFACT_CACHE_MAX_MB '{}'", value);
+            }
+        }
+        return DEFAULT_MAX_BYTES;
+    }
+
+    private void scan() {
+        if (!Files.isDirectory(dir)) return;
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            files.forEach(file -> {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (!attrs.isRegularFile()) return;
+                    if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        Files.deleteIfExists(file); // Left behind by an interrupted run
+                        return;
+                    }
+                    entries.put(file, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis()));
+                    totalBytes.addAndGet(attrs.size());
+                } catch (IOException ignored) {
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not scan artifact cache {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the cached artifact for {@code input} under {@code settings}, or encodes and stores it.
+     * Settings name the encoder and everything that changes its output, e.g. {@code br9}; letters, digits and dashes.
+     */
+    public byte[] get(byte[] input, String settings, Encoder encoder) throws IOException {
+        Path file = file(digest(input), settings);
+        byte[] cached = read(file);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        byte[] encoded = encoder.encode(input);
+        misses.incrementAndGet();
+        store(file, encoded);
+        return encoded;
+    }
+
+    /**
+     * Returns the cached artifact for the input with digest {@code inputDigest} (see {@link #digest}), or null if
+     * there is none. Lets a caller hand an artifact on by its key instead of holding the bytes; not counted as a hit.
+     */
+    public byte[] find(String inputDigest, String settings) {
+        return read(file(inputDigest, settings));
+    }
+
+    /**
+     * The digest entries are keyed by.
+     */
+    public static String digest(byte[] input) {
+        return HASHER.hash(input);
+    }
+
+    private Path file(String inputDigest, String settings) {
+        String name = inputDigest + "." + settings;
+        return dir.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private byte[] read(Path file) {
+        if (!entries.containsKey(file)) return null;
+        try {
+            byte[] cached = Files.readAllBytes(file);
+            touch(file, cached.length);
+            return cached;
+        } catch (NoSuchFileException _) {
+            forget(file);
+        } catch (IOException e) {
+            log.warn("Could not read cached artifact {}: {}", file, e.getMessage());
+        }
+        return null;
+    }
+
+    private void touch(Path file, long size) {
+        long now = System.currentTimeMillis();
+        entries.put(file, new Entry(size, now));
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (IOException ignored) {
+            // The entry is still valid, it just looks older to the next run
+        }
+    }
+
+    private void store(Path file, byte[] data) {
+        Path temp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().threadId() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(temp, data);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Entry previous = entries.put(file, new Entry(data.length, System.currentTimeMillis()));
+            totalBytes.addAndGet(data.length - (previous != null ? previous.size() : 0));
+        } catch (IOException e) {
+            log.warn("Could not store artifact {}: {}", file, e.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void forget(Path file) {
+        Entry removed = entries.remove(file);
+        if (removed != null) {
+            totalBytes.addAndGet(-removed.size());
+        }
+    }
+
+    /**
+     * Deletes least recently used entries until the cache fits its size limit. Returns the number evicted.
+     */
+    public int trim() {
+        if (totalBytes.get() <= maxBytes) return 0;
+        List<Map.Entry<Path, Entry>> byAge = new ArrayList<>(entries.entrySet());
+        byAge.sort(Map.Entry.comparingByValue((a, b) -> Long.compare(a.lastAccess(), b.lastAccess())));
+
+        int evicted = 0;
+        for (Map.Entry<Path, Entry> entry : byAge) {
+            if (totalBytes.get() <= maxBytes) break;
+            try {
+                Files.deleteIfExists(entry.getKey());
+                forget(entry.getKey());
+                evicted++;
+            } catch (IOException e) {
+                log.warn("Could not evict {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        log.info("Artifact cache: evicted {} entries, {} KB left.", evicted, totalBytes.get() / 1024);
+        return evicted;
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+}
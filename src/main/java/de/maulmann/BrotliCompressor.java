@@ -3,13 +3,16 @@ package de.maulmann;
 import com.aayushatharva.brotli4j.Brotli4jLoader;
 import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
 import com.aayushatharva.brotli4j.encoder.Encoder;
+import com.aayushatharva.brotli4j.encoder.PreparedDictionary;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class BrotliCompressor {
 
@@ -21,12 +24,28 @@ public class BrotliCompressor {
     public static final int DEFAULT_QUALITY = 4;
     public static final int BEST_QUALITY = 11;
 
+    // Parameters are only read when an encoder is created, so one preset per quality is shared by all threads
+    private static final Encoder.Parameters[] PRESETS = new Encoder.Parameters[BEST_QUALITY + 1];
+
+    static {
+        for (int quality = 0; quality <= BEST_QUALITY; quality++) {
+            PRESETS[quality] = new Encoder.Parameters().setQuality(quality);
+        }
+    }
+
+    // Native input buffer per encoder: the whole input up to this size, so it crosses JNI in one push
+    private static final int MIN_INPUT_BUFFER = 4 * 1024;
+    private static final int MAX_INPUT_BUFFER = 1024 * 1024;
+    private static final int MAX_POOLED = 32;
+    // Plain LZ77 prefix dictionary, as opposed to a serialized Brotli shared dictionary
+    private static final int RAW_DICTIONARY = 0;
+    private static final ConcurrentLinkedQueue<Session> SESSIONS = new ConcurrentLinkedQueue<>();
+
     // --- 1. File-to-File Method ---
     public static void compressFile(File inputFile, File outputFile, int quality) throws IOException {
-        Encoder.Parameters params = new Encoder.Parameters().setQuality(quality);
         try (InputStream in = Files.newInputStream(inputFile.toPath());
              OutputStream out = Files.newOutputStream(outputFile.toPath());
-             BrotliOutputStream brOut = new BrotliOutputStream(out, params)) {
+             BrotliOutputStream brOut = new BrotliOutputStream(out, preset(quality))) {
 
             byte[] buffer = new byte[65536];
             int len;
@@ -38,25 +57,131 @@ public class BrotliCompressor {
 
     // --- 2. RAM-to-File Method ---
     public static void compressBytesToFile(byte[] inputData, File outputFile, int quality) throws IOException {
-        Encoder.Parameters params = new Encoder.Parameters().setQuality(quality);
         try (OutputStream out = Files.newOutputStream(outputFile.toPath());
-             BrotliOutputStream brOut = new BrotliOutputStream(out, params)) {
+             BrotliOutputStream brOut = new BrotliOutputStream(out, preset(quality), inputBufferSize(inputData.length))) {
             brOut.write(inputData);
         }
     }
 
     // --- 3. Pure In-Memory Method ---
     public static byte[] compressBytes(byte[] inputData, int quality) throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Encoder.Parameters params = new Encoder.Parameters().setQuality(quality);
-        try (BrotliOutputStream brOut = new BrotliOutputStream(baos, params)) {
-            brOut.write(inputData);
+        return compress(ByteBuffer.wrap(inputData), quality).array();
+    }
+
+    // --- 4. Buffer-to-Buffer Method ---
+
+    /**
+     * Compresses the remaining bytes of {@code input} (heap or direct) and returns the result in a heap buffer backed by
+     * an exact-size array. The input is consumed. The encoder writes into a pooled output buffer, so the only copy is
+     * the final one into the returned array.
+     */
+    public static ByteBuffer compress(ByteBuffer input, int quality) throws IOException {
+        return compress(input, quality, null);
+    }
+
+    // --- 5. Shared Dictionary Method ---
+
+    /**
+     * Prepares a raw dictionary once so it can be attached to any number of encoders.
+     */
+    public static PreparedDictionary prepareDictionary(byte[] dictionary) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(dictionary.length);
+        direct.put(dictionary).flip();
+        return Encoder.prepareDictionary(direct, RAW_DICTIONARY);
+    }
+
+    /**
+     * Compresses against a shared dictionary. The output can only be decoded by a decoder that has the same
+     * dictionary attached, so it is not a plain {@code br} response.
+     */
+    public static byte[] compressBytes(byte[] inputData, int quality, PreparedDictionary dictionary) throws IOException {
+        return compress(ByteBuffer.wrap(inputData), quality, dictionary).array();
+    }
+
+    private static ByteBuffer compress(ByteBuffer input, int quality, PreparedDictionary dictionary) throws IOException {
+        Session session = SESSIONS.poll();
+        if (session == null) {
+            session = new Session();
+        }
+        try {
+            int length = input.remaining();
+            session.reset(length);
+            try (BrotliOutputStream brOut = new BrotliOutputStream(session, preset(quality), inputBufferSize(length))) {
+                if (dictionary != null) {
+                    brOut.attachDictionary(dictionary);
+                }
+                if (input.hasArray()) {
+                    brOut.write(input.array(), input.arrayOffset() + input.position(), length);
+                    input.position(input.limit());
+                } else {
+                    while (input.hasRemaining()) {
+                        int chunk = Math.min(input.remaining(), session.chunk.length);
+                        input.get(session.chunk, 0, chunk);
+                        brOut.write(session.chunk, 0, chunk);
+                    }
+                }
+            }
+            return ByteBuffer.wrap(Arrays.copyOf(session.buf, session.count));
+        } finally {
+            // Size check is racy but only bounds the pool loosely
+            if (SESSIONS.size() < MAX_POOLED) {
+                SESSIONS.offer(session);
+            }
         }
-        return baos.toByteArray();
     }
 
     // Default override
     public static void compressFile(File inputFile, File outputFile) throws IOException {
         compressFile(inputFile, outputFile, DEFAULT_QUALITY);
     }
+
+    private static Encoder.Parameters preset(int quality) {
+        return quality >= 0 && quality <= BEST_QUALITY ? PRESETS[quality] : new Encoder.Parameters().setQuality(quality);
+    }
+
+    static int inputBufferSize(int inputLength) {
+        return Math.clamp(inputLength, MIN_INPUT_BUFFER, MAX_INPUT_BUFFER);
+    }
+
+    /**
+     * Reusable state for one in-memory compression: the output buffer (kept at the largest size seen, so pages do not
+     * regrow it) and a chunk for copying direct input. Virtual threads make per-thread state useless, so sessions are
+     * pooled like {@link DirectBufferPool} buffers.
+     */
+    private static final class Session extends OutputStream {
+        // Dropped instead of pooled once a single artifact grew it past this
+        private static final int MAX_RETAINED = 8 * 1024 * 1024;
+
+        private byte[] buf = new byte[64 * 1024];
+        private final byte[] chunk = new byte[64 * 1024];
+        private int count;
+
+        void reset(int inputLength) {
+            count = 0;
+            // Text compresses well below half its size even at low qualities
+            int expected = inputLength / 2 + 1024;
+            if (buf.length > MAX_RETAINED || buf.length < expected) {
+                buf = new byte[Math.max(expected, 64 * 1024)];
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(count + 1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent build graph mapping every generated output to a fingerprint of the inputs it was derived from.
+ * Outputs whose inputs are unchanged (and whose file still exists) can be skipped before any template work.
+ */
+public class BuildGraph {
+    private static final Logger log = LoggerFactory.getLogger(BuildGraph.class);
+    private static final byte[] SEPARATOR = {0x1F};
+
+    private final File storeFile;
+    private final Properties storedData = new Properties();
+
+    // Key: output identifier (relative path), Value: input fingerprint recorded in this session
+    private final ConcurrentHashMap<String, String> currentSessionData = new ConcurrentHashMap<>();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger rebuilt = new AtomicInteger();
+
+    public BuildGraph(String filePath) {
+        this.storeFile = new File(filePath);
+        if (storeFile.exists()) {
+            try (InputStream in = Files.newInputStream(storeFile.toPath())) {
+                storedData.load(in);
+            } catch (IOException e) {
+                log.warn("Could not load build graph file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns true if the output was last built from exactly these inputs and still exists on disk.
+     * Up-to-date outputs are carried over into the current session so they survive {@link #save()}.
+     */
+    public boolean isUpToDate(String identifier, String inputFingerprint, Path outputFile) {
+        String stored = storedData.getProperty(identifier);
+        if (stored != null && stored.equals(inputFingerprint) && Files.exists(outputFile)) {
+            currentSessionData.put(identifier, stored);
+            skipped.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records the input fingerprint of an output that was (re)built successfully in this session.
+     */
+    public void record(String identifier, String inputFingerprint) {
+        if (inputFingerprint != null) {
+            currentSessionData.put(identifier, inputFingerprint);
+            rebuilt.incrementAndGet();
+        }
+    }
+
+    public int getSkippedCount() {
+        return skipped.get();
+    }
+
+    public int getRebuiltCount() {
+        return rebuilt.get();
+    }
+
+    /**
+     * Persists the graph. Only outputs seen in this session are kept, so removed cards drop out
+     * without probing the file system once per entry.
+     */
+    public void save() {
+        try {
+            Path parent = storeFile.toPath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            Properties toStore = new Properties();
+            currentSessionData.forEach(toStore::setProperty);
+
+            try (OutputStream out = Files.newOutputStream(storeFile.toPath())) {
+                toStore.store(out, "Automated Build Graph Input Fingerprints");
+            }
+            log.info("Build graph saved: {} outputs rebuilt, {} skipped as unchanged.", rebuilt.get(), skipped.get());
+        } catch (IOException e) {
+            log.warn("Could not save build graph file: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Builds an input fingerprint over the given parts. Maps are hashed in key order, lists in element order.
+     */
+    public static String fingerprint(Object... inputs) {
+        ContentHasher.Digest digest = ContentHasher.getDefault().newDigest();
+        for (Object input : inputs) {
+            update(digest, input);
+        }
+        return digest.hex();
+    }
+
+    /**
+     * Fingerprints the compiled bytecode of the given generator classes, so code changes invalidate their outputs.
+     */
+    public static String classFingerprint(Class<?>... classes) {
+        try {
+            ContentHasher.Digest digest = ContentHasher.getDefault().newDigest();
+            for (Class<?> cls : classes) {
+                String resource = cls.getName().substring(cls.getPackageName().length() + 1) + ".class";
+                try (InputStream is = cls.getResourceAsStream(resource)) {
+                    if (is != null) {
+                        digest.update(ByteBuffer.wrap(is.readAllBytes()));
+                    }
+                }
+            }
+            return digest.hex();
+        } catch (Exception e) {
+            log.warn("Could not fingerprint generator classes: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void update(ContentHasher.Digest digest, Object input) {
+        if (input instanceof Map<?, ?> map) {
+            Map<?, ?> ordered = map instanceof SortedMap<?, ?> ? map : new TreeMap<>(map);
+            for (Map.Entry<?, ?> entry : ordered.entrySet()) {
+                update(digest, entry.getKey());
+                update(digest, entry.getValue());
+            }
+        } else if (input instanceof Iterable<?> items) {
+            for (Object item : items) {
+                update(digest, item);
+            }
+        } else {
+            digest.update(ByteBuffer.wrap(String.valueOf(input).getBytes(StandardCharsets.UTF_8)));
+        }
+        digest.update(ByteBuffer.wrap(SEPARATOR));
+    }
+}
@@ -0,0 +1,332 @@
+package de.maulmann;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Build instrumentation: latency histograms, counters and gauges, keyed by metric name and label pairs.
+ * Everything is lock-free, so the render, upload and image threads record concurrently.
+ * {@link #export} writes the run as {@code build-metrics.json} and {@code build-metrics.prom} (OpenMetrics text),
+ * together with the {@link PhaseProfiler} phases, so build performance can be compared across deploys.
+ */
+public final class BuildMetrics {
+    private static final Logger log = LoggerFactory.getLogger(BuildMetrics.class);
+
+    public static final String JSON_FILE = "build-metrics.json";
+    public static final String OPEN_METRICS_FILE = "build-metrics.prom";
+    private static final String PREFIX = "site_build_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<>();
+
+    private BuildMetrics() {
+    }
+
+    /**
+     * Returns the latency histogram for the name and {@code key, value} label pairs, creating it on first use.
+     */
+    public static Histogram histogram(String name, String... labels) {
+        return HISTOGRAMS.computeIfAbsent(seriesKey(name, labels), _ -> new Histogram(name, labels));
+    }
+
+    public static void increment(String name, long delta, String... labels) {
+        COUNTERS.computeIfAbsent(seriesKey(name, labels), _ -> new Counter(name, labels)).value.add(delta);
+    }
+
+    public static void gauge(String name, double value, String... labels) {
+        GAUGES.computeIfAbsent(seriesKey(name, labels), _ -> new Gauge(name, labels)).value = value;
+    }
+
+    public static void reset() {
+        HISTOGRAMS.clear();
+        COUNTERS.clear();
+        GAUGES.clear();
+    }
+
+    private static String seriesKey(String name, String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be key/value pairs: " + Arrays.toString(labels));
+        }
+        return labels.length == 0 ? name : name + Arrays.toString(labels);
+    }
+
+    /**
+     * Log-linear latency histogram: 8 linear sub-buckets per power of two microseconds, so quantiles are accurate to
+     * 12.5% over the whole range while recording stays a single array increment.
+     */
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+        private final String name;
+        private final String[] labels;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Histogram(String name, String[] labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        public void recordNanos(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(value / 1000));
+            count.increment();
+            sumNanos.add(value);
+            minNanos.accumulateAndGet(value, Math::min);
+            maxNanos.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * Records the time elapsed since a {@link System#nanoTime()} start value.
+         */
+        public void recordSince(long startNanos) {
+            recordNanos(System.nanoTime() - startNanos);
+        }
+
+        static int bucketOf(long micros) {
+            if (micros < SUB_BUCKETS) return (int) micros;
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * Largest value (in microseconds) that falls into the bucket.
+         */
+        static long bucketUpperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long subBucket = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public double getSumSeconds() {
+            return sumNanos.sum() / 1e9;
+        }
+
+        public double getMinSeconds() {
+            return getCount() == 0 ? 0 : minNanos.get() / 1e9;
+        }
+
+        public double getMaxSeconds() {
+            return maxNanos.get() / 1e9;
+        }
+
+        /**
+         * Estimated quantile in seconds: the upper bound of the bucket holding the rank, capped at the maximum.
+         */
+        public double quantileSeconds(double quantile) {
+            long total = getCount();
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i) * 1000, maxNanos.get()) / 1e9;
+                }
+            }
+            return getMaxSeconds();
+        }
+    }
+
+    private record Counter(String name, String[] labels, LongAdder value) {
+        Counter(String name, String[] labels) {
+            this(name, labels, new LongAdder());
+        }
+    }
+
+    private static final class Gauge {
+        private final String name;
+        private final String[] labels;
+        private volatile double value;
+
+        Gauge(String name, String[] labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * Writes the JSON and OpenMetrics files into the given directory. Failures are logged, never thrown,
+     * so metrics can not break a deploy.
+     */
+    public static void export(Path dir) {
+        try {
+            Files.createDirectories(dir);
+            MAPPER.writeValue(dir.resolve(JSON_FILE).toFile(), toJson());
+            Files.writeString(dir.resolve(OPEN_METRICS_FILE), toOpenMetrics(), StandardCharsets.UTF_8);
+            log.info("-> Build metrics written to {}", dir.resolve(JSON_FILE));
+        } catch (IOException e) {
+            log.warn("Could not write build metrics: {}", e.getMessage());
+        }
+    }
+
+    public static ObjectNode toJson() {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("timestamp", Instant.now().toString());
+        ArrayNode phaseNodes = root.putArray("phases");
+        for (PhaseProfiler.PhaseStats phase : PhaseProfiler.getPhases()) {
+            phaseNodes.addObject()
+                    .put("phase", phase.phase())
+                    .put("wallMillis", phase.wallMillis())
+                    .put("allocatedBytes", phase.allocatedBytes())
+                    .put("peakRssBytes", phase.peakRssBytes());
+        }
+
+        ArrayNode histogramNodes = root.putArray("histograms");
+        for (Histogram h : sorted(HISTOGRAMS)) {
+            ObjectNode node = series(histogramNodes, h.name, h.labels)
+                    .put("count", h.getCount())
+                    .put("sumSeconds", h.getSumSeconds())
+                    .put("minSeconds", h.getMinSeconds())
+                    .put("maxSeconds", h.getMaxSeconds());
+            for (double q : QUANTILES) {
+                node.put("p" + quantileName(q) + "Seconds", h.quantileSeconds(q));
+            }
+        }
+
+        ArrayNode counterNodes = root.putArray("counters");
+        for (Counter c : sorted(COUNTERS)) {
+            series(counterNodes, c.name, c.labels).put("value", c.value.sum());
+        }
+
+        ArrayNode gaugeNodes = root.putArray("gauges");
+        for (Gauge g : sorted(GAUGES)) {
+            series(gaugeNodes, g.name, g.labels).put("value", g.value);
+        }
+        return root;
+    }
+
+    /**
+     * OpenMetrics text exposition: histograms as summaries (quantiles, count, sum), phases as gauges.
+     */
+    public static String toOpenMetrics() {
+        StringBuilder sb = new StringBuilder(4096);
+        String family = null;
+        for (Histogram h : sorted(HISTOGRAMS)) {
+            String metric = PREFIX + h.name;
+            if (!metric.equals(family)) {
+                family = metric;
+                sb.append("# TYPE ").append(metric).append(" summary\n");
+                if (metric.endsWith("_seconds")) {
+                    sb.append("# UNIT ").append(metric).append(" seconds\n");
+                }
+            }
+            for (double q : QUANTILES) {
+                sb.append(metric);
+                appendLabels(sb, h.labels, "quantile", String.valueOf(q));
+                sb.append(' ').append(number(h.quantileSeconds(q))).append('\n');
+            }
+            sb.append(metric).append("_count");
+            appendLabels(sb, h.labels);
+            sb.append(' ').append(h.getCount()).append('\n');
+            sb.append(metric).append("_sum");
+            appendLabels(sb, h.labels);
+            sb.append(' ').append(number(h.getSumSeconds())).append('\n');
+        }
+        for (Counter c : sorted(COUNTERS)) {
+            String metric = PREFIX + c.name;
+            if (!metric.equals(family)) {
+                family = metric;
+                sb.append("# TYPE ").append(metric).append(" counter\n");
+            }
+            sb.append(metric).append("_total");
+            appendLabels(sb, c.labels);
+            sb.append(' ').append(c.value.sum()).append('\n');
+        }
+        for (Gauge g : sorted(GAUGES)) {
+            String metric = PREFIX + g.name;
+            if (!metric.equals(family)) {
+                family = metric;
+                sb.append("# TYPE ").append(metric).append(" gauge\n");
+            }
+            sb.append(metric);
+            appendLabels(sb, g.labels);
+            sb.append(' ').append(number(g.value)).append('\n');
+        }
+        List<PhaseProfiler.PhaseStats> phases = PhaseProfiler.getPhases();
+        if (!phases.isEmpty()) {
+            String metric = PREFIX + "phase_duration_seconds";
+            sb.append("# TYPE ").append(metric).append(" gauge\n# UNIT ").append(metric).append(" seconds\n");
+            for (PhaseProfiler.PhaseStats phase : phases) {
+                sb.append(metric);
+                appendLabels(sb, new String[]{"phase", phase.phase()});
+                sb.append(' ').append(number(phase.wallMillis() / 1000.0)).append('\n');
+            }
+        }
+        return sb.append("# EOF\n").toString();
+    }
+
+    private static <T> List<T> sorted(Map<String, T> series) {
+        List<Map.Entry<String, T>> entries = new ArrayList<>(series.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        return entries.stream().map(Map.Entry::getValue).toList();
+    }
+
+    private static String quantileName(double quantile) {
+        String digits = String.valueOf(quantile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static ObjectNode series(ArrayNode array, String name, String[] labels) {
+        ObjectNode node = array.addObject().put("name", name);
+        ObjectNode labelNode = node.putObject("labels");
+        for (int i = 0; i < labels.length; i += 2) {
+            labelNode.put(labels[i], labels[i + 1]);
+        }
+        return node;
+    }
+
+    private static void appendLabels(StringBuilder sb, String[] labels, String... extra) {
+        if (labels.length == 0 && extra.length == 0) return;
+        sb.append('{');
+        boolean first = true;
+        for (String[] pairs : new String[][]{labels, extra}) {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(pairs[i]).append("=\"")
+                        .append(pairs[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                        .append('"');
+            }
+        }
+        sb.append('}');
+    }
+}
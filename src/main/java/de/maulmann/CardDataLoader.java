@@ -21,13 +21,29 @@ public class CardDataLoader {
     private static final Logger log = LoggerFactory.getLogger(CardDataLoader.class);
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    @FunctionalInterface
+    private interface DatasetReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
     public static List<CardJson> loadCardsFromJson(String jsonPath) {
+        return load(jsonPath, is -> MAPPER.readValue(is, new TypeReference<List<CardJson>>() {}), Collections.emptyList());
+    }
+
+    /**
+     * Streams the dataset into a columnar {@link CardStore} instead of one {@link CardJson} per card.
+     */
+    public static CardStore loadCardStore(String jsonPath) {
+        return load(jsonPath, CardStore::read, CardStore.of(Collections.emptyList()));
+    }
+
+    private static <T> T load(String jsonPath, DatasetReader<T> reader, T empty) {
         Path path = Paths.get(jsonPath);
 
         // 1. Try local file system path first
         if (Files.exists(path)) {
             try (InputStream is = Files.newInputStream(path)) {
-                return MAPPER.readValue(is, new TypeReference<List<CardJson>>() {});
+                return reader.read(is);
             } catch (IOException e) {
                 log.error("Failed to load cards from file path: {}", jsonPath, e);
             }
@@ -37,13 +53,13 @@ public class CardDataLoader {
         String resourcePath = jsonPath.startsWith("/") ? jsonPath : "/" + jsonPath;
         try (InputStream is = CardDataLoader.class.getResourceAsStream(resourcePath)) {
             if (is != null) {
-                return MAPPER.readValue(is, new TypeReference<List<CardJson>>() {});
+                return reader.read(is);
             }
         } catch (IOException e) {
             log.error("Failed to load cards from classpath resource: {}", jsonPath, e);
         }
 
         log.warn("Card dataset not found at {} or on classpath.", jsonPath);
-        return Collections.emptyList();
+        return empty;
     }
 }
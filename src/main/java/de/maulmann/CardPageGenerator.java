@@ -7,17 +7,18 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,8 +26,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -45,6 +44,7 @@ public class CardPageGenerator {
     private static final TriviaManager triviaManager = TriviaManager.getInstance();
     private static final FirebaseConfigManager firebaseConfigManager = new FirebaseConfigManager();
     private static TimestampTracker timestampTracker;
+    private static BuildGraph buildGraph;
 
     private static final Map<String, String> DISK_IMAGE_CACHE = new ConcurrentHashMap<>();
 
@@ -52,122 +52,250 @@ public class CardPageGenerator {
         timestampTracker = tracker;
     }
 
+    public static void setBuildGraph(BuildGraph graph) {
+        buildGraph = graph;
+    }
+
+    // Templates, fragments and configs every card page is rendered from (in addition to the card itself)
+    private static final String[] SHARED_PAGE_RESOURCES = {
+            "/templates/card-detail.ftlh",
+            "/templates/head.html",
+            "/templates/topnav.html",
+            "/templates/footer.html",
+            "/templates/breadcrumb.html",
+            "/templates/consent_banner.html",
+            "/templates/analytics.html",
+            "/templates/seo.html",
+            "/templates/opengraph.html",
+            "/templates/favicon.html",
+            "/config/trivia_config.json"
+    };
+
     private static final Configuration fmConfig = CardUtils.getFreeMarkerConfig();
 
+    /**
+     * A card as the pages see it: a view over one {@link CardStore} row plus the derived id and paths. Single cards
+     * from elsewhere are viewed through their {@link CardJson} instead, without a store of their own.
+     * Attribute names are the display keys ("Player", "Number", "Print Run", ...), including the aliases
+     * "Auto"/"isAutograph" and "Game Used"/"Mem / Patch" that the templates and trivia rules use.
+     */
     public static class CardData {
-        Map<String, String> attributes;
+        private static final String YES = "Yes";
+        private static final String NO = "No";
+        // Attribute keys in the order the attribute map reports them
+        private static final String[] ATTRIBUTE_KEYS = {
+                "Player", "Season", "Team", "Company", "Brand", "Theme", "Variant", "Number", "Serial", "Print Run",
+                "Grading Co.", "Grade", "Notes", "Autograph", "Auto", "isAutograph", "Memorabilia", "Game Used",
+                "Mem / Patch", "Rookie"
+        };
+
+        final CardStore store;
+        final int row;
+        // Backs the view instead of store and row for cards that were not loaded into a store
+        private final CardJson json;
+        // Only set for Juwan Howard cards without a team, which get the team of that season
+        private final String derivedTeam;
         String stableId;
         String filenameBase;
         String filename;
         String seasonFolder;
         String fullRelativePath;
+        private volatile CardView view;
 
         public CardData(CardJson c, String uniqueId) {
-            this.attributes = new HashMap<>();
-            if (c.player != null) {
-                this.attributes.put("Player", c.player);
-            } else if (c.collection != null && !c.collection.trim().isEmpty()) {
-                this.attributes.put("Player", c.collection);
-            }
-            if (c.season != null) this.attributes.put("Season", c.season);
-            if (c.team != null) this.attributes.put("Team", c.team);
-            if (c.company != null) this.attributes.put("Company", c.company);
-            if (c.brand != null) this.attributes.put("Brand", c.brand);
-            if (c.theme != null) this.attributes.put("Theme", c.theme);
-            if (c.variant != null) this.attributes.put("Variant", c.variant);
-            if (c.cardNumber != null) this.attributes.put("Number", c.cardNumber);
-            if (c.serialNumber != null) this.attributes.put("Serial", c.serialNumber);
-            if (c.printRun != null) this.attributes.put("Print Run", String.valueOf(c.printRun));
-            if (c.gradingCompany != null) this.attributes.put("Grading Co.", c.gradingCompany);
-            if (c.grade != null) this.attributes.put("Grade", c.grade);
-            if (c.notes != null) this.attributes.put("Notes", c.notes);
-            String autoVal = c.isAutograph ? "Yes" : "No";
-            this.attributes.put("Autograph", autoVal);
-            this.attributes.put("Auto", autoVal);
-            this.attributes.put("isAutograph", autoVal);
-
-            String memVal = c.isPatch ? "Yes" : "No";
-            this.attributes.put("Memorabilia", memVal);
-            this.attributes.put("Game Used", memVal);
-            this.attributes.put("Mem / Patch", memVal);
-
-            String rkVal = c.isRookie ? "Yes" : "No";
-            this.attributes.put("Rookie", rkVal);
-
-            String currentTeam = this.attributes.get("Team");
-            if (!isValid(currentTeam)) {
-                String player = this.attributes.get("Player");
-                if (player != null && player.startsWith("Juwan Howard")) {
-                    String calculatedTeam = getTeamBySeason(this.attributes.get("Season"));
-                    this.attributes.put("Team", calculatedTeam);
-                }
-            }
+            this(null, -1, c, uniqueId);
+        }
+
+        public CardData(CardStore store, int row, String uniqueId) {
+            this(store, row, null, uniqueId);
+        }
+
+        private CardData(CardStore store, int row, CardJson json, String uniqueId) {
+            this.store = store;
+            this.row = row;
+            this.json = json;
+            String team = column(CardStore.Column.TEAM);
+            String player = player();
+            this.derivedTeam = !isValid(team) && player != null && player.startsWith("Juwan Howard")
+                    ? getTeamBySeason(column(CardStore.Column.SEASON))
+                    : null;
 
             if (uniqueId != null && !uniqueId.isEmpty()) {
                 this.stableId = uniqueId;
             } else {
-                this.stableId = generateStableId(this.attributes);
+                this.stableId = generateStableId(attributes());
             }
 
             calculatePaths(this.stableId);
         }
 
+        String column(CardStore.Column column) {
+            return store != null ? store.get(row, column) : CardStore.value(json, column);
+        }
+
+        /**
+         * The raw card fields for pages that read them directly. Built from the store row on every call and not kept.
+         */
+        public CardJson json() {
+            return store != null ? store.toCardJson(row) : json;
+        }
+
+        private String player() {
+            String player = column(CardStore.Column.PLAYER);
+            if (player != null) return player;
+            String collection = column(CardStore.Column.COLLECTION);
+            return collection != null && !collection.trim().isEmpty() ? collection : null;
+        }
+
+        /**
+         * The attribute value, or null if the card has no such attribute.
+         */
+        private String attribute(String key) {
+            return switch (key) {
+                case "Player" -> player();
+                case "Season" -> column(CardStore.Column.SEASON);
+                case "Team" -> derivedTeam != null ? derivedTeam : column(CardStore.Column.TEAM);
+                case "Company" -> column(CardStore.Column.COMPANY);
+                case "Brand" -> column(CardStore.Column.BRAND);
+                case "Theme" -> column(CardStore.Column.THEME);
+                case "Variant" -> column(CardStore.Column.VARIANT);
+                case "Number" -> column(CardStore.Column.CARD_NUMBER);
+                case "Serial" -> column(CardStore.Column.SERIAL_NUMBER);
+                case "Print Run" -> {
+                    Integer printRun = store != null ? store.printRun(row) : json.printRun;
+                    yield printRun != null ? String.valueOf(printRun) : null;
+                }
+                case "Grading Co." -> column(CardStore.Column.GRADING_COMPANY);
+                case "Grade" -> column(CardStore.Column.GRADE);
+                case "Notes" -> column(CardStore.Column.NOTES);
+                case "Autograph", "Auto", "isAutograph" -> (store != null ? store.isAutograph(row) : json.isAutograph) ? YES : NO;
+                case "Memorabilia", "Game Used", "Mem / Patch" -> (store != null ? store.isPatch(row) : json.isPatch) ? YES : NO;
+                case "Rookie" -> (store != null ? store.isRookie(row) : json.isRookie) ? YES : NO;
+                default -> null;
+            };
+        }
+
         private void calculatePaths(String uniqueId) {
             List<String> filenameTokens = new ArrayList<>();
-            String pStr = attributes.get("Player");
+            String pStr = attribute("Player");
             if (pStr != null && pStr.contains(",")) pStr = pStr.split(",")[0].trim();
             addIfPresent(filenameTokens, pStr);
 
-            String tStr = attributes.get("Team");
+            String tStr = attribute("Team");
             if (tStr != null && tStr.contains(",")) tStr = tStr.split(",")[0].trim();
             addIfPresent(filenameTokens, tStr);
-            addIfPresent(filenameTokens, attributes.get("Season"));
-            addIfPresent(filenameTokens, attributes.get("Company"));
-            addIfPresent(filenameTokens, attributes.get("Brand"));
-            addIfPresent(filenameTokens, attributes.get("Theme"));
-            addIfPresent(filenameTokens, attributes.get("Variant"));
-            addIfPresent(filenameTokens, attributes.get("Number"));
-
-            String serial = attributes.get("Serial");
-            if (!isValid(serial)) {
-                serial = attributes.get("Serial/Print Run");
-            }
+            addIfPresent(filenameTokens, attribute("Season"));
+            addIfPresent(filenameTokens, attribute("Company"));
+            addIfPresent(filenameTokens, attribute("Brand"));
+            addIfPresent(filenameTokens, attribute("Theme"));
+            addIfPresent(filenameTokens, attribute("Variant"));
+            addIfPresent(filenameTokens, attribute("Number"));
+
+            String serial = attribute("Serial");
             if (isValid(serial) && !serial.equals("0")) {
                 String cleanSerial = serial.replace("#", "").replace("/", "-");
                 filenameTokens.add("sn" + cleanSerial);
             }
 
-            String gradingCo = attributes.get("Grading Co.");
+            String gradingCo = attribute("Grading Co.");
             if (isValid(gradingCo)) filenameTokens.add(gradingCo);
 
-            String grade = attributes.get("Grade");
+            String grade = attribute("Grade");
             if (isValid(grade)) filenameTokens.add(grade);
 
             this.filenameBase = cleanFilename(String.join("-", filenameTokens)) + "-" + uniqueId;
             this.filename = this.filenameBase + ".html";
-            String seasonRaw = attributes.get("Season");
+            String seasonRaw = attribute("Season");
             this.seasonFolder = isValid(seasonRaw) ? cleanFilename(seasonRaw) : "Unknown_Season";
             this.fullRelativePath = "cards/" + this.seasonFolder + "/" + this.filename;
         }
 
+        /**
+         * The card's view model, computed on first use and shared by every output of the build.
+         */
+        public CardView view() {
+            CardView result = view;
+            if (result == null) {
+                // Racing threads compute equal views, so no lock is needed
+                view = result = CardView.of(this);
+            }
+            return result;
+        }
+
         public String get(String key) {
-            return attributes.getOrDefault(key, "");
+            String value = attribute(key);
+            return value != null ? value : "";
         }
 
         public boolean has(String key) {
-            String val = attributes.get(key);
-            return isValid(val);
+            return isValid(attribute(key));
+        }
+
+        /**
+         * Read-only map view of the attributes, for the trivia rules and input fingerprints.
+         */
+        public Map<String, String> attributes() {
+            return new AbstractMap<>() {
+                @Override
+                public String get(Object key) {
+                    return key instanceof String name ? attribute(name) : null;
+                }
+
+                @Override
+                public boolean containsKey(Object key) {
+                    return get(key) != null;
+                }
+
+                @Override
+                public Set<Entry<String, String>> entrySet() {
+                    Set<Entry<String, String>> entries = new LinkedHashSet<>();
+                    for (String key : ATTRIBUTE_KEYS) {
+                        String value = attribute(key);
+                        if (value != null) {
+                            entries.add(new SimpleImmutableEntry<>(key, value));
+                        }
+                    }
+                    return Collections.unmodifiableSet(entries);
+                }
+            };
         }
     }
 
     /**
-     * O(1) attribute index for instant relationship and brand/company lookups across large card sets.
+     * Everything the card page, JSON-LD, sitemaps, RSS and llms-full.txt derive from a card alone: titles,
+     * description, alt texts, the resolved image base with its URLs, FAQ items and the page URL.
+     */
+    public record CardView(String h1Title, String h1Html, String metaDescription, String showcaseTitle,
+                           String frontAlt, String backAlt, String imageBase, String relativeImageBase,
+                           String frontImageUrl, String backImageUrl, List<CardSchemaGenerator.FaqItem> faqItems,
+                           String url) {
+
+        static CardView of(CardData c) {
+            String rawImageBase = c.filenameBase.contains("-") ? c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-")) : c.filenameBase;
+            String imageBase = resolveDiskImageBase(c.seasonFolder, rawImageBase, c);
+            String absoluteImageBase = BASE_URL + "/images/" + c.seasonFolder + "/" + imageBase;
+            return new CardView(
+                    generateH1(c),
+                    generateH1Html(c),
+                    generateMetaDescription(c),
+                    formatShowcaseCardTitle(c),
+                    generateAltText(c, "front"),
+                    generateAltText(c, "back"),
+                    imageBase,
+                    RELATIVE_IMAGES_PATH + "/" + c.seasonFolder + "/" + imageBase,
+                    absoluteImageBase + "-front.avif",
+                    absoluteImageBase + "-back.avif",
+                    List.copyOf(CardSchemaGenerator.computeFaqItems(c)),
+                    BASE_URL + "/" + c.fullRelativePath);
+        }
+    }
+
+    /**
+     * O(1) attribute index for brand/company lookups across large card sets.
      */
     public static class CardIndex {
         private final Map<String, List<CardData>> brandMap = new HashMap<>();
         private final Map<String, List<CardData>> companyMap = new HashMap<>();
-        private final Map<String, List<CardData>> seasonMap = new HashMap<>();
-        private final Map<String, List<CardData>> playerMap = new HashMap<>();
 
         public CardIndex(List<CardData> allCards) {
             if (allCards == null) return;
@@ -180,14 +308,6 @@ public class CardPageGenerator {
                 if (isValid(company)) {
                     companyMap.computeIfAbsent(company.toLowerCase(), k -> new ArrayList<>()).add(c);
                 }
-                String season = c.get("Season");
-                if (isValid(season)) {
-                    seasonMap.computeIfAbsent(season.toLowerCase(), k -> new ArrayList<>()).add(c);
-                }
-                String player = c.get("Player");
-                if (isValid(player)) {
-                    playerMap.computeIfAbsent(player.toLowerCase(), k -> new ArrayList<>()).add(c);
-                }
             }
         }
 
@@ -200,37 +320,14 @@ public class CardPageGenerator {
             if (company == null) return Collections.emptyList();
             return companyMap.getOrDefault(company.toLowerCase(), Collections.emptyList());
         }
-
-        public List<CardData> getCandidatesForRelated(CardData target) {
-            if (target == null) return Collections.emptyList();
-            Set<CardData> candidates = new LinkedHashSet<>();
-            String player = target.get("Player");
-            if (isValid(player)) candidates.addAll(playerMap.getOrDefault(player.toLowerCase(), Collections.emptyList()));
-            String season = target.get("Season");
-            if (isValid(season)) candidates.addAll(seasonMap.getOrDefault(season.toLowerCase(), Collections.emptyList()));
-            String brand = target.get("Brand");
-            if (isValid(brand)) candidates.addAll(brandMap.getOrDefault(brand.toLowerCase(), Collections.emptyList()));
-            return new ArrayList<>(candidates);
-        }
     }
 
-    // Cache for CardData objects to avoid redundant MD5 hash computation across multiple passes
-    private static final ConcurrentHashMap<String, CardData> CARD_DATA_CACHE = new ConcurrentHashMap<>();
-
     /**
-     * Returns a cached CardData for the given CardJson, avoiding redundant attribute mapping and MD5 hashing.
-     * Used by FileGenerator to get path info without reconstructing CardData for each pass.
+     * Returns the shared CardData for a store row from the {@link CardRepository}, avoiding redundant attribute
+     * mapping and MD5 hashing. Used by FileGenerator to get path info without reconstructing CardData for each pass.
      */
-    public static CardData computeCardData(CardJson c) {
-        String fingerprint = (c.player != null ? c.player : "") + "|" +
-                (c.season != null ? c.season : "") + "|" +
-                (c.brand != null ? c.brand : "") + "|" +
-                (c.variant != null ? c.variant : "") + "|" +
-                (c.cardNumber != null ? c.cardNumber : "") + "|" +
-                (c.serialNumber != null ? c.serialNumber : "") + "|" +
-                (c.gradingCompany != null ? c.gradingCompany : "") + "|" +
-                (c.grade != null ? c.grade : "");
-        return CARD_DATA_CACHE.computeIfAbsent(fingerprint, k -> new CardData(c, null));
+    public static CardData computeCardData(CardStore store, int row) {
+        return CardRepository.get().cardData(store, row);
     }
 
     private static final java.util.regex.Pattern PATTERN_CLEAN_FILENAME_CHARS = java.util.regex.Pattern.compile("[^a-zA-Z0-9\\-_]");
@@ -293,43 +390,23 @@ public class CardPageGenerator {
         }
 
         List<CardData> allProcessedCards = new ArrayList<>();
+        String sharedInputs = buildGraph != null ? computeSharedInputsFingerprint() : null;
 
-        List<CardJson> jsonCards = CardDataLoader.loadCardsFromJson("content/json/cards.json");
-        if (!jsonCards.isEmpty()) {
-            log.info("Generating Juwan Howard card pages from content/json/cards.json ({} cards)...", jsonCards.size());
-            List<CardData> juwanCards = new ArrayList<>();
-            for (CardJson c : jsonCards) {
-                juwanCards.add(new CardData(c, null));
+        CardRepository repository = CardRepository.get();
+        for (CardRepository.Bucket bucket : CardRepository.Bucket.values()) {
+            CardRepository.Dataset dataset = repository.dataset(bucket);
+            if (dataset.isEmpty()) continue;
+
+            log.info("Generating subpages from {} ({} cards)...", dataset.source, dataset.size());
+            duplicateLog.add("\n--- From " + dataset.source + " ---");
+            for (String skipped : dataset.skipped()) {
+                duplicateLog.add("[SKIPPED] " + skipped);
             }
-            List<CardData> filteredJuwanCards = filterDuplicateCards(juwanCards, "content/json/cards.json");
-            allProcessedCards.addAll(filteredJuwanCards);
+            List<CardData> filtered = dataset.unique();
+            allProcessedCards.addAll(filtered);
             log.info("Deduplication complete: {} cards queued for generation (skipped {} un-numbered duplicates).",
-                    filteredJuwanCards.size(), (juwanCards.size() - filteredJuwanCards.size()));
-            generateSubPagesMultithreaded(filteredJuwanCards, "Juwan-Howard-Collection.html");
-        }
-
-        Map<String, String> otherJsonBuckets = Map.of(
-                "content/json/baseball.json", "Baseball.html",
-                "content/json/flawless.json", "Flawless.html",
-                "content/json/wantlist.json", "Wantlist.html",
-                "content/json/panini.json", "Panini.html"
-        );
-
-        for (Map.Entry<String, String> entry : otherJsonBuckets.entrySet()) {
-            String jsonPath = entry.getKey();
-            String overviewPage = entry.getValue();
-
-            List<CardJson> cards = CardDataLoader.loadCardsFromJson(jsonPath);
-            if (!cards.isEmpty()) {
-                log.info("Generating subpages from {} ({} cards)...", jsonPath, cards.size());
-                List<CardData> cardDataList = new ArrayList<>();
-                for (CardJson c : cards) {
-                    cardDataList.add(new CardData(c, null));
-                }
-                List<CardData> filtered = filterDuplicateCards(cardDataList, jsonPath);
-                allProcessedCards.addAll(filtered);
-                generateSubPagesMultithreaded(filtered, overviewPage);
-            }
+                    filtered.size(), dataset.skipped().size());
+            generateSubPagesMultithreaded(filtered, dataset.index(), dataset.related(), dataset.bucket.overviewPage, sharedInputs);
         }
 
         try {
@@ -347,6 +424,9 @@ public class CardPageGenerator {
         generateMissingImagesReport(allProcessedCards);
 
         long endTime = System.currentTimeMillis();
+        if (buildGraph != null) {
+            log.info("Build graph: {} card pages rendered, {} unchanged pages skipped.", buildGraph.getRebuiltCount(), buildGraph.getSkippedCount());
+        }
         log.info("All card pages generated in {} ms.", (endTime - startTime));
         return allProcessedCards;
     }
@@ -360,7 +440,7 @@ public class CardPageGenerator {
 
         try (Stream<Path> stream = Files.walk(cardsDir)) {
             stream.filter(Files::isRegularFile)
-                    .filter(p -> p.toString().endsWith(".html"))
+                    .filter(p -> p.toString().endsWith(".html") || p.toString().endsWith(StreamingPageWriter.TEMP_SUFFIX))
                     .forEach(p -> {
                         if (!validPaths.contains(p.toAbsolutePath().normalize())) {
                             try { Files.deleteIfExists(p); } catch (Exception ignored) {}
@@ -375,41 +455,6 @@ public class CardPageGenerator {
         run();
     }
 
-    private static List<CardData> filterDuplicateCards(List<CardData> rawCards, String sourceName) {
-        List<CardData> filteredCards = new ArrayList<>();
-        Set<String> seenFingerprints = new HashSet<>();
-
-        duplicateLog.add("\n--- From " + sourceName + " ---");
-
-        for (CardData card : rawCards) {
-            String fingerprint = (card.get("Season") + "|" + card.get("Company") + "|" +
-                    card.get("Brand") + "|" + card.get("Theme") + "|" +
-                    card.get("Variant") + "|" + card.get("Number") + "|" +
-                    card.get("Grading Co.") + "|" + card.get("Grade")).toLowerCase();
-
-            String serial = card.get("Serial");
-            if (!isValid(serial)) serial = card.get("Serial/Print Run");
-
-            boolean hasSerial = isValid(serial) && !serial.equals("0");
-
-            if (seenFingerprints.contains(fingerprint)) {
-                if (!hasSerial) {
-                    String dupInfo = card.get("Season") + " " + card.get("Company") + " " +
-                            card.get("Brand") + " " + card.get("Theme") + " " +
-                            card.get("Variant") + " #" + card.get("Number") + " - " + card.get("Player");
-                    duplicateLog.add("[SKIPPED] " + PATTERN_SPACES.matcher(dupInfo).replaceAll(" "));
-                    continue;
-                } else {
-                    filteredCards.add(card);
-                }
-            } else {
-                seenFingerprints.add(fingerprint);
-                filteredCards.add(card);
-            }
-        }
-        return filteredCards;
-    }
-
     public static String generateStableId(Map<String, String> attributes) {
         String[] relevantKeys = {
                 "Player", "Team", "Season", "Company", "Brand",
@@ -428,70 +473,117 @@ public class CardPageGenerator {
             }
         }
 
+        // Must stay MD5: the id is part of every card URL
         try {
             MessageDigest md = MessageDigest.getInstance("MD5");
             byte[] digest = md.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (int i = 0; i < 4; i++) {
-                String hex = Integer.toHexString(0xff & digest[i]);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
+            return HexFormat.of().formatHex(digest, 0, 4);
         } catch (NoSuchAlgorithmException e) {
             return String.valueOf(sb.toString().hashCode());
         }
     }
 
-    private static void generateSubPagesMultithreaded(List<CardData> allCards, String overviewPage) {
-        // Pre-compute rare card IDs and CardIndex once for O(1) lookups in findRelatedCards/Brand/Company
-        Set<String> rareCardIds = allCards.stream()
-                .filter(CardPageGenerator::isRareParallel)
-                .map(c -> c.stableId)
-                .collect(Collectors.toSet());
+    /**
+     * Fingerprint of everything a card page depends on besides the card and its neighbours:
+     * templates, trivia rules, Firebase config, css build id and the generator code itself.
+     */
+    private static String computeSharedInputsFingerprint() {
+        List<String> resources = new ArrayList<>();
+        for (String resource : SHARED_PAGE_RESOURCES) {
+            resources.add(SharedTemplates.loadResource(resource));
+        }
+        return BuildGraph.fingerprint(
+                SharedTemplates.BUILD_ID,
+                resources,
+                firebaseConfigManager.getConfig(),
+                BuildGraph.classFingerprint(CardPageGenerator.class, CardData.class, CardView.class, CardIndex.class, RelatedCardsEngine.class,
+                        CardSchemaGenerator.class, SharedTemplates.class, SegmentTemplate.class, StreamingPageWriter.class, TriviaManager.class,
+                        CardUtils.class));
+    }
 
-        CardIndex cardIndex = new CardIndex(allCards);
+    /**
+     * Fingerprint of all inputs of a single card page: the card record, its rating, resolved image,
+     * prev/next links and the rendered brand/company/related neighbour lists.
+     */
+    private static String computePageInputsFingerprint(String sharedInputs, CardData c, CardData prev, CardData next, String overviewPage,
+                                                       List<Map<String, String>> sameBrandCards, List<Map<String, String>> sameCompanyCards,
+                                                       List<Map<String, String>> relatedCards) {
+        if (sharedInputs == null) return null;
+        return BuildGraph.fingerprint(
+                sharedInputs,
+                c.attributes(),
+                c.stableId,
+                c.fullRelativePath,
+                overviewPage,
+                CardSchemaGenerator.getCachedRating(c),
+                c.view().imageBase(),
+                prev != null ? prev.fullRelativePath : "",
+                next != null ? next.fullRelativePath : "",
+                sameBrandCards,
+                sameCompanyCards,
+                relatedCards);
+    }
 
-        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+    private static void generateSubPagesMultithreaded(List<CardData> allCards, CardIndex cardIndex, RelatedCardsEngine relatedEngine,
+                                                      String overviewPage, String sharedInputs) {
+        // The CardIndex and related-cards engine come from the repository, built once per dataset
+        // Rendering is CPU-bound: a core-sized pool renders, a separate stage writes, and in-flight pages are bounded
+        try (PageRenderEngine engine = new PageRenderEngine()) {
             for (int i = 0; i < allCards.size(); i++) {
                 final int index = i;
-                executor.submit(() -> {
-                    try {
-                        CardData currentCard = allCards.get(index);
-                        CardData prevCard = (index > 0) ? allCards.get(index - 1) : null;
-                        CardData nextCard = (index < allCards.size() - 1) ? allCards.get(index + 1) : null;
-
-                        Path folderPath = Paths.get(BASE_FOLDER, currentCard.seasonFolder);
-                        Files.createDirectories(folderPath);
-                        Path filePath = folderPath.resolve(currentCard.filename);
-
-                        createSubPage(currentCard, filePath, prevCard, nextCard, cardIndex, overviewPage, rareCardIds);
-                    } catch (Exception e) {
-                        log.error("Failed to generate subpage for card at index " + index, e);
+                CardData currentCard = allCards.get(index);
+                engine.submit("subpage for card at index " + index + " (" + currentCard.fullRelativePath + ")", () -> {
+                    CardData prevCard = (index > 0) ? allCards.get(index - 1) : null;
+                    CardData nextCard = (index < allCards.size() - 1) ? allCards.get(index + 1) : null;
+
+                    Path filePath = Paths.get(BASE_FOLDER, currentCard.seasonFolder).resolve(currentCard.filename);
+
+                    List<Map<String, String>> sameBrandCards = findSameBrandCards(currentCard, cardIndex, 6);
+                    Set<String> brandCardIds = sameBrandCards.stream().map(m -> m.get("stableId")).filter(Objects::nonNull).collect(Collectors.toSet());
+                    List<Map<String, String>> sameCompanyCards = findSameCompanyCards(currentCard, cardIndex, brandCardIds, 6);
+                    List<Map<String, String>> relatedCards = findRelatedCards(currentCard, relatedEngine, 6);
+
+                    // Skip unchanged pages before any template work
+                    String inputs = computePageInputsFingerprint(sharedInputs, currentCard, prevCard, nextCard, overviewPage,
+                            sameBrandCards, sameCompanyCards, relatedCards);
+                    if (buildGraph != null && buildGraph.isUpToDate(currentCard.fullRelativePath, inputs, filePath)) {
+                        return null;
                     }
+
+                    PageRenderEngine.PageWrite write = renderSubPage(currentCard, filePath, prevCard, nextCard, overviewPage,
+                            sameBrandCards, sameCompanyCards, relatedCards);
+                    return () -> {
+                        write.write();
+                        if (buildGraph != null) {
+                            buildGraph.record(currentCard.fullRelativePath, inputs);
+                        }
+                    };
                 });
             }
         }
     }
 
-    private static void createSubPage(CardData c, Path path, CardData prev, CardData next, CardIndex cardIndex, String overviewPage, Set<String> rareCardIds) {
-        String h1Title = generateH1(c);
+    /**
+     * Renders a detail page on the calling (render) thread and returns the file write for the I/O stage.
+     */
+    static PageRenderEngine.PageWrite renderSubPage(CardData c, Path path, CardData prev, CardData next, String overviewPage,
+                                                    List<Map<String, String>> sameBrandCards, List<Map<String, String>> sameCompanyCards,
+                                                    List<Map<String, String>> relatedCards) throws Exception {
+        CardView view = c.view();
+        String h1Title = view.h1Title();
         String browserTitle = generateBrowserTitle(c, overviewPage);
-        String metaDesc = generateMetaDescription(c);
+        String metaDesc = view.metaDescription();
+        String resolvedImageBase = view.imageBase();
 
-        String seasonImgFolder = RELATIVE_IMAGES_PATH + "/" + c.seasonFolder;
-        String imageBaseName = c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-"));
-        String resolvedImageBase = resolveDiskImageBase(c.seasonFolder, imageBaseName, c);
-
-        String frontImgPath = seasonImgFolder + "/" + resolvedImageBase + "-front.avif";
-        String backImgPath = seasonImgFolder + "/" + resolvedImageBase + "-back.avif";
+        String frontImgPath = view.relativeImageBase() + "-front.avif";
+        String backImgPath = view.relativeImageBase() + "-back.avif";
 
         Map<String, Object> data = new HashMap<>();
         data.put("cardId", c.stableId);
 
-        List<CardSchemaGenerator.FaqItem> faqItems = CardSchemaGenerator.computeFaqItems(c);
+        List<CardSchemaGenerator.FaqItem> faqItems = view.faqItems();
         String faqHtml = CardSchemaGenerator.generateFaqHtml(faqItems);
-        String frontImgUrl = BASE_URL + "/images/" + c.seasonFolder + "/" + resolvedImageBase + "-front.avif";
+        String frontImgUrl = view.frontImageUrl();
         String cardPreload = "<link rel=\"preload\" as=\"image\" type=\"image/avif\" " +
                 "href=\"" + frontImgPath.replace(".avif", "-400w.avif") + "\" " +
                 "imagesrcset=\"" + frontImgPath.replace(".avif", "-400w.avif") + " 400w, " +
@@ -534,13 +626,13 @@ public class CardPageGenerator {
         data.put("nextLink", next != null ? "../" + next.seasonFolder + "/" + next.filename : null);
 
         data.put("h1Title", h1Title);
-        data.put("h1Html", generateH1Html(c));
+        data.put("h1Html", view.h1Html());
         data.put("aiSnapshotText", generateAiSnapshotText(c));
 
         data.put("frontImgPath", frontImgPath);
         data.put("backImgPath", backImgPath);
-        data.put("frontAlt", generateAltText(c, "front"));
-        data.put("backAlt", generateAltText(c, "back"));
+        data.put("frontAlt", view.frontAlt());
+        data.put("backAlt", view.backAlt());
         data.put("frontImgTitle", getPrimaryPlayer(c) +" Private Collection - Front scan: " + formatMulti(c.get("Player")) + " " + c.get("Season") + " " + c.get("Brand") + " " + c.get("Variant"));
         data.put("backImgTitle", getPrimaryPlayer(c) +" Private Collection - Back scan: " + formatMulti(c.get("Player")) + " " + c.get("Season") +" " + c.get("Brand") + " " + c.get("Variant"));
 
@@ -568,8 +660,8 @@ public class CardPageGenerator {
         String grading = c.get("Grading Co.") + " " + c.get("Grade");
         data.put("grading", (grading.trim().length() > 1 && !grading.trim().equals("null null")) ? grading : "");
 
-        data.put("hobbyTrivia", triviaManager.getTrivia("hobbyTrivia", c.attributes));
-        data.put("techTrivia", triviaManager.getTrivia("cardTechTrivia", c.attributes));
+        data.put("hobbyTrivia", triviaManager.getTrivia("hobbyTrivia", c.attributes()));
+        data.put("techTrivia", triviaManager.getTrivia("cardTechTrivia", c.attributes()));
         data.put("playerHighlights", getSeasonHighlights(c, overviewPage));
         data.put("eraContext", getEraContext(c, overviewPage));
         String primaryP = getPrimaryPlayerName(c.get("Player"));
@@ -577,10 +669,6 @@ public class CardPageGenerator {
         data.put("eraTitle", isBaseball ? "&#x26BE; MLB Era & Pop Culture" : "&#x1F3C0; NBA Era & Pop Culture");
         data.put("cardBackText", "");
 
-        List<Map<String, String>> sameBrandCards = findSameBrandCards(c, cardIndex, 6);
-        Set<String> brandCardIds = sameBrandCards.stream().map(m -> m.get("stableId")).filter(Objects::nonNull).collect(Collectors.toSet());
-        List<Map<String, String>> sameCompanyCards = findSameCompanyCards(c, cardIndex, brandCardIds, 6);
-
         String sameBrandTitle = isValid(c.get("Season")) ? "More from " + c.get("Season") + " " + c.get("Brand") : "More from " + c.get("Brand");
         String sameCompanyTitle = isValid(c.get("Season")) ? "More from " + c.get("Season") + " " + c.get("Company") : "More from " + c.get("Company");
 
@@ -589,7 +677,7 @@ public class CardPageGenerator {
         data.put("sameCompanyCards", sameCompanyCards);
         data.put("sameCompanyTitle", sameCompanyTitle);
 
-        data.put("relatedCards", findRelatedCards(c, cardIndex, 6, rareCardIds));
+        data.put("relatedCards", relatedCards);
         data.put("externalLinks", generateExternalLinks(c));
 
         data.put("faqHtml", faqHtml);
@@ -606,34 +694,44 @@ public class CardPageGenerator {
         data.put("markdownCode", markdownCode);
         data.put("cardStableId", c.stableId);
 
+        // Stream straight into a temp file, hashing on the fly; it only replaces the page if the content changed
+        Template template = fmConfig.getTemplate("card-detail.ftlh");
+        String relativeOutputPath = Paths.get("output").toUri().relativize(path.toUri()).getPath();
+        boolean tracked = timestampTracker != null;
+        StreamingPageWriter out = new StreamingPageWriter(path,
+                tracked ? timestampTracker.getHasher() : ContentHasher.getDefault(),
+                tracked && timestampTracker.needsLegacyDigest(relativeOutputPath),
+                SharedTemplates.getConsentBanner(ROOT), tracked, UploadQueue.isEnabled());
         try {
-            Template template = fmConfig.getTemplate("card-detail.ftlh");
-            StringWriter sw = new StringWriter();
-            template.process(data, sw);
-            String finalHtml = sw.toString();
-
-            boolean isCardModified = true;
-            if (timestampTracker != null && finalHtml.contains("[[STABLE_TIME]]")) {
-                String relativeOutputPath = Paths.get("output").toUri().relativize(path.toUri()).getPath();
-                isCardModified = timestampTracker.isModified(relativeOutputPath, finalHtml);
-                String stableTime = timestampTracker.getStableTimestamp(relativeOutputPath, finalHtml);
-                finalHtml = finalHtml.replace("[[STABLE_TIME]]", stableTime);
-            }
+            template.process(data, out);
+            out.close();
+        } catch (Exception e) {
+            out.discard();
+            throw e;
+        }
 
-            if (finalHtml.contains("{{CONSENT_BANNER}}")) {
-                finalHtml = finalHtml.replace("{{CONSENT_BANNER}}", SharedTemplates.getConsentBanner(ROOT));
-            }
+        boolean isCardModified = true;
+        String stableTime = null;
+        if (out.hasStableTime()) {
+            TimestampTracker.Resolution resolution = timestampTracker.resolve(relativeOutputPath, out.getDigestHex(), out.getLegacyDigestHex());
+            isCardModified = resolution.modified();
+            stableTime = resolution.timestamp();
+        }
 
-            if (isCardModified || !Files.exists(path)) {
-                Files.writeString(path, finalHtml, StandardCharsets.UTF_8);
+        boolean modified = isCardModified;
+        boolean needsWrite = isCardModified || !Files.exists(path);
+        String time = stableTime;
+        return () -> {
+            if (needsWrite) {
+                out.commit(time);
+                UploadQueue.offer(path, out.getCommittedBytes());
+            } else {
+                out.discard();
             }
-            if (isCardModified) {
+            if (modified) {
                 IndexNowService.queueUrl(fullCardUrl);
             }
-
-        } catch (Exception e) {
-            log.error("Error generating detail page for " + path, e);
-        }
+        };
     }
 
     private static String getGradingString(CardData c) {
@@ -822,64 +920,21 @@ public class CardPageGenerator {
         return sb.toString();
     }
 
-    private static List<Map<String, String>> findRelatedCards(CardData target, List<CardData> pool, int limit, Set<String> rareCardIds) {
-        return findRelatedCards(target, new CardIndex(pool), limit, rareCardIds);
-    }
-
-    private static List<Map<String, String>> findRelatedCards(CardData target, CardIndex index, int limit, Set<String> rareCardIds) {
-        if (target == null || index == null || limit <= 0) return Collections.emptyList();
-
-        List<CardData> candidates = index.getCandidatesForRelated(target);
-        Map<CardData, Integer> scored = new HashMap<>();
-
-        for (CardData c : candidates) {
-            if (c.stableId != null && c.stableId.equals(target.stableId)) continue;
-
-            int score = 0;
-            if (c.get("Season").equals(target.get("Season"))) score += 10;
-
-            String cBrand = c.get("Brand");
-            String tBrand = target.get("Brand");
-            if (cBrand.equalsIgnoreCase(tBrand)) score += 8;
-            else if (cBrand.contains(tBrand) || tBrand.contains(cBrand)) score += 5;
-
-            if (c.get("Company").equals(target.get("Company"))) score += 3;
+    static List<Map<String, String>> findRelatedCards(CardData target, RelatedCardsEngine engine, int limit) {
+        if (target == null || engine == null || limit <= 0) return Collections.emptyList();
 
-            String cPlayer = c.get("Player");
-            String tPlayer = target.get("Player");
-            if (cPlayer.equals(tPlayer)) score += 15;
-
-            boolean targetIsRare = rareCardIds != null && rareCardIds.contains(target.stableId);
-            boolean cIsRare = rareCardIds != null && rareCardIds.contains(c.stableId);
-            if (targetIsRare && cIsRare) score += 7;
-
-            scored.put(c, score);
-        }
-
-        List<CardData> top = scored.entrySet().stream()
-                .sorted((e1, e2) -> {
-                    int cmp = Integer.compare(e2.getValue(), e1.getValue());
-                    if (cmp != 0) return cmp;
-                    if (e1.getKey().stableId != null && e2.getKey().stableId != null) {
-                        return e1.getKey().stableId.compareTo(e2.getKey().stableId);
-                    }
-                    return e1.getKey().filename.compareTo(e2.getKey().filename);
-                })
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        List<CardData> top = engine.related(target, limit);
 
         List<Map<String, String>> result = new ArrayList<>();
         for (CardData c : top) {
             Map<String, String> item = new HashMap<>();
             String relUrl = "../" + c.seasonFolder + "/" + c.filename;
-            item.put("title", generateH1(c));
+            CardView view = c.view();
+            item.put("title", view.h1Title());
             item.put("url", relUrl);
             item.put("link", relUrl);
 
-            String rawImageBase = c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-"));
-            String imageBaseName = resolveDiskImageBase(c.seasonFolder, rawImageBase, c);
-            String imgBase = RELATIVE_IMAGES_PATH + "/" + c.seasonFolder + "/" + imageBaseName + "-front";
+            String imgBase = view.relativeImageBase() + "-front";
             String thumbAvif = imgBase + "-200w.avif";
             String thumbFallback = imgBase + ".avif";
 
@@ -888,7 +943,7 @@ public class CardPageGenerator {
             item.put("thumbAvif", thumbAvif);
             item.put("thumb", thumbAvif);
             item.put("thumbFallback", thumbFallback);
-            item.put("alt", generateAltText(c, "front"));
+            item.put("alt", view.frontAlt());
             item.put("variant", c.has("Variant") ? c.get("Variant") : "Base");
             item.put("season", c.get("Season"));
             item.put("brand", c.get("Brand"));
@@ -899,7 +954,7 @@ public class CardPageGenerator {
         return result;
     }
 
-    private static boolean isRareParallel(CardData c) {
+    static boolean isRareParallel(CardData c) {
         String variant = c.get("Variant").toLowerCase();
         String theme = c.get("Theme").toLowerCase();
         return variant.contains("refractor") || variant.contains("pmg") || variant.contains("ruby") ||
@@ -938,7 +993,7 @@ public class CardPageGenerator {
 
 
     private static String getSeasonHighlights(CardData c, String overviewPage) {
-        String triviaText = triviaManager.getTrivia("playerHighlights", c.attributes);
+        String triviaText = triviaManager.getTrivia("playerHighlights", c.attributes());
         if (triviaText != null && !triviaText.trim().isEmpty()) {
             return triviaText;
         }
@@ -959,7 +1014,7 @@ public class CardPageGenerator {
             return "Ultra-High-End Premium Era: Featuring low-numbered parallel cards, certified signatures, and game-worn patch swatches of basketball icons.";
         }
 
-        String triviaText = triviaManager.getTrivia("eraContext", c.attributes);
+        String triviaText = triviaManager.getTrivia("eraContext", c.attributes());
         if (triviaText != null && !triviaText.trim().isEmpty()) {
             return triviaText;
         }
@@ -1150,7 +1205,7 @@ public class CardPageGenerator {
 
         List<Map<String, String>> result = new ArrayList<>();
         for (CardData c : selected) {
-            String title = formatShowcaseCardTitle(c);
+            String title = c.view().showcaseTitle();
             String url = getRelativeCardUrl(currentCard, c);
             result.add(Map.of("title", title, "url", url, "stableId", c.stableId != null ? c.stableId : ""));
         }
@@ -1197,7 +1252,7 @@ public class CardPageGenerator {
 
         List<Map<String, String>> result = new ArrayList<>();
         for (CardData c : selected) {
-            String title = formatShowcaseCardTitle(c);
+            String title = c.view().showcaseTitle();
             String url = getRelativeCardUrl(currentCard, c);
             result.add(Map.of("title", title, "url", url));
         }
@@ -1242,8 +1297,7 @@ public class CardPageGenerator {
 
         for (CardData c : cards) {
             String seasonFolder = c.seasonFolder != null ? c.seasonFolder : "Unknown_Season";
-            String rawImageBase = c.filenameBase.contains("-") ? c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-")) : c.filenameBase;
-            String resolvedImageBase = resolveDiskImageBase(seasonFolder, rawImageBase, c);
+            String resolvedImageBase = c.view().imageBase();
 
             boolean frontExists = checkSideImageExists(seasonFolder, resolvedImageBase, "front", extensions);
             boolean backExists = checkSideImageExists(seasonFolder, resolvedImageBase, "back", extensions);
@@ -0,0 +1,261 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardData;
+import de.maulmann.CardPageGenerator.CardIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Build-scoped card datasets. All JSON buckets are parsed in parallel once per build, deduplicated once and shared
+ * by {@link CardPageGenerator}, {@link FileGenerator} and the sitemap, instead of every generator re-reading
+ * cards.json and keeping its own caches.
+ * <p>
+ * {@link #load()} replaces the current repository; {@link #get()} loads lazily for standalone generator runs.
+ */
+public final class CardRepository {
+    private static final Logger log = LoggerFactory.getLogger(CardRepository.class);
+    private static final Pattern PATTERN_SPACES = Pattern.compile("\\s+");
+
+    private static volatile CardRepository current;
+
+    public enum Bucket {
+        CARDS("cards.json", "Juwan-Howard-Collection.html"),
+        BASEBALL("baseball.json", "Baseball.html"),
+        FLAWLESS("flawless.json", "Flawless.html"),
+        WANTLIST("wantlist.json", "Wantlist.html"),
+        PANINI("panini.json", "Panini.html");
+
+        final String file;
+        final String overviewPage;
+
+        Bucket(String file, String overviewPage) {
+            this.file = file;
+            this.overviewPage = overviewPage;
+        }
+
+        /**
+         * The bucket behind a collection page such as "Baseball", or null if the collection has no dataset.
+         */
+        public static Bucket forCollection(String collection) {
+            String file = collection.toLowerCase() + ".json";
+            for (Bucket bucket : values()) {
+                if (bucket.file.equals(file)) return bucket;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * One loaded bucket: every row as {@link CardData} and the deduplicated subset.
+     */
+    public static final class Dataset {
+        final Bucket bucket;
+        final String source;
+        final CardStore store;
+        private final List<CardData> cards;
+        private final List<CardData> unique;
+        private final List<String> skipped;
+        private volatile CardIndex index;
+        private volatile RelatedCardsEngine related;
+
+        private Dataset(Bucket bucket, String source, CardStore store) {
+            this.bucket = bucket;
+            this.source = source;
+            this.store = store;
+
+            List<CardData> cards = new ArrayList<>(store.size());
+            for (int row = 0; row < store.size(); row++) {
+                cards.add(new CardData(store, row, null));
+            }
+
+            List<CardData> unique = new ArrayList<>(cards.size());
+            List<String> skipped = new ArrayList<>();
+            Set<String> seenFingerprints = new HashSet<>();
+            for (CardData card : cards) {
+                if (seenFingerprints.add(fingerprint(card)) || hasSerial(card)) {
+                    unique.add(card);
+                } else {
+                    String dupInfo = card.get("Season") + " " + card.get("Company") + " " +
+                            card.get("Brand") + " " + card.get("Theme") + " " +
+                            card.get("Variant") + " #" + card.get("Number") + " - " + card.get("Player");
+                    skipped.add(PATTERN_SPACES.matcher(dupInfo).replaceAll(" "));
+                }
+            }
+
+            this.cards = Collections.unmodifiableList(cards);
+            this.unique = Collections.unmodifiableList(unique);
+            this.skipped = Collections.unmodifiableList(skipped);
+        }
+
+        public int size() {
+            return store.size();
+        }
+
+        public boolean isEmpty() {
+            return store.isEmpty();
+        }
+
+        /**
+         * Every card in file order, duplicates included.
+         */
+        public List<CardData> cards() {
+            return cards;
+        }
+
+        /**
+         * Cards after removing un-numbered duplicates; these are the cards that get a detail page.
+         */
+        public List<CardData> unique() {
+            return unique;
+        }
+
+        /**
+         * Descriptions of the un-numbered duplicates dropped by {@link #unique()}.
+         */
+        public List<String> skipped() {
+            return skipped;
+        }
+
+        /**
+         * Attribute index over {@link #unique()}, built on first use.
+         */
+        public CardIndex index() {
+            CardIndex result = index;
+            if (result == null) {
+                synchronized (this) {
+                    result = index;
+                    if (result == null) {
+                        index = result = new CardIndex(unique);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Related-cards engine over {@link #unique()}, built on first use.
+         */
+        public RelatedCardsEngine related() {
+            RelatedCardsEngine result = related;
+            if (result == null) {
+                synchronized (this) {
+                    result = related;
+                    if (result == null) {
+                        related = result = new RelatedCardsEngine(unique);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private final String sourceDir;
+    private final Map<Bucket, Dataset> datasets;
+
+    private CardRepository(String sourceDir, Map<Bucket, Dataset> datasets) {
+        this.sourceDir = sourceDir;
+        this.datasets = datasets;
+    }
+
+    /**
+     * Loads all buckets from {@link FileGenerator#pathSource} and makes them the current repository.
+     */
+    public static CardRepository load() {
+        return load(FileGenerator.pathSource);
+    }
+
+    public static CardRepository load(String sourceDir) {
+        long start = System.currentTimeMillis();
+        Map<Bucket, CompletableFuture<Dataset>> futures = new EnumMap<>(Bucket.class);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Bucket bucket : Bucket.values()) {
+                String source = sourceDir + "json/" + bucket.file;
+                futures.put(bucket, CompletableFuture.supplyAsync(
+                        () -> new Dataset(bucket, source, CardDataLoader.loadCardStore(source)), executor));
+            }
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+        }
+
+        Map<Bucket, Dataset> datasets = new EnumMap<>(Bucket.class);
+        futures.forEach((bucket, future) -> datasets.put(bucket, future.join()));
+        CardRepository repository = new CardRepository(sourceDir, Collections.unmodifiableMap(datasets));
+        current = repository;
+        int cardCount = datasets.values().stream().mapToInt(Dataset::size).sum();
+        log.info("Loaded {} cards from {} datasets in {} ms.", cardCount, datasets.size(),
+                System.currentTimeMillis() - start);
+        return repository;
+    }
+
+    /**
+     * The current repository, loading it if nothing was loaded yet or {@link FileGenerator#pathSource} changed.
+     */
+    public static CardRepository get() {
+        CardRepository repository = current;
+        if (repository == null || !repository.sourceDir.equals(FileGenerator.pathSource)) {
+            synchronized (CardRepository.class) {
+                repository = current;
+                if (repository == null || !repository.sourceDir.equals(FileGenerator.pathSource)) {
+                    repository = load();
+                }
+            }
+        }
+        return repository;
+    }
+
+    /**
+     * Drops the current repository so the next {@link #get()} reads the datasets again.
+     */
+    public static void reset() {
+        current = null;
+    }
+
+    public Dataset dataset(Bucket bucket) {
+        return datasets.get(bucket);
+    }
+
+    /**
+     * Every card that gets a detail page: the {@link Dataset#unique()} cards of all buckets in bucket order, as
+     * returned by {@link CardPageGenerator#run()}.
+     */
+    public List<CardData> pageCards() {
+        List<CardData> result = new ArrayList<>();
+        for (Dataset dataset : datasets.values()) {
+            result.addAll(dataset.unique());
+        }
+        return result;
+    }
+
+    /**
+     * The shared {@link CardData} of a row from one of the datasets, or a fresh one for stores loaded elsewhere.
+     */
+    public CardData cardData(CardStore store, int row) {
+        for (Dataset dataset : datasets.values()) {
+            if (dataset.store == store) return dataset.cards.get(row);
+        }
+        return new CardData(store, row, null);
+    }
+
+    private static String fingerprint(CardData card) {
+        return (card.get("Season") + "|" + card.get("Company") + "|" +
+                card.get("Brand") + "|" + card.get("Theme") + "|" +
+                card.get("Variant") + "|" + card.get("Number") + "|" +
+                card.get("Grading Co.") + "|" + card.get("Grade")).toLowerCase();
+    }
+
+    private static boolean hasSerial(CardData card) {
+        String serial = card.get("Serial");
+        return CardUtils.isValidForDisplay(serial);
+    }
+}
@@ -47,6 +47,20 @@ public class CardSchemaGenerator {
         ratingCacheLoaded = true;
     }
 
+    /**
+     * Returns the raw "count:sum" rating cache entry for a card (by stable id, then filename), or null.
+     */
+    static String getCachedRating(CardPageGenerator.CardData c) {
+        if (!ratingCacheLoaded) {
+            loadRatingCache();
+        }
+        String cachedRating = c.stableId != null ? RATING_CACHE.getProperty(c.stableId) : null;
+        if (cachedRating == null && c.filename != null) {
+            cachedRating = RATING_CACHE.getProperty(c.filename);
+        }
+        return cachedRating;
+    }
+
     public record FaqItem(String question, String answer) {}
 
     public static List<FaqItem> computeFaqItems(CardPageGenerator.CardData c) {
@@ -108,7 +122,7 @@ public class CardSchemaGenerator {
             items.add(new FaqItem("Is this card professionally graded?", "Yes, this card has been graded by " + c.get("Grading Co.") + " and received a condition score of " + c.get("Grade") + "."));
         }
 
-        List<TriviaManager.FaqItem> rookieFaqs = TRIVIA_MANAGER.getFaqs("rookieFaq", c.attributes);
+        List<TriviaManager.FaqItem> rookieFaqs = TRIVIA_MANAGER.getFaqs("rookieFaq", c.attributes());
         for (TriviaManager.FaqItem faq : rookieFaqs) {
             items.add(new FaqItem(faq.question(), faq.answer()));
         }
@@ -279,14 +293,7 @@ public class CardSchemaGenerator {
         sb.append("</script>\n");
 
         // 5. Product Schema (Active JSON-LD)
-        if (!ratingCacheLoaded) {
-            loadRatingCache();
-        }
-
-        String cachedRating = c.stableId != null ? RATING_CACHE.getProperty(c.stableId) : null;
-        if (cachedRating == null && c.filename != null) {
-            cachedRating = RATING_CACHE.getProperty(c.filename);
-        }
+        String cachedRating = getCachedRating(c);
 
         long ratingCount = 0;
         double ratingSum = 0.0;
@@ -0,0 +1,350 @@
+package de.maulmann;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, read-only card dataset. Low-cardinality fields (season, team, company, brand, ...) are dictionary
+ * encoded, so every distinct value is stored once and a card costs an int per column; per-card fields (id, number,
+ * serial, notes) are plain string columns, print run and the autograph/patch/rookie flags are primitives.
+ * {@link CardPageGenerator.CardData} is a view over one row.
+ * <p>
+ * {@link #read} fills the store with a streaming parser, without materializing a {@link CardJson} per card.
+ * Field names and value coercion follow {@link CardJson}.
+ */
+public final class CardStore {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int NO_PRINT_RUN = Integer.MIN_VALUE;
+
+    static final int AUTOGRAPH = 1;
+    static final int PATCH = 1 << 1;
+    static final int ROOKIE = 1 << 2;
+
+    public enum Column {
+        ID("id", false),
+        PLAYER("player", true),
+        SEASON("season", true),
+        TEAM("team", true),
+        COMPANY("company", true),
+        BRAND("brand", true),
+        THEME("theme", true),
+        VARIANT("variant", true),
+        CARD_NUMBER("cardNumber", false),
+        SERIAL_NUMBER("serialNumber", false),
+        GRADING_COMPANY("gradingCompany", true),
+        GRADE("grade", true),
+        COLLECTION("collection", true),
+        NOTES("notes", false);
+
+        private static final Column[] VALUES = values();
+        private static final Map<String, Column> BY_FIELD = new HashMap<>();
+
+        static {
+            for (Column column : VALUES) {
+                BY_FIELD.put(column.field, column);
+            }
+        }
+
+        final String field;
+        final boolean dictionary;
+
+        Column(String field, boolean dictionary) {
+            this.field = field;
+            this.dictionary = dictionary;
+        }
+    }
+
+    private final int size;
+    // Per column: dictionary codes (-1 for null) or raw values, depending on Column.dictionary
+    private final int[][] codes;
+    private final String[][] raw;
+    private final String[][] dictionaries;
+    private final int[] printRuns;
+    private final byte[] flags;
+
+    private CardStore(int size, int[][] codes, String[][] raw, String[][] dictionaries, int[] printRuns, byte[] flags) {
+        this.size = size;
+        this.codes = codes;
+        this.raw = raw;
+        this.dictionaries = dictionaries;
+        this.printRuns = printRuns;
+        this.flags = flags;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String get(int row, Column column) {
+        int c = column.ordinal();
+        if (!column.dictionary) return raw[c][row];
+        int code = codes[c][row];
+        return code < 0 ? null : dictionaries[c][code];
+    }
+
+    /**
+     * Dictionary code of a dictionary-encoded column, -1 for null. Equal codes mean equal values within this store.
+     */
+    public int code(int row, Column column) {
+        if (!column.dictionary) throw new IllegalArgumentException(column + " is not dictionary encoded");
+        return codes[column.ordinal()][row];
+    }
+
+    /**
+     * Number of distinct non-null values of a dictionary-encoded column.
+     */
+    public int cardinality(Column column) {
+        if (!column.dictionary) throw new IllegalArgumentException(column + " is not dictionary encoded");
+        return dictionaries[column.ordinal()].length;
+    }
+
+    public Integer printRun(int row) {
+        int printRun = printRuns[row];
+        return printRun == NO_PRINT_RUN ? null : printRun;
+    }
+
+    public boolean isAutograph(int row) {
+        return (flags[row] & AUTOGRAPH) != 0;
+    }
+
+    public boolean isPatch(int row) {
+        return (flags[row] & PATCH) != 0;
+    }
+
+    public boolean isRookie(int row) {
+        return (flags[row] & ROOKIE) != 0;
+    }
+
+    /**
+     * Materializes one row as a {@link CardJson}, for the overview pages that still work on the object model.
+     */
+    public CardJson toCardJson(int row) {
+        CardJson c = new CardJson();
+        c.id = get(row, Column.ID);
+        c.player = get(row, Column.PLAYER);
+        c.season = get(row, Column.SEASON);
+        c.team = get(row, Column.TEAM);
+        c.company = get(row, Column.COMPANY);
+        c.brand = get(row, Column.BRAND);
+        c.theme = get(row, Column.THEME);
+        c.variant = get(row, Column.VARIANT);
+        c.cardNumber = get(row, Column.CARD_NUMBER);
+        c.serialNumber = get(row, Column.SERIAL_NUMBER);
+        c.gradingCompany = get(row, Column.GRADING_COMPANY);
+        c.grade = get(row, Column.GRADE);
+        c.collection = get(row, Column.COLLECTION);
+        c.notes = get(row, Column.NOTES);
+        c.printRun = printRun(row);
+        c.isAutograph = isAutograph(row);
+        c.isPatch = isPatch(row);
+        c.isRookie = isRookie(row);
+        return c;
+    }
+
+    /**
+     * The value a {@link CardJson} holds for a column, as {@link #of} stores it.
+     */
+    static String value(CardJson c, Column column) {
+        return switch (column) {
+            case ID -> c.id;
+            case PLAYER -> c.player;
+            case SEASON -> c.season;
+            case TEAM -> c.team;
+            case COMPANY -> c.company;
+            case BRAND -> c.brand;
+            case THEME -> c.theme;
+            case VARIANT -> c.variant;
+            case CARD_NUMBER -> c.cardNumber;
+            case SERIAL_NUMBER -> c.serialNumber;
+            case GRADING_COMPANY -> c.gradingCompany;
+            case GRADE -> c.grade;
+            case COLLECTION -> c.collection;
+            case NOTES -> c.notes;
+        };
+    }
+
+    public static CardStore of(List<CardJson> cards) {
+        Builder builder = new Builder(cards.size());
+        String[] values = new String[Column.VALUES.length];
+        for (CardJson c : cards) {
+            for (Column column : Column.VALUES) {
+                values[column.ordinal()] = value(c, column);
+            }
+            int cardFlags = (c.isAutograph ? AUTOGRAPH : 0) | (c.isPatch ? PATCH : 0) | (c.isRookie ? ROOKIE : 0);
+            builder.add(values, c.printRun != null ? c.printRun : NO_PRINT_RUN, cardFlags);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Streams a JSON array of cards into a store. Unknown fields and non-object array elements are skipped.
+     */
+    public static CardStore read(InputStream in) throws IOException {
+        try (JsonParser parser = JSON.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of cards");
+            }
+            Builder builder = new Builder(256);
+            String[] values = new String[Column.VALUES.length];
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) throw new IOException("Unexpected end of card array");
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                Arrays.fill(values, null);
+                int printRun = NO_PRINT_RUN;
+                int cardFlags = 0;
+                String field;
+                while ((field = parser.nextFieldName()) != null) {
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "printRun" -> printRun = readInt(parser, value);
+                        case "isAutograph" -> cardFlags |= readBoolean(parser, value) ? AUTOGRAPH : 0;
+                        case "isPatch" -> cardFlags |= readBoolean(parser, value) ? PATCH : 0;
+                        case "isRookie" -> cardFlags |= readBoolean(parser, value) ? ROOKIE : 0;
+                        default -> {
+                            Column column = Column.BY_FIELD.get(field);
+                            if (column != null) {
+                                values[column.ordinal()] = readText(parser, value);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                }
+                builder.add(values, printRun, cardFlags);
+            }
+            return builder.build();
+        }
+    }
+
+    private static String readText(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return token == JsonToken.VALUE_NULL ? null : parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static int readInt(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_NUMBER_INT -> parser.getIntValue();
+            case VALUE_NUMBER_FLOAT -> (int) parser.getDoubleValue();
+            case VALUE_STRING -> {
+                try {
+                    String text = parser.getText().trim();
+                    yield text.isEmpty() ? NO_PRINT_RUN : Integer.parseInt(text);
+                } catch (NumberFormatException _) {
+                    yield NO_PRINT_RUN;
+                }
+            }
+            default -> {
+                parser.skipChildren();
+                yield NO_PRINT_RUN;
+            }
+        };
+    }
+
+    private static boolean readBoolean(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_TRUE -> true;
+            case VALUE_NUMBER_INT -> parser.getIntValue() != 0;
+            case VALUE_STRING -> "true".equalsIgnoreCase(parser.getText().trim());
+            default -> {
+                parser.skipChildren();
+                yield false;
+            }
+        };
+    }
+
+    private static final class Builder {
+        private final Map<String, Integer>[] codeMaps;
+        private final List<String>[] dictionaries;
+        private int[][] codes;
+        private String[][] raw;
+        private int[] printRuns;
+        private byte[] flags;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        Builder(int capacity) {
+            int columns = Column.VALUES.length;
+            int initial = Math.max(capacity, 16);
+            codeMaps = new Map[columns];
+            dictionaries = new List[columns];
+            codes = new int[columns][];
+            raw = new String[columns][];
+            for (Column column : Column.VALUES) {
+                int c = column.ordinal();
+                if (column.dictionary) {
+                    codeMaps[c] = new HashMap<>();
+                    dictionaries[c] = new ArrayList<>();
+                    codes[c] = new int[initial];
+                } else {
+                    raw[c] = new String[initial];
+                }
+            }
+            printRuns = new int[initial];
+            flags = new byte[initial];
+        }
+
+        void add(String[] values, int printRun, int cardFlags) {
+            if (size == flags.length) {
+                grow();
+            }
+            for (Column column : Column.VALUES) {
+                int c = column.ordinal();
+                String value = values[c];
+                if (column.dictionary) {
+                    codes[c][size] = value == null ? -1 : codeMaps[c].computeIfAbsent(value, v -> {
+                        dictionaries[c].add(v);
+                        return dictionaries[c].size() - 1;
+                    });
+                } else {
+                    raw[c][size] = value;
+                }
+            }
+            printRuns[size] = printRun;
+            flags[size] = (byte) cardFlags;
+            size++;
+        }
+
+        private void grow() {
+            int capacity = flags.length * 2;
+            for (int c = 0; c < codes.length; c++) {
+                if (codes[c] != null) codes[c] = Arrays.copyOf(codes[c], capacity);
+                if (raw[c] != null) raw[c] = Arrays.copyOf(raw[c], capacity);
+            }
+            printRuns = Arrays.copyOf(printRuns, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+
+        CardStore build() {
+            // Trim to size: a store lives for the whole build
+            String[][] dictionaryArrays = new String[codes.length][];
+            for (int c = 0; c < codes.length; c++) {
+                if (codes[c] != null) {
+                    codes[c] = Arrays.copyOf(codes[c], size);
+                    dictionaryArrays[c] = dictionaries[c].toArray(String[]::new);
+                }
+                if (raw[c] != null) raw[c] = Arrays.copyOf(raw[c], size);
+            }
+            return new CardStore(size, codes, raw, dictionaryArrays, Arrays.copyOf(printRuns, size), Arrays.copyOf(flags, size));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Shared compression dictionary trained on rendered card pages.
+ * <p>
+ * All card pages come from card-detail.ftlh, so most of their bytes (head, nav, footer, JSON-LD skeleton, FAQ
+ * boilerplate) repeat from page to page. {@link #train} picks the runs of markup that most sample pages share and
+ * concatenates them into a raw dictionary, most valuable last so they sit closest to the data.
+ * <p>
+ * The dictionary is stored as {@code card-pages-<version>.dict} next to {@value #MANIFEST}, where the version is a
+ * digest prefix of its content. It is retrained when the card template changes.
+ */
+public final class CompressionDictionary {
+    private static final Logger log = LoggerFactory.getLogger(CompressionDictionary.class);
+
+    static final int MAX_SIZE = 64 * 1024;
+    static final int MAX_SAMPLES = 200;
+    static final String MANIFEST = "card-pages.properties";
+    private static final String PREFIX = "card-pages-";
+    private static final String EXTENSION = ".dict";
+    // A run is only worth a dictionary slot if this share of the sample pages contains it
+    private static final double MIN_PAGE_SHARE = 0.5;
+    private static final int MIN_RUN_LENGTH = 32;
+
+    private final String version;
+    private final byte[] data;
+
+    CompressionDictionary(String version, byte[] data) {
+        this.version = version;
+        this.data = data;
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    /**
+     * Returns the stored dictionary, or null if there is none or it was trained on another version of {@code template}.
+     */
+    public static CompressionDictionary load(Path dir, Path template) throws IOException {
+        Path manifestFile = dir.resolve(MANIFEST);
+        if (!Files.exists(manifestFile)) return null;
+        Properties manifest = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile)) {
+            manifest.load(in);
+        }
+        String version = manifest.getProperty("version");
+        if (version == null || !templateDigest(template).equals(manifest.getProperty("template"))) return null;
+        Path stored = dir.resolve(PREFIX + version + EXTENSION);
+        return Files.exists(stored) ? new CompressionDictionary(version, Files.readAllBytes(stored)) : null;
+    }
+
+    /**
+     * Trains a dictionary on {@code pages} (minified, in a stable order), stores it as the current version for
+     * {@code template} and deletes older versions. Returns null if the pages share nothing worth storing.
+     */
+    public static CompressionDictionary trainAndStore(Path dir, Path template, List<byte[]> pages) throws IOException {
+        byte[] data = train(pages, MAX_SIZE);
+        if (data.length == 0) return null;
+        String version = ContentHasher.getDefault().hash(data).substring(0, 8);
+
+        Files.createDirectories(dir);
+        Files.write(dir.resolve(PREFIX + version + EXTENSION), data);
+        Properties manifest = new Properties();
+        manifest.setProperty("version", version);
+        manifest.setProperty("template", templateDigest(template));
+        manifest.setProperty("samples", String.valueOf(pages.size()));
+        manifest.setProperty("bytes", String.valueOf(data.length));
+        try (OutputStream out = Files.newOutputStream(dir.resolve(MANIFEST))) {
+            manifest.store(out, "Shared compression dictionary for card pages");
+        }
+        deleteOtherVersions(dir, version);
+        log.info("Trained compression dictionary {} ({} KB) on {} pages.", version, data.length / 1024, pages.size());
+        return new CompressionDictionary(version, data);
+    }
+
+    private static String templateDigest(Path template) throws IOException {
+        return Files.exists(template) ? ContentHasher.getDefault().hash(template) : "";
+    }
+
+    private static void deleteOtherVersions(Path dir, String version) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(EXTENSION) && !name.equals(PREFIX + version + EXTENSION);
+            }).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a raw dictionary of at most {@code maxSize} bytes from sample pages.
+     * <p>
+     * Pages are cut into segments after every {@code >}. Segments found on at least half of the pages are joined with
+     * their frequent neighbours into runs, and runs are ranked by pages containing them times length. The best runs
+     * that are not already part of the dictionary fill it, and the result is ordered from least to most valuable.
+     */
+    static byte[] train(List<byte[]> pages, int maxSize) {
+        int minPages = Math.max(1, (int) Math.ceil(pages.size() * MIN_PAGE_SHARE));
+
+        // ISO-8859-1 maps bytes to chars one to one, so substring operations stay byte exact
+        List<List<String>> segmented = new ArrayList<>(pages.size());
+        Map<String, Integer> segmentPages = new HashMap<>();
+        for (byte[] page : pages) {
+            List<String> segments = segments(new String(page, StandardCharsets.ISO_8859_1));
+            segmented.add(segments);
+            for (String segment : new HashSet<>(segments)) {
+                segmentPages.merge(segment, 1, Integer::sum);
+            }
+        }
+
+        Map<String, Integer> runPages = new HashMap<>();
+        for (List<String> segments : segmented) {
+            Set<String> runs = new HashSet<>();
+            StringBuilder run = new StringBuilder();
+            for (String segment : segments) {
+                if (segmentPages.get(segment) >= minPages) {
+                    run.append(segment);
+                } else {
+                    addRun(runs, run);
+                }
+            }
+            addRun(runs, run);
+            for (String r : runs) {
+                runPages.merge(r, 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(runPages.entrySet());
+        ranked.removeIf(e -> e.getValue() < minPages);
+        ranked.sort(Comparator.comparingLong((Map.Entry<String, Integer> e) -> (long) e.getValue() * e.getKey().length())
+                .reversed().thenComparing(Map.Entry::getKey));
+
+        List<String> chosen = new ArrayList<>();
+        StringBuilder contents = new StringBuilder();
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : ranked) {
+            String run = entry.getKey();
+            if (size + run.length() > maxSize || contents.indexOf(run) >= 0) continue;
+            chosen.add(run);
+            contents.append(run).append('\0');
+            size += run.length();
+        }
+
+        StringBuilder dictionary = new StringBuilder(size);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.append(chosen.get(i));
+        }
+        return dictionary.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void addRun(Set<String> runs, StringBuilder run) {
+        if (run.length() >= MIN_RUN_LENGTH) {
+            runs.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    private static List<String> segments(String page) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < page.length(); i++) {
+            if (page.charAt(i) == '>') {
+                segments.add(page.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < page.length()) {
+            segments.add(page.substring(start));
+        }
+        return segments;
+    }
+
+    /**
+     * Picks up to {@code count} evenly spaced entries of a sorted list, starting at {@code offset} within the first step.
+     * Training and evaluation use different offsets so they see different pages.
+     */
+    static <T> List<T> spread(List<T> sorted, int count, double offset) {
+        if (sorted.size() <= count) return sorted;
+        List<T> picked = new ArrayList<>(count);
+        double step = (double) sorted.size() / count;
+        for (int i = 0; i < count; i++) {
+            picked.add(sorted.get((int) (i * step + offset * step)));
+        }
+        return picked;
+    }
+}
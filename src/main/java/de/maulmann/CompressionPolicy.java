@@ -0,0 +1,173 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Picks the Brotli quality per artifact class and tracks which artifacts are already served at maximum quality.
+ * <p>
+ * Long-cached assets ({@code immutable} Cache-Control, i.e. CSS and JS) are fetched once per visitor and year, so they
+ * get {@link BrotliCompressor#BEST_QUALITY} right away. Pages and feeds change on most deploys and get
+ * {@link #FAST_QUALITY} to keep Phase 3 short. A page that survives a deploy unchanged has proven to be long-lived and
+ * becomes a candidate for re-compression at maximum quality after the deploy is live. Upgraded artifacts are recorded
+ * by key and digest, so each version is upgraded once.
+ * <p>
+ * With gzip publishing on, the policy also records which text files have a gzip variant next to them on S3, so files
+ * that were uploaded before the mode was switched on get one too.
+ */
+public final class CompressionPolicy {
+    private static final Logger log = LoggerFactory.getLogger(CompressionPolicy.class);
+
+    public static final int FAST_QUALITY = 5;
+    public static final int FAST_GZIP_LEVEL = 6;
+    static final int DEFAULT_RECOMPRESS_BUDGET = 250;
+    static final String BEST_QUALITY_FILE = "best-quality.properties";
+    static final String GZIP_VARIANTS_FILE = "gzip-variants.properties";
+
+    public enum ArtifactClass {
+        STATIC, VOLATILE
+    }
+
+    /**
+     * An unchanged artifact that is not yet served at maximum quality.
+     */
+    public record Candidate(Path file, String key, String digest, long size) {}
+
+    private final Path stateDir;
+    private final Properties upgraded = new Properties();
+    private final Properties gzipVariants = new Properties();
+    private final ConcurrentLinkedQueue<Candidate> candidates = new ConcurrentLinkedQueue<>();
+
+    public CompressionPolicy(Path stateDir) {
+        this.stateDir = stateDir;
+        load(BEST_QUALITY_FILE, upgraded);
+        load(GZIP_VARIANTS_FILE, gzipVariants);
+    }
+
+    private void load(String name, Properties target) {
+        Path file = stateDir.resolve(name);
+        if (!Files.exists(file)) return;
+        try (InputStream in = Files.newInputStream(file)) {
+            target.load(in);
+        } catch (IOException e) {
+            log.warn("Could not load compression state {}: {}", name, e.getMessage());
+        }
+    }
+
+    public static ArtifactClass classify(String cacheControl) {
+        return cacheControl != null && cacheControl.contains("immutable") ? ArtifactClass.STATIC : ArtifactClass.VOLATILE;
+    }
+
+    public static int brotliQuality(ArtifactClass artifactClass) {
+        return artifactClass == ArtifactClass.STATIC ? BrotliCompressor.BEST_QUALITY : FAST_QUALITY;
+    }
+
+    public static int gzipLevel(ArtifactClass artifactClass) {
+        return artifactClass == ArtifactClass.STATIC ? GZIPCompressor.BEST_COMPRESSION : FAST_GZIP_LEVEL;
+    }
+
+    /**
+     * Number of files upgraded per run from {@code -DRECOMPRESS_BUDGET}; 0 turns background re-compression off.
+     */
+    public static int budgetFromProperty() {
+        String value = System.getProperty("RECOMPRESS_BUDGET");
+        if (value != null) {
+            try {
+                return Math.max(0, Integer.parseInt(value.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid RECOMPRESS_BUDGET '{}'", value);
+            }
+        }
+        return DEFAULT_RECOMPRESS_BUDGET;
+    }
+
+    /**
+     * Records an upload. Anything below maximum quality replaces an earlier upgrade of the key.
+     */
+    public void noteUploaded(String key, String digest, int quality) {
+        if (quality >= BrotliCompressor.BEST_QUALITY && digest != null) {
+            upgraded.setProperty(key, digest);
+        } else {
+            upgraded.remove(key);
+        }
+    }
+
+    /**
+     * Records an artifact that was skipped because it did not change; it becomes a candidate unless already upgraded.
+     */
+    public void noteUnchanged(Path file, String key, String digest) {
+        if (digest == null || digest.equals(upgraded.getProperty(key))) return;
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            return;
+        }
+        candidates.add(new Candidate(file, key, digest, size));
+    }
+
+    public void markUpgraded(Candidate candidate) {
+        upgraded.setProperty(candidate.key(), candidate.digest());
+    }
+
+    public boolean hasGzipVariant(String key, String digest) {
+        return digest != null && digest.equals(gzipVariants.getProperty(key));
+    }
+
+    public void noteGzipVariant(String key, String digest) {
+        if (digest != null) {
+            gzipVariants.setProperty(key, digest);
+        }
+    }
+
+    /**
+     * Forgets all gzip variants, for runs without gzip publishing: the ghost sweep deletes them from S3.
+     */
+    public void forgetGzipVariants() {
+        gzipVariants.clear();
+    }
+
+    /**
+     * Returns up to {@code limit} candidates, hottest first: pages near the site root are on every visitor's path, and
+     * among equally deep pages the largest save the most bytes.
+     */
+    public List<Candidate> takeCandidates(int limit) {
+        List<Candidate> sorted = new ArrayList<>(candidates);
+        candidates.clear();
+        sorted.sort(Comparator.comparingInt((Candidate c) -> c.key().split("/").length)
+                .thenComparing(Comparator.comparingLong(Candidate::size).reversed())
+                .thenComparing(Candidate::key));
+        return sorted.size() > limit ? sorted.subList(0, limit) : sorted;
+    }
+
+    /**
+     * Saves the upgraded artifacts and gzip variants, dropping entries whose file is gone.
+     */
+    public void save(Path outputDir) {
+        save(outputDir, BEST_QUALITY_FILE, upgraded, "Artifacts served at maximum compression quality");
+        save(outputDir, GZIP_VARIANTS_FILE, gzipVariants, "Artifacts with a gzip variant on S3");
+    }
+
+    private void save(Path outputDir, String name, Properties entries, String comment) {
+        entries.keySet().removeIf(key -> !Files.exists(outputDir.resolve((String) key)));
+        try {
+            Files.createDirectories(stateDir);
+            try (OutputStream out = Files.newOutputStream(stateDir.resolve(name))) {
+                entries.store(out, comment);
+            }
+        } catch (IOException e) {
+            log.warn("Could not save compression state {}: {}", name, e.getMessage());
+        }
+    }
+}
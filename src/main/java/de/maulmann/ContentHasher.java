@@ -0,0 +1,175 @@
+package de.maulmann;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Pluggable 128-bit content hashing for change detection.
+ * The default is a fast non-cryptographic xxHash variant; select MD5 with {@code -DCONTENT_HASHER=md5}.
+ * Stable public ids (card ids, css build id) must keep using {@link #md5()} for URL compatibility.
+ */
+public interface ContentHasher {
+
+    /**
+     * Numeric id persisted next to stored digests, so caches can tell which algorithm produced them.
+     */
+    int id();
+
+    String algorithm();
+
+    Digest newDigest();
+
+    /**
+     * Incremental digest over any number of buffers.
+     */
+    interface Digest {
+        /**
+         * Consumes the remaining bytes of the buffer, advancing its position to the limit.
+         */
+        void update(ByteBuffer data);
+
+        /**
+         * Returns the 128-bit digest as 32 lowercase hex characters.
+         */
+        String hex();
+    }
+
+    default String hash(byte[] data) {
+        Digest digest = newDigest();
+        digest.update(ByteBuffer.wrap(data));
+        return digest.hex();
+    }
+
+    default String hash(String content) {
+        return hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Hashes a file through its FileChannel using a pooled direct buffer. Returns null if the file does not exist.
+     */
+    default String hash(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        Digest digest = newDigest();
+        ByteBuffer buffer = DirectBufferPool.acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } catch (NoSuchFileException _) {
+            return null;
+        } finally {
+            DirectBufferPool.release(buffer);
+        }
+        return digest.hex();
+    }
+
+    static ContentHasher md5() {
+        return Md5.INSTANCE;
+    }
+
+    static ContentHasher fast() {
+        return Xxh64x2.INSTANCE;
+    }
+
+    /**
+     * Returns the hasher used for change detection, configurable via the CONTENT_HASHER system property.
+     */
+    static ContentHasher getDefault() {
+        return "md5".equalsIgnoreCase(System.getProperty("CONTENT_HASHER")) ? md5() : fast();
+    }
+
+    /**
+     * Legacy MD5 hashing. Kept for stable ids and for caches written before the fast hasher existed.
+     */
+    final class Md5 implements ContentHasher {
+        static final Md5 INSTANCE = new Md5();
+
+        private Md5() {
+        }
+
+        @Override
+        public int id() {
+            return 0;
+        }
+
+        @Override
+        public String algorithm() {
+            return "md5";
+        }
+
+        @Override
+        public Digest newDigest() {
+            MessageDigest md;
+            try {
+                md = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer data) {
+                    md.update(data);
+                }
+
+                @Override
+                public String hex() {
+                    return HexFormat.of().formatHex(md.digest());
+                }
+            };
+        }
+    }
+
+    /**
+     * Two independently seeded XXH64 hashes concatenated into a 128-bit digest, so it fits the same
+     * fixed-width slots as MD5 at a fraction of the cost.
+     */
+    final class Xxh64x2 implements ContentHasher {
+        static final Xxh64x2 INSTANCE = new Xxh64x2();
+        private static final long SECOND_SEED = 0x9E3779B97F4A7C15L;
+
+        private Xxh64x2() {
+        }
+
+        @Override
+        public int id() {
+            return 1;
+        }
+
+        @Override
+        public String algorithm() {
+            return "xxh64x2";
+        }
+
+        @Override
+        public Digest newDigest() {
+            XxHash64 first = new XxHash64(0L);
+            XxHash64 second = new XxHash64(SECOND_SEED);
+            return new Digest() {
+                @Override
+                public void update(ByteBuffer data) {
+                    int start = data.position();
+                    first.update(data);
+                    data.position(start);
+                    second.update(data);
+                }
+
+                @Override
+                public String hex() {
+                    HexFormat hex = HexFormat.of();
+                    return hex.toHexDigits(first.digest()) + hex.toHexDigits(second.digest());
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package de.maulmann;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Small pool of reusable direct read buffers. Virtual threads make ThreadLocal buffers useless
+ * (one per task), so buffers are borrowed and returned instead.
+ */
+final class DirectBufferPool {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED = 64;
+
+    private static final ConcurrentLinkedQueue<ByteBuffer> POOL = new ConcurrentLinkedQueue<>();
+
+    private DirectBufferPool() {
+    }
+
+    static ByteBuffer acquire() {
+        ByteBuffer buffer = POOL.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static void release(ByteBuffer buffer) {
+        // Size check is racy but only bounds the pool loosely, which is all that is needed
+        if (POOL.size() < MAX_POOLED) {
+            POOL.offer(buffer.clear());
+        }
+    }
+}
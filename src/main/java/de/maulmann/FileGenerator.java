@@ -37,21 +37,34 @@ public class FileGenerator {
     static String pathOutput = "output/";
 
     private static TimestampTracker timestampTracker;
-    private static List<CardJson> cachedFilteredCards;
 
     public static void setTimestampTracker(TimestampTracker tracker) {
         timestampTracker = tracker;
     }
 
     /**
-     * Returns the filtered card list, loading and caching it on first access.
+     * Returns the deduplicated cards.json list from the build's {@link CardRepository}.
      * Avoids parsing cards.json from disk multiple times during a single build.
      */
-    private static synchronized List<CardJson> getCachedCards() {
-        if (cachedFilteredCards == null) {
-            cachedFilteredCards = filterDuplicateJsonCards(loadCardsFromJson());
+    private static List<CardPageGenerator.CardData> getCachedCards() {
+        return CardRepository.get().dataset(CardRepository.Bucket.CARDS).unique();
+    }
+
+    /**
+     * Loads a collection that has no {@link CardRepository} bucket, one view per row of its store.
+     */
+    private static List<CardPageGenerator.CardData> loadCardData(String path) {
+        CardStore store = CardDataLoader.loadCardStore(path);
+        List<CardPageGenerator.CardData> cards = new ArrayList<>(store.size());
+        for (int row = 0; row < store.size(); row++) {
+            cards.add(CardPageGenerator.computeCardData(store, row));
         }
-        return cachedFilteredCards;
+        return cards;
+    }
+
+    private static String seasonKey(CardPageGenerator.CardData card) {
+        String season = card.column(CardStore.Column.SEASON);
+        return season != null ? season : "Unknown";
     }
 
     private static final SimpleLazyConstant<Configuration> FM_CONFIG = SimpleLazyConstant.of(CardUtils::getFreeMarkerConfig);
@@ -81,9 +94,9 @@ public class FileGenerator {
             bcItems.add(Map.of("name", "Home", "link", BASE_URL + "/index.html"));
             bcItems.add(Map.of("name", "Collection", "link", BASE_URL + "/Juwan-Howard-Collection.html"));
 
-            List<CardJson> jsonCards = getCachedCards();
-            List<CardJson> masterpieceCards = jsonCards.stream()
-                    .filter(FileGenerator::isOneOfOneMasterpiece)
+            List<CardPageGenerator.CardData> collectionCards = getCachedCards();
+            List<CardPageGenerator.CardData> masterpieceCards = collectionCards.stream()
+                    .filter(cd -> isOneOfOneMasterpiece(cd.json()))
                     .limit(10)
                     .toList();
 
@@ -91,12 +104,12 @@ public class FileGenerator {
             itemListSb.append("{\n");
             itemListSb.append("        \"@type\": \"ItemList\",\n");
             itemListSb.append("        \"name\": \"Juwan Howard Trading Card Collection\",\n");
-            itemListSb.append("        \"numberOfItems\": ").append(jsonCards.size()).append(",\n");
+            itemListSb.append("        \"numberOfItems\": ").append(collectionCards.size()).append(",\n");
             itemListSb.append("        \"itemListElement\": [\n");
 
             for (int i = 0; i < masterpieceCards.size(); i++) {
-                CardJson c = masterpieceCards.get(i);
-                CardPageGenerator.CardData cd = CardPageGenerator.computeCardData(c);
+                CardPageGenerator.CardData cd = masterpieceCards.get(i);
+                CardJson c = cd.json();
                 String cardTitle = CardPageGenerator.cleanPlayerName(c.player) + " " + (c.season != null ? c.season : "") + " " + (c.brand != null ? c.brand : "") + " " + (c.variant != null ? c.variant : "") + " #" + (c.cardNumber != null ? c.cardNumber : "");
                 String cardUrl = BASE_URL + "/" + cd.fullRelativePath.replace("../../", "");
                 itemListSb.append("          {\n");
@@ -126,15 +139,15 @@ public class FileGenerator {
                     "}\n" +
                     "</script>";
             data.put("jsonLd", jsonLd);
-            data.put("stats", computeCollectionStats(jsonCards));
+            data.put("stats", computeCollectionStats(collectionCards));
             List<Map<String, String>> seasons = new ArrayList<>();
             int cumulativeTotal = 0;
 
-            if (!jsonCards.isEmpty()) {
-                Map<String, List<CardJson>> grouped = new LinkedHashMap<>();
+            if (!collectionCards.isEmpty()) {
+                Map<String, List<CardPageGenerator.CardData>> grouped = new LinkedHashMap<>();
 
-                List<String> seasonKeys = jsonCards.stream()
-                        .map(c -> c.season != null ? c.season : "Unknown")
+                List<String> seasonKeys = collectionCards.stream()
+                        .map(FileGenerator::seasonKey)
                         .distinct()
                         .sorted((s1, s2) -> {
                             if (s1.equalsIgnoreCase("College")) return -1;
@@ -146,14 +159,13 @@ public class FileGenerator {
                 for (String sk : seasonKeys) {
                     grouped.put(sk, new ArrayList<>());
                 }
-                for (CardJson c : jsonCards) {
-                    String sk = c.season != null ? c.season : "Unknown";
-                    grouped.computeIfAbsent(sk, k -> new ArrayList<>()).add(c);
+                for (CardPageGenerator.CardData cd : collectionCards) {
+                    grouped.computeIfAbsent(seasonKey(cd), k -> new ArrayList<>()).add(cd);
                 }
 
-                for (Map.Entry<String, List<CardJson>> entry : grouped.entrySet()) {
+                for (Map.Entry<String, List<CardPageGenerator.CardData>> entry : grouped.entrySet()) {
                     String seasonKey = entry.getKey();
-                    List<CardJson> seasonCardList = entry.getValue();
+                    List<CardPageGenerator.CardData> seasonCardList = entry.getValue();
 
                     Map<String, String> seasonMap = new HashMap<>();
                     seasonMap.put("id", seasonKey.toLowerCase());
@@ -167,8 +179,8 @@ public class FileGenerator {
                             .append("<th>Rookie</th><th>Game Used</th><th>Autograph</th><th>Grade</th>")
                             .append("</tr>");
 
-                    for (CardJson c : seasonCardList) {
-                        CardPageGenerator.CardData cardData = CardPageGenerator.computeCardData(c);
+                    for (CardPageGenerator.CardData cardData : seasonCardList) {
+                        CardJson c = cardData.json();
                         String detailPath = cardData.fullRelativePath;
                         String cleanPlayer = CardPageGenerator.cleanPlayerName(c.player);
                         String playerTitle = "View " + escapeHtml(cleanPlayer) + " " + escapeHtml(c.season) + " " + escapeHtml(c.brand) + " #" + escapeHtml(c.cardNumber != null ? c.cardNumber : "") + " card detail page";
@@ -267,11 +279,14 @@ public class FileGenerator {
                                 "</script>";
                         data.put("jsonLd", jsonLd);
 
+                        CardRepository.Bucket bucket = CardRepository.Bucket.forCollection(coll);
                         Path jsonPath = Paths.get(pathSource, "json", coll.toLowerCase() + ".json");
                         String tableHtml = "";
                         if (Files.exists(jsonPath)) {
-                            List<CardJson> cardList = CardDataLoader.loadCardsFromJson(jsonPath.toString());
-                            tableHtml = generateHtmlTableFromJson(cardList);
+                            List<CardPageGenerator.CardData> cardList = bucket != null
+                                    ? CardRepository.get().dataset(bucket).cards()
+                                    : loadCardData(jsonPath.toString());
+                            tableHtml = generateHtmlTable(cardList);
                         }
 
                         Path sourcePath = Paths.get(pathSource, "other", coll + ".html");
@@ -347,7 +362,7 @@ public class FileGenerator {
         return map;
     }
 
-    public static String generateHtmlTableFromJson(List<CardJson> cardList) {
+    public static String generateHtmlTable(List<CardPageGenerator.CardData> cardList) {
         if (cardList == null || cardList.isEmpty()) {
             return "<p>No cards found in this collection.</p>";
         }
@@ -360,8 +375,8 @@ public class FileGenerator {
                 .append("<th>Rookie</th><th>Game Used</th><th>Autograph</th><th>Grade</th>")
                 .append("</tr></thead><tbody>");
 
-        for (CardJson c : cardList) {
-            CardPageGenerator.CardData cardData = CardPageGenerator.computeCardData(c);
+        for (CardPageGenerator.CardData cardData : cardList) {
+            CardJson c = cardData.json();
             String detailPath = cardData.fullRelativePath;
             String cleanPlayer = CardPageGenerator.cleanPlayerName(c.player);
             String playerTitle = "View " + escapeHtml(cleanPlayer) + " " + escapeHtml(c.season) + " " + escapeHtml(c.brand) + " #" + escapeHtml(c.cardNumber != null ? c.cardNumber : "") + " card detail page";
@@ -549,15 +564,18 @@ public class FileGenerator {
             indexData.put("jsonLd", indexJsonLd);
 
             // SEO "New In" Linkjuice internal links (1 < printRun < 10) - Limited to 6
-            List<CardJson> allCardsForNewIn = getCachedCards();
-            List<CardJson> rareNewInCards = allCardsForNewIn.stream()
-                    .filter(c -> c.printRun != null && c.printRun > 1 && c.printRun < 10)
+            List<CardPageGenerator.CardData> allCardsForNewIn = getCachedCards();
+            List<CardPageGenerator.CardData> rareNewInCards = allCardsForNewIn.stream()
+                    .filter(cd -> {
+                        Integer printRun = cd.json().printRun;
+                        return printRun != null && printRun > 1 && printRun < 10;
+                    })
                     .limit(6)
                     .toList();
 
             List<Map<String, String>> newInLinks = new ArrayList<>();
-            for (CardJson c : rareNewInCards) {
-                CardPageGenerator.CardData cardData = CardPageGenerator.computeCardData(c);
+            for (CardPageGenerator.CardData cardData : rareNewInCards) {
+                CardJson c = cardData.json();
                 String cleanPlayer = CardPageGenerator.cleanPlayerName(c.player);
                 String brandText = c.brand != null ? c.brand : "";
                 String variantText = c.variant != null ? c.variant : "Base";
@@ -571,14 +589,14 @@ public class FileGenerator {
             indexData.put("newInLinks", newInLinks);
 
             // SEO "Masterpieces" Linkjuice internal links (1/1 Non-Plate, Non-Proof cards) - Limited to 6
-            List<CardJson> masterpieceCards = allCardsForNewIn.stream()
-                    .filter(FileGenerator::isOneOfOneMasterpiece)
+            List<CardPageGenerator.CardData> masterpieceCards = allCardsForNewIn.stream()
+                    .filter(cd -> isOneOfOneMasterpiece(cd.json()))
                     .limit(6)
                     .toList();
 
             List<Map<String, String>> masterpieceLinks = new ArrayList<>();
-            for (CardJson c : masterpieceCards) {
-                CardPageGenerator.CardData cardData = CardPageGenerator.computeCardData(c);
+            for (CardPageGenerator.CardData cardData : masterpieceCards) {
+                CardJson c = cardData.json();
                 String cleanPlayer = CardPageGenerator.cleanPlayerName(c.player);
                 String brandText = c.brand != null ? c.brand : "";
                 String variantText = c.variant != null ? c.variant : "1/1";
@@ -634,20 +652,21 @@ public class FileGenerator {
             bcItems.add(Map.of("name", "Rainbow Tracker", "link", ""));
             data.put("breadcrumbHtml", SharedTemplates.getBreadcrumb(bcItems));
 
-            List<CardJson> allCards = getCachedCards();
+            List<CardPageGenerator.CardData> allCards = getCachedCards();
             List<Map<String, Object>> rainbowSets = new ArrayList<>();
 
             // Group all cards strictly by: Season | Company | Brand | Theme | Normalized Card Number
-            Map<String, List<CardJson>> strictRainbowGroups = new LinkedHashMap<>();
+            Map<String, List<CardPageGenerator.CardData>> strictRainbowGroups = new LinkedHashMap<>();
 
-            for (CardJson c : allCards) {
+            for (CardPageGenerator.CardData cd : allCards) {
+                CardJson c = cd.json();
                 if (c.season == null || c.brand == null || c.cardNumber == null) continue;
                 String comp = (c.company != null && !c.company.isEmpty()) ? c.company : c.brand;
                 String thm = (c.theme != null && !c.theme.isEmpty()) ? c.theme : "Base Set";
                 String normNum = normalizeCardNumber(c.cardNumber);
 
                 String key = c.season + " | " + comp + " | " + c.brand + " | " + thm + " | #" + normNum;
-                strictRainbowGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(c);
+                strictRainbowGroups.computeIfAbsent(key, k -> new ArrayList<>()).add(cd);
             }
 
             // 1. Explicit Featured Single-Card Rainbow Checklists (with > 3 cards in the list)
@@ -695,11 +714,13 @@ public class FileGenerator {
             );
 
             // Index cards by season and normalized card number for fast lookup in targetRainbows
-            Map<String, List<CardJson>> cardsBySeasonAndNumber = new HashMap<>();
-            for (CardJson c : allCards) {
-                if (c.season != null && c.cardNumber != null) {
-                    String lookupKey = (c.season + "|" + normalizeCardNumber(c.cardNumber)).toLowerCase();
-                    cardsBySeasonAndNumber.computeIfAbsent(lookupKey, k -> new ArrayList<>()).add(c);
+            Map<String, List<CardPageGenerator.CardData>> cardsBySeasonAndNumber = new HashMap<>();
+            for (CardPageGenerator.CardData cd : allCards) {
+                String season = cd.column(CardStore.Column.SEASON);
+                String cardNumber = cd.column(CardStore.Column.CARD_NUMBER);
+                if (season != null && cardNumber != null) {
+                    String lookupKey = (season + "|" + normalizeCardNumber(cardNumber)).toLowerCase();
+                    cardsBySeasonAndNumber.computeIfAbsent(lookupKey, k -> new ArrayList<>()).add(cd);
                 }
             }
 
@@ -725,39 +746,39 @@ public class FileGenerator {
 
                 List<Map<String, Object>> cardItems = new ArrayList<>();
                 int acquiredCount = 0;
-                List<CardJson> candidates = cardsBySeasonAndNumber.getOrDefault((season + "|" + number).toLowerCase(), Collections.emptyList());
+                List<CardPageGenerator.CardData> candidates = cardsBySeasonAndNumber.getOrDefault((season + "|" + number).toLowerCase(), Collections.emptyList());
                 Set<String> matchedCardIds = new HashSet<>();
 
                 for (Map<String, String> spec : expectedVariants) {
                     String reqVariant = spec.get("variant");
                     String reqSerial = spec.get("serial");
 
-                    CardJson matched = null;
-                    for (CardJson c : candidates) {
-                        if (c.id != null && matchedCardIds.contains(c.id)) {
+                    CardPageGenerator.CardData cd = null;
+                    for (CardPageGenerator.CardData candidate : candidates) {
+                        String id = candidate.column(CardStore.Column.ID);
+                        if (id != null && matchedCardIds.contains(id)) {
                             continue; // Card already matched to another variant slot
                         }
-                        if (isVariantMatch(c.variant, reqVariant)) {
-                            matched = c;
-                            if (c.id != null) {
-                                matchedCardIds.add(c.id);
+                        if (isVariantMatch(candidate.column(CardStore.Column.VARIANT), reqVariant)) {
+                            cd = candidate;
+                            if (id != null) {
+                                matchedCardIds.add(id);
                             }
                             break;
                         }
                     }
 
-                    if (matched != null) {
+                    if (cd != null) {
+                        CardJson matched = cd.json();
                         acquiredCount++;
                         Map<String, Object> itemMap = new HashMap<>();
                         itemMap.put("variant", reqVariant);
                         itemMap.put("serial", formatSerialAndPrintRun(matched.serialNumber, matched.printRun, reqSerial));
                         itemMap.put("acquired", true);
-                        CardPageGenerator.CardData cd = CardPageGenerator.computeCardData(matched);
                         itemMap.put("url", cd.fullRelativePath.replace("../../", ""));
                         itemMap.put("title", matched.player + " " + matched.season + " " + matched.brand + " " + matched.variant + " #" + matched.cardNumber);
 
-                        String rawImageBase = cd.filenameBase.contains("-") ? cd.filenameBase.substring(0, cd.filenameBase.lastIndexOf("-")) : cd.filenameBase;
-                        String imageBaseName = CardPageGenerator.resolveDiskImageBase(cd.seasonFolder, rawImageBase, cd);
+                        String imageBaseName = cd.view().imageBase();
                         String imgBase = "images/" + cd.seasonFolder + "/" + imageBaseName + "-front";
                         itemMap.put("imgBase", imgBase);
                         String frontImg = imgBase + "-200w.avif";
@@ -783,17 +804,19 @@ public class FileGenerator {
             }
 
             // 2. Process all dynamically discovered single-card groups with MORE THAN 3 distinct variants (> 3 cards)
-            for (Map.Entry<String, List<CardJson>> entry : strictRainbowGroups.entrySet()) {
-                List<CardJson> groupCards = entry.getValue();
-                CardJson sample = groupCards.getFirst();
+            for (Map.Entry<String, List<CardPageGenerator.CardData>> entry : strictRainbowGroups.entrySet()) {
+                List<CardPageGenerator.CardData> groupCards = entry.getValue();
+                CardJson sample = groupCards.getFirst().json();
                 String normNum = normalizeCardNumber(sample.cardNumber);
 
-                Map<String, CardJson> distinctCardsMap = new LinkedHashMap<>();
-                for (CardJson c : groupCards) {
-                    String v = (c.variant != null && !c.variant.trim().isEmpty()) ? c.variant.trim() : "Base";
-                    String serial = (c.serialNumber != null) ? c.serialNumber.trim() : "";
+                Map<String, CardPageGenerator.CardData> distinctCardsMap = new LinkedHashMap<>();
+                for (CardPageGenerator.CardData cd : groupCards) {
+                    String variant = cd.column(CardStore.Column.VARIANT);
+                    String serialNumber = cd.column(CardStore.Column.SERIAL_NUMBER);
+                    String v = (variant != null && !variant.trim().isEmpty()) ? variant.trim() : "Base";
+                    String serial = (serialNumber != null) ? serialNumber.trim() : "";
                     String cardKey = v.toLowerCase() + "||" + serial.toLowerCase();
-                    distinctCardsMap.putIfAbsent(cardKey, c);
+                    distinctCardsMap.putIfAbsent(cardKey, cd);
                 }
 
                 if (distinctCardsMap.size() > 3) {
@@ -817,20 +840,19 @@ public class FileGenerator {
                         List<Map<String, Object>> cardItems = new ArrayList<>();
                         int acquiredCount = 0;
 
-                        for (Map.Entry<String, CardJson> varEntry : distinctCardsMap.entrySet()) {
-                            CardJson c = varEntry.getValue();
+                        for (Map.Entry<String, CardPageGenerator.CardData> varEntry : distinctCardsMap.entrySet()) {
+                            CardPageGenerator.CardData cd = varEntry.getValue();
+                            CardJson c = cd.json();
                             acquiredCount++;
                             Map<String, Object> itemMap = new HashMap<>();
                             itemMap.put("variant", c.variant != null ? c.variant : "Base");
                             itemMap.put("serial", formatSerialAndPrintRun(c.serialNumber, c.printRun, null));
                             itemMap.put("acquired", true);
 
-                            CardPageGenerator.CardData cd = CardPageGenerator.computeCardData(c);
                             itemMap.put("url", cd.fullRelativePath.replace("../../", ""));
                             itemMap.put("title", c.player + " " + c.season + " " + c.brand + " " + c.variant + " #" + c.cardNumber);
 
-                            String rawImageBase = cd.filenameBase.contains("-") ? cd.filenameBase.substring(0, cd.filenameBase.lastIndexOf("-")) : cd.filenameBase;
-                            String imageBaseName = CardPageGenerator.resolveDiskImageBase(cd.seasonFolder, rawImageBase, cd);
+                            String imageBaseName = cd.view().imageBase();
                             String imgBase = "images/" + cd.seasonFolder + "/" + imageBaseName + "-front";
                             itemMap.put("imgBase", imgBase);
                             String frontImg = imgBase + "-200w.avif";
@@ -915,12 +937,12 @@ public class FileGenerator {
             bcItems.add(Map.of("name", "3D Binder", "link", ""));
             data.put("breadcrumbHtml", SharedTemplates.getBreadcrumb(bcItems));
 
-            List<CardJson> allCards = getCachedCards();
+            List<CardPageGenerator.CardData> allCards = getCachedCards();
             
             // Transform cards into structured binder slot items
             List<Map<String, Object>> binderCardItems = new ArrayList<>();
-            for (CardJson c : allCards) {
-                CardPageGenerator.CardData cd = CardPageGenerator.computeCardData(c);
+            for (CardPageGenerator.CardData cd : allCards) {
+                CardJson c = cd.json();
                 Map<String, Object> item = new HashMap<>();
                 item.put("id", c.id != null ? c.id : cd.filenameBase);
                 item.put("player", c.player != null ? c.player : "");
@@ -932,8 +954,7 @@ public class FileGenerator {
                 item.put("url", cd.fullRelativePath.replace("../../", ""));
                 item.put("title", c.player + " " + c.season + " " + c.brand + " " + (c.variant != null ? c.variant : "") + " #" + c.cardNumber);
 
-                String rawImageBase = cd.filenameBase.contains("-") ? cd.filenameBase.substring(0, cd.filenameBase.lastIndexOf("-")) : cd.filenameBase;
-                String imageBaseName = CardPageGenerator.resolveDiskImageBase(cd.seasonFolder, rawImageBase, cd);
+                String imageBaseName = cd.view().imageBase();
                 String frontBase = "images/" + cd.seasonFolder + "/" + imageBaseName + "-front";
                 String backBase = "images/" + cd.seasonFolder + "/" + imageBaseName + "-back";
 
@@ -1111,7 +1132,9 @@ public class FileGenerator {
             finalHtml = finalHtml.replace("{{CONSENT_BANNER}}", SharedTemplates.getConsentBanner(root));
         }
 
-        Files.writeString(outPath, finalHtml, StandardCharsets.UTF_8);
+        byte[] bytes = finalHtml.getBytes(StandardCharsets.UTF_8);
+        Files.write(outPath, bytes);
+        UploadQueue.offer(outPath, bytes);
     }
 
     public static List<CardJson> loadCardsFromJson() {
@@ -1152,9 +1175,9 @@ public class FileGenerator {
         return filtered;
     }
 
-    public static Map<String, Object> computeCollectionStats(List<CardJson> jsonCards) {
+    public static Map<String, Object> computeCollectionStats(List<CardPageGenerator.CardData> cards) {
         Map<String, Object> stats = new HashMap<>();
-        if (jsonCards == null || jsonCards.isEmpty()) {
+        if (cards == null || cards.isEmpty()) {
             stats.put("totalCards", "0");
             stats.put("count1of1", 0);
             stats.put("pct1of1", 0);
@@ -1184,7 +1207,8 @@ public class FileGenerator {
         int countGradedTotal = 0;
         int countGemMint = 0;
 
-        for (CardJson c : jsonCards) {
+        for (CardPageGenerator.CardData card : cards) {
+            CardJson c = card.json();
             Integer pr = c.printRun;
             String sn = c.serialNumber != null ? c.serialNumber.trim() : "";
             String v = c.variant != null ? c.variant.trim() : "";
@@ -1217,7 +1241,7 @@ public class FileGenerator {
             }
         }
 
-        int totalCardCount = jsonCards.size();
+        int totalCardCount = cards.size();
         stats.put("totalCards", String.format(Locale.US, "%,d", totalCardCount));
         stats.put("rawTotalCards", totalCardCount);
 
@@ -10,19 +10,66 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Unified utility for tracking file changes using MD5 hashes stored in a properties file.
+ * Unified utility for tracking file changes using MD5 hashes stored in a properties file,
+ * or in a binary {@link HashStore} when the store path ends with ".bin".
+ * <p>
+ * The binary store hashes with {@link ContentHasher#getDefault()} and records the algorithm per entry.
+ * Entries written by an older algorithm are re-keyed on first sight if the file still matches them,
+ * so switching hashers does not look like a change to every file.
+ * <p>
+ * The binary store also records size, mtime and file key next to each digest. While those are unchanged the
+ * stored digest is trusted without reading the file (stat-first). A full re-hash is forced with
+ * {@code -DFILE_TRACKER_FULL_VERIFY=true} and happens automatically once the last full verify is a week old.
  */
 public class FileTracker {
     private static final Logger log = LoggerFactory.getLogger(FileTracker.class);
+    private static final String LAST_FULL_VERIFY_KEY = "\0last-full-verify";
+    private static final String ZERO_DIGEST = "0".repeat(32);
+    private static final long FULL_VERIFY_INTERVAL_SECONDS = 7L * 24 * 60 * 60;
+    // Files modified this recently may change again within the same mtime tick, so their stat is not trusted
+    private static final long RACY_MTIME_WINDOW_NANOS = 2_000_000_000L;
+
     private final File storeFile;
     private final Properties hashes = new Properties();
+    private final HashStore binaryStore;
+    private final ContentHasher hasher;
+    private final boolean fullVerify;
+    private final ConcurrentHashMap<String, PendingStat> pendingStats = new ConcurrentHashMap<>();
+    private final AtomicInteger statHits = new AtomicInteger();
+
+    private record FileStat(long size, long mtime, long key) {}
+
+    private record PendingStat(FileStat stat, String hash) {}
 
     public FileTracker(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * @param forceFullVerify re-hash every file this run instead of trusting unchanged stats.
+     */
+    public FileTracker(String filePath, boolean forceFullVerify) {
         this.storeFile = new File(filePath);
+        if (filePath.endsWith(".bin")) {
+            this.binaryStore = new HashStore(storeFile.toPath());
+            this.hasher = ContentHasher.getDefault();
+            if (!storeFile.exists()) {
+                migrateLegacyProperties(Paths.get(filePath.substring(0, filePath.length() - 4) + ".properties"));
+            }
+            this.fullVerify = forceFullVerify || isFullVerifyDue();
+            return;
+        }
+        this.binaryStore = null;
+        this.hasher = ContentHasher.md5();
+        this.fullVerify = true;
         if (storeFile.exists()) {
             try (InputStream in = Files.newInputStream(storeFile.toPath())) {
                 hashes.load(in);
@@ -32,25 +79,73 @@ public class FileTracker {
         }
     }
 
+    private boolean isFullVerifyDue() {
+        if ("true".equalsIgnoreCase(System.getProperty("FILE_TRACKER_FULL_VERIFY"))
+                || "true".equalsIgnoreCase(System.getenv("FILE_TRACKER_FULL_VERIFY"))) {
+            log.info("Full verify requested for {}: re-hashing all tracked files.", storeFile.getName());
+            return true;
+        }
+        long lastVerify = binaryStore.getAux(LAST_FULL_VERIFY_KEY, 0L);
+        if (Instant.now().getEpochSecond() - lastVerify > FULL_VERIFY_INTERVAL_SECONDS) {
+            log.info("Periodic full verify for {}: re-hashing all tracked files.", storeFile.getName());
+            return true;
+        }
+        return false;
+    }
+
     /**
-     * Checks if the MD5 hash of the file has changed compared to the stored value.
+     * Returns the hasher behind {@link #getHash}, for callers that already hold a file's bytes.
      */
-    public boolean hasChanged(Path file) {
-        try {
-            String currentHash = calculateMD5(file);
-            if (currentHash == null) return true;
-            String storedHash = hashes.getProperty(file.toString());
-            return !currentHash.equals(storedHash);
-        } catch (Exception e) {
-            return true; // Assume changed on error
+    public ContentHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * Returns how many hash lookups were answered from the stored stat without reading the file.
+     */
+    public int getStatHits() {
+        return statHits.get();
+    }
+
+    /**
+     * Imports hashes from a legacy properties cache so switching to the binary store does not re-upload everything.
+     */
+    private void migrateLegacyProperties(Path legacyFile) {
+        if (!Files.exists(legacyFile)) return;
+        Properties legacy = new Properties();
+        try (InputStream in = Files.newInputStream(legacyFile)) {
+            legacy.load(in);
+        } catch (IOException e) {
+            log.warn("Could not load legacy hash file {}: {}", legacyFile, e.getMessage());
+            return;
         }
+        // Legacy properties always hold MD5 digests
+        legacy.forEach((k, v) -> binaryStore.put((String) k, (String) v, ContentHasher.md5().id()));
+        log.info("Migrated {} hashes from {} into binary store.", binaryStore.size(), legacyFile);
+    }
+
+    /**
+     * Checks if the content hash of the file has changed compared to the stored value.
+     */
+    public boolean hasChanged(Path file) {
+        String currentHash = getHash(file);
+        if (currentHash == null) return true; // Assume changed on error
+        return !currentHash.equals(getStoredHash(file));
     }
 
     /**
      * Updates the hash entry for a file using a pre-calculated hash.
      */
     public void updateHash(Path file, String preCalculatedHash) {
-        if (preCalculatedHash != null) {
+        if (preCalculatedHash == null) return;
+        if (binaryStore != null) {
+            String key = file.toString();
+            binaryStore.put(key, preCalculatedHash, hasher.id());
+            PendingStat pending = pendingStats.remove(key);
+            if (pending != null && pending.hash().equals(preCalculatedHash)) {
+                storeStat(key, pending.stat());
+            }
+        } else {
             hashes.setProperty(file.toString(), preCalculatedHash);
         }
     }
@@ -60,7 +155,7 @@ public class FileTracker {
      */
     public void updateHash(Path file) {
         try {
-            String hash = calculateMD5(file);
+            String hash = binaryStore != null ? hashAndRememberStat(file, readStat(file)) : hasher.hash(file);
             updateHash(file, hash);
         } catch (Exception ignored) {
         }
@@ -70,24 +165,91 @@ public class FileTracker {
      * Returns the previously stored hash for a file.
      */
     public String getStoredHash(Path file) {
+        if (binaryStore != null) {
+            return binaryStore.getDigestHex(file.toString());
+        }
         return hashes.getProperty(file.toString());
     }
 
     /**
-     * Calculates the MD5 hash and returns it, or null if the file doesn't exist.
+     * Calculates the content hash and returns it, or null if the file doesn't exist.
+     * With the binary store, the stored hash is returned without reading the file if its stat is unchanged.
      */
     public String getHash(Path file) {
         try {
-            return calculateMD5(file);
+            if (binaryStore == null) {
+                return hasher.hash(file);
+            }
+            FileStat stat = readStat(file);
+            if (stat == null) return null;
+            String key = file.toString();
+            if (!fullVerify && binaryStore.getAux(key, -1L) == hasher.id()
+                    && binaryStore.matchesStat(key, stat.size(), stat.mtime(), stat.key())) {
+                statHits.incrementAndGet();
+                return binaryStore.getDigestHex(key);
+            }
+            return hashAndRememberStat(file, stat);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Hashes the file and remembers the stat taken before reading it. If the hash matches the stored one the stat
+     * is recorded right away, otherwise it is kept until the caller confirms the new hash via updateHash.
+     */
+    private String hashAndRememberStat(Path file, FileStat stat) throws Exception {
+        String hash = hasher.hash(file);
+        if (hash == null || stat == null) return hash;
+        String key = file.toString();
+        String storedHash = binaryStore.getDigestHex(key);
+        long storedAlgorithm = binaryStore.getAux(key, -1L);
+        if (storedHash != null && storedAlgorithm != hasher.id() && storedAlgorithm == ContentHasher.md5().id()
+                && storedHash.equals(ContentHasher.md5().hash(file))) {
+            // Written by the legacy hasher and still matching: re-key in place instead of reporting a change
+            binaryStore.put(key, hash, hasher.id());
+            storeStat(key, stat);
+        } else if (hash.equals(storedHash)) {
+            storeStat(key, stat);
+        } else {
+            pendingStats.put(key, new PendingStat(stat, hash));
+        }
+        return hash;
+    }
+
+    private void storeStat(String key, FileStat stat) {
+        long nowNanos = Instant.now().getEpochSecond() * 1_000_000_000L;
+        if (nowNanos - stat.mtime() > RACY_MTIME_WINDOW_NANOS) {
+            binaryStore.putStat(key, stat.size(), stat.mtime(), stat.key());
+        }
+    }
+
+    private static FileStat readStat(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            Object fileKey = attrs.fileKey();
+            return new FileStat(attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                    fileKey != null ? fileKey.hashCode() : 0L);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     /**
      * Saves all hashes from memory to the properties file.
      */
     public void save() {
+        if (binaryStore != null) {
+            if (fullVerify) {
+                binaryStore.put(LAST_FULL_VERIFY_KEY, ZERO_DIGEST, Instant.now().getEpochSecond());
+            }
+            if (statHits.get() > 0) {
+                log.info("{}: {} unchanged files detected by stat without re-hashing.", storeFile.getName(), statHits.get());
+            }
+            // Entries for deleted files are only pruned when the journal is compacted
+            binaryStore.save(filePath -> !filePath.equals(LAST_FULL_VERIFY_KEY) && !Files.exists(Paths.get(filePath)));
+            return;
+        }
         try {
             Path parent = storeFile.toPath().getParent();
             if (parent != null) {
@@ -107,22 +269,4 @@ public class FileTracker {
             log.warn("Could not save hash file: {}", e.getMessage());
         }
     }
-
-    private String calculateMD5(Path file) throws Exception {
-        if (!Files.exists(file)) return null;
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        try (InputStream is = Files.newInputStream(file)) {
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = is.read(buffer)) > 0) {
-                md.update(buffer, 0, read);
-            }
-        }
-        byte[] digest = md.digest();
-        StringBuilder sb = new StringBuilder();
-        for (byte b : digest) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
-    }
 }
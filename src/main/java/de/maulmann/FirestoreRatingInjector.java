@@ -101,7 +101,9 @@ public class FirestoreRatingInjector {
 
     private static Map<String, Map<String, Object>> fetchFirestoreData() throws ExecutionException, InterruptedException {
         Firestore db = FirestoreClient.getFirestore();
+        long start = System.nanoTime();
         QuerySnapshot querySnapshot = db.collection(COLLECTION_NAME).get().get();
+        BuildMetrics.histogram("firestore_fetch_seconds").recordSince(start);
 
         Map<String, Map<String, Object>> dataMap = new HashMap<>();
         for (QueryDocumentSnapshot document : querySnapshot.getDocuments()) {
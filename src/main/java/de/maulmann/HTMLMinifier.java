@@ -4,19 +4,35 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * High-performance in-memory HTML minifier.
  * Strips comments and collapses redundant whitespace without building heavy DOM trees.
+ * <p>
+ * A single pass over the UTF-8 bytes; the output never exceeds the input, so it can be written into a reused buffer or
+ * into the input itself. The rules, and therefore the output, are those of the former regex chain:
+ * <ul>
+ *   <li>{@code <script>}, {@code <style>}, {@code <pre>} and {@code <textarea>} blocks are copied verbatim, the text
+ *   between them is minified segment by segment;</li>
+ *   <li>comments are removed, except conditional {@code <!--[if} comments;</li>
+ *   <li>runs of spaces, tabs and form feeds become one space, whitespace between {@code >} and {@code <} is
+ *   dropped, as is whitespace at the start of a segment before {@code <} and before a preserved block after
+ *   {@code >};</li>
+ *   <li>if the page has preserved blocks, the result is trimmed.</li>
+ * </ul>
  */
 public class HTMLMinifier {
 
-    private static final Pattern HTML_COMMENT_PATTERN = Pattern.compile("<!--(?!\\[if)[\\s\\S]*?-->");
-    private static final Pattern MULTI_WHITESPACE_PATTERN = Pattern.compile("[ \\t\\f]+");
-    private static final Pattern INTER_TAG_WHITESPACE_PATTERN = Pattern.compile(">\\s+<");
-    private static final Pattern SCRIPT_PRESERVE_PATTERN = Pattern.compile("(<script\\b[^>]*>[\\s\\S]*?<\\/script>|<style\\b[^>]*>[\\s\\S]*?<\\/style>|<pre\\b[^>]*>[\\s\\S]*?<\\/pre>|<textarea\\b[^>]*>[\\s\\S]*?<\\/textarea>)", Pattern.CASE_INSENSITIVE);
+    private static final byte[][] PRESERVED_TAGS = {
+            "script".getBytes(StandardCharsets.US_ASCII),
+            "style".getBytes(StandardCharsets.US_ASCII),
+            "pre".getBytes(StandardCharsets.US_ASCII),
+            "textarea".getBytes(StandardCharsets.US_ASCII)};
+
+    private static final int MAX_POOLED = 16;
+    private static final ConcurrentLinkedQueue<byte[]> SCRATCH = new ConcurrentLinkedQueue<>();
 
     /**
      * Minifies HTML string in-memory.
@@ -25,70 +41,243 @@ public class HTMLMinifier {
         if (html == null || html.isEmpty()) {
             return "";
         }
+        byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+        int length = minify(bytes, 0, bytes.length, bytes, 0);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
 
-        // Fast path: if no script/pre/style tags, perform direct full regex cleanup
-        Matcher preservedMatcher = SCRIPT_PRESERVE_PATTERN.matcher(html);
-        if (!preservedMatcher.find()) {
-            return fastMinifySimpleHtml(html);
-        }
-
-        // Process chunk-by-chunk to preserve whitespace inside <pre>, <textarea>, <script>, <style>
-        StringBuilder sb = new StringBuilder(html.length());
-        int lastIndex = 0;
-        preservedMatcher.reset();
+    /**
+     * Minifies HTML file to UTF-8 bytes directly in-memory.
+     */
+    public static byte[] minifyHTMLToBytes(File inputFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(inputFile.toPath());
+        return Arrays.copyOf(bytes, minify(bytes, 0, bytes.length, bytes, 0));
+    }
 
-        while (preservedMatcher.find()) {
-            String nonPreserved = html.substring(lastIndex, preservedMatcher.start());
-            sb.append(fastMinifySimpleHtml(nonPreserved, true));
+    /**
+     * Minifies HTML bytes to UTF-8 bytes directly in-memory.
+     */
+    public static byte[] minifyHTMLToBytes(byte[] inputBytes) {
+        byte[] scratch = SCRATCH.poll();
+        if (scratch == null || scratch.length < inputBytes.length) {
+            scratch = new byte[Math.max(inputBytes.length, 256 * 1024)];
+        }
+        try {
+            return Arrays.copyOf(scratch, minify(inputBytes, 0, inputBytes.length, scratch, 0));
+        } finally {
+            if (SCRATCH.size() < MAX_POOLED) {
+                SCRATCH.offer(scratch);
+            }
+        }
+    }
 
-            String preserved = preservedMatcher.group(1);
-            sb.append(preserved);
-            lastIndex = preservedMatcher.end();
+    /**
+     * Minifies {@code length} UTF-8 bytes of {@code in} into {@code out} and returns the number of bytes written.
+     * {@code out} needs room for {@code length} bytes; it may be {@code in} itself with {@code outOffset <= offset}.
+     */
+    public static int minify(byte[] in, int offset, int length, byte[] out, int outOffset) {
+        int end = offset + length;
+        Scan scan = new Scan(in, end);
+        int start = scan.findPreserved(offset);
+        if (start < 0) {
+            return segment(in, offset, end, out, outOffset, false) - outOffset;
         }
 
-        if (lastIndex < html.length()) {
-            sb.append(fastMinifySimpleHtml(html.substring(lastIndex), false));
+        int pos = offset;
+        int o = outOffset;
+        while (start >= 0) {
+            o = segment(in, pos, start, out, o, true);
+            int blockLength = scan.matchEnd - start;
+            System.arraycopy(in, start, out, o, blockLength);
+            o += blockLength;
+            pos = scan.matchEnd;
+            start = scan.findPreserved(pos);
+        }
+        if (pos < end) {
+            o = segment(in, pos, end, out, o, false);
         }
 
-        return sb.toString().trim();
+        // String.trim(): drop control characters and spaces at both ends
+        int from = outOffset;
+        while (from < o && (out[from] & 0xFF) <= ' ') from++;
+        while (o > from && (out[o - 1] & 0xFF) <= ' ') o--;
+        if (from > outOffset) {
+            System.arraycopy(out, from, out, outOffset, o - from);
+        }
+        return o - from;
     }
 
-    private static final Pattern TRAILING_TAG_SPACE = Pattern.compile(">\\s+$");
-    private static final Pattern LEADING_TAG_SPACE = Pattern.compile("^\\s+<");
+    /**
+     * Minifies the text between preserved blocks: comments, whitespace runs and the segment edges.
+     */
+    private static int segment(byte[] in, int from, int to, byte[] out, int o, boolean endsBeforePreservedBlock) {
+        int segmentStart = o;
+        boolean commentsLeft = true;
+        // Output position of the current whitespace run, or -1 outside one
+        int runStart = -1;
+        boolean runAfterTag = false;
+        boolean horizontal = false;
 
-    private static String fastMinifySimpleHtml(String html) {
-        return fastMinifySimpleHtml(html, false);
-    }
+        int i = from;
+        while (i < to) {
+            byte c = in[i];
+            if (c == '<' && commentsLeft && startsComment(in, i, to)) {
+                int close = indexOf(in, i + 4, to, '-', '-', '>');
+                if (close >= 0) {
+                    // Removed comments join the text around them, whitespace runs included
+                    i = close + 3;
+                    continue;
+                }
+                commentsLeft = false;
+            }
+
+            if (isWhitespace(c)) {
+                if (runStart < 0) {
+                    runStart = o;
+                    runAfterTag = o > segmentStart && out[o - 1] == '>';
+                }
+                if (c == ' ' || c == '\t' || c == '\f') {
+                    if (!horizontal) out[o++] = ' ';
+                    horizontal = true;
+                } else {
+                    out[o++] = c;
+                    horizontal = false;
+                }
+            } else {
+                if (runStart >= 0) {
+                    if (c == '<' && runAfterTag) o = runStart;
+                    runStart = -1;
+                }
+                horizontal = false;
+                out[o++] = c;
+            }
+            i++;
+        }
 
-    private static String fastMinifySimpleHtml(String html, boolean endsBeforePreservedBlock) {
-        if (html.isEmpty()) return "";
-        // 1. Remove comments
-        String stripped = HTML_COMMENT_PATTERN.matcher(html).replaceAll("");
-        // 2. Collapse horizontal whitespace
-        stripped = MULTI_WHITESPACE_PATTERN.matcher(stripped).replaceAll(" ");
-        // 3. Collapse whitespace between tags
-        stripped = INTER_TAG_WHITESPACE_PATTERN.matcher(stripped).replaceAll("><");
-        // 4. Clean tag boundaries
         if (endsBeforePreservedBlock) {
-            stripped = TRAILING_TAG_SPACE.matcher(stripped).replaceAll(">");
+            // Like the regex $, the end may also be right before a final U+0085, U+2028 or U+2029
+            int tail = finalLineTerminatorLength(out, segmentStart, o);
+            int trimmed = o - tail;
+            while (trimmed > segmentStart && isWhitespace(out[trimmed - 1])) trimmed--;
+            if (trimmed < o - tail && trimmed > segmentStart && out[trimmed - 1] == '>') {
+                System.arraycopy(out, o - tail, out, trimmed, tail);
+                o = trimmed + tail;
+            }
         }
-        stripped = LEADING_TAG_SPACE.matcher(stripped).replaceAll("<");
-        return stripped;
+
+        int lead = segmentStart;
+        while (lead < o && isWhitespace(out[lead])) lead++;
+        if (lead > segmentStart && lead < o && out[lead] == '<') {
+            System.arraycopy(out, lead, out, segmentStart, o - lead);
+            o -= lead - segmentStart;
+        }
+        return o;
     }
 
     /**
-     * Minifies HTML file to UTF-8 bytes directly in-memory.
+     * {@code <!--} not followed by {@code [if}, within the segment.
      */
-    public static byte[] minifyHTMLToBytes(File inputFile) throws IOException {
-        String content = Files.readString(inputFile.toPath(), StandardCharsets.UTF_8);
-        return minifyHTML(content).getBytes(StandardCharsets.UTF_8);
+    private static boolean startsComment(byte[] in, int i, int to) {
+        if (i + 3 >= to || in[i + 1] != '!' || in[i + 2] != '-' || in[i + 3] != '-') return false;
+        return !(i + 6 < to && in[i + 4] == '[' && in[i + 5] == 'i' && in[i + 6] == 'f');
+    }
+
+    private static int finalLineTerminatorLength(byte[] out, int from, int to) {
+        if (to - from >= 2 && out[to - 2] == (byte) 0xC2 && out[to - 1] == (byte) 0x85) return 2;
+        if (to - from >= 3 && out[to - 3] == (byte) 0xE2 && out[to - 2] == (byte) 0x80
+                && (out[to - 1] == (byte) 0xA8 || out[to - 1] == (byte) 0xA9)) return 3;
+        return 0;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    private static int indexOf(byte[] in, int from, int to, char a, char b, char c) {
+        for (int i = from; i + 2 < to; i++) {
+            if (in[i] == a && in[i + 1] == b && in[i + 2] == c) return i;
+        }
+        return -1;
     }
 
     /**
-     * Minifies HTML bytes to UTF-8 bytes directly in-memory.
+     * Finds preserved blocks left to right, like a regex {@code find()} over
+     * {@code <(script|style|pre|textarea)\b[^>]*>[\s\S]*?</\1>}, case-insensitive.
      */
-    public static byte[] minifyHTMLToBytes(byte[] inputBytes) {
-        String content = new String(inputBytes, StandardCharsets.UTF_8);
-        return minifyHTML(content).getBytes(StandardCharsets.UTF_8);
+    private static final class Scan {
+        private final byte[] in;
+        private final int end;
+        // Per tag: the search for its closing tag failed from this position on, so it fails from any later one
+        private final int[] noCloseFrom = new int[PRESERVED_TAGS.length];
+        int matchEnd;
+
+        Scan(byte[] in, int end) {
+            this.in = in;
+            this.end = end;
+            Arrays.fill(noCloseFrom, Integer.MAX_VALUE);
+        }
+
+        int findPreserved(int from) {
+            for (int p = from; p < end; p++) {
+                if (in[p] != '<') continue;
+                for (int t = 0; t < PRESERVED_TAGS.length; t++) {
+                    if (matchAt(p, t)) return p;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matchAt(int p, int t) {
+            byte[] name = PRESERVED_TAGS[t];
+            int afterName = p + 1 + name.length;
+            if (afterName > end || !regionMatchesIgnoreCase(p + 1, name) || isWordAt(afterName)) return false;
+            int gt = afterName;
+            while (gt < end && in[gt] != '>') gt++;
+            if (gt >= end) return false;
+            if (gt + 1 >= noCloseFrom[t]) return false;
+
+            for (int c = gt + 1; c + name.length + 3 <= end; c++) {
+                if (in[c] == '<' && in[c + 1] == '/' && in[c + name.length + 2] == '>' && regionMatchesIgnoreCase(c + 2, name)) {
+                    matchEnd = c + name.length + 3;
+                    return true;
+                }
+            }
+            noCloseFrom[t] = gt + 1;
+            return false;
+        }
+
+        private boolean regionMatchesIgnoreCase(int at, byte[] lowerName) {
+            if (at + lowerName.length > end) return false;
+            for (int k = 0; k < lowerName.length; k++) {
+                int b = in[at + k];
+                if (b >= 'A' && b <= 'Z') b += 'a' - 'A';
+                if (b != lowerName[k]) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Whether the character at {@code at} continues a word, as {@code \b} sees it after a letter.
+         */
+        private boolean isWordAt(int at) {
+            if (at >= end) return false;
+            int b = in[at] & 0xFF;
+            if (b < 0x80) {
+                return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_';
+            }
+            // \b is ASCII-only, but a combining mark still continues the word before it
+            return Character.getType(decodeCodePoint(at)) == Character.NON_SPACING_MARK;
+        }
+
+        private int decodeCodePoint(int at) {
+            int b = in[at] & 0xFF;
+            int extra = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : b >= 0xC0 ? 1 : 0;
+            if (extra == 0 || at + extra >= end) return 0xFFFD;
+            int cp = b & (0x3F >> extra);
+            for (int k = 1; k <= extra; k++) {
+                cp = (cp << 6) | (in[at + k] & 0x3F);
+            }
+            return cp;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,449 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Compact binary store of fixed-width 128-bit digests (plus one long of payload, e.g. a timestamp) keyed by path,
+ * optionally with the file stat (size, mtime, file key) the digest was computed from.
+ * <p>
+ * Paths are interned to int ids. The file is an append-only journal read through a memory mapping on startup:
+ * {@code save()} only appends records changed since the last save, and the journal is periodically compacted
+ * into a fresh snapshot, which is also the only time stale paths are pruned.
+ * <pre>
+ * header : int magic, int version
+ * record : 'P' int id, short len, byte[len] path   (interns a path)
+ *          'E' int id, long hi, long lo, long aux  (sets an entry, clears its stat)
+ *          'T' int id, long size, long mtime, long key (stat of the file the entry's digest was taken from)
+ *          'D' int id                              (removes an entry)
+ *          'S'                                     (save marker)
+ * </pre>
+ */
+public class HashStore {
+    private static final Logger log = LoggerFactory.getLogger(HashStore.class);
+
+    private static final int MAGIC = 0x48535431; // "HST1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final byte REC_PATH = 'P';
+    private static final byte REC_ENTRY = 'E';
+    private static final byte REC_DELETE = 'D';
+    private static final byte REC_SAVE = 'S';
+    private static final byte REC_STAT = 'T';
+    private static final int ENTRY_RECORD_SIZE = 1 + 4 + 8 + 8 + 8;
+    private static final int STAT_RECORD_SIZE = 1 + 4 + 8 + 8 + 8;
+
+    // Compact once the journal holds this many saves, or four times as many records as live entries
+    private static final int COMPACT_AFTER_SAVES = 32;
+    private static final int COMPACT_MIN_RECORDS = 1024;
+
+    private final Path storeFile;
+
+    private final Map<String, Integer> pathIds = new HashMap<>();
+    private final List<String> paths = new ArrayList<>();
+    private long[] digestHi = new long[256];
+    private long[] digestLo = new long[256];
+    private long[] aux = new long[256];
+    private boolean[] present = new boolean[256];
+    private long[] statSize = new long[256];
+    private long[] statMtime = new long[256];
+    private long[] statKey = new long[256];
+    private boolean[] hasStat = new boolean[256];
+    private int liveEntries;
+
+    // Journal state
+    private int persistedPathCount;
+    private final List<Integer> dirtyIds = new ArrayList<>();
+    private boolean[] dirty = new boolean[256];
+    private int journalRecords;
+    private int savesSinceCompaction;
+
+    public HashStore(Path storeFile) {
+        this.storeFile = storeFile;
+        if (Files.exists(storeFile)) {
+            load();
+        }
+    }
+
+    public synchronized boolean contains(String path) {
+        Integer id = pathIds.get(path);
+        return id != null && present[id];
+    }
+
+    /**
+     * Returns the stored digest as lowercase hex, or null if absent.
+     */
+    public synchronized String getDigestHex(String path) {
+        Integer id = pathIds.get(path);
+        if (id == null || !present[id]) return null;
+        return toHex(digestHi[id], digestLo[id]);
+    }
+
+    /**
+     * Returns the payload stored with the digest, or the given default if absent.
+     */
+    public synchronized long getAux(String path, long defaultValue) {
+        Integer id = pathIds.get(path);
+        if (id == null || !present[id]) return defaultValue;
+        return aux[id];
+    }
+
+    /**
+     * Stores a 32-character hex digest for the path. Returns false if the digest is not 128-bit hex.
+     */
+    public boolean put(String path, String hexDigest, long auxValue) {
+        if (hexDigest == null || hexDigest.length() != 32) return false;
+        long hi;
+        long lo;
+        try {
+            hi = Long.parseUnsignedLong(hexDigest, 0, 16, 16);
+            lo = Long.parseUnsignedLong(hexDigest, 16, 32, 16);
+        } catch (NumberFormatException _) {
+            return false;
+        }
+        put(path, hi, lo, auxValue);
+        return true;
+    }
+
+    public synchronized void put(String path, long hi, long lo, long auxValue) {
+        int id = intern(path);
+        if (present[id] && digestHi[id] == hi && digestLo[id] == lo && aux[id] == auxValue) return;
+        if (!present[id]) liveEntries++;
+        digestHi[id] = hi;
+        digestLo[id] = lo;
+        aux[id] = auxValue;
+        present[id] = true;
+        hasStat[id] = false;
+        markDirty(id);
+    }
+
+    /**
+     * Records the stat of the file the current digest of this path was computed from. Ignored for absent paths.
+     */
+    public synchronized void putStat(String path, long size, long mtime, long key) {
+        Integer id = pathIds.get(path);
+        if (id == null || !present[id]) return;
+        if (hasStat[id] && statSize[id] == size && statMtime[id] == mtime && statKey[id] == key) return;
+        statSize[id] = size;
+        statMtime[id] = mtime;
+        statKey[id] = key;
+        hasStat[id] = true;
+        markDirty(id);
+    }
+
+    /**
+     * Returns true if the path has a digest whose recorded stat equals the given one.
+     */
+    public synchronized boolean matchesStat(String path, long size, long mtime, long key) {
+        Integer id = pathIds.get(path);
+        return id != null && present[id] && hasStat[id]
+                && statSize[id] == size && statMtime[id] == mtime && statKey[id] == key;
+    }
+
+    public synchronized void remove(String path) {
+        Integer id = pathIds.get(path);
+        if (id == null || !present[id]) return;
+        present[id] = false;
+        liveEntries--;
+        markDirty(id);
+    }
+
+    public synchronized int size() {
+        return liveEntries;
+    }
+
+    /**
+     * Visits all live entries as (path, hex digest, aux).
+     */
+    public synchronized void forEach(EntryConsumer consumer) {
+        for (int id = 0; id < paths.size(); id++) {
+            if (present[id]) {
+                consumer.accept(paths.get(id), toHex(digestHi[id], digestLo[id]), aux[id]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(String path, String hexDigest, long aux);
+    }
+
+    /**
+     * Appends changed entries to the journal. Compacts (and applies the stale-path filter) when the journal
+     * has grown enough; the filter is never evaluated on regular saves.
+     */
+    public synchronized void save(Predicate<String> isStale) {
+        try {
+            Path parent = storeFile.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (!Files.exists(storeFile) || needsCompaction()) {
+                compact(isStale);
+                return;
+            }
+            if (dirtyIds.isEmpty()) return;
+            appendJournal();
+        } catch (IOException e) {
+            log.warn("Could not save hash store {}: {}", storeFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the store as a snapshot of live entries, dropping entries matched by the stale filter.
+     */
+    public synchronized void compact(Predicate<String> isStale) throws IOException {
+        if (isStale != null) {
+            for (int id = 0; id < paths.size(); id++) {
+                if (present[id] && isStale.test(paths.get(id))) {
+                    present[id] = false;
+                    liveEntries--;
+                }
+            }
+        }
+
+        // Re-intern live paths densely so dropped paths do not linger in the snapshot
+        List<String> livePaths = new ArrayList<>(liveEntries);
+        long[] hi = new long[Math.max(16, liveEntries)];
+        long[] lo = new long[hi.length];
+        long[] ax = new long[hi.length];
+        long[] sSize = new long[hi.length];
+        long[] sMtime = new long[hi.length];
+        long[] sKey = new long[hi.length];
+        boolean[] sHas = new boolean[hi.length];
+        for (int id = 0; id < paths.size(); id++) {
+            if (present[id]) {
+                int newId = livePaths.size();
+                livePaths.add(paths.get(id));
+                hi[newId] = digestHi[id];
+                lo[newId] = digestLo[id];
+                ax[newId] = aux[id];
+                sSize[newId] = statSize[id];
+                sMtime[newId] = statMtime[id];
+                sKey[newId] = statKey[id];
+                sHas[newId] = hasStat[id];
+            }
+        }
+
+        paths.clear();
+        pathIds.clear();
+        for (int i = 0; i < livePaths.size(); i++) {
+            paths.add(livePaths.get(i));
+            pathIds.put(livePaths.get(i), i);
+        }
+        digestHi = hi;
+        digestLo = lo;
+        aux = ax;
+        statSize = sSize;
+        statMtime = sMtime;
+        statKey = sKey;
+        hasStat = sHas;
+        present = new boolean[hi.length];
+        Arrays.fill(present, 0, livePaths.size(), true);
+        dirty = new boolean[hi.length];
+        dirtyIds.clear();
+
+        Path tmp = storeFile.resolveSibling(storeFile.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(ch, header);
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            for (int id = 0; id < paths.size(); id++) {
+                buf = writePathRecord(ch, buf, id, paths.get(id));
+            }
+            for (int id = 0; id < paths.size(); id++) {
+                buf = ensure(ch, buf, ENTRY_RECORD_SIZE + STAT_RECORD_SIZE);
+                putEntry(buf, id);
+            }
+            buf.flip();
+            writeFully(ch, buf);
+        }
+        Files.move(tmp, storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        persistedPathCount = paths.size();
+        journalRecords = paths.size() * 3;
+        savesSinceCompaction = 0;
+    }
+
+    private boolean needsCompaction() {
+        return savesSinceCompaction >= COMPACT_AFTER_SAVES
+                || (journalRecords > COMPACT_MIN_RECORDS && journalRecords > 4L * liveEntries);
+    }
+
+    private void appendJournal() throws IOException {
+        try (FileChannel ch = FileChannel.open(storeFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+            for (int id = persistedPathCount; id < paths.size(); id++) {
+                buf = writePathRecord(ch, buf, id, paths.get(id));
+                journalRecords++;
+            }
+            for (int id : dirtyIds) {
+                if (present[id]) {
+                    buf = ensure(ch, buf, ENTRY_RECORD_SIZE + STAT_RECORD_SIZE);
+                    putEntry(buf, id);
+                } else {
+                    buf = ensure(ch, buf, 5);
+                    buf.put(REC_DELETE).putInt(id);
+                }
+                dirty[id] = false;
+                journalRecords++;
+            }
+            buf = ensure(ch, buf, 1);
+            buf.put(REC_SAVE);
+            buf.flip();
+            writeFully(ch, buf);
+        }
+        dirtyIds.clear();
+        persistedPathCount = paths.size();
+        savesSinceCompaction++;
+    }
+
+    private void load() {
+        try (FileChannel ch = FileChannel.open(storeFile, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_SIZE) {
+                log.warn("Hash store {} is truncated, starting empty.", storeFile);
+                return;
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+                log.warn("Hash store {} has an unknown format, starting empty.", storeFile);
+                return;
+            }
+            while (map.hasRemaining()) {
+                int recordStart = map.position();
+                byte type = map.get();
+                try {
+                    switch (type) {
+                        case REC_PATH -> {
+                            int id = map.getInt();
+                            byte[] bytes = new byte[map.getShort() & 0xFFFF];
+                            map.get(bytes);
+                            String path = new String(bytes, StandardCharsets.UTF_8);
+                            if (id != paths.size()) throw new IOException("Unexpected path id " + id);
+                            intern(path);
+                        }
+                        case REC_ENTRY -> {
+                            int id = checkId(map.getInt());
+                            long hi = map.getLong();
+                            long lo = map.getLong();
+                            long ax = map.getLong();
+                            if (!present[id]) liveEntries++;
+                            digestHi[id] = hi;
+                            digestLo[id] = lo;
+                            aux[id] = ax;
+                            present[id] = true;
+                            hasStat[id] = false;
+                        }
+                        case REC_STAT -> {
+                            int id = checkId(map.getInt());
+                            statSize[id] = map.getLong();
+                            statMtime[id] = map.getLong();
+                            statKey[id] = map.getLong();
+                            hasStat[id] = present[id];
+                        }
+                        case REC_DELETE -> {
+                            int id = checkId(map.getInt());
+                            if (present[id]) liveEntries--;
+                            present[id] = false;
+                        }
+                        case REC_SAVE -> savesSinceCompaction++;
+                        default -> throw new IOException("Unknown record type " + type);
+                    }
+                    journalRecords++;
+                } catch (java.nio.BufferUnderflowException | IndexOutOfBoundsException | IOException e) {
+                    // A torn trailing record from an interrupted save: keep everything before it
+                    log.warn("Hash store {} has a damaged record at offset {}, ignoring the rest.", storeFile, recordStart);
+                    savesSinceCompaction = COMPACT_AFTER_SAVES;
+                    break;
+                }
+            }
+            persistedPathCount = paths.size();
+        } catch (IOException e) {
+            log.warn("Could not load hash store {}: {}", storeFile, e.getMessage());
+        }
+    }
+
+    private int checkId(int id) throws IOException {
+        if (id < 0 || id >= paths.size()) throw new IOException("Unknown path id " + id);
+        return id;
+    }
+
+    private int intern(String path) {
+        Integer existing = pathIds.get(path);
+        if (existing != null) return existing;
+        int id = paths.size();
+        paths.add(path);
+        pathIds.put(path, id);
+        if (id >= present.length) {
+            int newLen = present.length * 2;
+            digestHi = Arrays.copyOf(digestHi, newLen);
+            digestLo = Arrays.copyOf(digestLo, newLen);
+            aux = Arrays.copyOf(aux, newLen);
+            present = Arrays.copyOf(present, newLen);
+            statSize = Arrays.copyOf(statSize, newLen);
+            statMtime = Arrays.copyOf(statMtime, newLen);
+            statKey = Arrays.copyOf(statKey, newLen);
+            hasStat = Arrays.copyOf(hasStat, newLen);
+            dirty = Arrays.copyOf(dirty, newLen);
+        }
+        return id;
+    }
+
+    private void markDirty(int id) {
+        if (!dirty[id]) {
+            dirty[id] = true;
+            dirtyIds.add(id);
+        }
+    }
+
+    private void putEntry(ByteBuffer buf, int id) {
+        buf.put(REC_ENTRY).putInt(id).putLong(digestHi[id]).putLong(digestLo[id]).putLong(aux[id]);
+        if (hasStat[id]) {
+            buf.put(REC_STAT).putInt(id).putLong(statSize[id]).putLong(statMtime[id]).putLong(statKey[id]);
+        }
+    }
+
+    private static ByteBuffer writePathRecord(FileChannel ch, ByteBuffer buf, int id, String path) throws IOException {
+        byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+        buf = ensure(ch, buf, 1 + 4 + 2 + bytes.length);
+        buf.put(REC_PATH).putInt(id).putShort((short) bytes.length).put(bytes);
+        return buf;
+    }
+
+    private static ByteBuffer ensure(FileChannel ch, ByteBuffer buf, int needed) throws IOException {
+        if (buf.remaining() >= needed) return buf;
+        buf.flip();
+        writeFully(ch, buf);
+        buf.clear();
+        return buf.capacity() >= needed ? buf : ByteBuffer.allocate(needed);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    private static String toHex(long hi, long lo) {
+        String h = Long.toHexString(hi);
+        String l = Long.toHexString(lo);
+        return "0".repeat(16 - h.length()) + h + "0".repeat(16 - l.length()) + l;
+    }
+}
@@ -0,0 +1,433 @@
+package de.maulmann;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Single-pass tag scanner for the generated pages. It reports start tags with their attributes, end tags and text,
+ * skips comments, doctypes and script/style bodies, and never builds a tree.
+ * <p>
+ * {@link #summarize} collects what the sitemap, llms-full.txt and RSS recovery need from a page (title, h1, meta
+ * description, images and the spec table), so those phases do not need a DOM parse. Text is whitespace-normalized and
+ * entity-decoded like Jsoup's {@code text()}.
+ */
+public final class HtmlTagScanner {
+
+    private static final Set<String> RAW_TEXT = Set.of("script", "style");
+    // Tags whose boundaries separate words in extracted text
+    private static final Set<String> TEXT_BREAKS = Set.of("br", "p", "div", "li", "tr", "td", "th");
+    private static final Map<String, String> ENTITIES = Map.of(
+            "amp", "&", "lt", "<", "gt", ">", "quot", "\"", "apos", "'",
+            "nbsp", "\u00a0", "ndash", "–", "mdash", "—", "copy", "©", "hellip", "…");
+
+    public interface Handler {
+        default void startTag(String name, Map<String, String> attributes, boolean selfClosing) {
+        }
+
+        default void endTag(String name) {
+        }
+
+        default void text(String text) {
+        }
+    }
+
+    private HtmlTagScanner() {
+    }
+
+    /**
+     * Scans the markup and reports every tag and text run to the handler. Tag and attribute names are lower-cased,
+     * attribute values and text are entity-decoded, the first of duplicate attributes wins.
+     */
+    public static void scan(String html, Handler handler) {
+        int n = html.length();
+        int i = 0;
+        int textStart = 0;
+        while (i < n) {
+            int lt = html.indexOf('<', i);
+            if (lt < 0 || lt + 1 >= n) break;
+            char next = html.charAt(lt + 1);
+
+            if (next == '!' || next == '?') {
+                flushText(html, textStart, lt, handler);
+                int end;
+                if (html.startsWith("<!--", lt)) {
+                    end = html.indexOf("-->", lt + 4);
+                    end = end < 0 ? n : end + 3;
+                } else {
+                    end = html.indexOf('>', lt);
+                    end = end < 0 ? n : end + 1;
+                }
+                i = textStart = end;
+            } else if (next == '/' && lt + 2 < n && isNameStart(html.charAt(lt + 2))) {
+                flushText(html, textStart, lt, handler);
+                int nameEnd = nameEnd(html, lt + 2);
+                handler.endTag(html.substring(lt + 2, nameEnd).toLowerCase(Locale.ROOT));
+                int end = html.indexOf('>', nameEnd);
+                i = textStart = end < 0 ? n : end + 1;
+            } else if (isNameStart(next)) {
+                flushText(html, textStart, lt, handler);
+                i = textStart = startTag(html, lt, handler);
+            } else {
+                // A lone '<' is text
+                i = lt + 1;
+            }
+        }
+        flushText(html, textStart, n, handler);
+    }
+
+    private static int startTag(String html, int lt, Handler handler) {
+        int n = html.length();
+        int nameEnd = nameEnd(html, lt + 1);
+        String name = html.substring(lt + 1, nameEnd).toLowerCase(Locale.ROOT);
+        Map<String, String> attributes = new HashMap<>();
+        boolean selfClosing = false;
+
+        int i = nameEnd;
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c == '>') {
+                i++;
+                break;
+            }
+            if (c == '/' && i + 1 < n && html.charAt(i + 1) == '>') {
+                selfClosing = true;
+                i += 2;
+                break;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                i++;
+                continue;
+            }
+            int attrStart = i;
+            while (i < n && !Character.isWhitespace(html.charAt(i)) && "=>/".indexOf(html.charAt(i)) < 0) i++;
+            String attrName = html.substring(attrStart, i).toLowerCase(Locale.ROOT);
+            while (i < n && Character.isWhitespace(html.charAt(i))) i++;
+            String value = "";
+            if (i < n && html.charAt(i) == '=') {
+                i++;
+                while (i < n && Character.isWhitespace(html.charAt(i))) i++;
+                if (i < n && (html.charAt(i) == '"' || html.charAt(i) == '\'')) {
+                    char quote = html.charAt(i);
+                    int close = html.indexOf(quote, i + 1);
+                    if (close < 0) close = n;
+                    value = decode(html, i + 1, close);
+                    i = Math.min(close + 1, n);
+                } else {
+                    int valueStart = i;
+                    while (i < n && !Character.isWhitespace(html.charAt(i)) && html.charAt(i) != '>') i++;
+                    value = decode(html, valueStart, i);
+                }
+            }
+            attributes.putIfAbsent(attrName, value);
+        }
+        handler.startTag(name, attributes, selfClosing);
+
+        if (RAW_TEXT.contains(name) && !selfClosing) {
+            int close = indexOfIgnoreCase(html, "</" + name, i);
+            if (close < 0) return n;
+            handler.endTag(name);
+            int end = html.indexOf('>', close);
+            return end < 0 ? n : end + 1;
+        }
+        return i;
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static int nameEnd(String html, int from) {
+        int i = from;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+            if (Character.isWhitespace(c) || c == '>' || c == '/') break;
+            i++;
+        }
+        return i;
+    }
+
+    private static int indexOfIgnoreCase(String html, String needle, int from) {
+        for (int i = from; i <= html.length() - needle.length(); i++) {
+            if (html.regionMatches(true, i, needle, 0, needle.length())) return i;
+        }
+        return -1;
+    }
+
+    private static void flushText(String html, int from, int to, Handler handler) {
+        if (to > from) handler.text(decode(html, from, to));
+    }
+
+    /**
+     * Decodes numeric and common named character references; unknown references are kept as written.
+     */
+    static String decode(String s, int from, int to) {
+        int amp = s.indexOf('&', from);
+        if (amp < 0 || amp >= to) return s.substring(from, to);
+        StringBuilder sb = new StringBuilder(to - from);
+        int i = from;
+        while (i < to) {
+            char c = s.charAt(i);
+            if (c != '&') {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            int semi = s.indexOf(';', i);
+            if (semi < 0 || semi >= to || semi - i > 10) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String ref = s.substring(i + 1, semi);
+            String decoded = null;
+            if (ref.startsWith("#")) {
+                try {
+                    int codePoint = ref.length() > 1 && (ref.charAt(1) == 'x' || ref.charAt(1) == 'X')
+                            ? Integer.parseInt(ref.substring(2), 16)
+                            : Integer.parseInt(ref.substring(1));
+                    decoded = new String(Character.toChars(codePoint));
+                } catch (IllegalArgumentException ignored) {
+                }
+            } else {
+                decoded = ENTITIES.get(ref);
+            }
+            if (decoded != null) {
+                sb.append(decoded);
+                i = semi + 1;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    static String normalizeWhitespace(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = !sb.isEmpty();
+            } else {
+                if (pendingSpace) sb.append(' ');
+                pendingSpace = false;
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public record Image(String src, String srcset, String title, String alt) {
+    }
+
+    /**
+     * A {@code <picture>}: the srcsets of its sources, its first image and the caption of the enclosing figure.
+     */
+    public record Picture(List<String> sourceSrcsets, Image img, String figcaption) {
+    }
+
+    /**
+     * What the sitemap phase reads from a page. {@code images} holds every {@code <img>} in document order,
+     * {@code standaloneImages} only those outside a {@code <picture>}.
+     */
+    public record PageSummary(String title, String h1, String metaDescription, List<Image> images,
+                              List<Image> standaloneImages, List<Picture> pictures, Map<String, String> specs) {
+
+        /**
+         * Value cell of the spec table row whose header matches, ignoring case; empty if there is none.
+         */
+        public String spec(String name) {
+            return specs.getOrDefault(name.toLowerCase(Locale.ROOT), "");
+        }
+    }
+
+    public static PageSummary summarize(Path file) throws IOException {
+        return summarize(Files.readString(file, StandardCharsets.UTF_8));
+    }
+
+    public static PageSummary summarize(String html) {
+        SummaryHandler handler = new SummaryHandler();
+        scan(html, handler);
+        return handler.build();
+    }
+
+    private static final class SummaryHandler implements Handler {
+        private final StringBuilder title = new StringBuilder();
+        private final List<String> h1s = new ArrayList<>();
+        private String metaDescription;
+        private final List<Image> images = new ArrayList<>();
+        private final List<Image> standalone = new ArrayList<>();
+        private final List<PictureBuilder> pictures = new ArrayList<>();
+        private final Map<String, String> specs = new HashMap<>();
+
+        private final Deque<StringBuilder> figures = new ArrayDeque<>();
+        private boolean titleSeen;
+        private int titleDepth;
+        private StringBuilder h1;
+        private int h1Depth;
+        private PictureBuilder picture;
+        private int pictureDepth;
+        private StringBuilder figcaption;
+        private int figcaptionDepth;
+
+        // Current spec table row
+        private StringBuilder specHeader;
+        private StringBuilder specValue;
+        private boolean inSpecHeader;
+        private boolean inSpecValue;
+
+        private static final class PictureBuilder {
+            final List<String> sources = new ArrayList<>();
+            Image img;
+            StringBuilder figure;
+        }
+
+        @Override
+        public void startTag(String name, Map<String, String> attributes, boolean selfClosing) {
+            if (TEXT_BREAKS.contains(name)) appendText(" ");
+            switch (name) {
+                case "title" -> {
+                    if (!titleSeen) titleDepth++;
+                }
+                case "h1" -> {
+                    if (h1Depth++ == 0) h1 = new StringBuilder();
+                }
+                case "meta" -> {
+                    if (metaDescription == null && "description".equalsIgnoreCase(attributes.get("name"))) {
+                        metaDescription = attributes.getOrDefault("content", "");
+                    }
+                }
+                case "figure" -> figures.push(new StringBuilder());
+                case "figcaption" -> {
+                    if (figcaptionDepth++ == 0) figcaption = new StringBuilder();
+                }
+                case "picture" -> {
+                    if (pictureDepth++ == 0) {
+                        picture = new PictureBuilder();
+                        picture.figure = figures.peek();
+                        pictures.add(picture);
+                    }
+                }
+                case "source" -> {
+                    if (picture != null && attributes.containsKey("srcset")) picture.sources.add(attributes.get("srcset"));
+                }
+                case "img" -> {
+                    Image img = new Image(attributes.getOrDefault("src", ""), attributes.getOrDefault("srcset", ""),
+                            attributes.getOrDefault("title", ""), attributes.getOrDefault("alt", ""));
+                    images.add(img);
+                    if (picture == null) {
+                        standalone.add(img);
+                    } else if (picture.img == null) {
+                        picture.img = img;
+                    }
+                }
+                case "tr" -> endRow();
+                case "th" -> {
+                    if (hasClass(attributes, "specs-th") && specHeader == null) {
+                        specHeader = new StringBuilder();
+                        inSpecHeader = true;
+                    }
+                }
+                case "td" -> {
+                    if (hasClass(attributes, "specs-td") && specValue == null) {
+                        specValue = new StringBuilder();
+                        inSpecValue = true;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void endTag(String name) {
+            if (TEXT_BREAKS.contains(name)) appendText(" ");
+            switch (name) {
+                case "title" -> {
+                    if (titleDepth > 0) {
+                        titleDepth = 0;
+                        titleSeen = true;
+                    }
+                }
+                case "h1" -> {
+                    if (h1Depth > 0 && --h1Depth == 0) {
+                        String text = normalizeWhitespace(h1);
+                        if (!text.isEmpty()) h1s.add(text);
+                    }
+                }
+                case "figcaption" -> {
+                    if (figcaptionDepth > 0 && --figcaptionDepth == 0 && !figures.isEmpty() && figures.peek().isEmpty()) {
+                        figures.peek().append(normalizeWhitespace(figcaption));
+                    }
+                }
+                case "figure" -> {
+                    if (!figures.isEmpty()) figures.pop();
+                }
+                case "picture" -> {
+                    if (pictureDepth > 0 && --pictureDepth == 0) picture = null;
+                }
+                case "th" -> inSpecHeader = false;
+                case "td" -> inSpecValue = false;
+                case "tr", "table" -> endRow();
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void text(String text) {
+            if (titleDepth > 0) title.append(text);
+            appendText(text);
+        }
+
+        private void appendText(String text) {
+            if (h1Depth > 0) h1.append(text);
+            if (figcaptionDepth > 0) figcaption.append(text);
+            if (inSpecHeader) specHeader.append(text);
+            if (inSpecValue) specValue.append(text);
+        }
+
+        private void endRow() {
+            if (specHeader != null) {
+                String header = normalizeWhitespace(specHeader).toLowerCase(Locale.ROOT);
+                // Like Jsoup's getSpecValue: the first row with this header that has a value cell wins
+                if (specValue != null) specs.putIfAbsent(header, normalizeWhitespace(specValue));
+            }
+            specHeader = specValue = null;
+            inSpecHeader = inSpecValue = false;
+        }
+
+        private static boolean hasClass(Map<String, String> attributes, String className) {
+            String classes = attributes.get("class");
+            if (classes == null) return false;
+            for (String c : classes.trim().split("\\s+")) {
+                if (c.equals(className)) return true;
+            }
+            return false;
+        }
+
+        PageSummary build() {
+            endRow();
+            List<Picture> built = new ArrayList<>(pictures.size());
+            for (PictureBuilder p : pictures) {
+                built.add(new Picture(List.copyOf(p.sources), p.img, p.figure != null ? p.figure.toString() : ""));
+            }
+            return new PageSummary(normalizeWhitespace(title), String.join(" ", h1s),
+                    metaDescription != null ? metaDescription : "", Collections.unmodifiableList(images),
+                    Collections.unmodifiableList(standalone), Collections.unmodifiableList(built),
+                    Collections.unmodifiableMap(specs));
+        }
+    }
+}
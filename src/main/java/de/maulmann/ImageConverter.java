@@ -4,8 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -62,7 +69,7 @@ public class ImageConverter {
         log.info("AVIFENC_PATH: {}", AVIFENC_PATH);
 
         // Initialisierung des Hash-Checkers
-        FileTracker tracker = new FileTracker("output/image-build-hashes.properties");
+        FileTracker tracker = new FileTracker("output/image-build-hashes.bin");
 
         List<CompletableFuture<Void>> futures = new ArrayList<>();
         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
@@ -138,7 +145,7 @@ public class ImageConverter {
         }
 
         // 2. Original-Bild einmalig laden
-        java.awt.image.BufferedImage orig = ImageIO.read(sourceFile.toFile());
+        BufferedImage orig = ImageIO.read(sourceFile.toFile());
         if (orig == null) {
             return false;
         }
@@ -151,23 +158,28 @@ public class ImageConverter {
         int mainH = ratio < 1.0 ? (int) (origH * ratio) : origH;
 
         // --- CLI GENERIERUNG ---
+        // Every width is scaled from the next larger frame and piped to avifenc as raw YUV, no PNG in between
 
         // A) Hauptbild (z.B. jordan.avif)
+        BufferedImage frame = null;
         if (AVIFENC_PATH != null) {
-            writeAvifViaCLI(orig, mainAvifFile, mainW, mainH, 48);
+            frame = scale(orig, mainW, mainH);
+            writeAvifViaCLI(frame, mainAvifFile, 48, "full");
         }
 
-        // B) Responsive Varianten (z.B. jordan-200w.avif, jordan-400w.avif, jordan-600w.avif, jordan-900w.avif)
-        for (int targetW : RESPONSIVE_WIDTHS) {
+        // B) Responsive Varianten, größte zuerst (z.B. jordan-900w.avif, jordan-600w.avif, jordan-400w.avif, jordan-200w.avif)
+        for (int i = RESPONSIVE_WIDTHS.length - 1; i >= 0; i--) {
+            int targetW = RESPONSIVE_WIDTHS[i];
             int w = Math.min(targetW, mainW);
             int h = (w == mainW) ? mainH : (int) (mainH * ((double) w / mainW));
-            
+
             File respAvifFile = currentWebpOutDir.resolve(baseName + "-" + targetW + "w.avif").toFile();
             int avifQuality = (targetW <= 200) ? 36 : (targetW <= 400 ? 38 : (targetW <= 600 ? 40 : 44));
             if (w == mainW && mainAvifFile.exists()) {
                 Files.copy(mainAvifFile.toPath(), respAvifFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             } else if (AVIFENC_PATH != null) {
-                writeAvifViaCLI(orig, respAvifFile, w, h, avifQuality);
+                frame = scale(frame, w, h);
+                writeAvifViaCLI(frame, respAvifFile, avifQuality, String.valueOf(targetW));
             }
         }
 
@@ -179,32 +191,33 @@ public class ImageConverter {
     private static final String AVIFENC_PATH = findAvifenc();
 
 
-    private static void writeAvifViaCLI(java.awt.image.BufferedImage orig, File outputFile, int targetW, int targetH, int quality) {
-        if (AVIFENC_PATH == null || orig == null) return;
+    /**
+     * Encodes one frame by piping it to avifenc as a Y4M stream: 8-bit YUV 4:2:0, full range, BT.601 matrix, which
+     * is what {@code --cicp 1/13/6} declares. avifenc reads the planes as they are, so there is no PNG encode here and
+     * no PNG decode in the encoder.
+     */
+    private static void writeAvifViaCLI(BufferedImage frame, File outputFile, int quality, String widthLabel) {
+        if (AVIFENC_PATH == null || frame == null) return;
+        long start = System.nanoTime();
         try {
-            java.awt.image.BufferedImage resized = new java.awt.image.BufferedImage(targetW, targetH, java.awt.image.BufferedImage.TYPE_INT_RGB);
-            java.awt.Graphics2D g = resized.createGraphics();
-            g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g.drawImage(orig, 0, 0, targetW, targetH, null);
-            g.dispose();
-
             ProcessBuilder pb = new ProcessBuilder(
                     AVIFENC_PATH,
                     "--stdin",
-                    "--input-format", "png",
+                    "--input-format", "y4m",
                     "-s", "6",
                     "-q", String.valueOf(quality),
-                    "--yuv", "420",
+                    "--cicp", "1/13/6",
                     "-j", "8",
                     outputFile.getAbsolutePath()
             );
             Process p = pb.start();
-            try (java.io.OutputStream os = p.getOutputStream()) {
-                ImageIO.write(resized, "png", os);
-                os.flush();
+            try (OutputStream os = new BufferedOutputStream(p.getOutputStream(), 64 * 1024)) {
+                writeY4m(frame, os);
             }
             int exitCode = p.waitFor();
+            BuildMetrics.histogram("image_encode_seconds", "width", widthLabel).recordSince(start);
             if (exitCode != 0) {
+                BuildMetrics.increment("image_encode_failures", 1, "width", widthLabel);
                 log.warn("avifenc exited with code {} for {}", exitCode, outputFile.getName());
             }
         } catch (InterruptedException ie) {
@@ -215,6 +228,72 @@ public class ImageConverter {
         }
     }
 
+    /**
+     * Scales to an RGB frame of the given size. Large reductions are done in halving steps first, so bilinear
+     * filtering never skips source pixels.
+     */
+    static BufferedImage scale(BufferedImage src, int targetW, int targetH) {
+        BufferedImage current = src;
+        while (current.getWidth() / 2 >= targetW && current.getHeight() / 2 >= targetH) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() == targetW && current.getHeight() == targetH && current.getType() == BufferedImage.TYPE_INT_RGB) {
+            return current;
+        }
+        return draw(current, targetW, targetH);
+    }
+
+    private static BufferedImage draw(BufferedImage src, int w, int h) {
+        BufferedImage scaled = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(src, 0, 0, w, h, null);
+        g.dispose();
+        return scaled;
+    }
+
+    /**
+     * Writes a single-frame Y4M stream of an RGB frame from {@link #scale}: 8-bit 4:2:0, full range, BT.601 (JPEG)
+     * coefficients. Chroma is the average of each 2x2 block; odd sizes get a half-covered last column or row.
+     */
+    static void writeY4m(BufferedImage frame, OutputStream out) throws IOException {
+        int w = frame.getWidth();
+        int h = frame.getHeight();
+        int cw = (w + 1) / 2;
+        int ch = (h + 1) / 2;
+        int[] rgb = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+
+        byte[] y = new byte[w * h];
+        byte[] u = new byte[cw * ch];
+        byte[] v = new byte[cw * ch];
+        for (int row = 0; row < h; row++) {
+            for (int col = 0, i = row * w; col < w; col++, i++) {
+                int px = rgb[i];
+                int r = (px >> 16) & 0xFF, g = (px >> 8) & 0xFF, b = px & 0xFF;
+                // 16-bit fixed point of 0.299, 0.587, 0.114
+                y[i] = (byte) ((19595 * r + 38470 * g + 7471 * b + 32768) >> 16);
+            }
+        }
+        for (int crow = 0; crow < ch; crow++) {
+            int row0 = crow * 2, row1 = Math.min(row0 + 1, h - 1);
+            for (int ccol = 0; ccol < cw; ccol++) {
+                int col0 = ccol * 2, col1 = Math.min(col0 + 1, w - 1);
+                int p00 = rgb[row0 * w + col0], p01 = rgb[row0 * w + col1];
+                int p10 = rgb[row1 * w + col0], p11 = rgb[row1 * w + col1];
+                int r = ((p00 >> 16) & 0xFF) + ((p01 >> 16) & 0xFF) + ((p10 >> 16) & 0xFF) + ((p11 >> 16) & 0xFF);
+                int g = ((p00 >> 8) & 0xFF) + ((p01 >> 8) & 0xFF) + ((p10 >> 8) & 0xFF) + ((p11 >> 8) & 0xFF);
+                int b = (p00 & 0xFF) + (p01 & 0xFF) + (p10 & 0xFF) + (p11 & 0xFF);
+                // Sums of four pixels, so the shift is 18 and 128 becomes 128 << 18
+                u[crow * cw + ccol] = (byte) Math.clamp((-11059 * r - 21709 * g + 32768 * b + (128 << 18) + (1 << 17)) >> 18, 0, 255);
+                v[crow * cw + ccol] = (byte) Math.clamp((32768 * r - 27439 * g - 5329 * b + (128 << 18) + (1 << 17)) >> 18, 0, 255);
+            }
+        }
+
+        out.write(("YUV4MPEG2 W" + w + " H" + h + " F25:1 Ip A1:1 C420jpeg XCOLORRANGE=FULL\nFRAME\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(y);
+        out.write(u);
+        out.write(v);
+    }
 
     private static String findAvifenc() {
         String[] paths = {
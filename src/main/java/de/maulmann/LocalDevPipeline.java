@@ -36,8 +36,8 @@ public class LocalDevPipeline {
         log.info("==================================================");
         log.info("ℹ️ AWS S3 upload, compression & CloudFront invalidation skipped.");
 
-        FileTracker tracker = new FileTracker(OUTPUT_DIR + "/sync-hashes.properties");
-        TimestampTracker timeTracker = new TimestampTracker(OUTPUT_DIR + "/generation-timestamps.properties");
+        FileTracker tracker = new FileTracker(OUTPUT_DIR + "/sync-hashes.bin");
+        TimestampTracker timeTracker = new TimestampTracker(OUTPUT_DIR + "/generation-timestamps.bin");
 
         SiteBuilderPipeline.DeploymentMetrics metrics = new SiteBuilderPipeline.DeploymentMetrics();
         long p1_2Start = System.currentTimeMillis();
@@ -49,6 +49,7 @@ public class LocalDevPipeline {
 
         long duration = System.currentTimeMillis() - startTime;
         SiteBuilderPipeline.printDeploymentReport(duration, metrics, false);
+        SiteBuilderPipeline.exportMetrics(duration, metrics);
 
         log.info("📂 Preview pages locally:");
         log.info("   -> Home:            file://{}/index.html", new File(OUTPUT_DIR).getAbsolutePath());
@@ -0,0 +1,123 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two-stage page renderer: CPU-bound rendering runs on a core-sized platform pool, file writes on a separate
+ * I/O stage. A semaphore bounds the number of pages in flight (rendered but not yet written), so peak heap
+ * stays flat no matter how many pages are submitted. {@link #submit} blocks while the bound is reached.
+ */
+public final class PageRenderEngine implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PageRenderEngine.class);
+
+    private final ExecutorService renderPool;
+    private final ExecutorService ioPool;
+    private final Semaphore inFlight;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Renders a page and returns the write to perform on the I/O stage, or null if there is nothing to write.
+     */
+    @FunctionalInterface
+    public interface RenderJob {
+        PageWrite render() throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface PageWrite {
+        void write() throws IOException;
+    }
+
+    public PageRenderEngine() {
+        this(Runtime.getRuntime().availableProcessors(), 2, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public PageRenderEngine(int renderThreads, int ioThreads, int maxInFlight) {
+        this.renderPool = Executors.newFixedThreadPool(renderThreads, namedThreads("page-render"));
+        this.ioPool = Executors.newFixedThreadPool(ioThreads, namedThreads("page-write"));
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        return Thread.ofPlatform().name(prefix + "-", 0).daemon(true).factory();
+    }
+
+    /**
+     * Queues a page. Blocks the caller while the in-flight limit is reached. Failures are logged with the label.
+     */
+    public void submit(String label, RenderJob job) {
+        inFlight.acquireUninterruptibly();
+        try {
+            renderPool.execute(() -> {
+                boolean handedOff = false;
+                try {
+                    long renderStart = System.nanoTime();
+                    PageWrite write = job.render();
+                    if (write != null) {
+                        // Skipped pages only ran the fingerprint check, they would skew the render latencies
+                        BuildMetrics.histogram("page_render_seconds").recordSince(renderStart);
+                        ioPool.execute(() -> {
+                            try {
+                                long writeStart = System.nanoTime();
+                                write.write();
+                                BuildMetrics.histogram("page_write_seconds").recordSince(writeStart);
+                            } catch (Exception e) {
+                                failures.incrementAndGet();
+                                log.error("Failed to write {}", label, e);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                        handedOff = true;
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    log.error("Failed to render {}", label, e);
+                } finally {
+                    if (!handedOff) {
+                        inFlight.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Waits until every submitted page has been rendered and written.
+     */
+    @Override
+    public void close() {
+        // Render tasks hand off to the I/O stage, so the render pool must drain first
+        awaitShutdown(renderPool);
+        awaitShutdown(ioPool);
+    }
+
+    private static void awaitShutdown(ExecutorService pool) {
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Still waiting for page rendering to finish...");
+            }
+        } catch (InterruptedException _) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Records wall time, allocation and peak RSS per build phase.
+ * Allocation is process-wide (all threads), so phases that run concurrently (HTML and images) see each other's
+ * allocations. Peak RSS is the process high-water mark at the end of the phase; it is only available on Linux.
+ */
+public final class PhaseProfiler {
+    private static final Logger log = LoggerFactory.getLogger(PhaseProfiler.class);
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+
+    private static final ConcurrentLinkedQueue<PhaseStats> PHASES = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param allocatedBytes bytes allocated by all threads during the phase, or -1 if unsupported
+     * @param peakRssBytes   process peak resident set size at the end of the phase, or -1 if unavailable
+     */
+    public record PhaseStats(String phase, long wallMillis, long allocatedBytes, long peakRssBytes) {}
+
+    private PhaseProfiler() {
+    }
+
+    public static void measure(String phase, Runnable work) {
+        measure(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public static <T> T measure(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try {
+            return work.get();
+        } finally {
+            long allocatedAfter = allocatedBytes();
+            PhaseStats stats = new PhaseStats(phase, (System.nanoTime() - start) / 1_000_000,
+                    allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore, peakRssBytes());
+            PHASES.add(stats);
+            log.debug("Phase {} took {} ms, allocated {} MB, peak RSS {} MB", phase, stats.wallMillis(),
+                    stats.allocatedBytes() >> 20, stats.peakRssBytes() >> 20);
+        }
+    }
+
+    /**
+     * Phases in completion order.
+     */
+    public static List<PhaseStats> getPhases() {
+        return List.copyOf(PHASES);
+    }
+
+    public static void reset() {
+        PHASES.clear();
+    }
+
+    static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    static long peakRssBytes() {
+        if (!Files.isReadable(PROC_STATUS)) return -1;
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException _) {
+            // Not fatal: the phase is reported without RSS
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,276 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Top-K selection for the "related cards" section of a card page.
+ * <p>
+ * A candidate shares the target's player, season or brand. Its score only depends on season, brand, company and
+ * player equality and on both cards being rare parallels, so cards with the same values for those fields form a
+ * similarity group that scores the same against every target. Groups are precomputed once, with their members sorted
+ * by stable id (the tie-break), so a lookup scores each candidate group once and reads at most {@code limit + 1}
+ * members of it into a bounded min-heap, instead of scoring and sorting every card of the matching buckets.
+ */
+public final class RelatedCardsEngine {
+    static final int PLAYER_SCORE = 15;
+    static final int SEASON_SCORE = 10;
+    static final int BRAND_SCORE = 8;
+    static final int BRAND_PARTIAL_SCORE = 5;
+    static final int RARE_SCORE = 7;
+    static final int COMPANY_SCORE = 3;
+
+    private final List<CardData> cards;
+    private final Set<String> rareCardIds;
+    private final Map<String, Integer> playerCodes = new HashMap<>();
+    private final Map<String, Integer> seasonCodes = new HashMap<>();
+    private final Map<String, Integer> brandCodes = new HashMap<>();
+    private final Map<String, Integer> companyCodes = new HashMap<>();
+    private final String[] brands;
+    // Brand score of a candidate brand (row) against a target brand (column)
+    private final byte[][] brandScores;
+
+    // Per similarity group: exact value codes, rare flag and member rows in stable id order
+    private final int[] groupPlayer;
+    private final int[] groupSeason;
+    private final int[] groupBrand;
+    private final int[] groupCompany;
+    private final boolean[] groupRare;
+    private final int[][] groupMembers;
+    // Dense rank of each row's stable id, lower ranks win ties
+    private final int[] rank;
+
+    // Lower-cased player/season/brand to the ascending ids of the groups in that bucket
+    private final Map<String, int[]> groupsByPlayer;
+    private final Map<String, int[]> groupsBySeason;
+    private final Map<String, int[]> groupsByBrand;
+
+    private record GroupKey(int player, int season, int brand, int company, boolean rare) {
+    }
+
+    public RelatedCardsEngine(List<CardData> cards) {
+        this(cards, cards.stream().filter(CardPageGenerator::isRareParallel).map(c -> c.stableId).collect(Collectors.toSet()));
+    }
+
+    public RelatedCardsEngine(List<CardData> cards, Set<String> rareCardIds) {
+        this.cards = List.copyOf(cards);
+        this.rareCardIds = rareCardIds;
+        int n = this.cards.size();
+
+        Integer[] order = new Integer[n];
+        for (int row = 0; row < n; row++) order[row] = row;
+        Comparator<CardData> tieBreak = Comparator.comparing((CardData c) -> c.stableId, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(c -> c.filename, Comparator.nullsLast(Comparator.naturalOrder()));
+        Arrays.sort(order, (a, b) -> tieBreak.compare(this.cards.get(a), this.cards.get(b)));
+        rank = new int[n];
+        for (int i = 0, r = -1; i < n; i++) {
+            if (i == 0 || tieBreak.compare(this.cards.get(order[i - 1]), this.cards.get(order[i])) != 0) r++;
+            rank[order[i]] = r;
+        }
+
+        // Visiting rows in rank order keeps every group's members sorted by stable id
+        Map<GroupKey, Integer> groupIds = new HashMap<>();
+        List<GroupKey> keys = new ArrayList<>();
+        List<List<Integer>> members = new ArrayList<>();
+        for (int row : order) {
+            CardData c = this.cards.get(row);
+            GroupKey key = new GroupKey(
+                    code(playerCodes, c.get("Player")),
+                    code(seasonCodes, c.get("Season")),
+                    code(brandCodes, c.get("Brand")),
+                    code(companyCodes, c.get("Company")),
+                    c.stableId != null && rareCardIds.contains(c.stableId));
+            int group = groupIds.computeIfAbsent(key, k -> {
+                keys.add(k);
+                members.add(new ArrayList<>());
+                return keys.size() - 1;
+            });
+            members.get(group).add(row);
+        }
+
+        int groups = keys.size();
+        groupPlayer = new int[groups];
+        groupSeason = new int[groups];
+        groupBrand = new int[groups];
+        groupCompany = new int[groups];
+        groupRare = new boolean[groups];
+        groupMembers = new int[groups][];
+        for (int g = 0; g < groups; g++) {
+            GroupKey key = keys.get(g);
+            groupPlayer[g] = key.player();
+            groupSeason[g] = key.season();
+            groupBrand[g] = key.brand();
+            groupCompany[g] = key.company();
+            groupRare[g] = key.rare();
+            groupMembers[g] = members.get(g).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        brands = dictionary(brandCodes);
+        brandScores = new byte[brands.length][brands.length];
+        for (int candidate = 0; candidate < brands.length; candidate++) {
+            for (int target = 0; target < brands.length; target++) {
+                brandScores[candidate][target] = (byte) brandScore(brands[candidate], brands[target]);
+            }
+        }
+
+        groupsByPlayer = bucket(dictionary(playerCodes), groupPlayer);
+        groupsBySeason = bucket(dictionary(seasonCodes), groupSeason);
+        groupsByBrand = bucket(brands, groupBrand);
+    }
+
+    private static int code(Map<String, Integer> codes, String value) {
+        return codes.computeIfAbsent(value, v -> codes.size());
+    }
+
+    private static String[] dictionary(Map<String, Integer> codes) {
+        String[] values = new String[codes.size()];
+        codes.forEach((value, code) -> values[code] = value);
+        return values;
+    }
+
+    private static Map<String, int[]> bucket(String[] values, int[] groupCodes) {
+        Map<String, List<Integer>> groups = new HashMap<>();
+        for (int g = 0; g < groupCodes.length; g++) {
+            String value = values[groupCodes[g]];
+            if (CardUtils.isValidForDisplay(value)) {
+                groups.computeIfAbsent(value.toLowerCase(), k -> new ArrayList<>()).add(g);
+            }
+        }
+        Map<String, int[]> result = new HashMap<>();
+        groups.forEach((key, ids) -> result.put(key, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return result;
+    }
+
+    private static int brandScore(String candidate, String target) {
+        if (candidate.equalsIgnoreCase(target)) return BRAND_SCORE;
+        if (candidate.contains(target) || target.contains(candidate)) return BRAND_PARTIAL_SCORE;
+        return 0;
+    }
+
+    /**
+     * The {@code limit} best scoring related cards for the target, highest score first, ties by stable id.
+     */
+    public List<CardData> related(CardData target, int limit) {
+        if (target == null || limit <= 0) return Collections.emptyList();
+
+        String player = target.get("Player");
+        String season = target.get("Season");
+        String brand = target.get("Brand");
+        int playerCode = playerCodes.getOrDefault(player, -1);
+        int seasonCode = seasonCodes.getOrDefault(season, -1);
+        int brandCode = brandCodes.getOrDefault(brand, -1);
+        int companyCode = companyCodes.getOrDefault(target.get("Company"), -1);
+        boolean targetRare = target.stableId != null && rareCardIds.contains(target.stableId);
+
+        int[] byPlayer = CardUtils.isValidForDisplay(player) ? groupsByPlayer.get(player.toLowerCase()) : null;
+        int[] bySeason = CardUtils.isValidForDisplay(season) ? groupsBySeason.get(season.toLowerCase()) : null;
+        int[] byBrand = CardUtils.isValidForDisplay(brand) ? groupsByBrand.get(brand.toLowerCase()) : null;
+
+        TopK top = new TopK(limit);
+        // Three-way merge over the ascending group ids visits each candidate group once
+        int i = 0, j = 0, k = 0;
+        while (true) {
+            int g = Math.min(next(byPlayer, i), Math.min(next(bySeason, j), next(byBrand, k)));
+            if (g == Integer.MAX_VALUE) break;
+            if (next(byPlayer, i) == g) i++;
+            if (next(bySeason, j) == g) j++;
+            if (next(byBrand, k) == g) k++;
+
+            int score = 0;
+            if (groupSeason[g] == seasonCode) score += SEASON_SCORE;
+            score += brandCode >= 0 ? brandScores[groupBrand[g]][brandCode] : brandScore(brands[groupBrand[g]], brand);
+            if (groupCompany[g] == companyCode) score += COMPANY_SCORE;
+            if (groupPlayer[g] == playerCode) score += PLAYER_SCORE;
+            if (targetRare && groupRare[g]) score += RARE_SCORE;
+
+            for (int row : groupMembers[g]) {
+                CardData c = cards.get(row);
+                if (c.stableId != null && c.stableId.equals(target.stableId)) continue;
+                // Members are in tie-break order, so once one misses the heap the rest of the group does too
+                if (!top.offer(((long) score << 32) | (Integer.MAX_VALUE - rank[row]), row)) break;
+            }
+        }
+
+        int[] rows = top.drainBestFirst();
+        List<CardData> result = new ArrayList<>(rows.length);
+        for (int row : rows) result.add(cards.get(row));
+        return result;
+    }
+
+    private static int next(int[] groups, int index) {
+        return groups != null && index < groups.length ? groups[index] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Bounded min-heap of (key, row) pairs that keeps the {@code capacity} largest keys.
+     */
+    static final class TopK {
+        private final long[] keys;
+        private final int[] rows;
+        private int size;
+
+        TopK(int capacity) {
+            keys = new long[capacity];
+            rows = new int[capacity];
+        }
+
+        /**
+         * Adds the pair if it ranks among the largest keys; returns false if it was rejected.
+         */
+        boolean offer(long key, int row) {
+            if (size < keys.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (keys[parent] <= key) break;
+                    keys[i] = keys[parent];
+                    rows[i] = rows[parent];
+                    i = parent;
+                }
+                keys[i] = key;
+                rows[i] = row;
+                return true;
+            }
+            if (key <= keys[0]) return false;
+            siftDown(key, row, size);
+            return true;
+        }
+
+        private void siftDown(long key, int row, int limit) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= limit) break;
+                if (child + 1 < limit && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                keys[i] = keys[child];
+                rows[i] = rows[child];
+                i = child;
+            }
+            keys[i] = key;
+            rows[i] = row;
+        }
+
+        /**
+         * Empties the heap and returns its rows from the largest key to the smallest.
+         */
+        int[] drainBestFirst() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = rows[0];
+                size--;
+                if (size > 0) siftDown(keys[size], rows[size], size);
+            }
+            return result;
+        }
+    }
+}
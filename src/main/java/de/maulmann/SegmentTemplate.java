@@ -0,0 +1,102 @@
+package de.maulmann;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {{PLACEHOLDER}} template compiled once into literal segments and slot indices, so rendering is a single
+ * append pass instead of one full-string copy per {@code String.replace}. Placeholders that are not declared
+ * as slots stay in the output verbatim, like an unmatched replace.
+ */
+final class SegmentTemplate {
+
+    /**
+     * Appends the value of the given slot (index into the declared slot names).
+     */
+    @FunctionalInterface
+    interface SlotWriter {
+        void write(StringBuilder sb, int slot);
+    }
+
+    private final String[] literals;
+    private final int[] slots;
+    private final int literalLength;
+
+    private SegmentTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    static SegmentTemplate compile(String template, String... slotNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < template.length()) {
+            int start = template.indexOf("{{", pos);
+            int end = start < 0 ? -1 : template.indexOf("}}", start + 2);
+            if (end < 0) {
+                literal.append(template, pos, template.length());
+                break;
+            }
+            int slot = indexOf(slotNames, template.substring(start + 2, end));
+            if (slot < 0) {
+                // Unknown placeholder: keep "{{" as text and continue scanning right after it
+                literal.append(template, pos, start + 2);
+                pos = start + 2;
+                continue;
+            }
+            literal.append(template, pos, start);
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            pos = end + 2;
+        }
+        literals.add(literal.toString());
+        return new SegmentTemplate(literals.toArray(String[]::new), slots.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    boolean isEmpty() {
+        return slots.length == 0 && literalLength == 0;
+    }
+
+    /**
+     * Length of the literal text, useful for sizing builders.
+     */
+    int literalLength() {
+        return literalLength;
+    }
+
+    void appendTo(StringBuilder sb, SlotWriter writer) {
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            writer.write(sb, slots[i]);
+        }
+        sb.append(literals[slots.length]);
+    }
+
+    /**
+     * Appends the template with slot {@code i} filled by {@code values[i]}.
+     */
+    void appendTo(StringBuilder sb, String... values) {
+        appendTo(sb, (out, slot) -> out.append(values[slot]));
+    }
+
+    String render(String... values) {
+        StringBuilder sb = new StringBuilder(literalLength + 64 * values.length);
+        appendTo(sb, values);
+        return sb.toString();
+    }
+}
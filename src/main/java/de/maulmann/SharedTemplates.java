@@ -26,7 +26,21 @@ public class SharedTemplates {
     private static final SimpleLazyConstant<DateTimeFormatter> TIMESTAMP_FORMATTER =
             SimpleLazyConstant.of(() -> DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss"));
 
-    // 3. Generate a stable cache buster ID derived from css/main.css content hash
+    // 3. Templates compiled into segments (keyed by resource path) and fully static fragments (keyed by arguments)
+    private static final Map<String, SegmentTemplate> COMPILED_CACHE = new ConcurrentHashMap<>();
+    private static final Map<String, String> FRAGMENT_CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
+
+    private static final String[] HEAD_SLOTS = {"TITLE", "DESCRIPTION", "ROOT", "ANALYTICS", "SEO", "OPENGRAPH", "EXTRA_HEAD", "FAVICON", "BUILD_ID"};
+    private static final String[] OPENGRAPH_SLOTS = {"PAGE", "TITLE", "IMAGE", "DESCRIPTION"};
+    private static final String[] SEO_SLOTS = {"PAGE", "DESCRIPTION"};
+    private static final String[] ROOT_SLOTS = {"ROOT"};
+    private static final String[] FOOTER_SLOTS = {"ROOT", "TIME"};
+    private static final String[] TOPNAV_SLOTS = {"ROOT", "ACTIVE_INDEX", "ACTIVE_JH_GROUP", "ACTIVE_JH_BTN", "ACTIVE_COLLECTION",
+            "ACTIVE_BINDER", "ACTIVE_RAINBOWS", "ACTIVE_WANTLIST", "ACTIVE_BBALL_GROUP", "ACTIVE_BBALL_BTN", "ACTIVE_PANINI",
+            "ACTIVE_FLAWLESS", "ACTIVE_BASEBALL", "ACTIVE_SITEMAP"};
+
+    // 4. Generate a stable cache buster ID derived from css/main.css content hash
     static String BUILD_ID = calculateBuildId();
 
     public static void setBuildId(String id) {
@@ -50,12 +64,8 @@ public class SharedTemplates {
                     md.update(content.getBytes(java.nio.charset.StandardCharsets.UTF_8));
                 }
             }
-            byte[] digest = md.digest();
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.substring(0, 8);
+            // MD5 on purpose: the build id is part of public asset URLs and must not change with the change-detection hasher
+            return java.util.HexFormat.of().formatHex(md.digest(), 0, 4);
         } catch (Exception e) {
             return "1.0";
         }
@@ -87,33 +97,47 @@ public class SharedTemplates {
         }
     }
 
+    private static SegmentTemplate compiled(String path, String... slots) {
+        return COMPILED_CACHE.computeIfAbsent(path, p -> SegmentTemplate.compile(loadResource(p), slots));
+    }
+
+    /**
+     * Returns the calling thread's shared builder, emptied. Only for top-level rendering, never nested.
+     */
+    private static StringBuilder builder() {
+        StringBuilder sb = BUILDER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
     public static String getAnalytics() {
         return loadResource("/templates/analytics.html");
     }
 
     public static String getConsentBanner(String root) {
-        String template = loadResource("/templates/consent_banner.html");
-        return template.replace("{{ROOT}}", root);
+        return FRAGMENT_CACHE.computeIfAbsent("consent|" + root,
+                _ -> compiled("/templates/consent_banner.html", ROOT_SLOTS).render(root));
     }
 
     public static String getFavicon(String root) {
-        String template = loadResource("/templates/favicon.html");
-        return template.replace("{{ROOT}}", root);
+        return FRAGMENT_CACHE.computeIfAbsent("favicon|" + root,
+                _ -> compiled("/templates/favicon.html", ROOT_SLOTS).render(root));
     }
 
     public static String getOpenGraph(String page, String title, String description, String imageURL) {
-        String template = loadResource("/templates/opengraph.html");
+        StringBuilder sb = builder();
+        appendOpenGraph(sb, page, escapeHtml(title), escapeHtml(description), imageURL);
+        return sb.toString();
+    }
 
-        return template.replace("{{PAGE}}", page)
-                .replace("{{TITLE}}", escapeHtml(title))
-                .replace("{{IMAGE}}", imageURL)
-                .replace("{{DESCRIPTION}}", escapeHtml(description));
+    private static void appendOpenGraph(StringBuilder sb, String page, String escapedTitle, String escapedDescription, String imageURL) {
+        compiled("/templates/opengraph.html", OPENGRAPH_SLOTS).appendTo(sb, page, escapedTitle, imageURL, escapedDescription);
     }
 
     public static String getSeo(String page, String description) {
-        String template = loadResource("/templates/seo.html");
-        return template.replace("{{PAGE}}", page)
-                .replace("{{DESCRIPTION}}", escapeHtml(description));
+        StringBuilder sb = builder();
+        compiled("/templates/seo.html", SEO_SLOTS).appendTo(sb, page, escapeHtml(description));
+        return sb.toString();
     }
 
     public static String getHead(String title, String description, String root, String page, String image) {
@@ -121,19 +145,28 @@ public class SharedTemplates {
     }
 
     public static String getHead(String title, String description, String root, String page, String image, String extraHead) {
-        String template = loadResource("/templates/head.html");
+        SegmentTemplate template = compiled("/templates/head.html", HEAD_SLOTS);
+        String escapedTitle = escapeHtml(title);
+        String escapedDescription = escapeHtml(description);
         if (template.isEmpty()) {
-            return "<title>" + escapeHtml(title) + "</title><meta name=\"description\" content=\"" + escapeHtml(description) + "\">";
+            return "<title>" + escapedTitle + "</title><meta name=\"description\" content=\"" + escapedDescription + "\">";
         }
-        return template.replace("{{TITLE}}", escapeHtml(title))
-                .replace("{{DESCRIPTION}}", escapeHtml(description))
-                .replace("{{ROOT}}", root)
-                .replace("{{ANALYTICS}}", getAnalytics())
-                .replace("{{SEO}}", getSeo(page, description))
-                .replace("{{OPENGRAPH}}", getOpenGraph(page, title, description, image))
-                .replace("{{EXTRA_HEAD}}", extraHead != null ? extraHead : "")
-                .replace("{{FAVICON}}", getFavicon(root))
-                .replace("{{BUILD_ID}}", BUILD_ID); // <--- NEW CACHE BUSTER
+        StringBuilder sb = builder();
+        // Nested fragments are appended straight into the same builder
+        template.appendTo(sb, (out, slot) -> {
+            switch (slot) {
+                case 0 -> out.append(escapedTitle);
+                case 1 -> out.append(escapedDescription);
+                case 2 -> out.append(root);
+                case 3 -> out.append(getAnalytics());
+                case 4 -> compiled("/templates/seo.html", SEO_SLOTS).appendTo(out, page, escapedDescription);
+                case 5 -> appendOpenGraph(out, page, escapedTitle, escapedDescription, image);
+                case 6 -> out.append(extraHead != null ? extraHead : "");
+                case 7 -> out.append(getFavicon(root));
+                default -> out.append(BUILD_ID); // <--- NEW CACHE BUSTER
+            }
+        });
+        return sb.toString();
     }
     public static String getBreadcrumb(List<Map<String, String>> items) {
         String template = loadResource("/templates/breadcrumb.html");
@@ -194,8 +227,15 @@ public class SharedTemplates {
         return CardUtils.escapeJson(text);
     }
 
+    /**
+     * Fully static per (root, activePage), so each variant is rendered once and memoized.
+     */
     public static String getTopNav(String root, String activePage) {
-        String template = loadResource("/templates/topnav.html");
+        return FRAGMENT_CACHE.computeIfAbsent("topnav|" + root + "|" + activePage, _ -> renderTopNav(root, activePage));
+    }
+
+    private static String renderTopNav(String root, String activePage) {
+        SegmentTemplate template = compiled("/templates/topnav.html", TOPNAV_SLOTS);
         if (template.isEmpty()) {
             return "<nav><a href=\"" + root + "index.html\" title=\"Home\">Home</a></nav>";
         }
@@ -203,26 +243,26 @@ public class SharedTemplates {
                 || activePage.equals("binder") || activePage.equals("rainbows") || activePage.equals("wantlist");
         boolean isBballActive = activePage.equals("panini") || activePage.equals("flawless");
 
-        return template.replace("{{ROOT}}", root)
-                .replace("{{ACTIVE_INDEX}}", activePage.equals("index") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_JH_GROUP}}", isJhActive ? "is-active-group" : "")
-                .replace("{{ACTIVE_JH_BTN}}", isJhActive ? "active" : "")
-                .replace("{{ACTIVE_COLLECTION}}", (activePage.equals("collection") || activePage.equals("juwan-howard-collection")) ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_BINDER}}", activePage.equals("binder") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_RAINBOWS}}", activePage.equals("rainbows") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_WANTLIST}}", activePage.equals("wantlist") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_BBALL_GROUP}}", isBballActive ? "is-active-group" : "")
-                .replace("{{ACTIVE_BBALL_BTN}}", isBballActive ? "active" : "")
-                .replace("{{ACTIVE_PANINI}}", activePage.equals("panini") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_FLAWLESS}}", activePage.equals("flawless") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_BASEBALL}}", activePage.equals("baseball") ? "class=\"active\"" : "")
-                .replace("{{ACTIVE_SITEMAP}}", activePage.equals("sitemap") ? "class=\"active\"" : "");
+        return template.render(root,
+                activePage.equals("index") ? "class=\"active\"" : "",
+                isJhActive ? "is-active-group" : "",
+                isJhActive ? "active" : "",
+                (activePage.equals("collection") || activePage.equals("juwan-howard-collection")) ? "class=\"active\"" : "",
+                activePage.equals("binder") ? "class=\"active\"" : "",
+                activePage.equals("rainbows") ? "class=\"active\"" : "",
+                activePage.equals("wantlist") ? "class=\"active\"" : "",
+                isBballActive ? "is-active-group" : "",
+                isBballActive ? "active" : "",
+                activePage.equals("panini") ? "class=\"active\"" : "",
+                activePage.equals("flawless") ? "class=\"active\"" : "",
+                activePage.equals("baseball") ? "class=\"active\"" : "",
+                activePage.equals("sitemap") ? "class=\"active\"" : "");
     }
 
     public static String getFooter(String root) {
-        String template = loadResource("/templates/footer.html");
         // Using a placeholder for stable timestamps that can be replaced after generation
-        return template.replace("{{ROOT}}", root).replace("{{TIME}}", "[[STABLE_TIME]]");
+        return FRAGMENT_CACHE.computeIfAbsent("footer|" + root,
+                _ -> compiled("/templates/footer.html", FOOTER_SLOTS).render(root, "[[STABLE_TIME]]"));
     }
 
     public static String getTimestamp() {
@@ -1,10 +1,14 @@
 package de.maulmann;
 
+import com.aayushatharva.brotli4j.encoder.PreparedDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.metrics.CoreMetric;
 import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cloudfront.CloudFrontClient;
 import software.amazon.awssdk.services.cloudfront.model.CreateInvalidationRequest;
@@ -20,11 +24,14 @@ import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.StorageClass;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -48,6 +55,15 @@ public class SiteBuilderPipeline {
     // --- CACHE CONTROL CONSTANTS ---
     private static final String CACHE_LONG = "public, max-age=31536000, immutable";
     private static final String CACHE_SHORT = "max-age=0, must-revalidate";
+    // Inside output/ so CI restores it with the other build caches; excluded from the upload
+    private static final String ARTIFACT_CACHE_DIR = ".cache";
+    private static final SimpleLazyConstant<ArtifactCache> ARTIFACT_CACHE = SimpleLazyConstant.of(() ->
+            new ArtifactCache(Paths.get(OUTPUT_DIR, ARTIFACT_CACHE_DIR, "artifacts"), ArtifactCache.maxBytesFromProperty()));
+    // Opt-in: text files also get a gzip variant at <key>.gz for clients without br, routed by an edge function
+    private static final boolean PUBLISH_GZIP = "true".equalsIgnoreCase(System.getProperty("PUBLISH_GZIP"));
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final Path CARD_TEMPLATE = Paths.get("src/main/resources/templates/card-detail.ftlh");
+    private static final int DICTIONARY_EVAL_PAGES = 32;
     private static final Logger log = LoggerFactory.getLogger(SiteBuilderPipeline.class);
 
     // --- BEST-PRACTICE SECURITY HEADERS ---
@@ -72,11 +88,25 @@ public class SiteBuilderPipeline {
         public final AtomicInteger webFilesSkipped = new AtomicInteger(0);
         public final AtomicLong rawWebBytes = new AtomicLong(0);
         public final AtomicLong compressedWebBytes = new AtomicLong(0);
+        public final AtomicInteger gzipVariantsUploaded = new AtomicInteger(0);
+        public final AtomicLong gzipWebBytes = new AtomicLong(0);
 
         public final AtomicInteger imagesUploaded = new AtomicInteger(0);
         public final AtomicInteger imagesSkipped = new AtomicInteger(0);
         public final AtomicLong imageBytes = new AtomicLong(0);
 
+        public final AtomicInteger compressionCacheHits = new AtomicInteger(0);
+        public final AtomicInteger compressionCacheMisses = new AtomicInteger(0);
+
+        public long recompressMs = 0;
+        public final AtomicInteger filesRecompressed = new AtomicInteger(0);
+        public final AtomicLong recompressSavedBytes = new AtomicLong(0);
+
+        public volatile String dictionaryVersion;
+        public final AtomicInteger dictionaryPages = new AtomicInteger(0);
+        public final AtomicLong dictionaryPlainBytes = new AtomicLong(0);
+        public final AtomicLong dictionarySharedBytes = new AtomicLong(0);
+
         public final AtomicInteger sitemapsUploaded = new AtomicInteger(0);
         public final AtomicInteger orphansSwept = new AtomicInteger(0);
     }
@@ -96,17 +126,15 @@ public class SiteBuilderPipeline {
                         .maxConcurrency(500)
                         .connectionAcquisitionTimeout(Duration.ofSeconds(60))
                 )
+                .overrideConfiguration(o -> o.addMetricPublisher(new S3MetricPublisher()))
                 .build()) {
 
             // Initialisiere den Hash-Cache für Smart-Uploads
-            FileTracker tracker = new FileTracker(OUTPUT_DIR + "/sync-hashes.properties");
-            TimestampTracker timeTracker = new TimestampTracker(OUTPUT_DIR + "/generation-timestamps.properties");
-
-            long p1_2Start = System.currentTimeMillis();
-            List<CardPageGenerator.CardData> cards = buildLocalArtifacts(timeTracker, tracker);
-            metrics.phase1_2Ms = System.currentTimeMillis() - p1_2Start;
-            if (cards != null) {
-                metrics.totalCards.set(cards.size());
+            FileTracker tracker = new FileTracker(OUTPUT_DIR + "/sync-hashes.bin");
+            TimestampTracker timeTracker = new TimestampTracker(OUTPUT_DIR + "/generation-timestamps.bin");
+            CompressionPolicy policy = new CompressionPolicy(Paths.get(OUTPUT_DIR, ARTIFACT_CACHE_DIR));
+            if (!PUBLISH_GZIP) {
+                policy.forgetGzipVariants();
             }
 
             boolean hasAwsCredentials = false;
@@ -117,12 +145,30 @@ public class SiteBuilderPipeline {
                 log.info("ℹ️ Local build: AWS credentials not found. Skipping S3 upload & compression phases.");
             }
 
+            // Deploys minify and compress pages as they are rendered, Phase 3 then uploads them without re-reading
+            if (hasAwsCredentials && !"false".equalsIgnoreCase(System.getProperty("RENDER_TO_UPLOAD_QUEUE"))) {
+                int pageQuality = CompressionPolicy.brotliQuality(CompressionPolicy.ArtifactClass.VOLATILE);
+                int pageGzipLevel = CompressionPolicy.gzipLevel(CompressionPolicy.ArtifactClass.VOLATILE);
+                UploadQueue.enable(tracker, (data, type) -> compressBrotli(data, pageQuality, type),
+                        PUBLISH_GZIP ? (data, type) -> compressGzip(data, pageGzipLevel, type) : null);
+            }
+
+            long p1_2Start = System.currentTimeMillis();
+            List<CardPageGenerator.CardData> cards = buildLocalArtifacts(timeTracker, tracker);
+            metrics.phase1_2Ms = System.currentTimeMillis() - p1_2Start;
+            if (cards != null) {
+                metrics.totalCards.set(cards.size());
+            }
+
+            CompletableFuture<Void> recompression = CompletableFuture.completedFuture(null);
+            CompletableFuture<Void> dictionaryEvaluation = CompletableFuture.completedFuture(null);
+            long recompressStart = 0;
             if (hasAwsCredentials) {
                 try {
                     // --- PHASE 3: Compress & Upload HTML/CSS/JS/XML ---
                     log.info("\n[PHASE 3] Minifying, Compressing, and Uploading Web Files...");
                     long p3Start = System.currentTimeMillis();
-                    processAndUploadWebFiles(s3AsyncClient, tracker, metrics);
+                    processAndUploadWebFiles(s3AsyncClient, tracker, policy, metrics);
                     metrics.phase3Ms = System.currentTimeMillis() - p3Start;
 
                     // --- PHASE 4: Upload Images (No Compression) ---
@@ -150,6 +196,13 @@ public class SiteBuilderPipeline {
                     long p6Start = System.currentTimeMillis();
                     invalidateCloudFrontCache();
                     metrics.phase6Ms = System.currentTimeMillis() - p6Start;
+
+                    // --- BACKGROUND: The deploy is live, upgrade long-lived files to maximum quality ---
+                    recompressStart = System.currentTimeMillis();
+                    recompression = recompressInBackground(s3AsyncClient, tracker, policy, metrics);
+                    // The dictionary measurement only feeds the report, so it runs alongside
+                    dictionaryEvaluation = CompletableFuture.runAsync(() -> evaluateCardDictionary(metrics),
+                            task -> Thread.ofVirtual().name("dictionary-evaluation").start(task));
                 } catch (Exception e) {
                     if (e.toString().contains("SdkClientException") || (e.getCause() != null && e.getCause().toString().contains("SdkClientException"))) {
                         log.info("ℹ️ Local build: AWS credentials not found. Skipping S3 upload phases.");
@@ -157,6 +210,7 @@ public class SiteBuilderPipeline {
                         throw e;
                     }
                 } finally {
+                    UploadQueue.disable();
                     tracker.save();
                 }
             } else {
@@ -178,19 +232,38 @@ public class SiteBuilderPipeline {
                 metrics.phase7Ms = System.currentTimeMillis() - p7Start;
             }
 
+            if (hasAwsCredentials) {
+                try {
+                    recompression.join();
+                } catch (Exception e) {
+                    log.error("⚠️ Background re-compression error: {}", e.getMessage());
+                } finally {
+                    if (recompressStart > 0) {
+                        metrics.recompressMs = System.currentTimeMillis() - recompressStart;
+                    }
+                    dictionaryEvaluation.join();
+                    ArtifactCache artifactCache = ARTIFACT_CACHE.get();
+                    metrics.compressionCacheHits.set(artifactCache.getHits());
+                    metrics.compressionCacheMisses.set(artifactCache.getMisses());
+                    artifactCache.trim();
+                    policy.save(Paths.get(OUTPUT_DIR));
+                }
+            }
+
             long totalDuration = System.currentTimeMillis() - pipelineStart;
             printDeploymentReport(totalDuration, metrics, hasAwsCredentials);
+            exportMetrics(totalDuration, metrics);
 
         } catch (Exception e) {
             log.error("\n❌ PIPELINE FAILED: {}", e.getMessage());
         }
     }
 
-    private static void processAndUploadWebFiles(S3AsyncClient s3Client, FileTracker tracker, DeploymentMetrics metrics) throws Exception {
+    private static void processAndUploadWebFiles(S3AsyncClient s3Client, FileTracker tracker, CompressionPolicy policy, DeploymentMetrics metrics) throws Exception {
         Path outputDir = Paths.get(OUTPUT_DIR);
         AtomicInteger uploadCount = metrics.webFilesUploaded;
         AtomicInteger skipCount = metrics.webFilesSkipped;
-        final int BROTLI_FAST_QUALITY = 9;
+        AtomicInteger fromQueue = new AtomicInteger();
 
         List<CompletableFuture<Void>> futures = new ArrayList<>();
         try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
@@ -199,57 +272,79 @@ public class SiteBuilderPipeline {
                     String fileName = file.getFileName().toString().toLowerCase();
                     String s3Key = outputDir.relativize(file).toString().replace("\\", "/");
 
-                    if (fileName.equalsIgnoreCase(".ds_store") || (fileName.startsWith("sitemap") && fileName.endsWith(".xml")) || fileName.endsWith(".xml.gz") || fileName.endsWith(".properties")) {
+                    if (s3Key.startsWith(ARTIFACT_CACHE_DIR + "/") || fileName.equalsIgnoreCase(".ds_store") || (fileName.startsWith("sitemap") && fileName.endsWith(".xml")) || fileName.endsWith(".xml.gz") || fileName.endsWith(".properties") || fileName.endsWith(".bin") || fileName.startsWith("build-metrics.")) {
                         return;
                     }
 
-                    String currentHash = tracker.getHash(file);
+                    // Pages rendered this run come with their digest and, if changed, their compressed bytes
+                    UploadQueue.Artifact artifact = fileName.endsWith(".html") ? UploadQueue.take(file) : null;
+                    String currentHash = artifact != null ? artifact.digest() : tracker.getHash(file);
                     String storedHash = tracker.getStoredHash(file);
-                    if (currentHash != null && currentHash.equals(storedHash)) {
+                    String ext = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1) : "";
+                    TextAsset asset = textAsset(ext, fileName);
+                    boolean unchanged = currentHash != null && currentHash.equals(storedHash);
+                    // Files uploaded before gzip publishing was switched on still need their variant
+                    boolean needsGzip = PUBLISH_GZIP && asset != null && !policy.hasGzipVariant(s3Key, currentHash);
+                    if (unchanged) {
                         skipCount.incrementAndGet();
-                        return;
+                        if (asset != null) {
+                            policy.noteUnchanged(file, s3Key, currentHash);
+                        }
+                        if (!needsGzip) {
+                            return;
+                        }
                     }
 
                     futures.add(CompletableFuture.runAsync(() -> {
                         try {
-                            String ext = fileName.contains(".") ? fileName.substring(fileName.lastIndexOf('.') + 1) : "";
-                            switch (ext) {
-                                case "html" -> {
-                                    byte[] rawHtml = HTMLMinifier.minifyHTMLToBytes(file.toFile());
-                                    metrics.rawWebBytes.addAndGet(rawHtml.length);
-                                    byte[] brData = BrotliCompressor.compressBytes(rawHtml, BROTLI_FAST_QUALITY);
-                                    metrics.compressedWebBytes.addAndGet(brData.length);
-                                    uploadBytes(s3Client, s3Key, brData, "text/html; charset=utf-8", "br", CACHE_SHORT, uploadCount, tracker, file, currentHash);
-                                }
-                                case "css" -> {
-                                    byte[] rawCss = CSSMinifier.minifyCSSToBytes(file.toFile());
-                                    metrics.rawWebBytes.addAndGet(rawCss.length);
-                                    byte[] brData = BrotliCompressor.compressBytes(rawCss, BROTLI_FAST_QUALITY);
-                                    metrics.compressedWebBytes.addAndGet(brData.length);
-                                    uploadBytes(s3Client, s3Key, brData, "text/css; charset=utf-8", "br", CACHE_LONG, uploadCount, tracker, file, currentHash);
+                            if (asset != null) {
+                                CompressionPolicy.ArtifactClass artifactClass = CompressionPolicy.classify(asset.cacheControl());
+                                int quality = CompressionPolicy.brotliQuality(artifactClass);
+                                int minifiedLength;
+                                byte[] brData = null;
+                                byte[] gzData = null;
+                                boolean queued = false;
+                                if (artifact != null && artifact.cacheKey() != null && (!needsGzip || artifact.gzipped())) {
+                                    // The queue left the compressed page in the artifact cache
+                                    brData = ARTIFACT_CACHE.get().find(artifact.cacheKey(), "br" + quality);
+                                    gzData = needsGzip ? ARTIFACT_CACHE.get().find(artifact.cacheKey(), "gz" + CompressionPolicy.gzipLevel(artifactClass)) : null;
+                                    queued = brData != null && (!needsGzip || gzData != null);
                                 }
-                                case "js" -> {
-                                    String cacheControl = fileName.equalsIgnoreCase("serviceworker.js") ? CACHE_SHORT : CACHE_LONG;
-                                    byte[] rawJs = Files.readAllBytes(file);
-                                    metrics.rawWebBytes.addAndGet(rawJs.length);
-                                    byte[] brData = BrotliCompressor.compressBytes(rawJs, BROTLI_FAST_QUALITY);
-                                    metrics.compressedWebBytes.addAndGet(brData.length);
-                                    uploadBytes(s3Client, s3Key, brData, "application/javascript; charset=utf-8", "br", cacheControl, uploadCount, tracker, file, currentHash);
+                                if (queued) {
+                                    fromQueue.incrementAndGet();
+                                    minifiedLength = artifact.minifiedLength();
+                                } else {
+                                    brData = null;
+                                    // One read and one minify feed both encodings
+                                    byte[] raw = readForUpload(file, ext);
+                                    minifiedLength = raw.length;
+                                    CompletableFuture<byte[]> gzip = needsGzip ? CompletableFuture.supplyAsync(() -> {
+                                        try {
+                                            return compressGzip(raw, CompressionPolicy.gzipLevel(artifactClass), ext);
+                                        } catch (IOException e) {
+                                            throw new UncheckedIOException(e);
+                                        }
+                                    }, executor) : null;
+                                    if (!unchanged) {
+                                        brData = compressBrotli(raw, quality, ext);
+                                    }
+                                    gzData = gzip != null ? gzip.join() : null;
                                 }
-                                case "json" -> {
-                                    byte[] rawJson = Files.readAllBytes(file);
-                                    metrics.rawWebBytes.addAndGet(rawJson.length);
-                                    byte[] brData = BrotliCompressor.compressBytes(rawJson, BROTLI_FAST_QUALITY);
-                                    metrics.compressedWebBytes.addAndGet(brData.length);
-                                    uploadBytes(s3Client, s3Key, brData, "application/json; charset=utf-8", "br", CACHE_SHORT, uploadCount, tracker, file, currentHash);
+                                // The variant goes first: once the main upload records the hash, the file is skipped
+                                if (gzData != null) {
+                                    metrics.gzipWebBytes.addAndGet(gzData.length);
+                                    uploadBytes(s3Client, s3Key + GZIP_SUFFIX, gzData, asset.contentType(), "gzip", asset.cacheControl(), metrics.gzipVariantsUploaded, null, null, null);
+                                    policy.noteGzipVariant(s3Key, currentHash);
                                 }
-                                case "xml", "xsl" -> {
-                                    byte[] rawXml = Files.readAllBytes(file);
-                                    metrics.rawWebBytes.addAndGet(rawXml.length);
-                                    byte[] brData = BrotliCompressor.compressBytes(rawXml, BROTLI_FAST_QUALITY);
+                                if (brData != null) {
+                                    metrics.rawWebBytes.addAndGet(minifiedLength);
                                     metrics.compressedWebBytes.addAndGet(brData.length);
-                                    uploadBytes(s3Client, s3Key, brData, "application/xml; charset=utf-8", "br", CACHE_SHORT, uploadCount, tracker, file, currentHash);
+                                    uploadBytes(s3Client, s3Key, brData, asset.contentType(), "br", asset.cacheControl(), uploadCount, tracker, file, currentHash);
+                                    policy.noteUploaded(s3Key, currentHash, quality);
                                 }
+                                return;
+                            }
+                            switch (ext) {
                                 case "ico" -> {
                                     metrics.rawWebBytes.addAndGet(Files.size(file));
                                     metrics.compressedWebBytes.addAndGet(Files.size(file));
@@ -273,12 +368,169 @@ public class SiteBuilderPipeline {
             CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
         }
 
-        log.info("-> Uploaded {} web files. (Skipped {} unmodified files).", uploadCount.get(), skipCount.get());
+        log.info("-> Uploaded {} web files. (Skipped {} unmodified files, {} pages compressed at render time).",
+                uploadCount.get(), skipCount.get(), fromQueue.get());
         if (tracker != null) {
             tracker.save();
         }
     }
 
+    private record TextAsset(String contentType, String cacheControl) {}
+
+    /**
+     * Upload metadata for text files that are served Brotli-compressed, or null for files uploaded as they are.
+     */
+    private static TextAsset textAsset(String ext, String fileName) {
+        return switch (ext) {
+            case "html" -> new TextAsset("text/html; charset=utf-8", CACHE_SHORT);
+            case "css" -> new TextAsset("text/css; charset=utf-8", CACHE_LONG);
+            case "js" -> new TextAsset("application/javascript; charset=utf-8",
+                    fileName.equalsIgnoreCase("serviceworker.js") ? CACHE_SHORT : CACHE_LONG);
+            case "json" -> new TextAsset("application/json; charset=utf-8", CACHE_SHORT);
+            case "xml", "xsl" -> new TextAsset("application/xml; charset=utf-8", CACHE_SHORT);
+            default -> null;
+        };
+    }
+
+    /**
+     * Reads a text asset as it is compressed: HTML and CSS minified, everything else verbatim.
+     */
+    private static byte[] readForUpload(Path file, String ext) throws IOException {
+        long minifyStart = System.nanoTime();
+        byte[] data = switch (ext) {
+            case "html" -> HTMLMinifier.minifyHTMLToBytes(file.toFile());
+            case "css" -> CSSMinifier.minifyCSSToBytes(file.toFile());
+            default -> null;
+        };
+        if (data == null) return Files.readAllBytes(file);
+        BuildMetrics.histogram("minify_seconds", "type", ext).recordSince(minifyStart);
+        return data;
+    }
+
+    /**
+     * Re-compresses unchanged text assets that are not yet served at maximum quality and uploads them again with the
+     * same metadata, hottest first and up to the per-run budget. Started after the CDN invalidation, so it adds nothing
+     * to deploy latency; a file that changed since Phase 3 is left for the next run.
+     */
+    private static CompletableFuture<Void> recompressInBackground(S3AsyncClient s3Client, FileTracker tracker, CompressionPolicy policy, DeploymentMetrics metrics) {
+        List<CompressionPolicy.Candidate> candidates = policy.takeCandidates(CompressionPolicy.budgetFromProperty());
+        if (candidates.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        log.info("\n[BACKGROUND] Re-compressing {} long-lived web files at quality {}...", candidates.size(), BrotliCompressor.BEST_QUALITY);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (CompressionPolicy.Candidate candidate : candidates) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (!candidate.digest().equals(tracker.getHash(candidate.file()))) return;
+                    String fileName = candidate.file().getFileName().toString().toLowerCase();
+                    String ext = fileName.substring(fileName.lastIndexOf('.') + 1);
+                    TextAsset asset = textAsset(ext, fileName);
+                    byte[] raw = readForUpload(candidate.file(), ext);
+                    byte[] fast = compressBrotli(raw, CompressionPolicy.FAST_QUALITY, ext);
+                    byte[] best = compressBrotli(raw, BrotliCompressor.BEST_QUALITY, ext);
+                    uploadBytes(s3Client, candidate.key(), best, asset.contentType(), "br", asset.cacheControl(), metrics.filesRecompressed, null, null, null);
+                    policy.markUpgraded(candidate);
+                    metrics.recompressSavedBytes.addAndGet(Math.max(0, fast.length - best.length));
+                } catch (Exception e) {
+                    log.warn("Could not re-compress {}: {}", candidate.key(), e.getMessage());
+                }
+            }, executor));
+        }
+        // shutdown() instead of close(): the last task completes this future and must not wait for itself
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).whenComplete((_, _) -> executor.shutdown());
+    }
+
+    /**
+     * Compresses through the artifact cache; only misses run the encoder and count towards compress_seconds.
+     */
+    private static byte[] compressBrotli(byte[] data, int quality, String type) throws IOException {
+        return ARTIFACT_CACHE.get().get(data, "br" + quality, input -> {
+            long start = System.nanoTime();
+            byte[] compressed = BrotliCompressor.compressBytes(input, quality);
+            BuildMetrics.histogram("compress_seconds", "type", type, "codec", "br").recordSince(start);
+            return compressed;
+        });
+    }
+
+    /**
+     * Loads the shared card-page dictionary, training it on a sample of rendered pages when the card template has
+     * changed, and measures its effect on pages it was not trained on. Those pages are compressed with and without the
+     * dictionary through the artifact cache, so later runs only pay for new pages. Runs in the background once the
+     * deploy is live, since it only feeds the report.
+     * <p>
+     * The dictionary variants are cached but not uploaded: S3 and CloudFront cannot negotiate
+     * {@code Available-Dictionary}, so no served format can use them yet.
+     */
+    private static void evaluateCardDictionary(DeploymentMetrics metrics) {
+        Path cardsDir = Paths.get(OUTPUT_DIR, "cards");
+        if (!Files.isDirectory(cardsDir)) return;
+        try {
+            List<Path> pages;
+            try (Stream<Path> files = Files.walk(cardsDir)) {
+                pages = files.filter(p -> p.toString().endsWith(".html")).sorted().toList();
+            }
+            if (pages.isEmpty()) return;
+            List<Path> training = CompressionDictionary.spread(pages, CompressionDictionary.MAX_SAMPLES, 0.0);
+
+            Path dictionaryDir = Paths.get(OUTPUT_DIR, ARTIFACT_CACHE_DIR, "dictionary");
+            CompressionDictionary dictionary = CompressionDictionary.load(dictionaryDir, CARD_TEMPLATE);
+            if (dictionary == null) {
+                List<byte[]> samples = new ArrayList<>(training.size());
+                for (Path page : training) {
+                    samples.add(HTMLMinifier.minifyHTMLToBytes(Files.readAllBytes(page)));
+                }
+                dictionary = CompressionDictionary.trainAndStore(dictionaryDir, CARD_TEMPLATE, samples);
+                if (dictionary == null) return;
+            }
+
+            List<Path> heldOut = new ArrayList<>(pages);
+            heldOut.removeAll(new HashSet<>(training));
+            if (heldOut.isEmpty()) {
+                heldOut = pages; // Small collections are trained on every page
+            }
+            PreparedDictionary prepared = BrotliCompressor.prepareDictionary(dictionary.data());
+            String settings = "br" + CompressionPolicy.FAST_QUALITY + "-d" + dictionary.version();
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Path page : CompressionDictionary.spread(heldOut, DICTIONARY_EVAL_PAGES, 0.5)) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            byte[] minified = HTMLMinifier.minifyHTMLToBytes(Files.readAllBytes(page));
+                            byte[] plain = compressBrotli(minified, CompressionPolicy.FAST_QUALITY, "html");
+                            byte[] shared = ARTIFACT_CACHE.get().get(minified, settings,
+                                    input -> BrotliCompressor.compressBytes(input, CompressionPolicy.FAST_QUALITY, prepared));
+                            metrics.dictionaryPages.incrementAndGet();
+                            metrics.dictionaryPlainBytes.addAndGet(plain.length);
+                            metrics.dictionarySharedBytes.addAndGet(shared.length);
+                        } catch (IOException e) {
+                            log.warn("Could not evaluate dictionary on {}: {}", page, e.getMessage());
+                        }
+                    }, executor));
+                }
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            }
+            metrics.dictionaryVersion = dictionary.version();
+        } catch (Exception e) {
+            log.warn("⚠️ Shared dictionary evaluation skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gzip counterpart of {@link #compressBrotli}, for the gzip variants.
+     */
+    private static byte[] compressGzip(byte[] data, int level, String type) throws IOException {
+        return ARTIFACT_CACHE.get().get(data, "gz" + level, input -> {
+            long start = System.nanoTime();
+            byte[] compressed = GZIPCompressor.compressBytes(input, level);
+            BuildMetrics.histogram("compress_seconds", "type", type, "codec", "gzip").recordSince(start);
+            return compressed;
+        });
+    }
+
     private static void processAndUploadImages(S3AsyncClient s3Client, FileTracker tracker, DeploymentMetrics metrics) throws Exception {
         Path imagesDir = Paths.get(IMAGES_DIR);
         Path outputDir = Paths.get(OUTPUT_DIR);
@@ -354,12 +606,14 @@ public class SiteBuilderPipeline {
                     totalS3FilesScanned++;
                     String s3Key = s3Object.key();
 
-                    if (s3Key.endsWith("-hashes.properties") || s3Key.endsWith("-timestamps.properties")) {
+                    if (s3Key.endsWith("-hashes.properties") || s3Key.endsWith("-timestamps.properties") || s3Key.endsWith(".bin")) {
                         continue;
                     }
 
                     Path expectedLocalFile = localOutputDir.resolve(s3Key);
-                    if (!Files.exists(expectedLocalFile)) {
+                    boolean isGzipVariant = PUBLISH_GZIP && s3Key.endsWith(GZIP_SUFFIX)
+                            && Files.exists(localOutputDir.resolve(s3Key.substring(0, s3Key.length() - GZIP_SUFFIX.length())));
+                    if (!Files.exists(expectedLocalFile) && !isGzipVariant) {
                         objectsToDelete.add(ObjectIdentifier.builder().key(s3Key).build());
                     }
                 }
@@ -400,13 +654,17 @@ public class SiteBuilderPipeline {
 
     private static void processAndUploadSitemapGz(S3AsyncClient s3Client, FileTracker tracker, DeploymentMetrics metrics) throws Exception {
         Path outputDir = Paths.get(OUTPUT_DIR);
-        List<File> sitemapFiles = new ArrayList<>();
+        List<Path> sitemapFiles = new ArrayList<>();
 
+        // The index and its gzipped children all live in the output root
         if (Files.exists(outputDir)) {
-            try (Stream<Path> paths = Files.walk(outputDir)) {
+            try (Stream<Path> paths = Files.list(outputDir)) {
                 paths.filter(Files::isRegularFile)
-                        .map(Path::toFile)
-                        .filter(f -> f.getName().startsWith("sitemap") && f.getName().endsWith(".xml"))
+                        .filter(p -> {
+                            String name = p.getFileName().toString();
+                            return name.startsWith("sitemap") && (name.endsWith(".xml") || name.endsWith(".xml.gz"));
+                        })
+                        .sorted()
                         .forEach(sitemapFiles::add);
             }
         }
@@ -417,14 +675,22 @@ public class SiteBuilderPipeline {
         }
 
         AtomicInteger count = metrics.sitemapsUploaded;
+        int skipped = 0;
+
+        for (Path sitemapFile : sitemapFiles) {
+            String s3Key = sitemapFile.getFileName().toString();
+            // Unchanged shards are not rewritten by SitemapWriter, so their stat still matches and no re-hash is needed
+            String currentHash = tracker.getHash(sitemapFile);
+            if (currentHash != null && currentHash.equals(tracker.getStoredHash(sitemapFile))) {
+                skipped++;
+                continue;
+            }
 
-        for (File sitemapFile : sitemapFiles) {
-            String s3Key = sitemapFile.getName();
-            String currentHash = tracker.getHash(sitemapFile.toPath());
-
-            uploadRawFile(s3Client, sitemapFile.toPath(), s3Key, "application/xml; charset=utf-8", CACHE_SHORT, count, tracker, currentHash);
+            String contentType = s3Key.endsWith(".gz") ? "application/gzip" : "application/xml; charset=utf-8";
+            uploadRawFile(s3Client, sitemapFile, s3Key, contentType, CACHE_SHORT, count, tracker, currentHash);
             log.info("-> Uploaded sitemap {} to S3", s3Key);
         }
+        log.info("-> Skipped {} unchanged sitemaps.", skipped);
     }
 
     private static void invalidateCloudFrontCache() {
@@ -481,7 +747,9 @@ public class SiteBuilderPipeline {
                 .metadata(SECURITY_METADATA)
                 .build();
 
+        long putStart = System.nanoTime();
         s3Client.putObject(request, AsyncRequestBody.fromBytes(data)).join();
+        BuildMetrics.histogram("s3_put_seconds").recordSince(putStart);
         counter.incrementAndGet();
     }
 
@@ -502,7 +770,9 @@ public class SiteBuilderPipeline {
                 .storageClass(StorageClass.INTELLIGENT_TIERING)
                 .build();
 
+        long putStart = System.nanoTime();
         s3Client.putObject(request, AsyncRequestBody.fromFile(localFile)).join();
+        BuildMetrics.histogram("s3_put_seconds").recordSince(putStart);
         counter.incrementAndGet();
     }
 
@@ -532,7 +802,21 @@ public class SiteBuilderPipeline {
             sb.append(String.format("   • Ghost Files Swept:          %,d removed%n", metrics.orphansSwept.get()));
             sb.append(String.format("   • Raw Web File Volume:        %,.1f KB%n", rawWeb / 1024.0));
             sb.append(String.format("   • Transferred Web Volume:     %,.1f KB%n", compWeb / 1024.0));
+            if (PUBLISH_GZIP) {
+                sb.append(String.format("   • Gzip Variants (.gz):        %,d uploaded, %,.1f KB%n", metrics.gzipVariantsUploaded.get(), metrics.gzipWebBytes.get() / 1024.0));
+            }
             sb.append(String.format("   • Brotli Bandwidth Saved:     %,.1f KB (%.1f%% reduction)%n", bytesSaved / 1024.0, savingPct));
+            sb.append(String.format("   • Compression Cache:          %,d hits, %,d compressed%n", metrics.compressionCacheHits.get(), metrics.compressionCacheMisses.get()));
+            int dictPages = metrics.dictionaryPages.get();
+            if (metrics.dictionaryVersion != null && dictPages > 0) {
+                double plainPerPage = metrics.dictionaryPlainBytes.get() / 1024.0 / dictPages;
+                double sharedPerPage = metrics.dictionarySharedBytes.get() / 1024.0 / dictPages;
+                double deltaPct = plainPerPage > 0 ? (sharedPerPage - plainPerPage) / plainPerPage * 100.0 : 0.0;
+                sb.append(String.format("   • Shared Dictionary:          %,.1f KB -> %,.1f KB per page (%+.1f%%, %s, %d sample pages)%n",
+                        plainPerPage, sharedPerPage, deltaPct, metrics.dictionaryVersion, dictPages));
+            }
+            sb.append(String.format("   • Background Recompression:   %,d files at q%d, %,.1f KB smaller than q%d%n",
+                    metrics.filesRecompressed.get(), BrotliCompressor.BEST_QUALITY, metrics.recompressSavedBytes.get() / 1024.0, CompressionPolicy.FAST_QUALITY));
             sb.append(String.format("   • Total S3 Volume Transferred: %,.1f KB%n", totalTransferred / 1024.0));
             sb.append("\n");
             sb.append("⏱️ Phase Execution Breakdown:\n");
@@ -543,6 +827,7 @@ public class SiteBuilderPipeline {
             sb.append(String.format("   • [Phase 5] Sitemap GZ Sync:  %,d ms%n", metrics.phase5Ms));
             sb.append(String.format("   • [Phase 6] CloudFront Edge:  %,d ms%n", metrics.phase6Ms));
             sb.append(String.format("   • [Phase 7] IndexNow Ping:    %,d ms%n", metrics.phase7Ms));
+            sb.append(String.format("   • [Background] Recompress:    %,d ms%n", metrics.recompressMs));
             sb.append("   -----------------------------------------------------------------------------\n");
         }
         sb.append(String.format("   • TOTAL EXECUTION TIME:       %,d ms%n", totalMs));
@@ -550,6 +835,64 @@ public class SiteBuilderPipeline {
         log.info(sb.toString());
     }
 
+    /**
+     * Writes the run's histograms, counters and phases to output/build-metrics.json and build-metrics.prom,
+     * with the deployment totals as gauges. The files are excluded from the S3 sync.
+     */
+    public static void exportMetrics(long totalMs, DeploymentMetrics metrics) {
+        BuildMetrics.gauge("total_duration_seconds", totalMs / 1000.0);
+        BuildMetrics.gauge("cards", metrics.totalCards.get());
+        BuildMetrics.gauge("files", metrics.webFilesUploaded.get(), "kind", "web", "result", "uploaded");
+        BuildMetrics.gauge("files", metrics.webFilesSkipped.get(), "kind", "web", "result", "skipped");
+        BuildMetrics.gauge("files", metrics.imagesUploaded.get(), "kind", "image", "result", "uploaded");
+        BuildMetrics.gauge("files", metrics.imagesSkipped.get(), "kind", "image", "result", "skipped");
+        BuildMetrics.gauge("files", metrics.sitemapsUploaded.get(), "kind", "sitemap", "result", "uploaded");
+        BuildMetrics.gauge("files", metrics.orphansSwept.get(), "kind", "orphan", "result", "deleted");
+        BuildMetrics.gauge("files", metrics.filesRecompressed.get(), "kind", "web", "result", "recompressed");
+        BuildMetrics.gauge("files", metrics.gzipVariantsUploaded.get(), "kind", "gzip-variant", "result", "uploaded");
+        BuildMetrics.gauge("compression_cache", metrics.compressionCacheHits.get(), "result", "hit");
+        BuildMetrics.gauge("compression_cache", metrics.compressionCacheMisses.get(), "result", "miss");
+        BuildMetrics.gauge("bytes", metrics.dictionaryPlainBytes.get(), "kind", "dictionary-sample", "stage", "compressed");
+        BuildMetrics.gauge("bytes", metrics.dictionarySharedBytes.get(), "kind", "dictionary-sample", "stage", "dictionary");
+        BuildMetrics.gauge("bytes", metrics.rawWebBytes.get(), "kind", "web", "stage", "raw");
+        BuildMetrics.gauge("bytes", metrics.compressedWebBytes.get(), "kind", "web", "stage", "compressed");
+        BuildMetrics.gauge("bytes", metrics.imageBytes.get(), "kind", "image", "stage", "raw");
+        BuildMetrics.gauge("bytes", metrics.gzipWebBytes.get(), "kind", "web", "stage", "gzip");
+        BuildMetrics.gauge("bytes", metrics.recompressSavedBytes.get(), "kind", "web", "stage", "recompress-saved");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase1_2Ms / 1000.0, "phase", "local-build");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase3Ms / 1000.0, "phase", "web-sync");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase4Ms / 1000.0, "phase", "image-sync");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase45Ms / 1000.0, "phase", "ghost-sweep");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase5Ms / 1000.0, "phase", "sitemap-sync");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase6Ms / 1000.0, "phase", "cloudfront");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.phase7Ms / 1000.0, "phase", "indexnow");
+        BuildMetrics.gauge("pipeline_phase_seconds", metrics.recompressMs / 1000.0, "phase", "recompress");
+        BuildMetrics.export(Paths.get(OUTPUT_DIR));
+    }
+
+    /**
+     * Counts S3 calls, SDK-level retries and failed calls per operation. The SDK retries transparently, so the
+     * PUT latency histogram alone does not show them.
+     */
+    private static final class S3MetricPublisher implements MetricPublisher {
+        @Override
+        public void publish(MetricCollection metricCollection) {
+            String operation = metricCollection.metricValues(CoreMetric.OPERATION_NAME).stream().findFirst().orElse("unknown");
+            BuildMetrics.increment("s3_calls", 1, "operation", operation);
+            int retries = metricCollection.metricValues(CoreMetric.RETRY_COUNT).stream().mapToInt(Integer::intValue).sum();
+            if (retries > 0) {
+                BuildMetrics.increment("s3_retries", retries, "operation", operation);
+            }
+            if (metricCollection.metricValues(CoreMetric.API_CALL_SUCCESSFUL).contains(Boolean.FALSE)) {
+                BuildMetrics.increment("s3_failed_calls", 1, "operation", operation);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     private static String determineImageContentType(String fileName) {
         if (fileName.endsWith(".avif")) return "image/avif";
         if (fileName.endsWith(".webp")) return "image/webp";
@@ -566,8 +909,14 @@ public class SiteBuilderPipeline {
      * Shared identically between SiteBuilderPipeline (Production) and LocalDevPipeline (Local Preview).
      */
     public static List<CardPageGenerator.CardData> buildLocalArtifacts(TimestampTracker timeTracker, FileTracker tracker) {
-        // Ensure stable CSS version for hash stability if content didn't change
-        String cssHash = tracker.getHash(Paths.get("src/main/resources/css/main.css"));
+        // Ensure stable CSS version for hash stability if content didn't change.
+        // Always MD5: the build id is part of every page's main.css?v= URL, changing the algorithm would re-upload all pages.
+        String cssHash = null;
+        try {
+            cssHash = ContentHasher.md5().hash(Paths.get("src/main/resources/css/main.css"));
+        } catch (IOException e) {
+            log.warn("Could not hash main.css: {}", e.getMessage());
+        }
         if (cssHash != null && cssHash.length() >= 8) {
             SharedTemplates.setBuildId(cssHash.substring(0, 8));
         } else {
@@ -575,7 +924,7 @@ public class SiteBuilderPipeline {
         }
 
         // Prefetch latest Firestore ratings into cache before generation starts
-        FirestoreRatingInjector.prefetchRatings();
+        PhaseProfiler.measure("prefetch-ratings", FirestoreRatingInjector::prefetchRatings);
 
         // --- PARALLEL PHASES: HTML Generation & Image WebP Conversion ---
         log.info("\n[PHASE 1 & 2] Launching HTML Generation and Image WebP Conversion in parallel...");
@@ -587,22 +936,28 @@ public class SiteBuilderPipeline {
                 FileGenerator.setTimestampTracker(timeTracker);
                 CardPageGenerator.setTimestampTracker(timeTracker);
                 SitemapGenerator.setTimestampTracker(timeTracker);
+                BuildGraph buildGraph = new BuildGraph(OUTPUT_DIR + "/build-graph.properties");
+                CardPageGenerator.setBuildGraph(buildGraph);
 
-                FileGenerator.copyResources();
+                PhaseProfiler.measure("load-cards", () -> CardRepository.load()); // Every generator reads the same datasets
+                PhaseProfiler.measure("copy-resources", FileGenerator::copyResources);
                 IndexNowService.ensureValidationFile();
-                FileGenerator.buildCollectionOverview();
-                FileGenerator.buildOtherCollections();
-                FileGenerator.buildStaticPages();
-                List<CardPageGenerator.CardData> cards = CardPageGenerator.run();
+                PhaseProfiler.measure("collection-overview", FileGenerator::buildCollectionOverview);
+                PhaseProfiler.measure("other-collections", FileGenerator::buildOtherCollections);
+                PhaseProfiler.measure("static-pages", FileGenerator::buildStaticPages);
+                List<CardPageGenerator.CardData> cards = PhaseProfiler.measure("card-pages", CardPageGenerator::run);
                 generatedCards.set(cards);
 
-                SitemapGenerator.generate(cards); // Sitemap & robots.txt now ready
-                timeTracker.save();
+                PhaseProfiler.measure("sitemap", () -> SitemapGenerator.generate(cards)); // Sitemap & robots.txt now ready
+                PhaseProfiler.measure("save-caches", () -> {
+                    timeTracker.save();
+                    buildGraph.save();
+                });
             }, phaseExecutor);
 
             CompletableFuture<Void> imageTask = CompletableFuture.runAsync(() -> {
                 log.info("  -> [PHASE 2] Converting images to AVIF ...");
-                ImageConverter.main(new String[0]);
+                PhaseProfiler.measure("images", () -> ImageConverter.main(new String[0]));
             }, phaseExecutor);
 
             // Wait for both tasks to complete concurrently
@@ -1,9 +1,5 @@
 package de.maulmann;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,16 +18,22 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -52,8 +54,14 @@ public class SitemapGenerator {
     private static final java.util.regex.Pattern PATTERN_SLUG_EDGES = java.util.regex.Pattern.compile("^-|-$");
     private static final java.util.regex.Pattern PATTERN_HIGH_RES = java.util.regex.Pattern.compile("-\\d+w(\\.[a-zA-Z0-9]+)$");
 
+    static final String RECOVER_FROM_DISK_ARG = "--recover-from-disk";
+
     public static void main(String[] args) {
-        generate();
+        if (Arrays.asList(args).contains(RECOVER_FROM_DISK_ARG)) {
+            recoverFromDisk();
+        } else {
+            generate();
+        }
     }
 
     private static TimestampTracker timestampTracker;
@@ -73,34 +81,48 @@ public class SitemapGenerator {
             List<ImageEntry> images
     ) {}
 
-    public record ChildSitemapInfo(String fileName, String maxLastMod) {}
-
+    /**
+     * Standalone run: card entries come from the {@link CardRepository} datasets, the same cards
+     * {@link CardPageGenerator#run()} renders.
+     */
     public static void generate() {
-        generate(null);
+        generate(CardRepository.get().pageCards());
     }
 
     public static void generate(List<CardPageGenerator.CardData> inMemoryCards) {
+        if (inMemoryCards == null) {
+            generate();
+            return;
+        }
+        generate(inMemoryCards, false);
+    }
+
+    /**
+     * Recovery mode: rebuilds the card entries by scanning the rendered pages in output/cards, for when the
+     * card datasets are unavailable but a previous build's output is.
+     */
+    public static void recoverFromDisk() {
+        log.warn("Recovering sitemaps, llms-full.txt and rss.xml from rendered card pages on disk.");
+        generate(List.of(), true);
+    }
+
+    private static void generate(List<CardPageGenerator.CardData> inMemoryCards, boolean recoverFromDisk) {
         AtomicInteger imagesAdded = new AtomicInteger(0);
-        AtomicInteger imagesMissing = new AtomicInteger(0);
 
         List<Map<String, String>> coreLinks = new ArrayList<>();
         Map<String, List<Map<String, String>>> seasonGroups = new TreeMap<>();
 
-        try {
+        try (ExecutorService feeds = Executors.newVirtualThreadPerTaskExecutor()) {
+            // llms-full.txt and rss.xml only depend on the cards, so they are built alongside the sitemaps
+            CompletableFuture<Void> llmsFull = CompletableFuture.runAsync(
+                    () -> generateLlmsFullTxt(inMemoryCards, recoverFromDisk), feeds);
+            CompletableFuture<Void> rssFeed = CompletableFuture.runAsync(
+                    () -> generateRssFeed(inMemoryCards, recoverFromDisk, timestampTracker), feeds);
+
             log.info("Generating best-in-class robots.txt...");
             generateRobotsTxt();
 
-            log.info("Cleaning up old sitemap files...");
             Path outputDirPath = Paths.get(OUTPUT_DIR);
-            if (Files.exists(outputDirPath)) {
-                try (Stream<Path> sitemapFiles = Files.list(outputDirPath)) {
-                    sitemapFiles.filter(p -> p.getFileName().toString().startsWith("sitemap") &&
-                                            (p.getFileName().toString().endsWith(".gz") || p.getFileName().toString().endsWith(".xml")))
-                                .forEach(p -> {
-                                    try { Files.deleteIfExists(p); } catch (Exception ignored) {}
-                                });
-                }
-            }
 
             log.info("Generating sitemaps...");
 
@@ -123,6 +145,8 @@ public class SitemapGenerator {
                 }
             }
 
+            // Pages are scanned concurrently, their entries are added in path order
+            List<CompletableFuture<CorePage>> corePages = new ArrayList<>();
             for (Path path : corePaths) {
                 String relativePath = outputDirPath.relativize(path).toString().replace("\\", "/");
                 String loc = BASE_URL + "/" + relativePath;
@@ -141,42 +165,20 @@ public class SitemapGenerator {
                     }
                 }
 
-                List<ImageEntry> images = new ArrayList<>();
-                try {
-                    Document doc = Jsoup.parse(path.toFile(), "UTF-8");
-                    String pageTitle = doc.title();
-                    if (pageTitle.contains("|")) {
-                        pageTitle = pageTitle.split("\\|")[0].trim();
-                    }
-                    if (pageTitle.isEmpty()) pageTitle = relativePath;
-
-                    Map<String, String> linkMap = new HashMap<>();
-                    linkMap.put("url", relativePath);
-                    linkMap.put("text", pageTitle);
-                    coreLinks.add(linkMap);
-
-                    // Extract core page images
-                    Set<String> processedImageUrls = new HashSet<>();
-                    for (Element img : doc.select("img")) {
-                        String src = img.attr("src");
-                        if (src.isEmpty() || src.startsWith("data:")) continue;
-                        String absLoc = resolveImageLoc(relativePath, src);
-                        String highRes = toHighResLoc(absLoc);
-                        if (!highRes.isEmpty() && processedImageUrls.add(highRes)) {
-                            String imgTitle = img.attr("title").trim();
-                            images.add(new ImageEntry(highRes, imgTitle.isEmpty() ? pageTitle : imgTitle, pageTitle));
-                            imagesAdded.incrementAndGet();
-                        }
-                    }
-                } catch (IOException e) {
-                    log.error("Could not parse core page {}: {}", path, e.getMessage());
-                }
-
-                mainEntries.add(new SitemapUrlEntry(relativePath, loc, lastModDate, "daily", "1.0", images));
+                String pageLoc = loc;
+                String pageLastMod = lastModDate;
+                corePages.add(CompletableFuture.supplyAsync(
+                        () -> processCorePage(path, relativePath, pageLoc, pageLastMod), feeds));
+            }
+            for (CompletableFuture<CorePage> corePage : corePages) {
+                CorePage page = corePage.join();
+                if (page.link() != null) coreLinks.add(page.link());
+                imagesAdded.addAndGet(page.entry().images().size());
+                mainEntries.add(page.entry());
             }
 
-            // 2. Process Cards (In-Memory if available, fallback to Disk walk)
-            if (inMemoryCards != null && !inMemoryCards.isEmpty()) {
+            // 2. Process Cards (from the card model, or from the rendered pages in recovery mode)
+            if (!recoverFromDisk) {
                 log.info("Processing {} card pages in memory for sitemaps...", inMemoryCards.size());
                 for (CardPageGenerator.CardData c : inMemoryCards) {
                     String relativePath = c.fullRelativePath;
@@ -189,12 +191,10 @@ public class SitemapGenerator {
                         lastModDate = todayIso;
                     }
 
-                    String h1Title = CardPageGenerator.generateH1(c);
-                    String rawImageBase = c.filenameBase.contains("-") ? c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-")) : c.filenameBase;
-                    String resolvedImageBase = CardPageGenerator.resolveDiskImageBase(c.seasonFolder, rawImageBase, c);
-
-                    String frontImgUrl = BASE_URL + "/images/" + c.seasonFolder + "/" + resolvedImageBase + "-front.avif";
-                    String backImgUrl = BASE_URL + "/images/" + c.seasonFolder + "/" + resolvedImageBase + "-back.avif";
+                    CardPageGenerator.CardView view = c.view();
+                    String h1Title = view.h1Title();
+                    String frontImgUrl = view.frontImageUrl();
+                    String backImgUrl = view.backImageUrl();
 
                     List<ImageEntry> images = new ArrayList<>();
                     images.add(new ImageEntry(frontImgUrl, h1Title + " (Front Scan)", h1Title));
@@ -229,7 +229,7 @@ public class SitemapGenerator {
                     }
                 }
             } else {
-                // Fallback: Scan disk output/cards directory
+                // Recovery: Scan disk output/cards directory
                 List<Path> allPaths = new ArrayList<>();
                 if (Files.exists(outputDirPath)) {
                     try (Stream<Path> paths = Files.walk(outputDirPath)) {
@@ -239,9 +239,24 @@ public class SitemapGenerator {
                     }
                 }
 
-                for (Path path : allPaths) {
+                List<Path> cardPaths = allPaths.stream()
+                        .filter(p -> outputDirPath.relativize(p).toString().replace("\\", "/").startsWith("cards/"))
+                        .toList();
+                List<CompletableFuture<HtmlTagScanner.PageSummary>> scans = new ArrayList<>();
+                for (Path path : cardPaths) {
+                    scans.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            return HtmlTagScanner.summarize(path);
+                        } catch (IOException e) {
+                            log.error("Could not parse {}: {}", path, e.getMessage());
+                            return null;
+                        }
+                    }, feeds));
+                }
+
+                for (int i = 0; i < cardPaths.size(); i++) {
+                    Path path = cardPaths.get(i);
                     String relativePath = outputDirPath.relativize(path).toString().replace("\\", "/");
-                    if (!relativePath.startsWith("cards/")) continue;
                     String loc = BASE_URL + "/" + relativePath;
 
                     String lastModDate;
@@ -256,9 +271,8 @@ public class SitemapGenerator {
                     }
 
                     List<ImageEntry> images = new ArrayList<>();
-                    Document doc = null;
-                    try {
-                        doc = Jsoup.parse(path.toFile(), "UTF-8");
+                    HtmlTagScanner.PageSummary doc = scans.get(i).join();
+                    if (doc != null) {
                         String pageTitle = doc.title();
                         if (pageTitle.contains("|")) {
                             pageTitle = pageTitle.split("\\|")[0].trim();
@@ -269,15 +283,15 @@ public class SitemapGenerator {
                         linkMap.put("url", relativePath);
                         linkMap.put("text", pageTitle);
 
-                        String theme = getSpecValue(doc, "Theme");
-                        String variant = getSpecValue(doc, "Variant");
+                        String theme = doc.spec("Theme");
+                        String variant = doc.spec("Variant");
 
                         linkMap.put("player", pageTitle);
-                        linkMap.put("company", getSpecValue(doc, "Manufacturer"));
-                        linkMap.put("brand", getSpecValue(doc, "Brand"));
+                        linkMap.put("company", doc.spec("Manufacturer"));
+                        linkMap.put("brand", doc.spec("Brand"));
                         linkMap.put("theme", theme);
                         linkMap.put("variant", variant);
-                        linkMap.put("number", getSpecValue(doc, "Card Number"));
+                        linkMap.put("number", doc.spec("Card Number"));
 
                         StringBuilder anchorText = new StringBuilder(pageTitle);
                         List<String> extra = new ArrayList<>();
@@ -300,33 +314,30 @@ public class SitemapGenerator {
 
                         // Extract images
                         Set<String> processedImageUrls = new HashSet<>();
-                        Elements pictureElements = doc.select("picture");
-                        for (Element picture : pictureElements) {
-                            Element img = picture.selectFirst("img");
-                            String imgTitle = (img != null) ? img.attr("title").trim() : "";
-                            String imgAlt = (img != null) ? img.attr("alt").trim() : "";
+                        for (HtmlTagScanner.Picture picture : doc.pictures()) {
+                            HtmlTagScanner.Image img = picture.img();
+                            String imgTitle = (img != null) ? img.title().trim() : "";
+                            String imgAlt = (img != null) ? img.alt().trim() : "";
 
-                            Element figcaption = picture.parents().select("figcaption").first();
-                            String figText = (figcaption != null) ? figcaption.text().trim() : "";
+                            String figText = picture.figcaption().trim();
 
                             String imageTitle = !imgTitle.isEmpty() ? imgTitle : pageTitle;
                             String imageCaption = !figText.isEmpty() ? figText : (!imgAlt.isEmpty() ? imgAlt : pageTitle);
 
                             String bestCandidate = "";
-                            Elements sources = picture.select("source[srcset]");
-                            for (Element source : sources) {
-                                String candidate = extractHighestResCandidate(source.attr("srcset"));
+                            for (String sourceSrcset : picture.sourceSrcsets()) {
+                                String candidate = extractHighestResCandidate(sourceSrcset);
                                 if (!candidate.isEmpty()) {
                                     bestCandidate = candidate;
                                     break;
                                 }
                             }
                             if (bestCandidate.isEmpty() && img != null) {
-                                String srcset = img.attr("srcset");
+                                String srcset = img.srcset();
                                 if (!srcset.isEmpty()) {
                                     bestCandidate = extractHighestResCandidate(srcset);
                                 } else {
-                                    bestCandidate = img.attr("src");
+                                    bestCandidate = img.src();
                                 }
                             }
 
@@ -341,12 +352,9 @@ public class SitemapGenerator {
                         }
 
                         // Fallback for standalone <img> elements (not inside <picture>)
-                        Elements standaloneImgs = doc.select("img");
-                        for (Element img : standaloneImgs) {
-                            if (img.parents().is("picture")) continue;
-
-                            String src = img.attr("src");
-                            String srcset = img.attr("srcset");
+                        for (HtmlTagScanner.Image img : doc.standaloneImages()) {
+                            String src = img.src();
+                            String srcset = img.srcset();
                             String bestCandidate = !srcset.isEmpty() ? extractHighestResCandidate(srcset) : src;
                             if (bestCandidate.isEmpty() || bestCandidate.startsWith("data:")) continue;
 
@@ -354,16 +362,14 @@ public class SitemapGenerator {
                             String highResLoc = toHighResLoc(absImageLoc);
                             if (highResLoc.isEmpty() || !processedImageUrls.add(highResLoc)) continue;
 
-                            String imgTitle = img.attr("title").trim();
-                            String imgAlt = img.attr("alt").trim();
+                            String imgTitle = img.title().trim();
+                            String imgAlt = img.alt().trim();
                             String imageTitle = !imgTitle.isEmpty() ? imgTitle : pageTitle;
                             String imageCaption = !imgAlt.isEmpty() ? imgAlt : pageTitle;
 
                             images.add(new ImageEntry(highResLoc, imageTitle, imageCaption));
                             imagesAdded.incrementAndGet();
                         }
-                    } catch (IOException e) {
-                        log.error("Could not parse {}: {}", path, e.getMessage());
                     }
 
                     boolean isHighlight = isHighlightCard(doc, relativePath);
@@ -377,28 +383,22 @@ public class SitemapGenerator {
                 }
             }
 
-            List<ChildSitemapInfo> childSitemaps = new ArrayList<>();
-
-            // 1. Generate sitemap-main.xml
+            // Child sitemaps in index order: main, highlights, then one per card group
+            Map<String, List<SitemapUrlEntry>> children = new LinkedHashMap<>();
             if (!mainEntries.isEmpty()) {
-                ChildSitemapInfo mainInfo = writeSubSitemap("sitemap-main.xml", mainEntries);
-                childSitemaps.add(mainInfo);
+                children.put("sitemap-main", mainEntries);
             }
-
-            // 2. Generate sitemap-highlights.xml
             if (!highlightEntries.isEmpty()) {
-                ChildSitemapInfo hInfo = writeSubSitemap("sitemap-highlights.xml", highlightEntries);
-                childSitemaps.add(hInfo);
+                children.put("sitemap-highlights", highlightEntries);
             }
-
-            // 3. Generate sitemap-cards-[group].xml
             for (Map.Entry<String, List<SitemapUrlEntry>> entry : cardGroupEntries.entrySet()) {
-                String fileName = "sitemap-cards-" + sanitizeFilename(entry.getKey()) + ".xml";
-                ChildSitemapInfo cInfo = writeSubSitemap(fileName, entry.getValue());
-                childSitemaps.add(cInfo);
+                children.put("sitemap-cards-" + sanitizeFilename(entry.getKey()), entry.getValue());
             }
 
-            // 4. Generate Root sitemap.xml (Sitemap Index)
+            // Writes sitemap-*.xml.gz in parallel and removes children of earlier builds
+            List<SitemapWriter.Shard> childSitemaps = new SitemapWriter(outputDirPath).writeAll(children);
+
+            // Root sitemap.xml (Sitemap Index)
             writeSitemapIndex("sitemap.xml", childSitemaps);
 
             log.info("Sitemap Index & Sub-Sitemaps successfully generated!");
@@ -407,8 +407,7 @@ public class SitemapGenerator {
 
             generateHtmlSitemap(coreLinks, seasonGroups, timestampTracker);
             generateLlmsTxt();
-            generateLlmsFullTxt(inMemoryCards);
-            generateRssFeed(inMemoryCards, timestampTracker);
+            CompletableFuture.allOf(llmsFull, rssFeed).join();
 
         } catch (Exception e) {
             log.error("Failed to generate Sitemap: {}", e.getMessage());
@@ -416,6 +415,41 @@ public class SitemapGenerator {
         }
     }
 
+    private record CorePage(Map<String, String> link, SitemapUrlEntry entry) {}
+
+    private static CorePage processCorePage(Path path, String relativePath, String loc, String lastModDate) {
+        List<ImageEntry> images = new ArrayList<>();
+        Map<String, String> linkMap = null;
+        try {
+            HtmlTagScanner.PageSummary page = HtmlTagScanner.summarize(path);
+            String pageTitle = page.title();
+            if (pageTitle.contains("|")) {
+                pageTitle = pageTitle.split("\\|")[0].trim();
+            }
+            if (pageTitle.isEmpty()) pageTitle = relativePath;
+
+            linkMap = new HashMap<>();
+            linkMap.put("url", relativePath);
+            linkMap.put("text", pageTitle);
+
+            // Extract core page images
+            Set<String> processedImageUrls = new HashSet<>();
+            for (HtmlTagScanner.Image img : page.images()) {
+                String src = img.src();
+                if (src.isEmpty() || src.startsWith("data:")) continue;
+                String absLoc = resolveImageLoc(relativePath, src);
+                String highRes = toHighResLoc(absLoc);
+                if (!highRes.isEmpty() && processedImageUrls.add(highRes)) {
+                    String imgTitle = img.title().trim();
+                    images.add(new ImageEntry(highRes, imgTitle.isEmpty() ? pageTitle : imgTitle, pageTitle));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not parse core page {}: {}", path, e.getMessage());
+        }
+        return new CorePage(linkMap, new SitemapUrlEntry(relativePath, loc, lastModDate, "daily", "1.0", images));
+    }
+
     public static boolean isHighlightCard(CardPageGenerator.CardData c) {
         if (c == null) return false;
         String pathLower = c.fullRelativePath.toLowerCase();
@@ -452,7 +486,7 @@ public class SitemapGenerator {
         return auto.equalsIgnoreCase("yes") && (variant.contains("patch") || variant.contains("ruby") || variant.contains("pmg"));
     }
 
-    private static boolean isHighlightCard(Document doc, String relativePath) {
+    private static boolean isHighlightCard(HtmlTagScanner.PageSummary doc, String relativePath) {
         if (doc == null) return false;
         String pathLower = relativePath.toLowerCase();
         if (pathLower.contains("flawless")) return true;
@@ -502,55 +536,14 @@ public class SitemapGenerator {
         return PATTERN_SLUG_EDGES.matcher(step2).replaceAll("");
     }
 
-    private static ChildSitemapInfo writeSubSitemap(String fileName, List<SitemapUrlEntry> entries) throws IOException {
-        File file = new File(OUTPUT_DIR, fileName);
-        String maxLastMod = "1970-01-01";
-
-        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
-            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
-            writer.write("<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\"\n");
-            writer.write("        xmlns:image=\"http://www.google.com/schemas/sitemap-image/1.1\">\n");
-
-            for (SitemapUrlEntry entry : entries) {
-                if (entry.lastModDate().compareTo(maxLastMod) > 0) {
-                    maxLastMod = entry.lastModDate();
-                }
-
-                writer.write("  <url>\n");
-                writer.write("    <loc>" + escapeXml(entry.loc()) + "</loc>\n");
-                writer.write("    <lastmod>" + entry.lastModDate() + "</lastmod>\n");
-                writer.write("    <changefreq>" + entry.changeFreq() + "</changefreq>\n");
-                writer.write("    <priority>" + entry.priority() + "</priority>\n");
-
-                for (ImageEntry img : entry.images()) {
-                    writer.write("    <image:image>\n");
-                    writer.write("      <image:loc>" + escapeXml(img.loc()) + "</image:loc>\n");
-                    if (img.title() != null && !img.title().trim().isEmpty()) {
-                        writer.write("      <image:title>" + escapeXml(img.title().trim()) + "</image:title>\n");
-                    }
-                    if (img.caption() != null && !img.caption().trim().isEmpty()) {
-                        writer.write("      <image:caption>" + escapeXml(img.caption().trim()) + "</image:caption>\n");
-                    }
-                    writer.write("    </image:image>\n");
-                }
-
-                writer.write("  </url>\n");
-            }
-
-            writer.write("</urlset>");
-        }
-
-        return new ChildSitemapInfo(fileName, maxLastMod);
-    }
-
-    private static void writeSitemapIndex(String indexFileName, List<ChildSitemapInfo> childSitemaps) throws IOException {
+    private static void writeSitemapIndex(String indexFileName, List<SitemapWriter.Shard> childSitemaps) throws IOException {
         File indexFile = new File(OUTPUT_DIR, indexFileName);
 
         try (BufferedWriter writer = Files.newBufferedWriter(indexFile.toPath(), StandardCharsets.UTF_8)) {
             writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
             writer.write("<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
 
-            for (ChildSitemapInfo info : childSitemaps) {
+            for (SitemapWriter.Shard info : childSitemaps) {
                 writer.write("  <sitemap>\n");
                 writer.write("    <loc>" + BASE_URL + "/" + info.fileName() + "</loc>\n");
                 writer.write("    <lastmod>" + info.maxLastMod() + "</lastmod>\n");
@@ -586,7 +579,7 @@ public class SitemapGenerator {
         }
     }
 
-    private static void generateLlmsFullTxt(List<CardPageGenerator.CardData> inMemoryCards) {
+    private static void generateLlmsFullTxt(List<CardPageGenerator.CardData> inMemoryCards, boolean recoverFromDisk) {
         log.info("Generating llms-full.txt for AI/LLM RAG Indexing...");
         StringBuilder sb = new StringBuilder();
         sb.append("# maulmann.de - Full Private Collection Knowledge Base for LLMs\n\n");
@@ -611,52 +604,11 @@ public class SitemapGenerator {
 
         sb.append("## Complete Card Index & Direct URLs\n\n");
 
-        if (inMemoryCards != null && !inMemoryCards.isEmpty()) {
-            for (CardPageGenerator.CardData c : inMemoryCards) {
-                String loc = BASE_URL + "/" + c.fullRelativePath;
-                String title = CardPageGenerator.generateH1(c);
-                String desc = CardPageGenerator.generateMetaDescription(c);
-
-                sb.append("### ").append(title).append("\n");
-                sb.append("- URL: ").append(loc).append("\n");
-                if (!desc.isEmpty()) {
-                    sb.append("- Description: ").append(desc).append("\n");
-                }
-
-                String player = c.get("Player");
-                String season = c.get("Season");
-                String company = c.get("Company");
-                if (company.isEmpty()) company = c.get("Manufacturer");
-                String brand = c.get("Brand");
-                String variant = c.get("Variant");
-                String number = c.get("Card Number");
-                if (number.isEmpty()) number = c.get("Number");
-                String printRun = c.get("Print Run");
-                if (printRun.isEmpty()) printRun = c.get("Serial/Print Run");
-                if (printRun.isEmpty()) printRun = c.get("Serial");
-                String grading = c.get("Grading Co.");
-                if (!grading.isEmpty()) {
-                    String gVal = c.get("Grade");
-                    if (!gVal.isEmpty()) grading += " " + gVal;
-                } else {
-                    grading = c.get("Grading");
-                }
-
-                List<String> specs = new ArrayList<>();
-                if (!player.isEmpty()) specs.add("Player: " + player);
-                if (!season.isEmpty()) specs.add("Season: " + season);
-                if (!company.isEmpty()) specs.add("Company: " + company);
-                if (!brand.isEmpty()) specs.add("Brand: " + brand);
-                if (!variant.isEmpty() && !variant.equalsIgnoreCase("Base")) specs.add("Variant: " + variant);
-                if (!number.isEmpty()) specs.add("Card #: " + number);
-                if (!printRun.isEmpty() && !printRun.equals("-")) specs.add("Serial: " + printRun);
-                if (!grading.isEmpty() && !grading.equals("-")) specs.add("Grading: " + grading);
-
-                if (!specs.isEmpty()) {
-                    sb.append("- Attributes: ").append(String.join(" | ", specs)).append("\n");
-                }
-                sb.append("\n");
-            }
+        if (!recoverFromDisk) {
+            // Entries are independent, so they are rendered in parallel and joined in card order
+            sb.append(inMemoryCards.parallelStream()
+                    .map(SitemapGenerator::llmsFullEntry)
+                    .collect(Collectors.joining()));
         } else {
             Path outputDirPath = Paths.get(OUTPUT_DIR);
             List<Path> allPaths = new ArrayList<>();
@@ -675,9 +627,9 @@ public class SitemapGenerator {
                 String loc = BASE_URL + "/" + relativePath;
 
                 try {
-                    Document doc = Jsoup.parse(path.toFile(), "UTF-8");
-                    String title = doc.select("h1").text();
-                    String desc = doc.select("meta[name=description]").attr("content");
+                    HtmlTagScanner.PageSummary doc = HtmlTagScanner.summarize(path);
+                    String title = doc.h1();
+                    String desc = doc.metaDescription();
                     if (title.isEmpty()) title = fileName;
 
                     sb.append("### ").append(title).append("\n");
@@ -734,7 +686,59 @@ public class SitemapGenerator {
         }
     }
 
-    private static void generateRssFeed(List<CardPageGenerator.CardData> inMemoryCards, TimestampTracker timestampTracker) {
+    /**
+     * One card's llms-full.txt section, built from the card model.
+     */
+    static String llmsFullEntry(CardPageGenerator.CardData c) {
+        StringBuilder entry = new StringBuilder();
+        CardPageGenerator.CardView view = c.view();
+        String loc = view.url();
+        String title = view.h1Title();
+        String desc = view.metaDescription();
+
+        entry.append("### ").append(title).append("\n");
+        entry.append("- URL: ").append(loc).append("\n");
+        if (!desc.isEmpty()) {
+            entry.append("- Description: ").append(desc).append("\n");
+        }
+
+        String player = c.get("Player");
+        String season = c.get("Season");
+        String company = c.get("Company");
+        if (company.isEmpty()) company = c.get("Manufacturer");
+        String brand = c.get("Brand");
+        String variant = c.get("Variant");
+        String number = c.get("Card Number");
+        if (number.isEmpty()) number = c.get("Number");
+        String printRun = c.get("Print Run");
+        if (printRun.isEmpty()) printRun = c.get("Serial/Print Run");
+        if (printRun.isEmpty()) printRun = c.get("Serial");
+        String grading = c.get("Grading Co.");
+        if (!grading.isEmpty()) {
+            String gVal = c.get("Grade");
+            if (!gVal.isEmpty()) grading += " " + gVal;
+        } else {
+            grading = c.get("Grading");
+        }
+
+        List<String> specs = new ArrayList<>();
+        if (!player.isEmpty()) specs.add("Player: " + player);
+        if (!season.isEmpty()) specs.add("Season: " + season);
+        if (!company.isEmpty()) specs.add("Company: " + company);
+        if (!brand.isEmpty()) specs.add("Brand: " + brand);
+        if (!variant.isEmpty() && !variant.equalsIgnoreCase("Base")) specs.add("Variant: " + variant);
+        if (!number.isEmpty()) specs.add("Card #: " + number);
+        if (!printRun.isEmpty() && !printRun.equals("-")) specs.add("Serial: " + printRun);
+        if (!grading.isEmpty() && !grading.equals("-")) specs.add("Grading: " + grading);
+
+        if (!specs.isEmpty()) {
+            entry.append("- Attributes: ").append(String.join(" | ", specs)).append("\n");
+        }
+        entry.append("\n");
+        return entry.toString();
+    }
+
+    private static void generateRssFeed(List<CardPageGenerator.CardData> inMemoryCards, boolean recoverFromDisk, TimestampTracker timestampTracker) {
         log.info("Generating RSS feed (rss.xml)...");
         StringBuilder rss = new StringBuilder();
         rss.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
@@ -768,12 +772,13 @@ public class SitemapGenerator {
         int itemCap = 50;
         int addedCount = 0;
 
-        if (inMemoryCards != null && !inMemoryCards.isEmpty()) {
+        if (!recoverFromDisk) {
             for (CardPageGenerator.CardData c : inMemoryCards) {
                 String relativePath = c.fullRelativePath;
-                String loc = BASE_URL + "/" + relativePath;
-                String title = CardPageGenerator.generateH1(c);
-                String desc = CardPageGenerator.generateMetaDescription(c);
+                CardPageGenerator.CardView view = c.view();
+                String loc = view.url();
+                String title = view.h1Title();
+                String desc = view.metaDescription();
 
                 String pubDate;
                 if (timestampTracker != null) {
@@ -821,9 +826,9 @@ public class SitemapGenerator {
                 String loc = BASE_URL + "/" + relativePath;
 
                 try {
-                    Document doc = Jsoup.parse(path.toFile(), "UTF-8");
-                    String title = doc.select("h1").text();
-                    String desc = doc.select("meta[name=description]").attr("content");
+                    HtmlTagScanner.PageSummary doc = HtmlTagScanner.summarize(path);
+                    String title = doc.h1();
+                    String desc = doc.metaDescription();
                     if (title.isEmpty()) title = path.getFileName().toString().replace(".html", "");
 
                     String pubDate;
@@ -940,7 +945,9 @@ public class SitemapGenerator {
                 finalHtml = finalHtml.replace("[[STABLE_TIME]]", SharedTemplates.getTimestamp());
             }
 
-            Files.writeString(outFile.toPath(), finalHtml, StandardCharsets.UTF_8);
+            byte[] bytes = finalHtml.getBytes(StandardCharsets.UTF_8);
+            Files.write(outFile.toPath(), bytes);
+            UploadQueue.offer(outFile.toPath(), bytes);
             log.info("Sitemap.html successfully generated!");
         } catch (Exception e) {
             log.error("Failed to generate HTML Sitemap: {}", e.getMessage());
@@ -1070,22 +1077,11 @@ public class SitemapGenerator {
         return highRes;
     }
 
-    private static String getSpecValue(Document doc, String specName) {
-        if (doc == null) return "";
-        Elements rows = doc.select("tr");
-        for (Element row : rows) {
-            Element th = row.selectFirst("th.specs-th");
-            if (th != null && th.text().trim().equalsIgnoreCase(specName)) {
-                Element td = row.selectFirst("td.specs-td");
-                if (td != null) {
-                    return td.text().trim();
-                }
-            }
-        }
-        return "";
+    private static String getSpecValue(HtmlTagScanner.PageSummary doc, String specName) {
+        return doc != null ? doc.spec(specName) : "";
     }
 
-    private static String escapeXml(String text) {
+    static String escapeXml(String text) {
         if (text == null) return "";
         return text.replace("&", "&amp;")
                 .replace("<", "&lt;")
@@ -0,0 +1,235 @@
+package de.maulmann;
+
+import de.maulmann.SitemapGenerator.ImageEntry;
+import de.maulmann.SitemapGenerator.SitemapUrlEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the child sitemaps of the sitemap index as {@code .xml.gz} files.
+ * <p>
+ * Children are rendered in parallel and streamed straight into gzip. A child over the protocol limits of 50,000 URLs
+ * or 50 MB uncompressed is split into numbered shards. Each shard's digest and max lastmod are kept in
+ * {@value #MANIFEST}, so a shard whose content did not change is not rewritten and keeps its file stat, which lets the
+ * upload skip it without re-hashing.
+ */
+public final class SitemapWriter {
+    private static final Logger log = LoggerFactory.getLogger(SitemapWriter.class);
+
+    static final int MAX_URLS = 50_000;
+    static final long MAX_BYTES = 50L * 1024 * 1024;
+    static final String MANIFEST = "sitemap-manifest.properties";
+    static final String EXTENSION = ".xml.gz";
+
+    private static final byte[] HEADER = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\"\n" +
+            "        xmlns:image=\"http://www.google.com/schemas/sitemap-image/1.1\">\n").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FOOTER = "</urlset>".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * One written (or unchanged) sitemap file.
+     */
+    public record Shard(String fileName, String maxLastMod, String digest, int urls, boolean written) {
+    }
+
+    private final Path outputDir;
+    private final int maxUrls;
+    private final long maxBytes;
+    private final ContentHasher hasher = ContentHasher.getDefault();
+
+    public SitemapWriter(Path outputDir) {
+        this(outputDir, MAX_URLS, MAX_BYTES);
+    }
+
+    SitemapWriter(Path outputDir, int maxUrls, long maxBytes) {
+        this.outputDir = outputDir;
+        this.maxUrls = maxUrls;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Writes every child (base name such as "sitemap-main" to its entries) and returns the shards in child order.
+     * Sitemap files from earlier builds that are no longer produced are deleted.
+     */
+    public List<Shard> writeAll(Map<String, List<SitemapUrlEntry>> children) throws IOException {
+        Files.createDirectories(outputDir);
+        Properties previous = loadManifest();
+
+        List<CompletableFuture<List<Shard>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, List<SitemapUrlEntry>> child : children.entrySet()) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return writeChild(child.getKey(), child.getValue(), previous);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        }
+
+        List<Shard> shards = new ArrayList<>();
+        for (CompletableFuture<List<Shard>> future : futures) {
+            shards.addAll(future.join());
+        }
+        saveManifest(shards);
+        deleteStale(shards);
+
+        long written = shards.stream().filter(Shard::written).count();
+        log.info("Sitemap shards: {} written, {} unchanged.", written, shards.size() - written);
+        return shards;
+    }
+
+    private List<Shard> writeChild(String baseName, List<SitemapUrlEntry> entries, Properties previous) throws IOException {
+        List<byte[]> rendered = new ArrayList<>(entries.size());
+        for (SitemapUrlEntry entry : entries) {
+            rendered.add(render(entry).getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Cut shards at the URL limit or before the uncompressed size would pass the byte limit
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        long size = HEADER.length + FOOTER.length;
+        for (int i = 0; i < rendered.size(); i++) {
+            int length = rendered.get(i).length;
+            if (i > from && (i - from >= maxUrls || size + length > maxBytes)) {
+                ranges.add(new int[]{from, i});
+                from = i;
+                size = HEADER.length + FOOTER.length;
+            }
+            size += length;
+        }
+        ranges.add(new int[]{from, rendered.size()});
+
+        List<Shard> shards = new ArrayList<>(ranges.size());
+        for (int s = 0; s < ranges.size(); s++) {
+            String fileName = ranges.size() == 1 ? baseName + EXTENSION : baseName + "-" + (s + 1) + EXTENSION;
+            shards.add(writeShard(fileName, entries, rendered, ranges.get(s)[0], ranges.get(s)[1], previous));
+        }
+        return shards;
+    }
+
+    private Shard writeShard(String fileName, List<SitemapUrlEntry> entries, List<byte[]> rendered, int from, int to,
+                             Properties previous) throws IOException {
+        String maxLastMod = "1970-01-01";
+        ContentHasher.Digest digest = hasher.newDigest();
+        digest.update(ByteBuffer.wrap(HEADER));
+        for (int i = from; i < to; i++) {
+            if (entries.get(i).lastModDate().compareTo(maxLastMod) > 0) {
+                maxLastMod = entries.get(i).lastModDate();
+            }
+            digest.update(ByteBuffer.wrap(rendered.get(i)));
+        }
+        digest.update(ByteBuffer.wrap(FOOTER));
+        String hex = digest.hex();
+
+        Path file = outputDir.resolve(fileName);
+        if (manifestValue(hex, maxLastMod).equals(previous.getProperty(fileName)) && Files.exists(file)) {
+            return new Shard(fileName, maxLastMod, hex, to - from, false);
+        }
+
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 64 * 1024)) {
+            out.write(HEADER);
+            for (int i = from; i < to; i++) {
+                out.write(rendered.get(i));
+            }
+            out.write(FOOTER);
+        }
+        return new Shard(fileName, maxLastMod, hex, to - from, true);
+    }
+
+    static String render(SitemapUrlEntry entry) {
+        StringBuilder sb = new StringBuilder(256 + entry.images().size() * 256);
+        sb.append("  <url>\n");
+        sb.append("    <loc>").append(SitemapGenerator.escapeXml(entry.loc())).append("</loc>\n");
+        sb.append("    <lastmod>").append(entry.lastModDate()).append("</lastmod>\n");
+        sb.append("    <changefreq>").append(entry.changeFreq()).append("</changefreq>\n");
+        sb.append("    <priority>").append(entry.priority()).append("</priority>\n");
+
+        for (ImageEntry img : entry.images()) {
+            sb.append("    <image:image>\n");
+            sb.append("      <image:loc>").append(SitemapGenerator.escapeXml(img.loc())).append("</image:loc>\n");
+            if (img.title() != null && !img.title().trim().isEmpty()) {
+                sb.append("      <image:title>").append(SitemapGenerator.escapeXml(img.title().trim())).append("</image:title>\n");
+            }
+            if (img.caption() != null && !img.caption().trim().isEmpty()) {
+                sb.append("      <image:caption>").append(SitemapGenerator.escapeXml(img.caption().trim())).append("</image:caption>\n");
+            }
+            sb.append("    </image:image>\n");
+        }
+
+        sb.append("  </url>\n");
+        return sb.toString();
+    }
+
+    private static String manifestValue(String digest, String maxLastMod) {
+        return digest + " " + maxLastMod;
+    }
+
+    private Properties loadManifest() {
+        Properties manifest = new Properties();
+        Path file = outputDir.resolve(MANIFEST);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                manifest.load(in);
+            } catch (IOException e) {
+                log.warn("Could not read {}, rewriting all sitemaps: {}", file, e.getMessage());
+            }
+        }
+        return manifest;
+    }
+
+    private void saveManifest(List<Shard> shards) {
+        Properties manifest = new Properties();
+        for (Shard shard : shards) {
+            manifest.setProperty(shard.fileName(), manifestValue(shard.digest(), shard.maxLastMod()));
+        }
+        try (OutputStream out = Files.newOutputStream(outputDir.resolve(MANIFEST))) {
+            manifest.store(out, "Sitemap shard digests and max lastmod");
+        } catch (IOException e) {
+            log.warn("Could not save {}: {}", MANIFEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes child sitemaps (plain or gzipped) that this run did not produce. The index itself is kept.
+     */
+    private void deleteStale(List<Shard> shards) throws IOException {
+        Set<String> current = new HashSet<>();
+        for (Shard shard : shards) current.add(shard.fileName());
+        try (Stream<Path> files = Files.list(outputDir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith("sitemap") && !name.equals("sitemap.xml") && !current.contains(name)
+                        && (name.endsWith(".xml") || name.endsWith(".gz"));
+            }).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package de.maulmann;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer that streams a rendered page into a temp file next to its target while computing the change-detection
+ * digest on the fly, so no full-page String is ever built.
+ * <p>
+ * Placeholders are resolved in the stream: {@code {{CONSENT_BANNER}}} is substituted directly, and for
+ * {@code [[STABLE_TIME]]} fixed-width space is reserved and patched on {@link #commit} once the timestamp is known.
+ * The digest covers exactly what {@link TimestampTracker} hashes: the page before consent banner substitution,
+ * without the timestamp placeholder and with the {@code main.css?v=} version collapsed.
+ * <p>
+ * With {@code captureBytes} the page is also kept in memory, so the committed bytes can be handed to the
+ * {@link UploadQueue} without reading the file back.
+ */
+public final class StreamingPageWriter extends Writer {
+    static final String STABLE_TIME = "[[STABLE_TIME]]";
+    static final String CONSENT_BANNER = "{{CONSENT_BANNER}}";
+    private static final String CSS_VERSION = "main.css?v=";
+    private static final String CSS_VERSION_NORMALIZED = "main.css?v=STABLE";
+    private static final String[] TOKENS = {STABLE_TIME, CONSENT_BANNER, CSS_VERSION};
+
+    static final String TEMP_SUFFIX = ".tmp";
+
+    // Width of a "dd.MM.yyyy HH:mm:ss" timestamp
+    static final int TIMESTAMP_WIDTH = 19;
+
+    private final Path target;
+    private final Path tempFile;
+    private final OutputStream fileOut;
+    private final Utf8Encoder fileBytes;
+    private final Utf8Encoder hashBytes;
+    private final ContentHasher.Digest digest;
+    private final ContentHasher.Digest legacyDigest;
+    private final String consentBanner;
+    private final boolean reserveStableTime;
+    private final ByteArrayOutputStream capture;
+    private byte[] committedBytes;
+
+    private final List<Long> stableTimeOffsets = new ArrayList<>();
+    // Chars that may still turn out to be the start of a placeholder
+    private final StringBuilder pending = new StringBuilder();
+    // 0: normal, 1: just after "main.css?v=", 2: inside the version hex digits
+    private int cssVersionState;
+    private String digestHex;
+    private String legacyDigestHex;
+    private boolean closed;
+
+    /**
+     * @param hasher            hasher for the change-detection digest
+     * @param withLegacyMd5     also compute an MD5 digest of the same content (see {@link TimestampTracker#needsLegacyDigest})
+     * @param consentBanner     replacement for {@code {{CONSENT_BANNER}}}, or null to keep the placeholder
+     * @param reserveStableTime reserve space for {@code [[STABLE_TIME]]}; if false the placeholder is written as is
+     */
+    public StreamingPageWriter(Path target, ContentHasher hasher, boolean withLegacyMd5, String consentBanner,
+                               boolean reserveStableTime) throws IOException {
+        this(target, hasher, withLegacyMd5, consentBanner, reserveStableTime, false);
+    }
+
+    /**
+     * @param captureBytes keep the page in memory as well, see {@link #getCommittedBytes()}
+     */
+    public StreamingPageWriter(Path target, ContentHasher hasher, boolean withLegacyMd5, String consentBanner,
+                               boolean reserveStableTime, boolean captureBytes) throws IOException {
+        this.target = target;
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // Each target is rendered once per run, so a fixed temp name is enough and keeps regular file permissions
+        this.tempFile = parent.resolve("." + target.getFileName() + TEMP_SUFFIX);
+        this.fileOut = Files.newOutputStream(tempFile);
+        this.digest = hasher.newDigest();
+        this.legacyDigest = withLegacyMd5 ? ContentHasher.md5().newDigest() : null;
+        this.consentBanner = consentBanner;
+        this.reserveStableTime = reserveStableTime;
+        this.capture = captureBytes ? new ByteArrayOutputStream(64 * 1024) : null;
+        this.fileBytes = new Utf8Encoder((buf, len) -> {
+            fileOut.write(buf, 0, len);
+            if (capture != null) {
+                capture.write(buf, 0, len);
+            }
+        });
+        this.hashBytes = new Utf8Encoder((buf, len) -> {
+            digest.update(ByteBuffer.wrap(buf, 0, len));
+            if (legacyDigest != null) {
+                legacyDigest.update(ByteBuffer.wrap(buf, 0, len));
+            }
+        });
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        for (int i = off, end = off + len; i < end; i++) {
+            process(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off, end = off + len; i < end; i++) {
+            process(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        process((char) c);
+    }
+
+    private void process(char c) throws IOException {
+        if (cssVersionState != 0) {
+            if (isHex(c)) {
+                if (cssVersionState == 1) {
+                    hashBytes.put(CSS_VERSION_NORMALIZED);
+                    cssVersionState = 2;
+                }
+                fileBytes.put(c);
+                return;
+            }
+            if (cssVersionState == 1) {
+                hashBytes.put(CSS_VERSION);
+            }
+            cssVersionState = 0;
+        }
+
+        if (pending.isEmpty() && c != '[' && c != '{' && c != 'm') {
+            fileBytes.put(c);
+            hashBytes.put(c);
+            return;
+        }
+        pending.append(c);
+        while (!pending.isEmpty()) {
+            boolean isPrefix = false;
+            for (String token : TOKENS) {
+                if (token.length() >= pending.length() && startsWithPending(token)) {
+                    if (token.length() == pending.length()) {
+                        pending.setLength(0);
+                        onToken(token);
+                        return;
+                    }
+                    isPrefix = true;
+                }
+            }
+            if (isPrefix) return;
+            // No placeholder starts here: the first char is plain text, rescan the rest
+            char first = pending.charAt(0);
+            pending.deleteCharAt(0);
+            fileBytes.put(first);
+            hashBytes.put(first);
+        }
+    }
+
+    private boolean startsWithPending(String token) {
+        for (int i = 0; i < pending.length(); i++) {
+            if (token.charAt(i) != pending.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void onToken(String token) throws IOException {
+        switch (token) {
+            case STABLE_TIME -> {
+                if (reserveStableTime) {
+                    fileBytes.settle();
+                    stableTimeOffsets.add(fileBytes.position());
+                    fileBytes.put(" ".repeat(TIMESTAMP_WIDTH));
+                } else {
+                    fileBytes.put(STABLE_TIME);
+                }
+            }
+            case CONSENT_BANNER -> {
+                fileBytes.put(consentBanner != null ? consentBanner : CONSENT_BANNER);
+                hashBytes.put(CONSENT_BANNER);
+            }
+            default -> {
+                fileBytes.put(CSS_VERSION);
+                cssVersionState = 1;
+            }
+        }
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    @Override
+    public void flush() {
+        // Bytes only reach the temp file in full buffers and on close
+    }
+
+    /**
+     * Finishes the stream and computes the digests. The temp file stays until {@link #commit} or {@link #discard}.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (cssVersionState == 1) {
+                hashBytes.put(CSS_VERSION);
+            }
+            for (int i = 0; i < pending.length(); i++) {
+                fileBytes.put(pending.charAt(i));
+                hashBytes.put(pending.charAt(i));
+            }
+            pending.setLength(0);
+            fileBytes.finish();
+            hashBytes.finish();
+        } finally {
+            fileOut.close();
+        }
+        digestHex = digest.hex();
+        legacyDigestHex = legacyDigest != null ? legacyDigest.hex() : null;
+    }
+
+    public boolean hasStableTime() {
+        return !stableTimeOffsets.isEmpty();
+    }
+
+    public String getDigestHex() {
+        return digestHex;
+    }
+
+    public String getLegacyDigestHex() {
+        return legacyDigestHex;
+    }
+
+    /**
+     * Returns the page exactly as {@link #commit} wrote it, or null if the writer does not capture bytes or the page
+     * was not committed.
+     */
+    public byte[] getCommittedBytes() {
+        return committedBytes;
+    }
+
+    /**
+     * Fills the reserved timestamp slots and atomically replaces the target with the temp file.
+     */
+    public void commit(String stableTime) throws IOException {
+        try {
+            byte[] content = capture != null ? capture.toByteArray() : null;
+            if (hasStableTime()) {
+                byte[] time = stableTime.getBytes(StandardCharsets.UTF_8);
+                if (time.length == TIMESTAMP_WIDTH) {
+                    try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                        for (long offset : stableTimeOffsets) {
+                            channel.write(ByteBuffer.wrap(time), offset);
+                            if (content != null) {
+                                System.arraycopy(time, 0, content, (int) offset, TIMESTAMP_WIDTH);
+                            }
+                        }
+                    }
+                } else {
+                    content = spliceStableTime(content != null ? content : Files.readAllBytes(tempFile), time);
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException _) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committedBytes = capture != null ? content : null;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Slow path for timestamps that do not fit the reserved width (e.g. hand-edited legacy caches).
+     */
+    private byte[] spliceStableTime(byte[] content, byte[] time) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + stableTimeOffsets.size() * time.length);
+        int from = 0;
+        for (long offset : stableTimeOffsets) {
+            out.write(content, from, (int) offset - from);
+            out.write(time);
+            from = (int) offset + TIMESTAMP_WIDTH;
+        }
+        out.write(content, from, content.length - from);
+        byte[] spliced = out.toByteArray();
+        Files.write(tempFile, spliced);
+        return spliced;
+    }
+
+    public void discard() throws IOException {
+        if (!closed) {
+            closed = true;
+            fileOut.close();
+        }
+        Files.deleteIfExists(tempFile);
+    }
+
+    @FunctionalInterface
+    private interface ByteSink {
+        void accept(byte[] buf, int len) throws IOException;
+    }
+
+    /**
+     * Minimal buffered UTF-8 encoder that keeps surrogate pairs intact across write calls.
+     * Unpaired surrogates become '?', like {@link String#getBytes}.
+     */
+    private static final class Utf8Encoder {
+        private final byte[] buf = new byte[8192];
+        private final ByteSink sink;
+        private int count;
+        private long flushed;
+        private char highSurrogate;
+
+        Utf8Encoder(ByteSink sink) {
+            this.sink = sink;
+        }
+
+        long position() {
+            return flushed + count;
+        }
+
+        void put(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                put(s.charAt(i));
+            }
+        }
+
+        void put(char c) throws IOException {
+            if (count > buf.length - 4) {
+                drain();
+            }
+            if (highSurrogate != 0) {
+                char high = highSurrogate;
+                highSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int cp = Character.toCodePoint(high, c);
+                    buf[count++] = (byte) (0xF0 | (cp >> 18));
+                    buf[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[count++] = (byte) (0x80 | (cp & 0x3F));
+                    return;
+                }
+                buf[count++] = '?';
+                put(c);
+                return;
+            }
+            if (c < 0x80) {
+                buf[count++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[count++] = (byte) (0xC0 | (c >> 6));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                buf[count++] = '?';
+            } else {
+                buf[count++] = (byte) (0xE0 | (c >> 12));
+                buf[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        /**
+         * Emits a dangling high surrogate, so {@link #position()} is exact.
+         */
+        void settle() throws IOException {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                put('?');
+            }
+        }
+
+        void finish() throws IOException {
+            settle();
+            drain();
+        }
+
+        private void drain() throws IOException {
+            if (count > 0) {
+                sink.accept(buf, count);
+                flushed += count;
+                count = 0;
+            }
+        }
+    }
+}
@@ -7,12 +7,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -20,20 +19,35 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Manages stable timestamps for generated HTML files.
  * If the content (excluding the timestamp) hasn't changed, the old timestamp is returned.
+ * Store paths ending with ".bin" use a binary {@link HashStore} instead of a properties file.
  */
 public class TimestampTracker {
     private static final Logger log = LoggerFactory.getLogger(TimestampTracker.class);
     private final File storeFile;
     private final Properties storedData = new Properties();
+    private final HashStore binaryStore;
+    private final ContentHasher hasher = ContentHasher.getDefault();
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
 
     // Key: File path, Value: {hash}:{timestamp}
     private final ConcurrentHashMap<String, String> currentSessionData = new ConcurrentHashMap<>();
 
+    // Binary aux layout: epoch seconds in the low bits, (hasher id + 1) in the top byte; 0 means unknown/legacy
+    private static final int HASHER_SHIFT = 56;
+    private static final long EPOCH_MASK = (1L << HASHER_SHIFT) - 1;
+
     private static final java.util.regex.Pattern MAIN_CSS_PATTERN = java.util.regex.Pattern.compile("main\\.css\\?v=[a-fA-F0-9]+");
 
     public TimestampTracker(String filePath) {
         this.storeFile = new File(filePath);
+        if (filePath.endsWith(".bin")) {
+            this.binaryStore = new HashStore(storeFile.toPath());
+            if (!storeFile.exists()) {
+                migrateLegacyProperties(Paths.get(filePath.substring(0, filePath.length() - 4) + ".properties"));
+            }
+            return;
+        }
+        this.binaryStore = null;
         if (storeFile.exists()) {
             try (InputStream in = Files.newInputStream(storeFile.toPath())) {
                 storedData.load(in);
@@ -43,6 +57,22 @@ public class TimestampTracker {
         }
     }
 
+    /**
+     * Imports entries from a legacy properties cache so existing timestamps survive the switch to the binary store.
+     */
+    private void migrateLegacyProperties(Path legacyFile) {
+        if (!Files.exists(legacyFile)) return;
+        Properties legacy = new Properties();
+        try (InputStream in = Files.newInputStream(legacyFile)) {
+            legacy.load(in);
+        } catch (IOException e) {
+            log.warn("Could not load legacy timestamp file {}: {}", legacyFile, e.getMessage());
+            return;
+        }
+        legacy.forEach((k, v) -> putBinary((String) k, TimestampEntry.parse((String) v), 0));
+        log.info("Migrated {} timestamps from {} into binary store.", binaryStore.size(), legacyFile);
+    }
+
     /**
      * Returns a stable timestamp for the given content.
      * @param hash A unique identifier for the file (e.g., its relative path).
@@ -60,31 +90,61 @@ public class TimestampTracker {
         }
     }
 
+    /**
+     * Stable timestamp of a page plus whether its content differs from the stored one.
+     */
+    public record Resolution(String timestamp, boolean modified) {}
+
     public boolean isModified(String identifier, String content) {
-        String contentToHash = MAIN_CSS_PATTERN.matcher(content.replace("[[STABLE_TIME]]", ""))
-                .replaceAll("main.css?v=STABLE");
-        String currentHash = calculateHash(contentToHash);
-        TimestampEntry entry = TimestampEntry.parse((String) storedData.get(identifier));
-        return entry == null || !entry.hash().equals(currentHash);
+        String contentToHash = normalize(content);
+        TimestampEntry entry = TimestampEntry.parse(getStoredRaw(identifier));
+        return entry == null || !matchesStoredHash(entry, calculateHash(contentToHash),
+                needsLegacyDigest(identifier) ? ContentHasher.md5().hash(contentToHash) : null);
     }
 
     public String getStableTimestamp(String identifier, String content) {
-        String contentToHash = MAIN_CSS_PATTERN.matcher(content.replace("[[STABLE_TIME]]", ""))
-                .replaceAll("main.css?v=STABLE");
-        String currentHash = calculateHash(contentToHash);
-        TimestampEntry entry = TimestampEntry.parse((String) storedData.get(identifier));
+        String contentToHash = normalize(content);
+        return resolve(identifier, calculateHash(contentToHash),
+                needsLegacyDigest(identifier) ? ContentHasher.md5().hash(contentToHash) : null).timestamp();
+    }
+
+    /**
+     * Resolves the stable timestamp from a digest computed by the caller (e.g. while streaming the page to disk)
+     * over the normalized content: without [[STABLE_TIME]] and with the main.css version collapsed.
+     * @param legacyHash MD5 of the same content, only needed when {@link #needsLegacyDigest} is true; may be null.
+     */
+    public Resolution resolve(String identifier, String currentHash, String legacyHash) {
+        TimestampEntry entry = TimestampEntry.parse(getStoredRaw(identifier));
 
-        if (entry != null && entry.hash().equals(currentHash)) {
+        if (entry != null && matchesStoredHash(entry, currentHash, legacyHash)) {
             // Content is the same, reuse the old timestamp
             String stableTime = entry.timestamp();
             currentSessionData.put(identifier, new TimestampEntry(currentHash, stableTime).toRaw());
-            return stableTime;
+            return new Resolution(stableTime, false);
         }
 
         // Content changed or new file, generate new timestamp
         String newTime = LocalDateTime.now().format(formatter);
         currentSessionData.put(identifier, new TimestampEntry(currentHash, newTime).toRaw());
-        return newTime;
+        return new Resolution(newTime, true);
+    }
+
+    public ContentHasher getHasher() {
+        return hasher;
+    }
+
+    /**
+     * True if the stored entry may have been written by the legacy MD5 hasher, so an MD5 digest is needed to
+     * recognise unchanged content. Binary entries record their hasher; properties entries cannot tell.
+     */
+    public boolean needsLegacyDigest(String identifier) {
+        if (hasher == ContentHasher.md5()) return false;
+        if (binaryStore == null) return storedData.containsKey(identifier);
+        return binaryStore.contains(identifier) && (binaryStore.getAux(identifier, 0L) >>> HASHER_SHIFT) != hasher.id() + 1;
+    }
+
+    private static String normalize(String content) {
+        return MAIN_CSS_PATTERN.matcher(content.replace("[[STABLE_TIME]]", "")).replaceAll("main.css?v=STABLE");
     }
 
     /**
@@ -105,7 +165,7 @@ public class TimestampTracker {
     public String getIsoDateOrDefault(String identifier, String defaultIsoDate) {
         String raw = currentSessionData.get(identifier);
         if (raw == null) {
-            raw = storedData.getProperty(identifier);
+            raw = getStoredRaw(identifier);
         }
         TimestampEntry entry = TimestampEntry.parse(raw);
         if (entry != null && entry.timestamp() != null) {
@@ -123,7 +183,35 @@ public class TimestampTracker {
         return defaultIsoDate;
     }
 
+    private String getStoredRaw(String identifier) {
+        if (binaryStore == null) {
+            return storedData.getProperty(identifier);
+        }
+        String hash = binaryStore.getDigestHex(identifier);
+        if (hash == null) return null;
+        LocalDateTime time = LocalDateTime.ofEpochSecond(binaryStore.getAux(identifier, 0L) & EPOCH_MASK, 0, ZoneOffset.UTC);
+        return new TimestampEntry(hash, time.format(formatter)).toRaw();
+    }
+
+    private void putBinary(String identifier, TimestampEntry entry, long hasherTag) {
+        if (entry == null) return;
+        try {
+            long epochSecond = LocalDateTime.parse(entry.timestamp(), formatter).toEpochSecond(ZoneOffset.UTC);
+            binaryStore.put(identifier, entry.hash(), (hasherTag << HASHER_SHIFT) | epochSecond);
+        } catch (Exception _) {
+            // Not a 128-bit hash or not our timestamp format: the page just gets a fresh timestamp
+        }
+    }
+
     public void save() {
+        if (binaryStore != null) {
+            // Session entries are always hashed with the current hasher
+            currentSessionData.forEach((k, v) -> putBinary(k, TimestampEntry.parse(v), hasher.id() + 1));
+            Path parent = storeFile.toPath().getParent();
+            // Entries for deleted pages are only pruned when the journal is compacted
+            binaryStore.save(identifier -> !Files.exists(parent != null ? parent.resolve(identifier) : Paths.get(identifier)));
+            return;
+        }
         try {
             Path parent = storeFile.toPath().getParent();
             if (parent != null) {
@@ -148,17 +236,15 @@ public class TimestampTracker {
         }
     }
 
+    /**
+     * Compares against the stored hash. Entries written with the legacy MD5 hasher are accepted too,
+     * so switching hashers keeps existing timestamps instead of marking every page as modified.
+     */
+    private boolean matchesStoredHash(TimestampEntry entry, String currentHash, String legacyHash) {
+        return entry.hash().equals(currentHash) || entry.hash().equals(legacyHash);
+    }
+
     private String calculateHash(String content) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(content.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception _) {
-            return String.valueOf(content.hashCode());
-        }
+        return hasher.hash(content);
     }
 }
@@ -0,0 +1,161 @@
+package de.maulmann;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTML pages rendered this run, already minified and compressed, waiting for the Phase 3 upload.
+ * <p>
+ * Off unless the deploy pipeline enables it. Renderers then offer every page they write together with its bytes: the
+ * page is hashed with the upload tracker's hasher and, if it differs from the last upload, minified and compressed on
+ * a virtual thread while rendering goes on. Phase 3 takes the ready artifact instead of reading, decoding and
+ * minifying the file again. The page is still written to output/ for local preview, and the S3 ghost sweep and the
+ * hash store go by the files there.
+ * <p>
+ * The compressors store their output in the {@link ArtifactCache}; an artifact only carries the cache key, so memory
+ * stays flat however many pages change. At most {@link #MAX_PENDING} offered pages wait for compression, further
+ * offers block the renderer.
+ * <p>
+ * With a gzip compressor (gzip publishing), both encodings are produced from the same minified buffer in parallel.
+ */
+public final class UploadQueue {
+    private static final Logger log = LoggerFactory.getLogger(UploadQueue.class);
+
+    static final int MAX_PENDING = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * Compresses minified bytes for upload, e.g. Brotli at the Phase 3 quality, into the {@link ArtifactCache}.
+     */
+    @FunctionalInterface
+    public interface Compressor {
+        void compress(byte[] data, String type) throws IOException;
+    }
+
+    /**
+     * A rendered page. The digest is that of the file as written, so it can stand in for {@link FileTracker#getHash}.
+     * {@code cacheKey} is the {@link ArtifactCache#digest} of the minified page, or null if the page had not changed
+     * since its last upload; {@code gzipped} tells whether the gzip compressor ran too.
+     */
+    public record Artifact(String digest, int minifiedLength, String cacheKey, boolean gzipped) {
+    }
+
+    private static volatile UploadQueue active;
+
+    private final FileTracker tracker;
+    private final Compressor compressor;
+    private final Compressor gzipCompressor;
+    private final ConcurrentHashMap<Path, CompletableFuture<Artifact>> artifacts = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore pending = new Semaphore(MAX_PENDING);
+
+    private UploadQueue(FileTracker tracker, Compressor compressor, Compressor gzipCompressor) {
+        this.tracker = tracker;
+        this.compressor = compressor;
+        this.gzipCompressor = gzipCompressor;
+    }
+
+    /**
+     * Starts collecting pages. {@code tracker} must be the one Phase 3 checks and updates.
+     */
+    public static void enable(FileTracker tracker, Compressor compressor) {
+        enable(tracker, compressor, null);
+    }
+
+    /**
+     * Starts collecting pages and also gzips them with {@code gzipCompressor} unless it is null.
+     */
+    public static void enable(FileTracker tracker, Compressor compressor, Compressor gzipCompressor) {
+        active = new UploadQueue(tracker, compressor, gzipCompressor);
+    }
+
+    /**
+     * Stops collecting and drops any artifacts that were not taken.
+     */
+    public static void disable() {
+        UploadQueue queue = active;
+        active = null;
+        if (queue != null) {
+            queue.executor.close();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    /**
+     * Queues a page that was just written to {@code file} with exactly these bytes. Does nothing if the queue is off,
+     * blocks while {@link #MAX_PENDING} pages are waiting. If preparing fails the page is left out, so Phase 3
+     * processes the file from disk as before.
+     */
+    public static void offer(Path file, byte[] content) {
+        UploadQueue queue = active;
+        if (queue == null || content == null) return;
+        queue.pending.acquireUninterruptibly();
+        try {
+            queue.artifacts.put(key(file), CompletableFuture.supplyAsync(() -> {
+                try {
+                    return queue.prepare(file, content);
+                } catch (Exception e) {
+                    log.warn("Could not prepare {} for upload, it will be read from disk: {}", file, e.getMessage());
+                    return null;
+                } finally {
+                    queue.pending.release();
+                }
+            }, queue.executor));
+        } catch (RejectedExecutionException e) {
+            queue.pending.release();
+        }
+    }
+
+    /**
+     * Removes and returns the artifact for {@code file}, waiting for it if it is still being prepared.
+     * Returns null if the page was not rendered this run.
+     */
+    public static Artifact take(Path file) {
+        UploadQueue queue = active;
+        CompletableFuture<Artifact> artifact = queue != null ? queue.artifacts.remove(key(file)) : null;
+        return artifact != null ? artifact.join() : null;
+    }
+
+    static int size() {
+        UploadQueue queue = active;
+        return queue != null ? queue.artifacts.size() : 0;
+    }
+
+    private Artifact prepare(Path file, byte[] content) throws IOException {
+        String digest = tracker.getHasher().hash(content);
+        if (digest.equals(tracker.getStoredHash(file))) {
+            return new Artifact(digest, 0, null, false);
+        }
+        long minifyStart = System.nanoTime();
+        byte[] minified = HTMLMinifier.minifyHTMLToBytes(content);
+        BuildMetrics.histogram("minify_seconds", "type", "html").recordSince(minifyStart);
+        CompletableFuture<Void> gzipped = gzipCompressor == null ? null : CompletableFuture.runAsync(() -> {
+            try {
+                gzipCompressor.compress(minified, "html");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+        compressor.compress(minified, "html");
+        if (gzipped != null) {
+            gzipped.join();
+        }
+        return new Artifact(digest, minified.length, ArtifactCache.digest(minified), gzipped != null);
+    }
+
+    private static Path key(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
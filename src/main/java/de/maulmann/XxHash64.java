@@ -0,0 +1,138 @@
+package de.maulmann;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of the 64-bit xxHash (XXH64) algorithm.
+ * Non-cryptographic: used for fast change detection, never for stable public ids.
+ */
+public final class XxHash64 {
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private final long seed;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long totalLength;
+
+    // Tail of the last update that did not fill a full 32-byte stripe
+    private final ByteBuffer pending = ByteBuffer.allocate(32).order(ByteOrder.LITTLE_ENDIAN);
+
+    public XxHash64(long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public void reset() {
+        v1 = seed + P1 + P2;
+        v2 = seed + P2;
+        v3 = seed;
+        v4 = seed - P1;
+        totalLength = 0;
+        pending.clear();
+    }
+
+    public void update(byte[] data, int offset, int length) {
+        update(ByteBuffer.wrap(data, offset, length));
+    }
+
+    /**
+     * Consumes all remaining bytes of the buffer (heap or direct) and advances its position to the limit.
+     */
+    public void update(ByteBuffer data) {
+        ByteOrder originalOrder = data.order();
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            totalLength += data.remaining();
+
+            if (pending.position() > 0) {
+                while (pending.hasRemaining() && data.hasRemaining()) {
+                    pending.put(data.get());
+                }
+                if (pending.hasRemaining()) return;
+                processStripe(pending, 0);
+                pending.clear();
+            }
+
+            int pos = data.position();
+            int limit = data.limit();
+            for (; limit - pos >= 32; pos += 32) {
+                processStripe(data, pos);
+            }
+            data.position(pos);
+            pending.put(data);
+        } finally {
+            data.order(originalOrder);
+        }
+    }
+
+    private void processStripe(ByteBuffer buf, int pos) {
+        v1 = round(v1, buf.getLong(pos));
+        v2 = round(v2, buf.getLong(pos + 8));
+        v3 = round(v3, buf.getLong(pos + 16));
+        v4 = round(v4, buf.getLong(pos + 24));
+    }
+
+    /**
+     * Returns the hash of all bytes consumed so far. Does not reset the state.
+     */
+    public long digest() {
+        long h;
+        if (totalLength >= 32) {
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        } else {
+            h = seed + P5;
+        }
+        h += totalLength;
+
+        int len = pending.position();
+        int pos = 0;
+        for (; pos + 8 <= len; pos += 8) {
+            h ^= round(0, pending.getLong(pos));
+            h = Long.rotateLeft(h, 27) * P1 + P4;
+        }
+        if (pos + 4 <= len) {
+            h ^= (pending.getInt(pos) & 0xFFFFFFFFL) * P1;
+            h = Long.rotateLeft(h, 23) * P2 + P3;
+            pos += 4;
+        }
+        for (; pos < len; pos++) {
+            h ^= (pending.get(pos) & 0xFFL) * P5;
+            h = Long.rotateLeft(h, 11) * P1;
+        }
+
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    public static long hash(byte[] data, long seed) {
+        XxHash64 xx = new XxHash64(seed);
+        xx.update(data, 0, data.length);
+        return xx.digest();
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * P2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * P1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * P1 + P4;
+    }
+}
@@ -0,0 +1,18 @@
+/* CloudFront Function (viewer request) for deploys with -DPUBLISH_GZIP=true.
+ * Text files are stored Brotli-encoded under their own key and gzip-encoded under <key>.gz;
+ * clients that accept gzip but not br are routed to the gzip variant. Clients that accept neither
+ * (no Accept-Encoding, or only identity) still get br, as there is no uncompressed variant.
+ * Sitemaps are uploaded as they are. */
+function handler(event) {
+    var request = event.request;
+    var acceptEncoding = request.headers['accept-encoding'] ? request.headers['accept-encoding'].value : '';
+    var uri = request.uri === '/' ? '/index.html' : request.uri;
+
+    if (!/\bbr\b/.test(acceptEncoding)
+            && /\bgzip\b/.test(acceptEncoding)
+            && /\.(html|css|js|json|xml|xsl)$/.test(uri)
+            && !/\/sitemap[^\/]*\.xml$/.test(uri)) {
+        request.uri = uri + '.gz';
+    }
+    return request;
+}
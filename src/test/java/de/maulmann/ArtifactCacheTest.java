@@ -0,0 +1,111 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArtifactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long countFiles(Path dir) throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void testSameContentIsEncodedOnce() throws Exception {
+        AtomicInteger encodes = new AtomicInteger();
+        ArtifactCache.Encoder reverse = input -> {
+            encodes.incrementAndGet();
+            return new StringBuilder(new String(input, StandardCharsets.UTF_8)).reverse().toString().getBytes(StandardCharsets.UTF_8);
+        };
+        ArtifactCache cache = new ArtifactCache(tempDir, ArtifactCache.DEFAULT_MAX_BYTES);
+
+        assertArrayEquals(bytes("cba"), cache.get(bytes("abc"), "br9", reverse));
+        assertArrayEquals(bytes("cba"), cache.get(bytes("abc"), "br9", reverse));
+        assertEquals(1, encodes.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.get(bytes("abc"), "br11", reverse);
+        assertEquals(2, encodes.get(), "Other settings are a different artifact.");
+    }
+
+    @Test
+    void testEntriesSurviveARestart() throws Exception {
+        new ArtifactCache(tempDir, ArtifactCache.DEFAULT_MAX_BYTES).get(bytes("<html>page</html>"), "br9", input -> bytes("compressed"));
+
+        ArtifactCache restored = new ArtifactCache(tempDir, ArtifactCache.DEFAULT_MAX_BYTES);
+        byte[] cached = restored.get(bytes("<html>page</html>"), "br9", input -> {
+            throw new AssertionError("Must be served from disk");
+        });
+
+        assertArrayEquals(bytes("compressed"), cached);
+        assertEquals(10, restored.getTotalBytes());
+    }
+
+    @Test
+    void testTrimEvictsLeastRecentlyUsed() throws Exception {
+        ArtifactCache cache = new ArtifactCache(tempDir, 25);
+        cache.get(bytes("a"), "br9", input -> new byte[10]);
+        cache.get(bytes("b"), "br9", input -> new byte[10]);
+        cache.get(bytes("c"), "br9", input -> new byte[10]);
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            // Make "a" the oldest on disk, then use "b" so only "a" is stale
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L));
+            }
+        }
+        ArtifactCache reloaded = new ArtifactCache(tempDir, 25);
+        reloaded.get(bytes("b"), "br9", input -> new byte[10]);
+        reloaded.get(bytes("c"), "br9", input -> new byte[10]);
+
+        assertEquals(1, reloaded.trim());
+        assertEquals(20, reloaded.getTotalBytes());
+        assertEquals(2, countFiles(tempDir));
+        AtomicInteger encodes = new AtomicInteger();
+        reloaded.get(bytes("a"), "br9", input -> {
+            encodes.incrementAndGet();
+            return new byte[10];
+        });
+        assertEquals(1, encodes.get(), "The evicted entry is encoded again.");
+    }
+
+    @Test
+    void testInterruptedWritesAreCleanedUp() throws Exception {
+        Path stale = Files.createDirectories(tempDir.resolve("ab")).resolve("abcdef.br9.42.tmp");
+        Files.write(stale, new byte[100]);
+
+        ArtifactCache cache = new ArtifactCache(tempDir, ArtifactCache.DEFAULT_MAX_BYTES);
+
+        assertFalse(Files.exists(stale));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    void testFindByInputDigest() throws Exception {
+        ArtifactCache cache = new ArtifactCache(tempDir, ArtifactCache.DEFAULT_MAX_BYTES);
+        cache.get(bytes("<html>page</html>"), "br5", input -> bytes("compressed"));
+
+        String key = ArtifactCache.digest(bytes("<html>page</html>"));
+        assertArrayEquals(bytes("compressed"), cache.find(key, "br5"));
+        assertNull(cache.find(key, "br11"));
+        assertNull(cache.find(ArtifactCache.digest(bytes("other")), "br5"));
+        assertEquals(0, cache.getHits(), "Lookups by key are not compression cache hits.");
+    }
+}
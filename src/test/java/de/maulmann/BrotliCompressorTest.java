@@ -5,10 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Random;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BrotliCompressorTest {
@@ -78,4 +82,46 @@ class BrotliCompressorTest {
             assertEquals(originalContent, baos.toString(), "Decompressed bytes should match original content.");
         }
     }
+
+    private static byte[] decompress(ByteBuffer compressed) throws IOException {
+        byte[] data = new byte[compressed.remaining()];
+        compressed.get(data);
+        try (BrotliInputStream bis = new BrotliInputStream(new ByteArrayInputStream(data))) {
+            return bis.readAllBytes();
+        }
+    }
+
+    @Test
+    void testCompressBuffers() throws IOException {
+        byte[] page = "<div class=\"card\">Juwan Howard</div>\n".repeat(2_000).getBytes();
+        // Random bytes do not compress, so the pooled output buffer has to grow past its initial estimate
+        byte[] noise = new byte[300_000];
+        new Random(7).nextBytes(noise);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(page.length).put(page).flip();
+        ByteBuffer fromDirect = BrotliCompressor.compress(direct, BrotliCompressor.DEFAULT_QUALITY);
+        assertFalse(direct.hasRemaining(), "The input is consumed.");
+        assertEquals(fromDirect.array().length, fromDirect.remaining(), "The result is backed by an exact-size array.");
+        assertArrayEquals(page, decompress(fromDirect));
+
+        assertArrayEquals(noise, decompress(BrotliCompressor.compress(ByteBuffer.wrap(noise), 1)));
+        // A slice with an array offset, compressed by a session that was just grown by other data
+        ByteBuffer slice = ByteBuffer.wrap(page, 10, 500).slice();
+        assertArrayEquals(java.util.Arrays.copyOfRange(page, 10, 510), decompress(BrotliCompressor.compress(slice, 9)));
+        assertArrayEquals(BrotliCompressor.compressBytes(page, 9), BrotliCompressor.compress(ByteBuffer.wrap(page), 9).array());
+    }
+
+    @Test
+    void testCompressWithDictionary() throws IOException {
+        String boilerplate = "<html><head><title>Card</title><link rel=\"stylesheet\" href=\"/main.css\"></head><body><nav>Home Collection Binder</nav>";
+        byte[] dictionary = (boilerplate + "<footer>Juwan Howard Collection</footer></body></html>").getBytes();
+        byte[] page = (boilerplate + "<h1>1994 Fleer Ultra #12</h1><footer>Juwan Howard Collection</footer></body></html>").getBytes();
+
+        byte[] shared = BrotliCompressor.compressBytes(page, 9, BrotliCompressor.prepareDictionary(dictionary));
+        assertTrue(shared.length < BrotliCompressor.compressBytes(page, 9).length, "The dictionary should cover the boilerplate.");
+        try (BrotliInputStream bis = new BrotliInputStream(new ByteArrayInputStream(shared))) {
+            bis.attachDictionary(ByteBuffer.allocateDirect(dictionary.length).put(dictionary).flip());
+            assertArrayEquals(page, bis.readAllBytes());
+        }
+    }
 }
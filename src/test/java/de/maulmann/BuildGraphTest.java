@@ -0,0 +1,84 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildGraphTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testFingerprintIsDeterministicAndOrderIndependentForMaps() {
+        Map<String, String> hashed = new HashMap<>();
+        hashed.put("Player", "Juwan Howard");
+        hashed.put("Season", "1994-95");
+        Map<String, String> sorted = new TreeMap<>(hashed);
+
+        assertEquals(BuildGraph.fingerprint("shared", hashed), BuildGraph.fingerprint("shared", sorted));
+        assertNotEquals(BuildGraph.fingerprint("shared", hashed), BuildGraph.fingerprint("other", hashed));
+        // Separators must keep adjacent parts from colliding
+        assertNotEquals(BuildGraph.fingerprint("ab", "c"), BuildGraph.fingerprint("a", "bc"));
+        assertNotEquals(BuildGraph.fingerprint(List.of("a", "b")), BuildGraph.fingerprint(List.of("b", "a")));
+    }
+
+    @Test
+    void testSkipsUnchangedOutputsAcrossSessions() throws Exception {
+        Path storeFile = tempDir.resolve("build-graph.properties");
+        Path page = tempDir.resolve("card.html");
+        Files.writeString(page, "<html></html>");
+
+        String inputs = BuildGraph.fingerprint("card", "template-v1");
+
+        BuildGraph graph = new BuildGraph(storeFile.toString());
+        assertFalse(graph.isUpToDate("cards/card.html", inputs, page), "Unknown output must be rebuilt.");
+        graph.record("cards/card.html", inputs);
+        graph.save();
+
+        BuildGraph reloaded = new BuildGraph(storeFile.toString());
+        assertTrue(reloaded.isUpToDate("cards/card.html", inputs, page));
+        assertFalse(reloaded.isUpToDate("cards/card.html", BuildGraph.fingerprint("card", "template-v2"), page),
+                "Changed inputs must trigger a rebuild.");
+        assertEquals(1, reloaded.getSkippedCount());
+
+        Files.delete(page);
+        assertFalse(reloaded.isUpToDate("cards/card.html", inputs, page), "Missing outputs must be rebuilt.");
+    }
+
+    @Test
+    void testSaveDropsOutputsNotSeenInSession() throws Exception {
+        Path storeFile = tempDir.resolve("build-graph.properties");
+        Path page = tempDir.resolve("kept.html");
+        Files.writeString(page, "<html></html>");
+
+        BuildGraph graph = new BuildGraph(storeFile.toString());
+        graph.record("kept.html", "a");
+        graph.record("removed.html", "b");
+        graph.save();
+
+        BuildGraph second = new BuildGraph(storeFile.toString());
+        assertTrue(second.isUpToDate("kept.html", "a", page));
+        second.save();
+
+        BuildGraph third = new BuildGraph(storeFile.toString());
+        assertTrue(third.isUpToDate("kept.html", "a", page));
+        assertFalse(third.isUpToDate("removed.html", "b", page), "Entries not seen in the last session must be dropped.");
+    }
+
+    @Test
+    void testClassFingerprintIsStable() {
+        String first = BuildGraph.classFingerprint(BuildGraph.class, CardPageGenerator.CardData.class);
+        assertNotNull(first);
+        assertEquals(first, BuildGraph.classFingerprint(BuildGraph.class, CardPageGenerator.CardData.class));
+        assertNotEquals(first, BuildGraph.classFingerprint(BuildGraph.class));
+    }
+}
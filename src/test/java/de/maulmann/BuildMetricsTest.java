@@ -0,0 +1,101 @@
+package de.maulmann;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    @AfterEach
+    void reset() {
+        BuildMetrics.reset();
+        PhaseProfiler.reset();
+    }
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        for (long micros = 0; micros < 100_000; micros++) {
+            int bucket = BuildMetrics.Histogram.bucketOf(micros);
+            assertTrue(micros <= BuildMetrics.Histogram.bucketUpperBound(bucket), "upper bound of " + micros);
+            assertTrue(bucket == 0 || micros > BuildMetrics.Histogram.bucketUpperBound(bucket - 1), "lower bound of " + micros);
+        }
+    }
+
+    @Test
+    void testQuantilesWithinBucketPrecision() {
+        BuildMetrics.Histogram histogram = BuildMetrics.histogram("render_seconds");
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(0.001, histogram.getMinSeconds(), 1e-9);
+        assertEquals(1.0, histogram.getMaxSeconds(), 1e-9);
+        assertEquals(500.5, histogram.getSumSeconds(), 1e-6);
+        assertEquals(0.5, histogram.quantileSeconds(0.5), 0.5 * 0.125);
+        assertEquals(0.99, histogram.quantileSeconds(0.99), 0.99 * 0.125);
+        assertEquals(1.0, histogram.quantileSeconds(1.0), 1e-9);
+    }
+
+    @Test
+    void testSeriesAreKeyedByLabels() {
+        BuildMetrics.histogram("minify_seconds", "type", "html").recordNanos(1_000_000);
+        BuildMetrics.histogram("minify_seconds", "type", "html").recordNanos(1_000_000);
+        BuildMetrics.histogram("minify_seconds", "type", "css").recordNanos(1_000_000);
+
+        assertSame(BuildMetrics.histogram("minify_seconds", "type", "html"), BuildMetrics.histogram("minify_seconds", "type", "html"));
+        assertEquals(2, BuildMetrics.histogram("minify_seconds", "type", "html").getCount());
+        assertEquals(1, BuildMetrics.histogram("minify_seconds", "type", "css").getCount());
+    }
+
+    @Test
+    void testOpenMetricsExposition() {
+        BuildMetrics.histogram("s3_put_seconds").recordNanos(2_000_000);
+        BuildMetrics.increment("s3_retries", 3, "operation", "PutObject");
+        BuildMetrics.gauge("cards", 1464);
+        PhaseProfiler.measure("sitemap", () -> {
+        });
+
+        String text = BuildMetrics.toOpenMetrics();
+
+        assertTrue(text.contains("# TYPE site_build_s3_put_seconds summary\n# UNIT site_build_s3_put_seconds seconds\n"));
+        assertTrue(text.contains("site_build_s3_put_seconds{quantile=\"0.5\"} 0.002000\n"));
+        assertTrue(text.contains("site_build_s3_put_seconds_count 1\n"));
+        assertTrue(text.contains("# TYPE site_build_s3_retries counter\nsite_build_s3_retries_total{operation=\"PutObject\"} 3\n"));
+        assertTrue(text.contains("site_build_cards 1464.000000\n"));
+        assertTrue(text.contains("site_build_phase_duration_seconds{phase=\"sitemap\"}"));
+        assertTrue(text.endsWith("# EOF\n"));
+    }
+
+    @Test
+    void testExportWritesJsonAndOpenMetrics() throws Exception {
+        BuildMetrics.histogram("image_encode_seconds", "width", "200").recordNanos(5_000_000);
+        BuildMetrics.gauge("cards", 1, "source", "say \"hi\"");
+
+        BuildMetrics.export(tempDir);
+
+        JsonNode json = new ObjectMapper().readTree(tempDir.resolve(BuildMetrics.JSON_FILE).toFile());
+        JsonNode histogram = json.get("histograms").get(0);
+        assertEquals("image_encode_seconds", histogram.get("name").asText());
+        assertEquals("200", histogram.get("labels").get("width").asText());
+        assertEquals(1, histogram.get("count").asLong());
+        assertEquals(0.005, histogram.get("p99Seconds").asDouble(), 1e-9);
+        assertTrue(json.get("phases").isEmpty());
+        assertTrue(json.get("counters").isEmpty());
+        assertEquals("say \"hi\"", json.get("gauges").get(0).get("labels").get("source").asText());
+        assertTrue(Files.exists(tempDir.resolve(BuildMetrics.OPEN_METRICS_FILE)));
+    }
+}
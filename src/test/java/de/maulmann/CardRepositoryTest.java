@@ -0,0 +1,113 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardRepositoryTest {
+
+    private static final String CARDS = """
+            [
+              {"player": "Juwan Howard", "season": "1996-97", "company": "Fleer", "brand": "Flair", "variant": "Base", "cardNumber": "7"},
+              {"player": "Juwan Howard", "season": "1996-97", "company": "Fleer", "brand": "Flair", "variant": "Base", "cardNumber": "7"},
+              {"player": "Juwan Howard", "season": "1996-97", "company": "Fleer", "brand": "Flair", "variant": "Base", "cardNumber": "7", "serialNumber": "3"},
+              {"player": "Juwan Howard", "season": "1997-98", "company": "Fleer", "brand": "Metal", "variant": "PMG", "cardNumber": "33", "printRun": 10}
+            ]
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    private String originalSourcePath;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        originalSourcePath = FileGenerator.pathSource;
+        Path jsonDir = Files.createDirectories(tempDir.resolve("content").resolve("json"));
+        Files.writeString(jsonDir.resolve("cards.json"), CARDS);
+        Files.writeString(jsonDir.resolve("baseball.json"), "[{\"player\": \"Ken Griffey Jr.\", \"season\": \"2005\", \"brand\": \"Ultimate\"}]");
+        FileGenerator.pathSource = tempDir.resolve("content") + "/";
+        CardRepository.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        FileGenerator.pathSource = originalSourcePath;
+        CardRepository.reset();
+    }
+
+    @Test
+    void testLoadsEveryBucketOnce() {
+        CardRepository repository = CardRepository.get();
+
+        assertSame(repository, CardRepository.get());
+        assertEquals(4, repository.dataset(CardRepository.Bucket.CARDS).size());
+        assertEquals(1, repository.dataset(CardRepository.Bucket.BASEBALL).size());
+        assertTrue(repository.dataset(CardRepository.Bucket.PANINI).isEmpty());
+        assertEquals(FileGenerator.pathSource + "json/baseball.json", repository.dataset(CardRepository.Bucket.BASEBALL).source);
+    }
+
+    @Test
+    void testDeduplicatesUnnumberedCards() {
+        CardRepository.Dataset cards = CardRepository.get().dataset(CardRepository.Bucket.CARDS);
+
+        // The second base card is an un-numbered duplicate, the serial numbered copy is kept
+        assertEquals(3, cards.unique().size());
+        assertEquals(List.of("1996-97 Fleer Flair Base #7 - Juwan Howard"), cards.skipped());
+        // The same rows survive as with the CardJson based filter
+        List<CardJson> json = cards.cards().stream().map(CardPageGenerator.CardData::json).toList();
+        assertEquals(FileGenerator.filterDuplicateJsonCards(json).stream().map(json::indexOf).toList(),
+                cards.unique().stream().map(cards.cards()::indexOf).toList());
+        assertSame(cards.index(), cards.index());
+
+        // Page cards are the unique cards of every bucket in bucket order
+        List<CardPageGenerator.CardData> pageCards = CardRepository.get().pageCards();
+        assertEquals(4, pageCards.size());
+        assertEquals(cards.unique(), pageCards.subList(0, 3));
+        assertEquals("Ken Griffey Jr.", pageCards.get(3).get("Player"));
+    }
+
+    @Test
+    void testCardDataIsSharedByRow() {
+        CardRepository repository = CardRepository.get();
+        CardRepository.Dataset cards = repository.dataset(CardRepository.Bucket.CARDS);
+
+        for (int row = 0; row < cards.size(); row++) {
+            assertSame(cards.cards().get(row), repository.cardData(cards.store, row));
+            assertSame(cards.cards().get(row), CardPageGenerator.computeCardData(cards.store, row));
+        }
+
+        // An equal card from another store gets its own view with the same paths
+        CardStore copy = CardStore.of(List.of(cards.store.toCardJson(3)));
+        CardPageGenerator.CardData fresh = repository.cardData(copy, 0);
+        assertNotSame(cards.cards().get(3), fresh);
+        assertEquals(cards.cards().get(3).fullRelativePath, fresh.fullRelativePath);
+    }
+
+    @Test
+    void testReloadsWhenSourceChanges() throws Exception {
+        CardRepository first = CardRepository.get();
+
+        Path otherDir = Files.createDirectories(tempDir.resolve("other").resolve("json"));
+        Files.writeString(otherDir.resolve("cards.json"), "[]");
+        FileGenerator.pathSource = tempDir.resolve("other") + "/";
+
+        CardRepository second = CardRepository.get();
+        assertNotSame(first, second);
+        assertTrue(second.dataset(CardRepository.Bucket.CARDS).isEmpty());
+    }
+
+    @Test
+    void testBucketForCollection() {
+        assertEquals(CardRepository.Bucket.BASEBALL, CardRepository.Bucket.forCollection("Baseball"));
+        assertEquals(CardRepository.Bucket.WANTLIST, CardRepository.Bucket.forCollection("Wantlist"));
+        assertNull(CardRepository.Bucket.forCollection("privacy"));
+    }
+}
@@ -0,0 +1,120 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardStoreTest {
+
+    private static final String JSON = """
+            [
+              {"id": "a1", "player": "Juwan Howard", "season": "1996-97", "team": null, "company": "Fleer",
+               "brand": "Flair", "variant": "Base", "cardNumber": "7", "serialNumber": "12", "printRun": 50,
+               "isAutograph": true, "isPatch": false, "isRookie": false, "extra": {"nested": [1, 2]}},
+              null,
+              {"player": "Juwan Howard", "season": "1996-97", "team": "Washington Bullets", "company": "Fleer",
+               "brand": "Flair", "variant": "Row 0", "cardNumber": 8, "printRun": "25", "isPatch": 1, "isRookie": "true"},
+              {"collection": "Panini", "season": "2012-13", "brand": "Prizm", "printRun": ""}
+            ]
+            """;
+
+    private static CardStore read(String json) throws IOException {
+        return CardStore.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testStreamingReadFillsColumns() throws IOException {
+        CardStore store = read(JSON);
+
+        assertEquals(3, store.size());
+        assertEquals("a1", store.get(0, CardStore.Column.ID));
+        assertNull(store.get(0, CardStore.Column.TEAM));
+        assertEquals("Flair", store.get(0, CardStore.Column.BRAND));
+        assertEquals(50, (int) store.printRun(0));
+        assertTrue(store.isAutograph(0));
+        assertFalse(store.isPatch(0));
+
+        // Scalars are coerced like Jackson does for CardJson
+        assertEquals("8", store.get(1, CardStore.Column.CARD_NUMBER));
+        assertEquals(25, (int) store.printRun(1));
+        assertTrue(store.isPatch(1));
+        assertTrue(store.isRookie(1));
+
+        assertNull(store.get(2, CardStore.Column.PLAYER));
+        assertNull(store.printRun(2));
+    }
+
+    @Test
+    void testDictionaryColumnsStoreEachValueOnce() throws IOException {
+        CardStore store = read(JSON);
+
+        assertEquals(2, store.cardinality(CardStore.Column.BRAND));
+        assertEquals(store.code(0, CardStore.Column.SEASON), store.code(1, CardStore.Column.SEASON));
+        assertNotEquals(store.code(0, CardStore.Column.VARIANT), store.code(1, CardStore.Column.VARIANT));
+        assertEquals(-1, store.code(2, CardStore.Column.COMPANY));
+        assertThrows(IllegalArgumentException.class, () -> store.code(0, CardStore.Column.SERIAL_NUMBER));
+    }
+
+    @Test
+    void testReadMatchesCardJsonStore() throws IOException {
+        CardJson json = new CardJson();
+        json.player = "Juwan Howard";
+        json.season = "1996-97";
+        json.company = "Fleer";
+        json.brand = "Flair";
+        json.variant = "Base";
+        json.cardNumber = "7";
+        json.serialNumber = "12";
+        json.printRun = 50;
+        json.isAutograph = true;
+
+        CardPageGenerator.CardData streamed = new CardPageGenerator.CardData(read(JSON), 0, null);
+        CardPageGenerator.CardData fromJson = new CardPageGenerator.CardData(CardStore.of(List.of(json)), 0, null);
+
+        assertEquals(fromJson.attributes(), streamed.attributes());
+        assertEquals(fromJson.stableId, streamed.stableId);
+        assertEquals(fromJson.fullRelativePath, streamed.fullRelativePath);
+
+        CardPageGenerator.CardData single = new CardPageGenerator.CardData(json, null);
+        assertNull(single.store, "A single card is viewed through its CardJson, not a store of its own.");
+        assertEquals(streamed.attributes(), single.attributes());
+        assertEquals(streamed.stableId, single.stableId);
+        assertEquals(streamed.fullRelativePath, single.fullRelativePath);
+    }
+
+    @Test
+    void testCardDataViewResolvesAliasesAndDerivedFields() throws IOException {
+        CardStore store = read(JSON);
+        CardPageGenerator.CardData card = new CardPageGenerator.CardData(store, 0, null);
+
+        // Juwan Howard cards without a team get the team of the season
+        assertEquals("Washington Bullets", card.get("Team"));
+        assertEquals("Yes", card.get("Auto"));
+        assertEquals("Yes", card.get("isAutograph"));
+        assertEquals("No", card.get("Mem / Patch"));
+        assertEquals("50", card.get("Print Run"));
+        assertEquals("", card.get("Grade"));
+        assertFalse(card.has("Grade"));
+
+        Map<String, String> attributes = card.attributes();
+        assertEquals("Flair", attributes.get("Brand"));
+        assertFalse(attributes.containsKey("Grade"));
+        assertEquals("", attributes.getOrDefault("Grade", ""));
+        assertEquals(16, attributes.size());
+
+        CardPageGenerator.CardData panini = new CardPageGenerator.CardData(store, 2, null);
+        assertEquals("Panini", panini.get("Player"));
+        assertEquals("", panini.get("Team"));
+    }
+
+    @Test
+    void testRejectsNonArray() {
+        assertThrows(IOException.class, () -> read("{\"player\": \"Juwan Howard\"}"));
+    }
+}
@@ -0,0 +1,58 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardData;
+import de.maulmann.CardPageGenerator.CardView;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardViewTest {
+
+    private static CardData card() {
+        CardJson json = new CardJson();
+        json.player = "Juwan Howard";
+        json.season = "1997-98";
+        json.company = "Fleer";
+        json.brand = "Metal Universe";
+        json.variant = "Precious Metal Gems Green";
+        json.cardNumber = "33";
+        json.serialNumber = "7";
+        json.printRun = 10;
+        return new CardData(json, null);
+    }
+
+    @Test
+    void testViewMatchesTheGenerators() {
+        CardData c = card();
+        CardView view = c.view();
+
+        assertEquals(CardPageGenerator.generateH1(c), view.h1Title());
+        assertEquals(CardPageGenerator.generateH1Html(c), view.h1Html());
+        assertEquals(CardPageGenerator.generateMetaDescription(c), view.metaDescription());
+        assertEquals(CardSchemaGenerator.computeFaqItems(c), view.faqItems());
+        assertTrue(view.frontAlt().startsWith("Front scan of 1997-98 Metal Universe Juwan Howard"));
+        assertTrue(view.backAlt().startsWith("Back scan of 1997-98 Metal Universe Juwan Howard"));
+        assertEquals("Juwan Howard 1997-98 Metal Universe Precious Metal Gems Green (/10)", view.showcaseTitle());
+    }
+
+    @Test
+    void testViewPathsFollowTheCardPaths() {
+        CardData c = card();
+        CardView view = c.view();
+        String rawImageBase = c.filenameBase.substring(0, c.filenameBase.lastIndexOf("-"));
+
+        assertEquals(CardPageGenerator.resolveDiskImageBase(c.seasonFolder, rawImageBase, c), view.imageBase());
+        assertEquals("../../images/" + c.seasonFolder + "/" + view.imageBase(), view.relativeImageBase());
+        assertEquals(CardUtils.BASE_URL + "/images/" + c.seasonFolder + "/" + view.imageBase() + "-front.avif", view.frontImageUrl());
+        assertEquals(CardUtils.BASE_URL + "/images/" + c.seasonFolder + "/" + view.imageBase() + "-back.avif", view.backImageUrl());
+        assertEquals(CardUtils.BASE_URL + "/" + c.fullRelativePath, view.url());
+    }
+
+    @Test
+    void testViewIsComputedOnce() {
+        CardData c = card();
+
+        assertSame(c.view(), c.view());
+        assertThrows(UnsupportedOperationException.class, () -> c.view().faqItems().clear());
+    }
+}
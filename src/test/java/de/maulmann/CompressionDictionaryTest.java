@@ -0,0 +1,94 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionDictionaryTest {
+
+    private static final String HEAD = "<!DOCTYPE html><html lang=\"de\"><head><meta charset=\"utf-8\"><link rel=\"stylesheet\" href=\"/main.css\"></head>";
+    private static final String NAV = "<body><nav class=\"main-nav\"><a href=\"/\">Home</a><a href=\"/binder.html\">Binder</a></nav>";
+    private static final String FOOTER = "<footer class=\"site-footer\"><p>Juwan Howard Collection</p></footer></body></html>";
+
+    @TempDir
+    Path tempDir;
+
+    private static List<byte[]> pages(int count) {
+        List<byte[]> pages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String page = HEAD + NAV + "<main><h1>Card " + i + "</h1><p>Serial " + (i * 7919) + "</p></main>"
+                    + (i % 4 == 0 ? "<aside class=\"rare-variant-notice\">Only on some pages</aside>" : "") + FOOTER;
+            pages.add(page.getBytes(StandardCharsets.UTF_8));
+        }
+        return pages;
+    }
+
+    @Test
+    void testTrainKeepsSharedMarkupOnly() {
+        String dictionary = new String(CompressionDictionary.train(pages(40), CompressionDictionary.MAX_SIZE), StandardCharsets.ISO_8859_1);
+
+        assertTrue(dictionary.contains(HEAD + NAV + "<main><h1>"), dictionary);
+        assertTrue(dictionary.contains("</main>" + FOOTER), dictionary);
+        assertFalse(dictionary.contains("Card 1"), "Page specific text must not be trained.");
+        assertFalse(dictionary.contains("rare-variant-notice"), "Markup on a quarter of the pages is not worth a slot.");
+        assertEquals(dictionary.indexOf(FOOTER), dictionary.lastIndexOf(FOOTER), "Runs are not repeated.");
+    }
+
+    @Test
+    void testTrainRespectsSizeLimitAndPutsBestRunLast() {
+        String full = new String(CompressionDictionary.train(pages(40), CompressionDictionary.MAX_SIZE), StandardCharsets.ISO_8859_1);
+        byte[] small = CompressionDictionary.train(pages(40), 200);
+
+        assertTrue(full.endsWith(HEAD + NAV + "<main><h1>"), "The run on every page closes the dictionary.");
+        assertTrue(small.length > 0 && small.length <= 200, "Runs that do not fit are skipped, smaller ones still fill.");
+        assertEquals(0, CompressionDictionary.train(List.of("<p>a</p>".getBytes(), "<p>b</p>".getBytes()), 1024).length);
+    }
+
+    @Test
+    void testStoreLoadAndRetrainOnTemplateChange() throws Exception {
+        Path dir = tempDir.resolve("dictionary");
+        Path template = Files.writeString(tempDir.resolve("card-detail.ftlh"), "<#-- v1 -->");
+        assertNull(CompressionDictionary.load(dir, template));
+
+        CompressionDictionary trained = CompressionDictionary.trainAndStore(dir, template, pages(20));
+        assertNotNull(trained);
+        assertEquals(8, trained.version().length());
+        CompressionDictionary loaded = CompressionDictionary.load(dir, template);
+        assertNotNull(loaded);
+        assertEquals(trained.version(), loaded.version());
+        assertArrayEquals(trained.data(), loaded.data());
+
+        Files.writeString(template, "<#-- v2 -->");
+        assertNull(CompressionDictionary.load(dir, template), "A template change invalidates the dictionary.");
+
+        List<byte[]> changed = pages(20).stream()
+                .map(p -> new String(p, StandardCharsets.UTF_8).replace("main-nav", "top-nav").getBytes(StandardCharsets.UTF_8))
+                .toList();
+        CompressionDictionary retrained = CompressionDictionary.trainAndStore(dir, template, changed);
+        assertNotEquals(trained.version(), retrained.version());
+        try (var files = Files.list(dir)) {
+            assertEquals(List.of("card-pages-" + retrained.version() + ".dict", CompressionDictionary.MANIFEST),
+                    files.map(f -> f.getFileName().toString()).sorted().toList(), "Old versions are deleted.");
+        }
+        assertEquals(retrained.version(), CompressionDictionary.load(dir, template).version());
+    }
+
+    @Test
+    void testSpreadPicksDisjointEvenlySpacedSamples() {
+        List<Integer> all = IntStream.range(0, 100).boxed().toList();
+        List<Integer> training = CompressionDictionary.spread(all, 10, 0.0);
+        List<Integer> evaluation = CompressionDictionary.spread(all, 10, 0.5);
+
+        assertEquals(List.of(0, 10, 20, 30, 40, 50, 60, 70, 80, 90), training);
+        assertEquals(List.of(5, 15, 25, 35, 45, 55, 65, 75, 85, 95), evaluation);
+        assertSame(all, CompressionDictionary.spread(all, 200, 0.0));
+    }
+}
@@ -0,0 +1,109 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionPolicyTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file(String key, int size) throws Exception {
+        Path file = tempDir.resolve(key);
+        Files.createDirectories(file.getParent());
+        return Files.write(file, new byte[size]);
+    }
+
+    @Test
+    void testQualityFollowsCacheLifetime() {
+        assertEquals(CompressionPolicy.ArtifactClass.STATIC, CompressionPolicy.classify("public, max-age=31536000, immutable"));
+        assertEquals(CompressionPolicy.ArtifactClass.VOLATILE, CompressionPolicy.classify("max-age=0, must-revalidate"));
+        assertEquals(CompressionPolicy.ArtifactClass.VOLATILE, CompressionPolicy.classify(null));
+        assertEquals(BrotliCompressor.BEST_QUALITY, CompressionPolicy.brotliQuality(CompressionPolicy.ArtifactClass.STATIC));
+        assertEquals(CompressionPolicy.FAST_QUALITY, CompressionPolicy.brotliQuality(CompressionPolicy.ArtifactClass.VOLATILE));
+        assertEquals(GZIPCompressor.BEST_COMPRESSION, CompressionPolicy.gzipLevel(CompressionPolicy.ArtifactClass.STATIC));
+        assertEquals(CompressionPolicy.FAST_GZIP_LEVEL, CompressionPolicy.gzipLevel(CompressionPolicy.ArtifactClass.VOLATILE));
+    }
+
+    @Test
+    void testUnchangedFilesBecomeCandidatesHottestFirst() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy(tempDir.resolve(".cache"));
+        policy.noteUnchanged(file("cards/1994-95/small.html", 100), "cards/1994-95/small.html", "d1");
+        policy.noteUnchanged(file("cards/1994-95/large.html", 900), "cards/1994-95/large.html", "d2");
+        policy.noteUnchanged(file("index.html", 50), "index.html", "d3");
+        policy.noteUnchanged(tempDir.resolve("missing.html"), "missing.html", "d4");
+
+        List<String> keys = policy.takeCandidates(10).stream().map(CompressionPolicy.Candidate::key).toList();
+        assertEquals(List.of("index.html", "cards/1994-95/large.html", "cards/1994-95/small.html"), keys);
+        assertTrue(policy.takeCandidates(10).isEmpty(), "Candidates are handed out once.");
+
+        policy.noteUnchanged(file("a.html", 10), "a.html", "d5");
+        policy.noteUnchanged(file("b.html", 20), "b.html", "d6");
+        assertEquals(List.of("b.html"), policy.takeCandidates(1).stream().map(CompressionPolicy.Candidate::key).toList());
+    }
+
+    @Test
+    void testUpgradesPersistUntilTheContentChanges() throws Exception {
+        Path state = tempDir.resolve(".cache");
+        CompressionPolicy policy = new CompressionPolicy(state);
+        Path page = file("index.html", 10);
+        file("main.css", 10);
+        Path gone = file("old.html", 10);
+
+        policy.noteUnchanged(page, "index.html", "v1");
+        policy.markUpgraded(policy.takeCandidates(10).getFirst());
+        policy.noteUploaded("main.css", "c1", BrotliCompressor.BEST_QUALITY);
+        policy.noteUploaded("old.html", "o1", BrotliCompressor.BEST_QUALITY);
+        Files.delete(gone);
+        policy.save(tempDir);
+
+        CompressionPolicy reloaded = new CompressionPolicy(state);
+        reloaded.noteUnchanged(page, "index.html", "v1");
+        reloaded.noteUnchanged(tempDir.resolve("main.css"), "main.css", "c1");
+        assertTrue(reloaded.takeCandidates(10).isEmpty(), "Upgraded versions are not upgraded again.");
+        assertFalse(Files.readString(state.resolve(CompressionPolicy.BEST_QUALITY_FILE)).contains("old.html"), "Entries of deleted files are pruned.");
+
+        reloaded.noteUploaded("index.html", "v2", CompressionPolicy.FAST_QUALITY);
+        reloaded.noteUnchanged(page, "index.html", "v2");
+        assertEquals(1, reloaded.takeCandidates(10).size(), "A new version uploaded at fast quality needs a new upgrade.");
+    }
+
+    @Test
+    void testGzipVariantsAreTrackedByDigest() throws Exception {
+        Path state = tempDir.resolve(".cache");
+        file("index.html", 10);
+        CompressionPolicy policy = new CompressionPolicy(state);
+        assertFalse(policy.hasGzipVariant("index.html", "v1"));
+        policy.noteGzipVariant("index.html", "v1");
+        policy.noteGzipVariant("gone.html", "g1");
+        policy.save(tempDir);
+
+        CompressionPolicy reloaded = new CompressionPolicy(state);
+        assertTrue(reloaded.hasGzipVariant("index.html", "v1"));
+        assertFalse(reloaded.hasGzipVariant("index.html", "v2"), "A changed file needs a new variant.");
+        assertFalse(reloaded.hasGzipVariant("gone.html", "g1"));
+
+        reloaded.forgetGzipVariants();
+        reloaded.save(tempDir);
+        assertFalse(new CompressionPolicy(state).hasGzipVariant("index.html", "v1"));
+    }
+
+    @Test
+    void testBudgetProperty() {
+        try {
+            System.setProperty("RECOMPRESS_BUDGET", "0");
+            assertEquals(0, CompressionPolicy.budgetFromProperty());
+            System.setProperty("RECOMPRESS_BUDGET", "many");
+            assertEquals(CompressionPolicy.DEFAULT_RECOMPRESS_BUDGET, CompressionPolicy.budgetFromProperty());
+        } finally {
+            System.clearProperty("RECOMPRESS_BUDGET");
+        }
+        assertEquals(CompressionPolicy.DEFAULT_RECOMPRESS_BUDGET, CompressionPolicy.budgetFromProperty());
+    }
+}
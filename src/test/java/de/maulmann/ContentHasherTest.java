@@ -0,0 +1,60 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHasherTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testXxHash64KnownVectors() {
+        assertEquals(0xef46db3751d8e999L, XxHash64.hash(new byte[0], 0));
+        assertEquals(0xd24ec4f1a98c6e5bL, XxHash64.hash("a".getBytes(StandardCharsets.UTF_8), 0));
+        assertEquals(0x44bc2cf5ad770999L, XxHash64.hash("abc".getBytes(StandardCharsets.UTF_8), 0));
+    }
+
+    @Test
+    void testStreamingMatchesOneShot() {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        ContentHasher hasher = ContentHasher.fast();
+        ContentHasher.Digest digest = hasher.newDigest();
+        // Uneven chunks crossing the 32-byte stripe boundary, mixing heap and direct buffers
+        for (int pos = 0, step = 7; pos < data.length; pos += step, step = step * 3 % 97 + 1) {
+            int len = Math.min(step, data.length - pos);
+            ByteBuffer chunk = pos % 2 == 0 ? ByteBuffer.wrap(data, pos, len) : ByteBuffer.allocateDirect(len).put(data, pos, len).flip();
+            digest.update(chunk);
+        }
+        assertEquals(hasher.hash(data), digest.hex());
+        assertEquals(32, digest.hex().length());
+    }
+
+    @Test
+    void testMd5MatchesKnownDigest() {
+        assertEquals("900150983cd24fb0d6963f7d28e17f72", ContentHasher.md5().hash("abc"));
+    }
+
+    @Test
+    void testFileHashMatchesByteHash() throws Exception {
+        byte[] data = new byte[200_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i ^ (i >>> 8));
+        }
+        Path file = Files.write(tempDir.resolve("large.bin"), data);
+        for (ContentHasher hasher : new ContentHasher[]{ContentHasher.md5(), ContentHasher.fast()}) {
+            assertEquals(hasher.hash(data), hasher.hash(file), hasher.algorithm());
+        }
+        assertNull(ContentHasher.fast().hash(tempDir.resolve("missing.bin")));
+    }
+}
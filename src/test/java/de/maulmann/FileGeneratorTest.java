@@ -42,10 +42,8 @@ class FileGeneratorTest {
         FileGenerator.pathSource = originalSourcePath;
         FileGenerator.pathOutput = originalOutputPath;
         
-        // Reset the static cache to prevent state leakage between tests
-        java.lang.reflect.Field cacheField = FileGenerator.class.getDeclaredField("cachedFilteredCards");
-        cacheField.setAccessible(true);
-        cacheField.set(null, null);
+        // Reset the shared repository to prevent state leakage between tests
+        CardRepository.reset();
     }
 
     private void createDummyHtmlFile(String fileName, String... lines) throws IOException {
@@ -92,7 +90,10 @@ class FileGeneratorTest {
 
     @Test
     void testComputeCollectionStats() {
-        List<CardJson> cards = FileGenerator.filterDuplicateJsonCards(CardDataLoader.loadCardsFromJson("content/json/cards.json"));
+        List<CardPageGenerator.CardData> cards = FileGenerator.filterDuplicateJsonCards(CardDataLoader.loadCardsFromJson("content/json/cards.json"))
+                .stream()
+                .map(c -> new CardPageGenerator.CardData(c, null))
+                .toList();
         Map<String, Object> stats = FileGenerator.computeCollectionStats(cards);
 
         assertNotNull(stats, "Stats map should not be null");
@@ -0,0 +1,110 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileTrackerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeAged(String name, String content, Instant mtime) throws Exception {
+        Path file = tempDir.resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(mtime));
+        return file;
+    }
+
+    @Test
+    void testPropertiesModeDetectsChanges() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("page.html"), "<html>v1</html>");
+        FileTracker tracker = new FileTracker(tempDir.resolve("hashes.properties").toString());
+        assertTrue(tracker.hasChanged(file));
+        tracker.updateHash(file);
+        assertFalse(tracker.hasChanged(file));
+        tracker.save();
+
+        Files.writeString(file, "<html>v2</html>");
+        assertTrue(new FileTracker(tempDir.resolve("hashes.properties").toString()).hasChanged(file));
+    }
+
+    @Test
+    void testStatFirstSkipsReadingUnchangedFiles() throws Exception {
+        Instant mtime = Instant.now().minusSeconds(3600);
+        Path file = writeAged("image.avif", "avif-bytes-v1", mtime);
+        String store = tempDir.resolve("hashes.bin").toString();
+
+        FileTracker first = new FileTracker(store, true);
+        String hash = first.getHash(file);
+        first.updateHash(file, hash);
+        first.save();
+
+        FileTracker second = new FileTracker(store);
+        assertEquals(hash, second.getHash(file));
+        assertEquals(1, second.getStatHits(), "Unchanged stat must be answered without hashing.");
+
+        // Same size, new mtime: must be re-hashed and detected
+        writeAged("image.avif", "avif-bytes-v2", mtime.plusSeconds(60));
+        FileTracker third = new FileTracker(store);
+        assertTrue(third.hasChanged(file));
+        assertEquals(0, third.getStatHits());
+    }
+
+    @Test
+    void testFullVerifyIgnoresStat() throws Exception {
+        Instant mtime = Instant.now().minusSeconds(3600);
+        Path file = writeAged("style.css", "body{color:red}", mtime);
+        String store = tempDir.resolve("hashes.bin").toString();
+
+        FileTracker first = new FileTracker(store, true);
+        first.updateHash(file);
+        first.save();
+
+        // Content changed behind the tracker's back with identical size and mtime
+        writeAged("style.css", "body{color:tan}", mtime);
+        assertFalse(new FileTracker(store).hasChanged(file), "Stat-first trusts the stored digest.");
+        assertTrue(new FileTracker(store, true).hasChanged(file), "Full verify must re-hash the content.");
+    }
+
+    @Test
+    void testRecentlyModifiedFilesAreNotTrustedByStat() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("fresh.html"), "<html></html>");
+        String store = tempDir.resolve("hashes.bin").toString();
+
+        FileTracker first = new FileTracker(store, true);
+        first.updateHash(file);
+        first.save();
+
+        FileTracker second = new FileTracker(store);
+        assertFalse(second.hasChanged(file));
+        assertEquals(0, second.getStatHits(), "Racy mtimes must fall back to hashing.");
+    }
+
+    @Test
+    void testLegacyMd5EntriesAreReKeyedWithoutReportingChanges() throws Exception {
+        Path file = writeAged("card.html", "<html>card</html>", Instant.now().minusSeconds(3600));
+        Properties legacy = new Properties();
+        legacy.setProperty(file.toString(), ContentHasher.md5().hash(file));
+        try (OutputStream out = Files.newOutputStream(tempDir.resolve("hashes.properties"))) {
+            legacy.store(out, null);
+        }
+
+        String store = tempDir.resolve("hashes.bin").toString();
+        FileTracker first = new FileTracker(store);
+        assertFalse(first.hasChanged(file), "A matching MD5 entry must not look like a change.");
+        first.save();
+
+        FileTracker second = new FileTracker(store);
+        assertEquals(ContentHasher.getDefault().hash(file), second.getHash(file));
+        assertEquals(1, second.getStatHits());
+    }
+}
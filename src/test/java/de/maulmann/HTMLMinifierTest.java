@@ -5,8 +5,14 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,4 +60,84 @@ class HTMLMinifierTest {
 
         assertEquals("<ul><li>Item 1</li><li>Item 2</li></ul>", minified);
     }
+
+    @Test
+    void testMatchesRegexMinifierOnTemplates() throws IOException {
+        List<Path> templates;
+        try (Stream<Path> files = Files.list(Path.of("src/main/resources/templates"))) {
+            templates = files.filter(p -> p.toString().endsWith(".html") || p.toString().endsWith(".ftlh")).sorted().toList();
+        }
+        assertFalse(templates.isEmpty());
+        for (Path template : templates) {
+            String html = Files.readString(template);
+            assertEquals(RegexMinifier.minify(html), HTMLMinifier.minifyHTML(html), template.toString());
+        }
+    }
+
+    @Test
+    void testMatchesRegexMinifierOnRandomInput() {
+        String[] tokens = {
+                "<div>", "</div>", "<p class=\"x\">", "text", "\u00e9", "\u00a0", "<", ">", "-", "!",
+                " ", " ", "  ", "\t", "\n", "\r\n", "\f", "\u000B", "\u0085", "\u2028",
+                "<!--", "-->", "<!-- c -->", "<!--[if IE]>", "<![endif]-->", "<!--->",
+                "<script>", "</script>", "<SCRIPT type=\"module\">", "</Script>", "<scripts>", "<script_>",
+                "<script\u0301>", "<script\u00e9>", "<style>", "</style>", "<pre>", "</pre>", "<pre\n>",
+                "<textarea>", "</textarea>", "</TEXTAREA>"};
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int count = random.nextInt(40);
+            for (int i = 0; i < count; i++) {
+                sb.append(tokens[random.nextInt(tokens.length)]);
+            }
+            String html = sb.toString();
+            assertEquals(RegexMinifier.minify(html), HTMLMinifier.minifyHTML(html), html);
+            assertArrayEquals(RegexMinifier.minify(html).getBytes(StandardCharsets.UTF_8),
+                    HTMLMinifier.minifyHTMLToBytes(html.getBytes(StandardCharsets.UTF_8)), html);
+        }
+    }
+
+    @Test
+    void testMinifiesIntoOffsetBuffer() {
+        byte[] html = "xx<div>\n  <b>a</b>   <!-- gone -->  </div>".getBytes(StandardCharsets.UTF_8);
+        int length = HTMLMinifier.minify(html, 2, html.length - 2, html, 0);
+
+        assertEquals("<div><b>a</b></div>", new String(html, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The regex chain the byte-level minifier replaced, kept as the reference for its output.
+     */
+    private static final class RegexMinifier {
+        private static final Pattern COMMENT = Pattern.compile("<!--(?!\\[if)[\\s\\S]*?-->");
+        private static final Pattern MULTI_WHITESPACE = Pattern.compile("[ \\t\\f]+");
+        private static final Pattern INTER_TAG_WHITESPACE = Pattern.compile(">\\s+<");
+        private static final Pattern TRAILING_TAG_SPACE = Pattern.compile(">\\s+$");
+        private static final Pattern LEADING_TAG_SPACE = Pattern.compile("^\\s+<");
+        private static final Pattern PRESERVED = Pattern.compile("(<script\\b[^>]*>[\\s\\S]*?<\\/script>|<style\\b[^>]*>[\\s\\S]*?<\\/style>|<pre\\b[^>]*>[\\s\\S]*?<\\/pre>|<textarea\\b[^>]*>[\\s\\S]*?<\\/textarea>)", Pattern.CASE_INSENSITIVE);
+
+        static String minify(String html) {
+            if (html.isEmpty()) return "";
+            Matcher matcher = PRESERVED.matcher(html);
+            if (!matcher.find()) return segment(html, false);
+            StringBuilder sb = new StringBuilder();
+            int last = 0;
+            matcher.reset();
+            while (matcher.find()) {
+                sb.append(segment(html.substring(last, matcher.start()), true)).append(matcher.group(1));
+                last = matcher.end();
+            }
+            if (last < html.length()) sb.append(segment(html.substring(last), false));
+            return sb.toString().trim();
+        }
+
+        private static String segment(String html, boolean endsBeforePreservedBlock) {
+            if (html.isEmpty()) return "";
+            String s = COMMENT.matcher(html).replaceAll("");
+            s = MULTI_WHITESPACE.matcher(s).replaceAll(" ");
+            s = INTER_TAG_WHITESPACE.matcher(s).replaceAll("><");
+            if (endsBeforePreservedBlock) s = TRAILING_TAG_SPACE.matcher(s).replaceAll(">");
+            return LEADING_TAG_SPACE.matcher(s).replaceAll("<");
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashStoreTest {
+
+    private static final String HASH_A = "0123456789abcdef0123456789abcdef";
+    private static final String HASH_B = "fedcba9876543210fedcba9876543210";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testPutGetAndReload() {
+        Path storeFile = tempDir.resolve("hashes.bin");
+        HashStore store = new HashStore(storeFile);
+        assertTrue(store.put("output/index.html", HASH_A, 42L));
+        assertTrue(store.put("output/cards/a.html", HASH_B.toUpperCase(), 0L));
+        assertFalse(store.put("output/bad.html", "not-a-digest", 0L), "Non 128-bit digests must be rejected.");
+        store.save(null);
+
+        HashStore reloaded = new HashStore(storeFile);
+        assertEquals(2, reloaded.size());
+        assertEquals(HASH_A, reloaded.getDigestHex("output/index.html"));
+        assertEquals(HASH_B, reloaded.getDigestHex("output/cards/a.html"), "Digests are returned as lowercase hex.");
+        assertEquals(42L, reloaded.getAux("output/index.html", -1L));
+        assertNull(reloaded.getDigestHex("output/bad.html"));
+    }
+
+    @Test
+    void testJournalAppendsOnlyChangesAndReplaysRemovals() throws Exception {
+        Path storeFile = tempDir.resolve("hashes.bin");
+        HashStore store = new HashStore(storeFile);
+        for (int i = 0; i < 100; i++) {
+            store.put("file-" + i, HASH_A, i);
+        }
+        store.save(null);
+        long snapshotSize = Files.size(storeFile);
+
+        HashStore second = new HashStore(storeFile);
+        second.save(null);
+        assertEquals(snapshotSize, Files.size(storeFile), "A save without changes must not touch the journal.");
+
+        second.put("file-1", HASH_B, 1L);
+        second.remove("file-2");
+        second.save(null);
+        assertTrue(Files.size(storeFile) - snapshotSize < 64, "Only the changed entries should be appended.");
+
+        HashStore third = new HashStore(storeFile);
+        assertEquals(99, third.size());
+        assertEquals(HASH_B, third.getDigestHex("file-1"));
+        assertFalse(third.contains("file-2"));
+        assertEquals(HASH_A, third.getDigestHex("file-99"));
+    }
+
+    @Test
+    void testCompactionPrunesStaleEntries() throws Exception {
+        Path storeFile = tempDir.resolve("hashes.bin");
+        HashStore store = new HashStore(storeFile);
+        store.put("keep", HASH_A, 0L);
+        store.put("drop", HASH_B, 0L);
+        store.save(null);
+
+        HashStore reloaded = new HashStore(storeFile);
+        reloaded.compact("drop"::equals);
+
+        HashStore compacted = new HashStore(storeFile);
+        assertEquals(1, compacted.size());
+        assertTrue(compacted.contains("keep"));
+        assertFalse(compacted.contains("drop"));
+    }
+
+    @Test
+    void testTruncatedJournalKeepsEarlierRecords() throws Exception {
+        Path storeFile = tempDir.resolve("hashes.bin");
+        HashStore store = new HashStore(storeFile);
+        store.put("a", HASH_A, 0L);
+        store.save(null);
+        store.put("b", HASH_B, 0L);
+        store.save(null);
+
+        byte[] bytes = Files.readAllBytes(storeFile);
+        Files.write(storeFile, java.util.Arrays.copyOf(bytes, bytes.length - 10));
+
+        HashStore recovered = new HashStore(storeFile);
+        assertEquals(HASH_A, recovered.getDigestHex("a"));
+        assertNull(recovered.getDigestHex("b"));
+    }
+
+    @Test
+    void testFileTrackerMigratesLegacyProperties() throws Exception {
+        Path sourceFile = Files.writeString(tempDir.resolve("page.html"), "<html></html>");
+        FileTracker legacy = new FileTracker(tempDir.resolve("sync-hashes.properties").toString());
+        legacy.updateHash(sourceFile);
+        legacy.save();
+
+        FileTracker binary = new FileTracker(tempDir.resolve("sync-hashes.bin").toString());
+        assertFalse(binary.hasChanged(sourceFile), "Migrated hashes must prevent a full re-upload.");
+        binary.save();
+        assertTrue(Files.exists(tempDir.resolve("sync-hashes.bin")));
+
+        Files.writeString(sourceFile, "<html>changed</html>");
+        assertTrue(new FileTracker(tempDir.resolve("sync-hashes.bin").toString()).hasChanged(sourceFile));
+    }
+
+    @Test
+    void testTimestampTrackerBinaryStoreKeepsStableTimestamps() throws Exception {
+        String identifier = "index.html";
+        Files.writeString(tempDir.resolve(identifier), "<html></html>");
+        String content = "<html><body>Hello [[STABLE_TIME]]</body></html>";
+
+        TimestampTracker legacy = new TimestampTracker(tempDir.resolve("generation-timestamps.properties").toString());
+        String legacyTime = legacy.getStableTimestamp(identifier, content);
+        legacy.save();
+
+        TimestampTracker binary = new TimestampTracker(tempDir.resolve("generation-timestamps.bin").toString());
+        assertFalse(binary.isModified(identifier, content));
+        assertEquals(legacyTime, binary.getStableTimestamp(identifier, content));
+        binary.save();
+
+        Map<String, String> seen = new HashMap<>();
+        TimestampTracker reloaded = new TimestampTracker(tempDir.resolve("generation-timestamps.bin").toString());
+        seen.put(identifier, reloaded.getStableTimestamp(identifier, content));
+        assertEquals(legacyTime, seen.get(identifier));
+    }
+}
@@ -0,0 +1,114 @@
+package de.maulmann;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HtmlTagScannerTest {
+
+    private static final String PAGE = """
+            <!DOCTYPE html>
+            <html lang="en">
+            <head>
+              <meta charset="utf-8">
+              <title>1997-98 Metal Universe Juwan Howard PMG Green &amp; Gold | Maulmann</title>
+              <meta name="description" content="Juwan Howard &quot;PMG&quot; /10 &ndash; scan">
+              <script>if (a < b && c > d) { document.write("<img src='fake.jpg'>"); }</script>
+              <style>img > .x { color: red }</style>
+            </head>
+            <body>
+              <!-- <img src="commented.jpg"> -->
+              <h1>Juwan   Howard <span>1997-98</span>
+                PMG&nbsp;Green</h1>
+              <figure>
+                <picture>
+                  <source type="image/avif" srcset="front-400w.avif 400w, front.avif 1200w">
+                  <source srcset="">
+                  <img src="front-400w.avif" alt="Front scan" title='Front &#38; center' loading=lazy>
+                </picture>
+                <figcaption>Front <b>scan</b> of the card</figcaption>
+              </figure>
+              <img SRC="back.jpg" alt="Back">
+              <table>
+                <tr><th class="specs-th">Variant</th><td class="specs-td"> Precious Metal Gems </td></tr>
+                <tr><th class="label specs-th">Print Run</th><td class="specs-td">10</td></tr>
+                <tr><th class="specs-th">Variant</th><td class="specs-td">Ignored duplicate</td></tr>
+                <tr><th class="specs-th">Notes</th></tr>
+              </table>
+            </body>
+            </html>
+            """;
+
+    @Test
+    void testSummaryMatchesJsoup() {
+        HtmlTagScanner.PageSummary summary = HtmlTagScanner.summarize(PAGE);
+        Document doc = Jsoup.parse(PAGE);
+
+        assertEquals(doc.title(), summary.title());
+        assertEquals(doc.select("h1").text(), summary.h1());
+        assertEquals(doc.select("meta[name=description]").attr("content"), summary.metaDescription());
+
+        List<String> jsoupImages = new ArrayList<>();
+        for (Element img : doc.select("img")) jsoupImages.add(img.attr("src") + "|" + img.attr("title") + "|" + img.attr("alt"));
+        List<String> scannedImages = new ArrayList<>();
+        for (HtmlTagScanner.Image img : summary.images()) scannedImages.add(img.src() + "|" + img.title() + "|" + img.alt());
+        assertEquals(jsoupImages, scannedImages);
+
+        for (String spec : List.of("Variant", "print run", "Notes", "Player")) {
+            String expected = "";
+            for (Element row : doc.select("tr")) {
+                Element th = row.selectFirst("th.specs-th");
+                Element td = row.selectFirst("td.specs-td");
+                if (th != null && td != null && th.text().trim().equalsIgnoreCase(spec)) {
+                    expected = td.text().trim();
+                    break;
+                }
+            }
+            assertEquals(expected, summary.spec(spec), spec);
+        }
+    }
+
+    @Test
+    void testPicturesAndStandaloneImages() {
+        HtmlTagScanner.PageSummary summary = HtmlTagScanner.summarize(PAGE);
+
+        assertEquals(1, summary.pictures().size());
+        HtmlTagScanner.Picture picture = summary.pictures().getFirst();
+        assertEquals(List.of("front-400w.avif 400w, front.avif 1200w", ""), picture.sourceSrcsets());
+        assertEquals("front-400w.avif", picture.img().src());
+        assertEquals("Front scan of the card", picture.figcaption());
+
+        assertEquals(1, summary.standaloneImages().size());
+        assertEquals("back.jpg", summary.standaloneImages().getFirst().src());
+    }
+
+    @Test
+    void testScanReportsTagsAndSkipsRawText() {
+        List<String> events = new ArrayList<>();
+        HtmlTagScanner.scan("<p class=a data-x='1 > 0'>a &lt; b<br/></P><script>x<y</script>", new HtmlTagScanner.Handler() {
+            @Override
+            public void startTag(String name, Map<String, String> attributes, boolean selfClosing) {
+                events.add("<" + name + " " + attributes.get("class") + attributes.getOrDefault("data-x", "") + (selfClosing ? "/" : ""));
+            }
+
+            @Override
+            public void endTag(String name) {
+                events.add("</" + name);
+            }
+
+            @Override
+            public void text(String text) {
+                events.add(text);
+            }
+        });
+
+        assertEquals(List.of("<p a1 > 0", "a < b", "<br null/", "</p", "<script null", "</script"), events);
+    }
+}
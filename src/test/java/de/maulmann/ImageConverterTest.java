@@ -0,0 +1,56 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageConverterTest {
+
+    private static final String HEADER = "YUV4MPEG2 W3 H3 F25:1 Ip A1:1 C420jpeg XCOLORRANGE=FULL\nFRAME\n";
+
+    @Test
+    void testY4mFrameHasFullRangeBt601Planes() throws Exception {
+        BufferedImage frame = new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB);
+        // Top-left 2x2 block red, the rest white; the odd last column and row form half-covered chroma blocks
+        for (int y = 0; y < 3; y++) {
+            for (int x = 0; x < 3; x++) {
+                frame.setRGB(x, y, x < 2 && y < 2 ? 0xFF0000 : 0xFFFFFF);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageConverter.writeY4m(frame, out);
+        byte[] bytes = out.toByteArray();
+
+        byte[] header = HEADER.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(HEADER, new String(bytes, 0, header.length, StandardCharsets.US_ASCII));
+        assertEquals(header.length + 9 + 4 + 4, bytes.length, "One luma byte per pixel, one chroma byte per 2x2 block and plane.");
+
+        int[] planes = new int[bytes.length - header.length];
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = bytes[header.length + i] & 0xFF;
+        }
+        assertArrayEquals(new int[]{76, 76, 255, 76, 76, 255, 255, 255, 255}, java.util.Arrays.copyOfRange(planes, 0, 9));
+        assertArrayEquals(new int[]{85, 128, 128, 128}, java.util.Arrays.copyOfRange(planes, 9, 13), "Cb");
+        assertArrayEquals(new int[]{255, 128, 128, 128}, java.util.Arrays.copyOfRange(planes, 13, 17), "Cr");
+    }
+
+    @Test
+    void testScaleProducesRgbFramesOfTheRequestedSize() {
+        BufferedImage scan = new BufferedImage(1000, 1400, BufferedImage.TYPE_3BYTE_BGR);
+        BufferedImage main = ImageConverter.scale(scan, 1000, 1400);
+        assertEquals(BufferedImage.TYPE_INT_RGB, main.getType(), "Decoded scans are converted for the Y4M writer.");
+        assertSame(main, ImageConverter.scale(main, 1000, 1400), "A frame that already fits is not copied.");
+
+        BufferedImage small = ImageConverter.scale(main, 200, 280);
+        assertEquals(200, small.getWidth());
+        assertEquals(280, small.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, small.getType());
+        BufferedImage exactHalf = ImageConverter.scale(main, 500, 700);
+        assertEquals(500, exactHalf.getWidth());
+        assertEquals(700, exactHalf.getHeight());
+    }
+}
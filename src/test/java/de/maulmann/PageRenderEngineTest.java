@@ -0,0 +1,68 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageRenderEngineTest {
+
+    @Test
+    void testAllPagesAreRenderedAndWrittenBeforeClose() {
+        BuildMetrics.reset();
+        ConcurrentHashMap<Integer, String> written = new ConcurrentHashMap<>();
+        try (PageRenderEngine engine = new PageRenderEngine(4, 2, 8)) {
+            for (int i = 0; i < 500; i++) {
+                final int page = i;
+                engine.submit("page " + page, () -> {
+                    StringWriter out = new StringWriter();
+                    out.write("<html>" + page + "</html>");
+                    String html = out.toString();
+                    return page % 10 == 0 ? null : () -> written.put(page, html);
+                });
+            }
+        }
+        assertEquals(450, written.size());
+        assertEquals("<html>7</html>", written.get(7));
+        assertEquals(450, BuildMetrics.histogram("page_render_seconds").getCount(), "Skipped pages are not render latencies.");
+    }
+
+    @Test
+    void testInFlightPagesAreBounded() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        try (PageRenderEngine engine = new PageRenderEngine(4, 1, 3)) {
+            for (int i = 0; i < 100; i++) {
+                engine.submit("page " + i, () -> {
+                    peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return () -> {
+                        LockSupport.parkNanos(1_000_000);
+                        inFlight.decrementAndGet();
+                    };
+                });
+            }
+        }
+        assertTrue(peak.get() <= 3, "Peak in-flight pages was " + peak.get());
+    }
+
+    @Test
+    void testFailuresAreCountedAndDoNotLeakPermits() {
+        PageRenderEngine engine = new PageRenderEngine(2, 1, 2);
+        for (int i = 0; i < 20; i++) {
+            final int page = i;
+            engine.submit("page " + page, () -> {
+                if (page % 2 == 0) throw new IllegalStateException("render failed");
+                return () -> {
+                    throw new IOException("write failed");
+                };
+            });
+        }
+        engine.close();
+        assertEquals(20, engine.getFailureCount());
+    }
+}
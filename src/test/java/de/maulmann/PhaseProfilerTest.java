@@ -0,0 +1,59 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseProfilerTest {
+
+    @BeforeEach
+    @AfterEach
+    void reset() {
+        PhaseProfiler.reset();
+    }
+
+    @Test
+    void testRecordsPhasesInCompletionOrder() {
+        String result = PhaseProfiler.measure("outer", () -> {
+            PhaseProfiler.measure("inner", () -> {
+            });
+            return "done";
+        });
+
+        assertEquals("done", result);
+        List<PhaseProfiler.PhaseStats> phases = PhaseProfiler.getPhases();
+        assertEquals(2, phases.size());
+        assertEquals("inner", phases.get(0).phase());
+        assertEquals("outer", phases.get(1).phase());
+    }
+
+    @Test
+    void testMeasuresAllocation() {
+        PhaseProfiler.measure("allocate", () -> {
+            byte[][] blocks = new byte[16][];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = new byte[64 * 1024];
+            }
+            return blocks;
+        });
+
+        PhaseProfiler.PhaseStats stats = PhaseProfiler.getPhases().getFirst();
+        assertTrue(stats.wallMillis() >= 0);
+        // -1 means the JVM does not support allocation tracking
+        assertTrue(stats.allocatedBytes() == -1 || stats.allocatedBytes() >= 16 * 64 * 1024);
+        assertTrue(stats.peakRssBytes() == -1 || stats.peakRssBytes() > 0);
+    }
+
+    @Test
+    void testRecordsFailedPhase() {
+        assertThrows(IllegalStateException.class, () -> PhaseProfiler.measure("failing", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals("failing", PhaseProfiler.getPhases().getFirst().phase());
+    }
+}
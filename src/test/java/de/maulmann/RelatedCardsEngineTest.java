@@ -0,0 +1,86 @@
+package de.maulmann;
+
+import de.maulmann.CardPageGenerator.CardData;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelatedCardsEngineTest {
+
+    private static CardData card(String player, String season, String company, String brand, String variant, String number) {
+        CardJson json = new CardJson();
+        json.player = player;
+        json.season = season;
+        json.company = company;
+        json.brand = brand;
+        json.variant = variant;
+        json.cardNumber = number;
+        return new CardData(json, null);
+    }
+
+    @Test
+    void testRanksByScoreThenStableId() {
+        CardData target = card("Juwan Howard", "1996-97", "Fleer", "Flair", "Base", "1");
+        CardData samePlayerSeasonBrand = card("Juwan Howard", "1996-97", "Fleer", "Flair", "Row 0", "2");
+        CardData samePlayerSeason = card("Juwan Howard", "1996-97", "Topps", "Finest", "Base", "3");
+        CardData otherPlayerSameBrand = card("Chris Webber", "1997-98", "Fleer", "Flair", "Base", "4");
+        CardData partialBrand = card("Chris Webber", "1996-97", "Fleer", "Flair Showcase", "Base", "5");
+        CardData unrelated = card("Ken Griffey Jr.", "2005", "Upper Deck", "Ultimate", "Base", "6");
+        List<CardData> cards = List.of(target, samePlayerSeasonBrand, samePlayerSeason, otherPlayerSameBrand, partialBrand, unrelated);
+
+        RelatedCardsEngine engine = new RelatedCardsEngine(cards);
+
+        // 15 + 10 + 8 + 3, 15 + 10, 10 + 5 + 3, 8 + 3; the unrelated card shares no bucket
+        assertEquals(List.of(samePlayerSeasonBrand, samePlayerSeason, partialBrand, otherPlayerSameBrand), engine.related(target, 6));
+        assertEquals(List.of(samePlayerSeasonBrand, samePlayerSeason), engine.related(target, 2));
+        assertTrue(engine.related(target, 0).isEmpty());
+    }
+
+    @Test
+    void testTiesAreBrokenByStableId() {
+        CardData target = card("Juwan Howard", "1996-97", "Fleer", "Flair", "Base", "1");
+        List<CardData> cards = new ArrayList<>(List.of(target));
+        for (int i = 0; i < 20; i++) {
+            cards.add(card("Juwan Howard", "1996-97", "Fleer", "Flair", "Parallel " + i, "1"));
+        }
+
+        List<CardData> expected = cards.subList(1, cards.size()).stream()
+                .sorted((a, b) -> a.stableId.compareTo(b.stableId))
+                .limit(6)
+                .toList();
+        assertEquals(expected, new RelatedCardsEngine(cards).related(target, 6));
+    }
+
+    @Test
+    void testRareCardsScoreTogether() {
+        CardData target = card("Juwan Howard", "1996-97", "Fleer", "Metal", "PMG Green", "1");
+        CardData rare = card("Chris Webber", "1996-97", "Fleer", "Metal", "PMG Red", "2");
+        CardData common = card("Chris Webber", "1996-97", "Fleer", "Metal", "Base", "3");
+
+        List<CardData> related = new RelatedCardsEngine(List.of(target, common, rare)).related(target, 6);
+
+        assertEquals(List.of(rare, common), related);
+    }
+
+    @Test
+    void testTargetOutsideTheEngine() {
+        CardData known = card("Juwan Howard", "1996-97", "Fleer", "Flair", "Base", "1");
+        CardData target = card("Juwan Howard", "1994-95", "Fleer", "Flair Showcase", "Base", "9");
+
+        assertEquals(List.of(known), new RelatedCardsEngine(List.of(known)).related(target, 6));
+    }
+
+    @Test
+    void testTopKKeepsLargestKeys() {
+        RelatedCardsEngine.TopK top = new RelatedCardsEngine.TopK(3);
+        long[] keys = {5, 1, 9, 7, 3, 8};
+        for (int row = 0; row < keys.length; row++) {
+            top.offer(keys[row], row);
+        }
+        assertFalse(top.offer(2, 99));
+        assertArrayEquals(new int[]{2, 5, 3}, top.drainBestFirst());
+    }
+}
@@ -0,0 +1,75 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentTemplateTest {
+
+    @Test
+    void testRendersSlotsAndKeepsUnknownPlaceholders() {
+        SegmentTemplate template = SegmentTemplate.compile("<a href=\"{{ROOT}}x\">{{ROOT}}{{OTHER}} {{ {{NAME}}}}", "ROOT", "NAME");
+        assertEquals("<a href=\"../x\">../{{OTHER}} {{ Bob}}", template.render("../", "Bob"));
+        assertTrue(SegmentTemplate.compile("").isEmpty());
+        assertEquals("plain", SegmentTemplate.compile("plain", "ROOT").render("x"));
+    }
+
+    @Test
+    void testSharedFragmentsMatchChainedReplace() {
+        String root = "../../";
+        String head = SharedTemplates.loadResource("/templates/head.html");
+        String title = "Juwan Howard 1994 Flair <Rookie> & \"Gold\"";
+        String description = "A card's description";
+        String expectedHead = head.replace("{{TITLE}}", CardUtils.escapeHtml(title))
+                .replace("{{DESCRIPTION}}", CardUtils.escapeHtml(description))
+                .replace("{{ROOT}}", root)
+                .replace("{{ANALYTICS}}", SharedTemplates.loadResource("/templates/analytics.html"))
+                .replace("{{SEO}}", SharedTemplates.loadResource("/templates/seo.html")
+                        .replace("{{PAGE}}", "cards/a.html").replace("{{DESCRIPTION}}", CardUtils.escapeHtml(description)))
+                .replace("{{OPENGRAPH}}", SharedTemplates.loadResource("/templates/opengraph.html")
+                        .replace("{{PAGE}}", "cards/a.html").replace("{{TITLE}}", CardUtils.escapeHtml(title))
+                        .replace("{{IMAGE}}", "img.avif").replace("{{DESCRIPTION}}", CardUtils.escapeHtml(description)))
+                .replace("{{EXTRA_HEAD}}", "<link rel=\"preload\">")
+                .replace("{{FAVICON}}", SharedTemplates.loadResource("/templates/favicon.html").replace("{{ROOT}}", root))
+                .replace("{{BUILD_ID}}", SharedTemplates.BUILD_ID);
+        assertEquals(expectedHead, SharedTemplates.getHead(title, description, root, "cards/a.html", "img.avif", "<link rel=\"preload\">"));
+
+        String footer = SharedTemplates.loadResource("/templates/footer.html");
+        assertEquals(footer.replace("{{ROOT}}", root).replace("{{TIME}}", "[[STABLE_TIME]]"), SharedTemplates.getFooter(root));
+
+        String topNav = SharedTemplates.loadResource("/templates/topnav.html");
+        for (String navRoot : List.of("", root)) {
+            for (String active : List.of("index", "collection", "juwan-howard-collection", "binder", "rainbows", "wantlist",
+                    "panini", "flawless", "baseball", "sitemap", "card")) {
+                String nav = SharedTemplates.getTopNav(navRoot, active);
+                assertEquals(chainedTopNav(topNav, navRoot, active), nav, navRoot + active);
+                assertSame(nav, SharedTemplates.getTopNav(navRoot, active), "Top nav variants must be memoized.");
+            }
+        }
+    }
+
+    /**
+     * The replace chain getTopNav used before the templates were compiled.
+     */
+    private static String chainedTopNav(String template, String root, String activePage) {
+        boolean isJhActive = activePage.equals("collection") || activePage.equals("juwan-howard-collection")
+                || activePage.equals("binder") || activePage.equals("rainbows") || activePage.equals("wantlist");
+        boolean isBballActive = activePage.equals("panini") || activePage.equals("flawless");
+        return template.replace("{{ROOT}}", root)
+                .replace("{{ACTIVE_INDEX}}", activePage.equals("index") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_JH_GROUP}}", isJhActive ? "is-active-group" : "")
+                .replace("{{ACTIVE_JH_BTN}}", isJhActive ? "active" : "")
+                .replace("{{ACTIVE_COLLECTION}}", (activePage.equals("collection") || activePage.equals("juwan-howard-collection")) ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_BINDER}}", activePage.equals("binder") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_RAINBOWS}}", activePage.equals("rainbows") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_WANTLIST}}", activePage.equals("wantlist") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_BBALL_GROUP}}", isBballActive ? "is-active-group" : "")
+                .replace("{{ACTIVE_BBALL_BTN}}", isBballActive ? "active" : "")
+                .replace("{{ACTIVE_PANINI}}", activePage.equals("panini") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_FLAWLESS}}", activePage.equals("flawless") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_BASEBALL}}", activePage.equals("baseball") ? "class=\"active\"" : "")
+                .replace("{{ACTIVE_SITEMAP}}", activePage.equals("sitemap") ? "class=\"active\"" : "");
+    }
+}
@@ -5,9 +5,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +22,12 @@ class SitemapGeneratorTest {
 
     private Path outputDir;
 
+    private static String readGzip(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
     @BeforeEach
     void setUp() throws Exception {
         outputDir = Paths.get("output");
@@ -25,7 +35,7 @@ class SitemapGeneratorTest {
     }
 
     @Test
-    void testSitemapGenerationHierarchyAndContent() throws Exception {
+    void testRecoveryFromDiskHierarchyAndContent() throws Exception {
         // Create mock static page
         Path indexPage = outputDir.resolve("index.html");
         Files.writeString(indexPage, "<html><head><title>Home Page</title></head><body><h1>Welcome</h1></body></html>");
@@ -63,7 +73,7 @@ class SitemapGeneratorTest {
         tracker.save();
 
         SitemapGenerator.setTimestampTracker(tracker);
-        SitemapGenerator.generate();
+        SitemapGenerator.recoverFromDisk();
 
         // Check root sitemap.xml (Sitemap Index)
         Path sitemapIndexFile = outputDir.resolve("sitemap.xml");
@@ -71,21 +81,21 @@ class SitemapGeneratorTest {
         String indexContent = Files.readString(sitemapIndexFile);
 
         assertTrue(indexContent.contains("<sitemapindex"), "sitemap.xml must be a sitemapindex");
-        assertTrue(indexContent.contains("sitemap-main.xml"), "sitemapindex must list sitemap-main.xml");
-        assertTrue(indexContent.contains("sitemap-highlights.xml"), "sitemapindex must list sitemap-highlights.xml");
-        assertTrue(indexContent.contains("sitemap-cards-1994-95.xml"), "sitemapindex must list sitemap-cards-1994-95.xml");
+        assertTrue(indexContent.contains("sitemap-main.xml.gz"), "sitemapindex must list sitemap-main.xml.gz");
+        assertTrue(indexContent.contains("sitemap-highlights.xml.gz"), "sitemapindex must list sitemap-highlights.xml.gz");
+        assertTrue(indexContent.contains("sitemap-cards-1994-95.xml.gz"), "sitemapindex must list sitemap-cards-1994-95.xml.gz");
 
         // Check sitemap-main.xml
-        Path sitemapMainFile = outputDir.resolve("sitemap-main.xml");
-        assertTrue(Files.exists(sitemapMainFile), "sitemap-main.xml must exist");
-        String mainContent = Files.readString(sitemapMainFile);
+        Path sitemapMainFile = outputDir.resolve("sitemap-main.xml.gz");
+        assertTrue(Files.exists(sitemapMainFile), "sitemap-main.xml.gz must exist");
+        String mainContent = readGzip(sitemapMainFile);
         assertTrue(mainContent.contains("<priority>1.0</priority>"), "Main sitemap must have priority 1.0");
         assertTrue(mainContent.contains("<changefreq>daily</changefreq>"), "Main sitemap must have changefreq daily");
 
         // Check sitemap-highlights.xml for Image SEO namespace and tags
-        Path sitemapHighlightsFile = outputDir.resolve("sitemap-highlights.xml");
-        assertTrue(Files.exists(sitemapHighlightsFile), "sitemap-highlights.xml must exist");
-        String highlightsContent = Files.readString(sitemapHighlightsFile);
+        Path sitemapHighlightsFile = outputDir.resolve("sitemap-highlights.xml.gz");
+        assertTrue(Files.exists(sitemapHighlightsFile), "sitemap-highlights.xml.gz must exist");
+        String highlightsContent = readGzip(sitemapHighlightsFile);
         assertTrue(highlightsContent.contains("<priority>0.9</priority>"), "Highlights sitemap must have priority 0.9");
         assertTrue(highlightsContent.contains("rare-card-1.html"), "Highlights sitemap must contain rare card");
         assertTrue(highlightsContent.contains("xmlns:image=\"http://www.google.com/schemas/sitemap-image/1.1\""), "Highlights sitemap must include image namespace");
@@ -96,13 +106,45 @@ class SitemapGeneratorTest {
         assertTrue(highlightsContent.contains("<image:caption>Rare Front Scan</image:caption>"), "Image caption must be set");
 
         // Check sitemap-cards-1994-95.xml
-        Path sitemapCardsFile = outputDir.resolve("sitemap-cards-1994-95.xml");
-        assertTrue(Files.exists(sitemapCardsFile), "sitemap-cards-1994-95.xml must exist");
-        String cardsContent = Files.readString(sitemapCardsFile);
+        Path sitemapCardsFile = outputDir.resolve("sitemap-cards-1994-95.xml.gz");
+        assertTrue(Files.exists(sitemapCardsFile), "sitemap-cards-1994-95.xml.gz must exist");
+        String cardsContent = readGzip(sitemapCardsFile);
         assertTrue(cardsContent.contains("<priority>0.5</priority>"), "Cards sitemap must have priority 0.5");
         assertTrue(cardsContent.contains("base-card-2.html"), "Cards sitemap must contain base card");
     }
 
+    @Test
+    void testFeedsAreBuiltFromTheCardModel() throws Exception {
+        // A stale page on disk must not leak into the feeds outside recovery mode
+        Path staleDir = Files.createDirectories(outputDir.resolve("cards/1980-81"));
+        Files.writeString(staleDir.resolve("stale-card.html"), "<html><head><title>Stale</title></head><body><h1>Stale Card</h1></body></html>");
+
+        CardJson json = new CardJson();
+        json.player = "Juwan Howard";
+        json.season = "1997-98";
+        json.company = "Fleer";
+        json.brand = "Metal Universe";
+        json.variant = "Precious Metal Gems Green";
+        json.cardNumber = "33";
+        json.printRun = 10;
+        CardPageGenerator.CardData card = new CardPageGenerator.CardData(json, null);
+        CardPageGenerator.CardView view = card.view();
+
+        SitemapGenerator.setTimestampTracker(null);
+        SitemapGenerator.generate(List.of(card));
+
+        String llmsFull = Files.readString(outputDir.resolve("llms-full.txt"));
+        assertTrue(llmsFull.contains(SitemapGenerator.llmsFullEntry(card)), "llms-full.txt must contain the card entry");
+        assertTrue(llmsFull.contains("### " + view.h1Title() + "\n- URL: " + view.url() + "\n"));
+        assertFalse(llmsFull.contains("Stale Card"), "llms-full.txt must not scrape rendered pages");
+
+        String rss = Files.readString(outputDir.resolve("rss.xml"));
+        assertTrue(rss.contains("<guid isPermaLink=\"true\">" + view.url() + "</guid>"), "rss.xml must link the card page");
+        assertFalse(rss.contains("stale-card.html"), "rss.xml must not scrape rendered pages");
+
+        Files.deleteIfExists(staleDir.resolve("stale-card.html"));
+    }
+
     @Test
     void testExtractHighestResCandidate() {
         String srcset = "img-400w.avif 400w, img-600w.avif 600w, img-900w.avif 900w, img-1200w.avif 1200w";
@@ -0,0 +1,116 @@
+package de.maulmann;
+
+import de.maulmann.SitemapGenerator.ImageEntry;
+import de.maulmann.SitemapGenerator.SitemapUrlEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SitemapWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    static String readGzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<SitemapUrlEntry> entries(String prefix, int count, String lastMod) {
+        List<SitemapUrlEntry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String path = "cards/" + prefix + "/card-" + i + ".html";
+            entries.add(new SitemapUrlEntry(path, CardUtils.BASE_URL + "/" + path, lastMod, "yearly", "0.5",
+                    List.of(new ImageEntry(CardUtils.BASE_URL + "/images/" + i + "-front.avif", "Card & Co " + i, "Front"))));
+        }
+        return entries;
+    }
+
+    @Test
+    void testWritesGzippedChildrenWithMaxLastMod() throws Exception {
+        Map<String, List<SitemapUrlEntry>> children = new LinkedHashMap<>();
+        List<SitemapUrlEntry> main = new ArrayList<>(entries("main", 2, "2026-01-05"));
+        main.addAll(entries("late", 1, "2026-03-01"));
+        children.put("sitemap-main", main);
+        children.put("sitemap-cards-1995-96", entries("1995-96", 3, "2025-12-24"));
+
+        List<SitemapWriter.Shard> shards = new SitemapWriter(tempDir).writeAll(children);
+
+        assertEquals(List.of("sitemap-main.xml.gz", "sitemap-cards-1995-96.xml.gz"),
+                shards.stream().map(SitemapWriter.Shard::fileName).toList());
+        assertEquals("2026-03-01", shards.get(0).maxLastMod());
+        assertEquals("2025-12-24", shards.get(1).maxLastMod());
+
+        String xml = readGzip(tempDir.resolve("sitemap-main.xml.gz"));
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<urlset"));
+        assertTrue(xml.endsWith("</urlset>"));
+        assertTrue(xml.contains("<image:title>Card &amp; Co 0</image:title>"));
+        assertEquals(3, xml.split("<url>", -1).length - 1);
+    }
+
+    @Test
+    void testShardsAtUrlAndByteLimits() throws Exception {
+        Map<String, List<SitemapUrlEntry>> children = new LinkedHashMap<>();
+        children.put("sitemap-cards-1996-97", entries("1996-97", 5, "2026-01-01"));
+
+        List<SitemapWriter.Shard> byUrls = new SitemapWriter(tempDir, 2, SitemapWriter.MAX_BYTES).writeAll(children);
+        assertEquals(List.of(2, 2, 1), byUrls.stream().map(SitemapWriter.Shard::urls).toList());
+        assertEquals("sitemap-cards-1996-97-3.xml.gz", byUrls.get(2).fileName());
+        assertFalse(Files.exists(tempDir.resolve("sitemap-cards-1996-97.xml.gz")));
+
+        // Room for the header plus a little more than one entry
+        long entryBytes = SitemapWriter.render(children.get("sitemap-cards-1996-97").getFirst()).getBytes(StandardCharsets.UTF_8).length;
+        List<SitemapWriter.Shard> byBytes = new SitemapWriter(tempDir, SitemapWriter.MAX_URLS, 200 + entryBytes + entryBytes / 2)
+                .writeAll(children);
+        assertEquals(5, byBytes.size());
+        assertTrue(byBytes.stream().allMatch(s -> s.urls() == 1));
+    }
+
+    @Test
+    void testUnchangedShardsAreNotRewritten() throws Exception {
+        Map<String, List<SitemapUrlEntry>> children = new LinkedHashMap<>();
+        children.put("sitemap-main", entries("main", 2, "2026-01-01"));
+        children.put("sitemap-highlights", entries("rare", 2, "2026-01-01"));
+        new SitemapWriter(tempDir).writeAll(children);
+
+        Path main = tempDir.resolve("sitemap-main.xml.gz");
+        FileTime old = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(main, old);
+
+        children.put("sitemap-highlights", entries("rare", 3, "2026-02-01"));
+        List<SitemapWriter.Shard> shards = new SitemapWriter(tempDir).writeAll(children);
+
+        assertFalse(shards.get(0).written());
+        assertTrue(shards.get(1).written());
+        assertEquals(old, Files.getLastModifiedTime(main));
+        assertEquals("2026-02-01", shards.get(1).maxLastMod());
+    }
+
+    @Test
+    void testRemovesStaleChildren() throws Exception {
+        Files.writeString(tempDir.resolve("sitemap-cards-old.xml"), "<urlset/>");
+        Files.writeString(tempDir.resolve("sitemap.xml"), "<sitemapindex/>");
+        Map<String, List<SitemapUrlEntry>> children = new LinkedHashMap<>();
+        children.put("sitemap-main", entries("main", 1, "2026-01-01"));
+
+        new SitemapWriter(tempDir).writeAll(children);
+
+        assertFalse(Files.exists(tempDir.resolve("sitemap-cards-old.xml")));
+        assertTrue(Files.exists(tempDir.resolve("sitemap.xml")), "The index is written by SitemapGenerator and must be kept");
+        assertTrue(Files.exists(tempDir.resolve(SitemapWriter.MANIFEST)));
+    }
+}
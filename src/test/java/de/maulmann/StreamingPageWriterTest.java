@@ -0,0 +1,107 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingPageWriterTest {
+
+    private static final String PAGE = "<html><head><link href=\"main.css?v=1a2b3c4d\"></head>\n"
+            + "{{CONSENT_BANNER}}<body>m [[ {{ main.css?v=zz mmain.css?v=ABC [[STABLEé 🏀 €"
+            + "<footer>Updated: [[STABLE_TIME]]</footer>main.css?v=</body></html>";
+
+    @TempDir
+    Path tempDir;
+
+    private static StreamingPageWriter stream(StreamingPageWriter out, String content) throws Exception {
+        // Odd chunk sizes so placeholders and surrogate pairs are split across write calls
+        for (int pos = 0, step = 1; pos < content.length(); pos += step, step = step % 7 + 2) {
+            out.write(content, pos, Math.min(step, content.length() - pos));
+        }
+        out.close();
+        return out;
+    }
+
+    @Test
+    void testDigestMatchesTimestampTrackerNormalization() throws Exception {
+        String normalized = PAGE.replace("[[STABLE_TIME]]", "").replaceAll("main\\.css\\?v=[a-fA-F0-9]+", "main.css?v=STABLE");
+        StreamingPageWriter out = stream(new StreamingPageWriter(tempDir.resolve("card.html"), ContentHasher.fast(), true, "<div>banner</div>", true), PAGE);
+
+        assertEquals(ContentHasher.fast().hash(normalized), out.getDigestHex());
+        assertEquals(ContentHasher.md5().hash(normalized), out.getLegacyDigestHex());
+        assertTrue(out.hasStableTime());
+        out.discard();
+    }
+
+    @Test
+    void testCommitWritesSameBytesAsStringReplacement() throws Exception {
+        Path target = tempDir.resolve("cards").resolve("card.html");
+        StreamingPageWriter out = stream(new StreamingPageWriter(target, ContentHasher.fast(), false, "<div>banner</div>", true), PAGE);
+        assertNull(out.getLegacyDigestHex());
+        out.commit("17.10.2026 12:34:56");
+
+        String expected = PAGE.replace("[[STABLE_TIME]]", "17.10.2026 12:34:56").replace("{{CONSENT_BANNER}}", "<div>banner</div>");
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), Files.readAllBytes(target));
+        try (var files = Files.list(target.getParent())) {
+            assertEquals(1, files.count(), "Temp file must be gone after commit.");
+        }
+    }
+
+    @Test
+    void testTimestampsOfOtherWidthsAreSpliced() throws Exception {
+        Path target = tempDir.resolve("card.html");
+        stream(new StreamingPageWriter(target, ContentHasher.fast(), false, null, true), "a[[STABLE_TIME]]b[[STABLE_TIME]]c").commit("now");
+        assertEquals("anowbnowc", Files.readString(target));
+    }
+
+    @Test
+    void testCapturedBytesMatchTheCommittedFile() throws Exception {
+        Path target = tempDir.resolve("card.html");
+        StreamingPageWriter fixed = stream(new StreamingPageWriter(target, ContentHasher.fast(), false, "<div>banner</div>", true, true), PAGE);
+        assertNull(fixed.getCommittedBytes(), "Nothing is committed before commit().");
+        fixed.commit("17.10.2026 12:34:56");
+        assertArrayEquals(Files.readAllBytes(target), fixed.getCommittedBytes());
+
+        StreamingPageWriter spliced = stream(new StreamingPageWriter(target, ContentHasher.fast(), false, null, true, true), "a[[STABLE_TIME]]b");
+        spliced.commit("now");
+        assertArrayEquals("anowb".getBytes(StandardCharsets.UTF_8), spliced.getCommittedBytes());
+        assertEquals("anowb", Files.readString(target));
+
+        StreamingPageWriter plain = stream(new StreamingPageWriter(target, ContentHasher.fast(), false, null, true), "x");
+        plain.commit("now");
+        assertNull(plain.getCommittedBytes(), "Bytes are only kept when capturing.");
+    }
+
+    @Test
+    void testDiscardKeepsExistingPage() throws Exception {
+        Path target = Files.writeString(tempDir.resolve("card.html"), "old");
+        stream(new StreamingPageWriter(target, ContentHasher.fast(), false, null, false), "new [[STABLE_TIME]]").discard();
+        assertEquals("old", Files.readString(target));
+        assertFalse(Files.exists(tempDir.resolve(".card.html" + StreamingPageWriter.TEMP_SUFFIX)));
+    }
+
+    @Test
+    void testResolveReportsUnchangedContent() throws Exception {
+        TimestampTracker tracker = new TimestampTracker(tempDir.resolve("timestamps.bin").toString());
+        Path target = tempDir.resolve("card.html");
+        StreamingPageWriter first = stream(new StreamingPageWriter(target, tracker.getHasher(), false, "", true), PAGE);
+        TimestampTracker.Resolution r1 = tracker.resolve("card.html", first.getDigestHex(), null);
+        assertTrue(r1.modified());
+        first.commit(r1.timestamp());
+        tracker.save();
+
+        TimestampTracker reloaded = new TimestampTracker(tempDir.resolve("timestamps.bin").toString());
+        assertFalse(reloaded.needsLegacyDigest("card.html"), "Entries written by the current hasher need no MD5.");
+        String changedCss = PAGE.replace("1a2b3c4d", "ffff0000");
+        StreamingPageWriter second = stream(new StreamingPageWriter(target, reloaded.getHasher(), false, "", true), changedCss);
+        TimestampTracker.Resolution r2 = reloaded.resolve("card.html", second.getDigestHex(), null);
+        assertFalse(r2.modified(), "A new css version alone must not count as a change.");
+        assertEquals(r1.timestamp(), r2.timestamp());
+        second.discard();
+    }
+}
@@ -0,0 +1,136 @@
+package de.maulmann;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadQueueTest {
+
+    private static final String PAGE = "<html>\n  <body>\n    <h1>Card</h1>\n    <!-- note -->\n  </body>\n</html>\n";
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        UploadQueue.disable();
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(tempDir.resolve(name), content);
+    }
+
+    @Test
+    void testOfferIsIgnoredWhileDisabled() throws Exception {
+        Path page = write("index.html", PAGE);
+        UploadQueue.offer(page, PAGE.getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(UploadQueue.isEnabled());
+        assertNull(UploadQueue.take(page));
+    }
+
+    @Test
+    void testChangedPageIsMinifiedAndCompressedWithTheTrackerDigest() throws Exception {
+        FileTracker tracker = new FileTracker(tempDir.resolve("sync-hashes.bin").toString());
+        List<String> compressed = Collections.synchronizedList(new ArrayList<>());
+        UploadQueue.enable(tracker, (data, type) -> compressed.add(type + ":" + new String(data, StandardCharsets.UTF_8)));
+
+        Path page = write("index.html", PAGE);
+        UploadQueue.offer(page, PAGE.getBytes(StandardCharsets.UTF_8));
+        // The pipeline walks relative paths, renderers may use others for the same file
+        UploadQueue.Artifact artifact = UploadQueue.take(page.toAbsolutePath().resolve("../index.html"));
+
+        assertNotNull(artifact);
+        assertEquals(tracker.getHash(page), artifact.digest());
+        String minified = HTMLMinifier.minifyHTML(PAGE);
+        assertEquals(List.of("html:" + minified), compressed);
+        assertEquals(minified.length(), artifact.minifiedLength());
+        assertEquals(ArtifactCache.digest(minified.getBytes(StandardCharsets.UTF_8)), artifact.cacheKey(), "The artifact cache key of the minified page.");
+        assertFalse(artifact.gzipped(), "No gzip variant without a gzip compressor.");
+        assertNull(UploadQueue.take(page), "An artifact is handed out once.");
+    }
+
+    @Test
+    void testCompressedBytesAreLeftInTheArtifactCache() throws Exception {
+        ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache"), ArtifactCache.DEFAULT_MAX_BYTES);
+        UploadQueue.enable(new FileTracker(tempDir.resolve("sync-hashes.bin").toString()),
+                (data, type) -> cache.get(data, "br5", input -> new byte[]{1}),
+                (data, type) -> cache.get(data, "gz6", input -> GZIPCompressor.compressBytes(input, 6)));
+
+        Path page = write("index.html", PAGE);
+        UploadQueue.offer(page, PAGE.getBytes(StandardCharsets.UTF_8));
+        UploadQueue.Artifact artifact = UploadQueue.take(page);
+
+        assertTrue(artifact.gzipped());
+        assertArrayEquals(new byte[]{1}, cache.find(artifact.cacheKey(), "br5"));
+        try (var in = new java.util.zip.GZIPInputStream(new java.io.ByteArrayInputStream(cache.find(artifact.cacheKey(), "gz6")))) {
+            assertEquals(HTMLMinifier.minifyHTML(PAGE), new String(in.readAllBytes(), StandardCharsets.UTF_8), "Both encodings come from the same minified bytes.");
+        }
+        assertNull(cache.find(artifact.cacheKey(), "br11"));
+    }
+
+    @Test
+    void testOffersBlockWhileTooManyPagesArePending() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        UploadQueue.enable(new FileTracker(tempDir.resolve("sync-hashes.bin").toString()), (data, type) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AtomicInteger offered = new AtomicInteger();
+        Thread renderer = Thread.ofVirtual().start(() -> {
+            for (int i = 0; i <= UploadQueue.MAX_PENDING; i++) {
+                UploadQueue.offer(tempDir.resolve("page" + i + ".html"), (PAGE + i).getBytes(StandardCharsets.UTF_8));
+                offered.incrementAndGet();
+            }
+        });
+
+        renderer.join(Duration.ofMillis(300));
+        assertEquals(UploadQueue.MAX_PENDING, offered.get(), "The renderer waits for a free slot.");
+        release.countDown();
+        assertTrue(renderer.join(Duration.ofSeconds(5)));
+        assertEquals(UploadQueue.MAX_PENDING + 1, offered.get());
+    }
+
+    @Test
+    void testPageUnchangedSinceLastUploadIsNotCompressed() throws Exception {
+        FileTracker tracker = new FileTracker(tempDir.resolve("sync-hashes.bin").toString());
+        Path page = write("index.html", PAGE);
+        tracker.updateHash(page);
+        UploadQueue.enable(tracker, (data, type) -> {
+            throw new AssertionError("Unchanged pages must not be compressed");
+        });
+
+        UploadQueue.offer(page, PAGE.getBytes(StandardCharsets.UTF_8));
+        UploadQueue.Artifact artifact = UploadQueue.take(page);
+
+        assertEquals(tracker.getStoredHash(page), artifact.digest());
+        assertNull(artifact.cacheKey());
+        assertFalse(artifact.gzipped());
+    }
+
+    @Test
+    void testFailedPreparationFallsBackToDisk() throws Exception {
+        UploadQueue.enable(new FileTracker(tempDir.resolve("sync-hashes.bin").toString()), (data, type) -> {
+            throw new java.io.IOException("encoder unavailable");
+        });
+        Path page = write("index.html", PAGE);
+        UploadQueue.offer(page, PAGE.getBytes(StandardCharsets.UTF_8));
+
+        assertNull(UploadQueue.take(page));
+    }
+}